@@ -2,8 +2,13 @@ package dev.demo.spring_boot_with_mongodb;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+// Class proxies: the event listeners of the services are not part of their interfaces
+@EnableAsync(proxyTargetClass = true)
 public class SpringBootWithMongodbApplication {
 
     public static void main(String[] args) {
@@ -1,22 +1,43 @@
 package dev.demo.spring_boot_with_mongodb.bootstrap;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import dev.demo.spring_boot_with_mongodb.model.Department;
 import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
 import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
 import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Loads initial data for Departments and Students from JSON files on application startup.
+ * The files default to the bundled samples; {@code app.seed.departments-file} and {@code app.seed.students-file}
+ * take any resource location, e.g. {@code file:/data/students.json}.
+ * Students are parsed one array element at a time and inserted in unordered bulk writes of
+ * {@code app.seed.batch-size}, with up to {@code app.seed.writer-threads} batches in flight,
+ * so a seed file of any size is loaded with a few batches in memory.
+ * <p>
+ * A collection that holds students is not seeded again, so a seed that stopped early (unreadable file, failed write)
+ * stays partial; it is logged as such. {@code app.seed.resume} seeds anyway: students whose id is already stored
+ * are skipped, which completes such a seed.
  */
 @Component
 public class InitDataLoader implements CommandLineRunner {
@@ -25,40 +46,62 @@ public class InitDataLoader implements CommandLineRunner {
     private final StudentRepository studentRepo;
     private final DepartmentRepository deptRepo;
     private final ObjectMapper objectMapper;
+    private final ObjectReader studentReader;
+    private final Resource departmentsFile;
+    private final Resource studentsFile;
+    private final int batchSize;
+    private final int writerThreads;
+    private final boolean resume;
 
-    public InitDataLoader(StudentRepository studentRepo, DepartmentRepository deptRepo, ObjectMapper objectMapper) {
+    public InitDataLoader(StudentRepository studentRepo, DepartmentRepository deptRepo, ObjectMapper objectMapper,
+                          @Value("${app.seed.departments-file:classpath:data/departments.json}") Resource departmentsFile,
+                          @Value("${app.seed.students-file:classpath:data/students.json}") Resource studentsFile,
+                          @Value("${app.seed.batch-size:1000}") int batchSize,
+                          @Value("${app.seed.writer-threads:4}") int writerThreads,
+                          @Value("${app.seed.resume:false}") boolean resume) {
         this.studentRepo = studentRepo;
         this.deptRepo = deptRepo;
         this.objectMapper = objectMapper;
+        this.studentReader = objectMapper.readerFor(Student.class);
+        this.departmentsFile = departmentsFile;
+        this.studentsFile = studentsFile;
+        this.batchSize = batchSize;
+        this.writerThreads = writerThreads;
+        this.resume = resume;
     }
 
     /**
      * Entry point for CommandLineRunner.
-     * Delegates seeding of departments and students.
+     * Seeds departments and students at the same time: students only store the id of their department,
+     * so neither collection needs the other to be loaded first. Returns once both are seeded.
      */
     @Override
     public void run(String... args) throws Exception {
         LOG.info("=== Data Seeding: START ===");
-        seedDepartments();
-        seedStudents();
-        LOG.info("=== Data Seeding: COMPLETE ===");
+        long start = System.currentTimeMillis();
+        try (ExecutorService executor = Executors.newFixedThreadPool(writerThreads + 1)) {
+            Future<?> departments = executor.submit(this::seedDepartments);
+            seedStudents(executor);
+            departments.get();
+        }
+        LOG.info("=== Data Seeding: COMPLETE in {} ms ===", System.currentTimeMillis() - start);
     }
 
     /**
-     * Seed Department collection if empty.
+     * Seed Department collection if empty, with a single insert.
      * Logs timing and count information.
      */
-    private void seedDepartments() throws IOException {
+    private void seedDepartments() {
         long start = System.currentTimeMillis();
         long count = deptRepo.count();
         if (count > 0) {
             LOG.info("→ Departments already exist (count = {}), skipping load.", count);
         } else {
-            LOG.info("→ No departments found, loading from JSON…");
+            LOG.info("→ No departments found, loading from {}…", departmentsFile.getDescription());
             try {
                 List<Department> departments = loadDepartments();
                 LOG.debug("Loaded {} departments from JSON", departments.size());
-                deptRepo.saveAll(departments);
+                deptRepo.insert(departments);
                 LOG.info("✔ Inserted {} departments in {} ms", departments.size(), System.currentTimeMillis() - start);
             } catch (IOException e) {
                 LOG.error("✘ Failed to load departments JSON", e);
@@ -67,48 +110,137 @@ public class InitDataLoader implements CommandLineRunner {
     }
 
     /**
-     * Seed Student collection if empty.
-     * Logs timing and count information.
+     * Seed Student collection if empty, or on {@code app.seed.resume}, streaming the file into batches
+     * written on the executor. Logs timing and count information, and loudly a seed that stopped early.
      */
-    private void seedStudents() throws IOException {
+    private void seedStudents(ExecutorService executor) {
         long start = System.currentTimeMillis();
         long count = studentRepo.count();
+        if (count > 0 && !resume) {
+            LOG.info("→ Students already exist (count = {}), skipping load. "
+                    + "If an earlier seed stopped early, start once with app.seed.resume=true to complete it.", count);
+            return;
+        }
         if (count > 0) {
-            LOG.info("→ Students already exist (count = {}), skipping load.", count);
+            LOG.info("→ Resuming the students seed from {} (count = {}), skipping stored ids…", studentsFile.getDescription(), count);
         } else {
-            LOG.info("→ No students found, loading from JSON…");
-            try {
-                List<Student> students = loadStudents();
-                LOG.debug("Loaded {} students from JSON", students.size());
-                studentRepo.saveAll(students);
-                LOG.info("✔ Inserted {} students in {} ms", students.size(), System.currentTimeMillis() - start);
-            } catch (IOException e) {
-                LOG.error("✘ Failed to load students JSON", e);
+            LOG.info("→ No students found, loading from {}…", studentsFile.getDescription());
+        }
+        BatchWriter writer = new BatchWriter(executor);
+        long read = 0;
+        boolean stoppedEarly = false;
+        try (InputStream in = studentsFile.getInputStream(); JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of students");
             }
+            List<Student> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.START_OBJECT && !writer.failed()) {
+                batch.add(studentReader.readValue(parser));
+                read++;
+                if (batch.size() == batchSize) {
+                    writer.submit(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) writer.submit(batch);
+        } catch (IOException e) {
+            LOG.error("✘ Failed to load students JSON", e);
+            stoppedEarly = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.error("✘ Interrupted while loading students JSON");
+            stoppedEarly = true;
+        }
+        writer.await();
+        if (stoppedEarly || writer.failed()) {
+            LOG.error("✘ Students seed INCOMPLETE: stopped after reading {} students, {} inserted. Later starts skip the "
+                    + "non-empty collection; start once with app.seed.resume=true to complete it.", read, writer.inserted());
         }
+        if (writer.failure() != null) throw writer.failure();
+        LOG.info("✔ Inserted {} of {} students in {} ms{}", writer.inserted(), read, System.currentTimeMillis() - start,
+                writer.existing() > 0 ? ", " + writer.existing() + " were already stored" : "");
     }
 
     /**
-     * Reads the departments.json file from classpath and deserializes into a List<Department>.
+     * Reads the departments file and deserializes into a List<Department>.
      *
      * @throws IOException if the file cannot be read or parsed
      */
     public List<Department> loadDepartments() throws IOException {
-        ClassPathResource resource = new ClassPathResource("data/departments.json");
-        LOG.debug("Loading departments from classpath resource: {}", resource.getFilename());
-        return objectMapper.readValue(resource.getInputStream(), new TypeReference<>() {
-        });
+        LOG.debug("Loading departments from resource: {}", departmentsFile.getDescription());
+        try (InputStream in = departmentsFile.getInputStream()) {
+            return objectMapper.readerForListOf(Department.class).readValue(in);
+        }
     }
 
     /**
-     * Reads the students.json file from classpath and deserializes into a List<Student>.
-     *
-     * @throws IOException if the file cannot be read or parsed
+     * Writes student batches on the executor, with at most {@code writerThreads} batches in flight.
+     * Submitting waits for a free slot, which keeps the parser from running ahead of the database.
+     * After the first failed write no further batch is submitted.
      */
-    private List<Student> loadStudents() throws IOException {
-        ClassPathResource resource = new ClassPathResource("data/students.json");
-        LOG.debug("Loading students from classpath resource: {}", resource.getFilename());
-        return objectMapper.readValue(resource.getInputStream(), new TypeReference<>() {
-        });
+    private final class BatchWriter {
+        private final ExecutorService executor;
+        private final Semaphore slots = new Semaphore(writerThreads);
+        private final AtomicLong inserted = new AtomicLong();
+        private final AtomicLong existing = new AtomicLong();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        BatchWriter(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        void submit(List<Student> batch) throws InterruptedException {
+            slots.acquire();
+            executor.execute(() -> {
+                try {
+                    BulkInsertResult result = studentRepo.insertUnordered(batch);
+                    inserted.addAndGet(result.inserted());
+                    List<BulkInsertResult.Failure> failures = result.failures();
+                    if (resume) {
+                        // Students stored by the seed being resumed
+                        existing.addAndGet(failures.stream().filter(BulkInsertResult.Failure::duplicateKey).count());
+                        failures = failures.stream().filter(f -> !f.duplicateKey()).toList();
+                    }
+                    if (!failures.isEmpty()) {
+                        LOG.warn("{} seed students were not inserted, first: {}",
+                                failures.size(), failures.get(0).message());
+                    }
+                } catch (RuntimeException e) {
+                    if (failure.compareAndSet(null, e)) LOG.error("✘ Failed to insert students", e);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+
+        boolean failed() {
+            return failure.get() != null;
+        }
+
+        /**
+         * @return the first failed write, or {@code null}
+         */
+        RuntimeException failure() {
+            return failure.get();
+        }
+
+        /**
+         * Wait until every submitted batch is written.
+         */
+        void await() {
+            slots.acquireUninterruptibly(writerThreads);
+            slots.release(writerThreads);
+        }
+
+        long inserted() {
+            return inserted.get();
+        }
+
+        /**
+         * @return the students skipped on resume because their id was already stored
+         */
+        long existing() {
+            return existing.get();
+        }
     }
 }
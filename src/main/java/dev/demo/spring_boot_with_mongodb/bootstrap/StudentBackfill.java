@@ -0,0 +1,105 @@
+package dev.demo.spring_boot_with_mongodb.bootstrap;
+
+import com.mongodb.client.result.UpdateResult;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.repository.StudentDerivedFields;
+import dev.demo.spring_boot_with_mongodb.repository.StudentUpdates;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Fills in the derived fields of students written before those fields existed.
+ * New writes maintain them through {@link StudentDerivedFields};
+ * this runner only touches documents still missing them.
+ */
+@Component
+public class StudentBackfill implements ApplicationRunner {
+    private static final Logger LOG = LoggerFactory.getLogger(StudentBackfill.class);
+    static final int BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongo;
+
+    public StudentBackfill(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfillVersions();
+        backfillLowercaseNames();
+        backfillPercentages();
+    }
+
+    /**
+     * Start the version of unversioned students at 0. Runs first: MongoTemplate increments the version on the
+     * update pipelines below as well, and {@code $add} on a missing version would store {@code null}.
+     */
+    private void backfillVersions() {
+        long start = System.currentTimeMillis();
+        UpdateResult result = mongo.updateMulti(query(where("version").exists(false)), new Update().set("version", 0L), Student.class);
+        LOG.info("Backfilled versions of {} students in {} ms", result.getModifiedCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Populate first_name_lower/last_name_lower with {@link StudentDerivedFields#normalize(String)}, so the backfilled
+     * names fold like written ones ({@code $toLower} only folds ASCII letters). Streams the names of the students
+     * missing them and sets them with unordered bulk updates of {@value #BATCH_SIZE}.
+     */
+    private void backfillLowercaseNames() {
+        long start = System.currentTimeMillis();
+        Query missing = query(where("firstNameLower").exists(false));
+        missing.fields().include("firstName", "lastName");
+        long modified = 0;
+        List<Student> batch = new ArrayList<>(BATCH_SIZE);
+        try (Stream<Student> students = mongo.stream(missing, Student.class)) {
+            Iterator<Student> it = students.iterator();
+            while (it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == BATCH_SIZE || !it.hasNext()) {
+                    modified += setLowercaseNames(batch);
+                    batch.clear();
+                }
+            }
+        }
+        LOG.info("Backfilled lowercase names of {} students in {} ms", modified, System.currentTimeMillis() - start);
+    }
+
+    private int setLowercaseNames(List<Student> students) {
+        BulkOperations bulk = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Student.class);
+        for (Student student : students) {
+            bulk.updateOne(query(where("id").is(student.getId())), new Update()
+                    .set("firstNameLower", StudentDerivedFields.normalize(student.getFirstName()))
+                    .set("lastNameLower", StudentDerivedFields.normalize(student.getLastName())));
+        }
+        return bulk.execute().getModifiedCount();
+    }
+
+    /**
+     * Populate the stored percentage with an update pipeline, computed like every other write of it,
+     * see {@link StudentUpdates#percentage()}.
+     */
+    private void backfillPercentages() {
+        long start = System.currentTimeMillis();
+        AggregationUpdate update = AggregationUpdate.from(List.of(
+                context -> new Document("$set", new Document("percentage", StudentUpdates.percentage()))));
+        UpdateResult result = mongo.updateMulti(query(where("percentage").exists(false)), update, Student.class);
+        LOG.info("Backfilled percentages of {} students in {} ms", result.getModifiedCount(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,236 @@
+package dev.demo.spring_boot_with_mongodb.config;
+
+import com.mongodb.ExplainVerbosity;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.IndexCoverageReport;
+import dev.demo.spring_boot_with_mongodb.payload.IndexCoverageReport.QueryPlan;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
+import dev.demo.spring_boot_with_mongodb.repository.StudentPipelines;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Explains every student query shape, with the default sort of its endpoint, and reports
+ * plans that scan the whole collection (COLLSCAN) or sort in memory (SORT, or a {@code $sort} stage the
+ * query layer could not absorb). Paged reads are explained as the pipelines {@link StudentPipelines} builds for the
+ * repository, unfiltered listings and lookups as finds.
+ * <p>
+ * Runs once the application is ready ({@code app.index-verification.on-startup}) and on demand.
+ * With {@code app.index-verification.fail-readiness} the application refuses traffic while a
+ * shape needs a collection scan, or also an in-memory sort with {@code strict-sort}.
+ */
+@Component
+public class IndexCoverageVerifier {
+    private static final Logger LOG = LoggerFactory.getLogger(IndexCoverageVerifier.class);
+    private static final int PAGE_SIZE = 20;
+    /**
+     * Shapes whose sort no index can serve: a {@code $text} match cannot use a second index to order its results.
+     * Their in-memory sort is reported but neither warned about nor held against readiness.
+     */
+    static final Set<String> UNINDEXABLE_SORTS = Set.of("textSearch");
+
+    private final MongoTemplate mongo;
+    private final ApplicationEventPublisher publisher;
+    private final boolean onStartup;
+    private final boolean failReadiness;
+    private final boolean strictSort;
+    private volatile IndexCoverageReport lastReport;
+
+    public IndexCoverageVerifier(MongoTemplate mongo, ApplicationEventPublisher publisher,
+                                 @Value("${app.index-verification.on-startup:true}") boolean onStartup,
+                                 @Value("${app.index-verification.fail-readiness:false}") boolean failReadiness,
+                                 @Value("${app.index-verification.strict-sort:false}") boolean strictSort) {
+        this.mongo = mongo;
+        this.publisher = publisher;
+        this.onStartup = onStartup;
+        this.failReadiness = failReadiness;
+        this.strictSort = strictSort;
+    }
+
+    /**
+     * Verify once all runners (index creation, seeding, backfills) are done, without holding up startup.
+     * With {@code fail-readiness} a failing report turns readiness to refusing as soon as it is known.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyOnStartup() {
+        if (onStartup) verify();
+    }
+
+    /**
+     * Boot reports ACCEPTING_TRAFFIC right after the ready event; keep refusing while the report fails.
+     */
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !isAcceptable(lastReport)) {
+            AvailabilityChangeEvent.publish(publisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+
+    /**
+     * Explain every query shape and log the plans that are not index-backed.
+     *
+     * @return the plan summary of each query shape
+     */
+    public IndexCoverageReport verify() {
+        List<QueryPlan> plans = new ArrayList<>();
+        queryShapes().forEach((name, shape) -> plans.add(summarize(name, explain(shape))));
+        IndexCoverageReport report = new IndexCoverageReport(Instant.now(), plans);
+        for (QueryPlan plan : plans) {
+            if (plan.collectionScan() || avoidableSort(plan)) {
+                LOG.warn("Query {} is not fully index-backed: stages={}, indexes={}", plan.query(), plan.stages(), plan.indexes());
+            } else {
+                LOG.debug("Query {} uses indexes {}", plan.query(), plan.indexes());
+            }
+        }
+        boolean wasAcceptable = isAcceptable(lastReport);
+        lastReport = report;
+        if (isAcceptable(report) != wasAcceptable) {
+            AvailabilityChangeEvent.publish(publisher, this,
+                    wasAcceptable ? ReadinessState.REFUSING_TRAFFIC : ReadinessState.ACCEPTING_TRAFFIC);
+        }
+        return report;
+    }
+
+    private boolean isAcceptable(IndexCoverageReport report) {
+        if (!failReadiness || report == null) return true;
+        return !report.hasCollectionScan() && !(strictSort && report.queries().stream().anyMatch(IndexCoverageVerifier::avoidableSort));
+    }
+
+    private static boolean avoidableSort(QueryPlan plan) {
+        return plan.inMemorySort() && !UNINDEXABLE_SORTS.contains(plan.query());
+    }
+
+    /**
+     * The read queries of the service, with representative arguments and their endpoint's default sort,
+     * in the form the repository sends them.
+     */
+    static Map<String, Shape> queryShapes() {
+        String deptId = new ObjectId().toHexString();
+        Sort byLastName = Sort.by("lastName");
+        Map<String, Shape> shapes = new LinkedHashMap<>();
+        shapes.put("getAll", page(StudentCriteria.all(), byLastName));
+        shapes.put("getActiveStudents", page(StudentCriteria.active(), byLastName));
+        shapes.put("getActiveByDepartment", page(StudentCriteria.activeByDepartment(deptId), byLastName));
+        shapes.put("getStudentsByDepartment", page(StudentCriteria.byDepartment(deptId), byLastName));
+        shapes.put("getStudentByCourse", page(StudentCriteria.byCourse("AI"), byLastName));
+        shapes.put("getHighScorers", page(StudentCriteria.highScorers("AI", 80), byLastName));
+        shapes.put("getStudentsBornBetween",
+                page(StudentCriteria.bornBetween(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 12, 31)), Sort.by("dob")));
+        shapes.put("searchByName", Shape.find(new Query(StudentCriteria.namePrefix("an")).with(byLastName).limit(PAGE_SIZE)));
+        shapes.put("textSearch", page(StudentCriteria.text("anderson"), byLastName));
+        shapes.put("topByPercentage", page(StudentCriteria.withMinPercentage(StudentCriteria.all(), 90.0),
+                Sort.by(Sort.Direction.DESC, "percentage")));
+        shapes.put("isStudentExists", Shape.find(new Query(where("email").is("jane.anderson@example.com")).limit(1)));
+        shapes.put("getRecentEnrollments", Shape.find(new Query().with(Sort.by(Sort.Direction.DESC, "enrollmentDate")).limit(5)));
+        return shapes;
+    }
+
+    /**
+     * A first page as {@code findPage} reads it: a find when unfiltered, otherwise the {@code $facet} pipeline.
+     */
+    private static Shape page(CriteriaDefinition filter, Sort sort) {
+        if (filter.getCriteriaObject().isEmpty()) return Shape.find(new Query().with(sort).limit(PAGE_SIZE));
+        return Shape.pipeline(StudentPipelines.page(filter, PageRequest.of(0, PAGE_SIZE, sort), Set.of()));
+    }
+
+    /**
+     * Explain the read as MongoTemplate would run it, i.e. with mapped field names.
+     *
+     * @return the explain output, queryPlanner verbosity
+     */
+    Document explain(Shape shape) {
+        if (shape.pipeline() != null) {
+            TypedAggregation<Student> explained = shape.pipeline().withOptions(
+                    AggregationOptions.builder().allowDiskUse(true).relaxedMapping().explain(true).build());
+            return mongo.aggregate(explained, Document.class).getRawResults();
+        }
+        Query query = shape.find();
+        QueryMapper mapper = new QueryMapper(mongo.getConverter());
+        MongoPersistentEntity<?> entity = mongo.getConverter().getMappingContext().getRequiredPersistentEntity(Student.class);
+        return mongo.getCollection(mongo.getCollectionName(Student.class))
+                .find(mapper.getMappedObject(query.getQueryObject(), entity))
+                .sort(mapper.getMappedSort(query.getSortObject(), entity))
+                .limit(query.getLimit())
+                .explain(ExplainVerbosity.QUERY_PLANNER);
+    }
+
+    /**
+     * Summarize the explain output of a find or an aggregation: the stages of the winning plans, whatever nesting
+     * (inputStage, inputStages, queryPlan, $cursor) the server uses, and the pipeline stages left after the query
+     * layer. Rejected plans are skipped.
+     */
+    static QueryPlan summarize(String name, Document explain) {
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collect(explain, stages, indexes);
+        boolean inMemorySort = stages.contains("SORT") || stages.contains("$sort");
+        return new QueryPlan(name, stages, indexes, stages.contains("COLLSCAN"), inMemorySort);
+    }
+
+    private static void collect(Object node, List<String> stages, List<String> indexes) {
+        if (node instanceof Document doc) {
+            if (doc.get("stage") instanceof String stage) {
+                stages.add(stage);
+                if (doc.get("indexName") instanceof String index && !indexes.contains(index)) indexes.add(index);
+            }
+            doc.forEach((key, value) -> {
+                if (key.equals("rejectedPlans")) return;
+                if (key.equals("stages") && value instanceof List<?> pipeline) {
+                    // Aggregation explain: one document per pipeline stage, the first one the query layer ($cursor)
+                    for (Object stage : pipeline) {
+                        if (stage instanceof Document step && !step.isEmpty()) {
+                            String operator = step.keySet().iterator().next();
+                            if (!operator.equals("$cursor")) stages.add(operator);
+                        }
+                    }
+                }
+                collect(value, stages, indexes);
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collect(value, stages, indexes));
+        }
+    }
+
+    /**
+     * A read as the repository sends it: a find, or an aggregation pipeline.
+     */
+    record Shape(Query find, TypedAggregation<Student> pipeline) {
+        static Shape find(Query query) {
+            return new Shape(query, null);
+        }
+
+        static Shape pipeline(TypedAggregation<Student> pipeline) {
+            return new Shape(null, pipeline);
+        }
+    }
+}
@@ -26,6 +26,44 @@ public class MongoIndexConfig {
                             .named("dept_active_idx")
                     );
 
+            // default sort of the unfiltered listing
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index().on("last_name", Sort.Direction.ASC).named("last_name_idx"));
+
+            // active listing and count, sorted by the default sort
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index()
+                            .on("is_active", Sort.Direction.ASC)
+                            .on("last_name", Sort.Direction.ASC)
+                            .named("active_last_name_idx")
+                    );
+
+            // born-between range, read in its default order
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index().on("date_of_birth", Sort.Direction.ASC).named("dob_idx"));
+
+            // recent enrollments, newest first
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index().on("enrollment_date", Sort.Direction.DESC).named("enrollment_date_idx"));
+
+            // ranking and minimum-percentage filtering, best students first
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index().on("percentage", Sort.Direction.DESC).named("percentage_idx"));
+
+            // multikey compound: course + marks of the same element, for $elemMatch and course lookups
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index()
+                            .on("courses.course_name", Sort.Direction.ASC)
+                            .on("courses.marks", Sort.Direction.ASC)
+                            .named("course_marks_idx")
+                    );
+
+            // anchored prefix search on the normalized names, one index per $or branch
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index().on("first_name_lower", Sort.Direction.ASC).named("first_name_lower_idx"));
+            mongo.indexOps(Student.class)
+                    .ensureIndex(new Index().on("last_name_lower", Sort.Direction.ASC).named("last_name_lower_idx"));
+
             // text index on name/email
             mongo.indexOps(Student.class)
                     .ensureIndex(new TextIndexDefinition.TextIndexDefinitionBuilder()
@@ -0,0 +1,38 @@
+package dev.demo.spring_boot_with_mongodb.controller;
+
+import dev.demo.spring_boot_with_mongodb.config.IndexCoverageVerifier;
+import dev.demo.spring_boot_with_mongodb.payload.IndexCoverageReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for operational checks of the student store.
+ */
+@RestController
+@RequestMapping("/api/v1/admin")
+public class AdminController {
+    private static final Logger LOG = LoggerFactory.getLogger(AdminController.class);
+
+    private final IndexCoverageVerifier indexCoverageVerifier;
+
+    public AdminController(IndexCoverageVerifier indexCoverageVerifier) {
+        this.indexCoverageVerifier = indexCoverageVerifier;
+    }
+
+    /**
+     * Explain every student query shape now and report how each one uses the indexes.
+     *
+     * @return the plan summary of each query shape
+     */
+    @GetMapping("/index-coverage")
+    public ResponseEntity<IndexCoverageReport> indexCoverage() {
+        LOG.info("GET /api/v1/admin/index-coverage - indexCoverage called");
+        IndexCoverageReport report = indexCoverageVerifier.verify();
+        LOG.info("indexCoverage: collectionScan={}, inMemorySort={}", report.hasCollectionScan(), report.hasInMemorySort());
+        return ResponseEntity.ok(report);
+    }
+}
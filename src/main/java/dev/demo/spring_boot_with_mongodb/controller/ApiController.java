@@ -1,15 +1,35 @@
 package dev.demo.spring_boot_with_mongodb.controller;
 
+import dev.demo.spring_boot_with_mongodb.payload.BulkCreateResponse;
+import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.ImportResponse;
+import dev.demo.spring_boot_with_mongodb.payload.MarksUpdate;
+import dev.demo.spring_boot_with_mongodb.payload.PageParams;
 import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFilter;
 import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentPatch;
+import dev.demo.spring_boot_with_mongodb.payload.TotalMode;
+import dev.demo.spring_boot_with_mongodb.service.StudentBulkService;
+import dev.demo.spring_boot_with_mongodb.service.StudentExportService;
+import dev.demo.spring_boot_with_mongodb.service.StudentImportService;
 import dev.demo.spring_boot_with_mongodb.service.StudentService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -25,9 +45,16 @@ public class ApiController {
     private static final Logger LOG = LoggerFactory.getLogger(ApiController.class);
 
     private final StudentService studentService;
+    private final StudentBulkService studentBulkService;
+    private final StudentExportService studentExportService;
+    private final StudentImportService studentImportService;
 
-    public ApiController(StudentService studentService) {
+    public ApiController(StudentService studentService, StudentBulkService studentBulkService,
+                         StudentExportService studentExportService, StudentImportService studentImportService) {
         this.studentService = studentService;
+        this.studentBulkService = studentBulkService;
+        this.studentExportService = studentExportService;
+        this.studentImportService = studentImportService;
     }
 
     /**
@@ -43,16 +70,124 @@ public class ApiController {
         LOG.info("Student created successfully with ID: {}", created.id());
         return ResponseEntity
                 .status(HttpStatus.CREATED)
+                .eTag(StudentETags.of(created.version()))
                 .body(created);
     }
 
+    /**
+     * Create many students at once from a JSON array.
+     * Each student is validated and inserted on its own; rejected students do not fail the request.
+     *
+     * @param req the StudentDTO payloads
+     * @return the number of created and rejected students and the outcome of each
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkCreateResponse> addStudents(@RequestBody List<StudentDTO> req) {
+        LOG.info("POST /api/v1/students/bulk - addStudents called with {} students", req.size());
+        BulkCreateResponse res = studentBulkService.createAll(req);
+        LOG.info("addStudents created {} of {} students", res.created(), res.received());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Create many students at once from NDJSON, one student per line.
+     * A line that cannot be read is rejected like an invalid student.
+     *
+     * @param body the NDJSON payload, read one line at a time
+     * @return the number of created and rejected students and the outcome of each
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkCreateResponse> addStudentsNdjson(InputStream body) throws IOException {
+        LOG.info("POST /api/v1/students/bulk - addStudentsNdjson called");
+        BulkCreateResponse res = studentBulkService.createAllFromNdjson(body);
+        LOG.info("addStudentsNdjson created {} of {} students", res.created(), res.received());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Import students from an NDJSON upload of any size, one student per line, read while it is uploaded.
+     * Each row is validated and inserted on its own; rejected rows do not fail the request.
+     *
+     * @param body the NDJSON upload
+     * @return the number of read, created and rejected rows and the first rejects
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportResponse> importStudentsNdjson(InputStream body) throws IOException {
+        LOG.info("POST /api/v1/students/import - importStudentsNdjson called");
+        ImportResponse res = studentImportService.importStudents(body, ExportFormat.NDJSON);
+        LOG.info("importStudentsNdjson created {} of {} students", res.created(), res.read());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Import students from a CSV upload of any size in the layout of the CSV export, read while it is uploaded.
+     * Each row is validated and inserted on its own; rejected rows do not fail the request.
+     *
+     * @param body the CSV upload, with a header row
+     * @return the number of read, created and rejected rows and the first rejects
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportResponse> importStudentsCsv(InputStream body) throws IOException {
+        LOG.info("POST /api/v1/students/import - importStudentsCsv called");
+        ImportResponse res = studentImportService.importStudents(body, ExportFormat.CSV);
+        LOG.info("importStudentsCsv created {} of {} students", res.created(), res.read());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Export the students matching the given filters as a file, streamed while it is read from the database.
+     * Filters are optional and combined; {@code minScore} requires {@code courseName}, {@code start} requires {@code end}.
+     *
+     * @param format        "ndjson" for one JSON student per line, "csv" for a CSV file with a header row (default = ndjson)
+     * @param active        only active or inactive students (optional)
+     * @param deptId        only students of this department (optional)
+     * @param courseName    only students enrolled in this course (optional)
+     * @param minScore      only students with at least these marks in {@code courseName} (optional)
+     * @param start         first date of birth (inclusive, optional)
+     * @param end           last date of birth (inclusive, optional)
+     * @param minPercentage minimum percentage (inclusive) of the exported students (optional)
+     * @param fields        comma-separated StudentDTO fields to export (default = all)
+     * @return the export as an attachment, written to the response as it is produced
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "active", required = false) Boolean active,
+            @RequestParam(value = "deptId", required = false) String deptId,
+            @RequestParam(value = "courseName", required = false) String courseName,
+            @RequestParam(value = "minScore", required = false) Integer minScore,
+            @RequestParam(value = "start", required = false) LocalDate start,
+            @RequestParam(value = "end", required = false) LocalDate end,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage,
+            @RequestParam(value = "fields", required = false) String fields
+    ) {
+        LOG.info("GET /api/v1/students/export - exportStudents called with format={}", format);
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        StudentExportService.ExportWriter writer = studentExportService.export(
+                new StudentFilter(active, deptId, courseName, minScore, start, end, minPercentage),
+                StudentFields.fromParam(fields), exportFormat);
+        StreamingResponseBody body = out -> {
+            long count = writer.writeTo(out);
+            LOG.info("exportStudents wrote {} students", count);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("students." + exportFormat.extension()).build().toString())
+                .body(body);
+    }
+
     /**
      * Retrieve a paginated list of students.
      *
-     * @param page      1-based page number (default = 1)
-     * @param size      number of records per page (default = 20)
-     * @param sortField field to sort by (default = lastName)
-     * @param sortDir   sort direction: "asc" or "desc" (default = asc)
+     * @param page          1-based page number (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     field to sort by (default = lastName)
+     * @param sortDir       sort direction: "asc" or "desc" (default = asc)
+     * @param after         keyset cursor (nextCursor of the previous page), used instead of page; empty starts at the beginning
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a StudentPageResponse containing page metadata and content
      */
     @GetMapping
@@ -60,43 +195,131 @@ public class ApiController {
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
         LOG.info("GET /api/v1/students - getStudents called with page={}, size={}, sortField={}, sortDir={}",
                 page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.getAll(page, size, sortField, sortDir);
+        StudentPageResponse res = studentService.getAll(PageParams.of(page, size, sortField, sortDir).withAfter(after)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("getStudents returned {} records on page {}/{}",
-                res.content().size(), res.pageNumber() + 1, res.totalPages());
-        return ResponseEntity.ok(res);
+                res.content().size(), res.pageNumber(), res.totalPages());
+        return pageResponse(res);
     }
 
     /**
      * Retrieve a single student by ID.
      *
-     * @param id the student ID
-     * @return the corresponding StudentDTO
+     * With {@code If-None-Match}, the version is read first (only {@code _id} and version) and
+     * an unchanged student is answered with 304 Not Modified without loading it.
+     *
+     * @param id      the student ID
+     * @param fields  comma-separated StudentDTO fields to return (default = all)
+     * @param request the request, for the conditional headers
+     * @return the corresponding StudentDTO with its ETag, or {@code null} once a 304 has been sent
      */
     @GetMapping("/{id}")
-    public ResponseEntity<StudentDTO> getStudentById(@PathVariable String id) {
+    public ResponseEntity<StudentDTO> getStudentById(
+            @PathVariable String id,
+            @RequestParam(value = "fields", required = false) String fields,
+            WebRequest request
+    ) {
         LOG.info("GET /api/v1/students/{} - getStudentById called", id);
-        StudentDTO res = studentService.getById(id);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = StudentETags.of(studentService.getVersion(id));
+            if (etag != null && request.checkNotModified(etag)) {
+                LOG.info("getStudentById not modified for ID: {}", id);
+                return null;
+            }
+        }
+        StudentDTO res = studentService.getById(id, StudentFields.fromParam(fields));
         LOG.info("getStudentById found student: {} {}", res.firstName(), res.lastName());
-        return ResponseEntity.ok().body(res);
+        return ResponseEntity.ok().eTag(StudentETags.of(res.version())).body(res);
     }
 
     /**
      * Update an existing student.
      *
-     * @param id  the student ID
-     * @param req the updated StudentDTO payload
-     * @return the updated StudentDTO
+     * With {@code If-Match}, the update only applies if the student still has one of the given ETags (else 412).
+     *
+     * @param id      the student ID
+     * @param req     the updated StudentDTO payload
+     * @param ifMatch the ETags the client expects the student to have (optional)
+     * @return the updated StudentDTO with its new ETag
      */
     @PutMapping("/{id}")
-    public ResponseEntity<StudentDTO> updateStudent(@PathVariable String id, @Valid @RequestBody StudentDTO req) {
-        LOG.info("PUT /api/v1/students/{} - updateStudent called with payload: {}", id, req);
-        StudentDTO updated = studentService.update(id, req);
+    public ResponseEntity<StudentDTO> updateStudent(@PathVariable String id, @Valid @RequestBody StudentDTO req,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        LOG.info("PUT /api/v1/students/{} - updateStudent called with payload: {}, If-Match: {}", id, req, ifMatch);
+        StudentDTO updated = studentService.update(id, req, StudentETags.versions(ifMatch));
         LOG.info("updateStudent completed for ID: {}", updated.id());
-        return ResponseEntity.ok().body(updated);
+        return ResponseEntity.ok().eTag(StudentETags.of(updated.version())).body(updated);
+    }
+
+    /**
+     * Partially update a student: only the fields present in the payload change.
+     *
+     * @param id  the student ID
+     * @param req the fields to change
+     * @return the updated StudentDTO
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<StudentDTO> patchStudent(@PathVariable String id, @Valid @RequestBody StudentPatch req) {
+        LOG.info("PATCH /api/v1/students/{} - patchStudent called with payload: {}", id, req);
+        StudentDTO updated = studentService.patch(id, req);
+        LOG.info("patchStudent completed for ID: {}", updated.id());
+        return ResponseEntity.ok().eTag(StudentETags.of(updated.version())).body(updated);
+    }
+
+    /**
+     * Enroll a student in a course.
+     *
+     * @param id  the student ID
+     * @param req the course and its marks
+     * @return the updated StudentDTO
+     */
+    @PostMapping("/{id}/courses")
+    public ResponseEntity<StudentDTO> addCourse(@PathVariable String id, @Valid @RequestBody CourseDTO req) {
+        LOG.info("POST /api/v1/students/{}/courses - addCourse called with payload: {}", id, req);
+        StudentDTO updated = studentService.addCourse(id, req);
+        LOG.info("addCourse completed for ID: {}", updated.id());
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(StudentETags.of(updated.version())).body(updated);
+    }
+
+    /**
+     * Change the marks of one course of a student.
+     *
+     * @param id   the student ID
+     * @param name the course name
+     * @param req  the new marks
+     * @return the updated StudentDTO
+     */
+    @PatchMapping("/{id}/courses/{name}")
+    public ResponseEntity<StudentDTO> updateMarks(@PathVariable String id, @PathVariable String name,
+                                                  @Valid @RequestBody MarksUpdate req) {
+        LOG.info("PATCH /api/v1/students/{}/courses/{} - updateMarks called with payload: {}", id, name, req);
+        StudentDTO updated = studentService.updateMarks(id, name, req);
+        LOG.info("updateMarks completed for ID: {}", updated.id());
+        return ResponseEntity.ok().eTag(StudentETags.of(updated.version())).body(updated);
+    }
+
+    /**
+     * Drop one course of a student.
+     *
+     * @param id   the student ID
+     * @param name the course name
+     * @return the updated StudentDTO
+     */
+    @DeleteMapping("/{id}/courses/{name}")
+    public ResponseEntity<StudentDTO> removeCourse(@PathVariable String id, @PathVariable String name) {
+        LOG.info("DELETE /api/v1/students/{}/courses/{} - removeCourse called", id, name);
+        StudentDTO updated = studentService.removeCourse(id, name);
+        LOG.info("removeCourse completed for ID: {}", updated.id());
+        return ResponseEntity.ok().eTag(StudentETags.of(updated.version())).body(updated);
     }
 
     /**
@@ -114,20 +337,33 @@ public class ApiController {
     }
 
     /**
-     * Search students by name (first or last, case-insensitive substring).
+     * Search students by name (first or last name prefix, case-insensitive).
+     * Matches are capped (app.students.search.max-results); {@code count} is counted up to the cap.
      *
-     * @param name the search term
-     * @return map containing the search term, count, and matched students
+     * @param name      the name prefix
+     * @param page      1-based page number (default = 1)
+     * @param size      number of records per page (default = 20)
+     * @param sortField field to sort by (default = lastName)
+     * @param sortDir   sort direction: "asc" or "desc" (default = asc)
+     * @return map containing the search term, count, paging info and the matched students of the page
      */
     @GetMapping("/searchByName")
-    public ResponseEntity<Map<String, Object>> searchByName(@RequestParam String name) {
-        LOG.info("GET /api/v1/students/searchByName - searchByName called with name={}", name);
-        List<StudentDTO> students = studentService.searchByName(name);
+    public ResponseEntity<Map<String, Object>> searchByName(
+            @RequestParam String name,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+    ) {
+        LOG.info("GET /api/v1/students/searchByName - searchByName called with name={}, page={}, size={}", name, page, size);
+        StudentPageResponse students = studentService.searchByName(name, PageParams.of(page, size, sortField, sortDir));
         Map<String, Object> res = new HashMap<>();
         res.put("name", name);
-        res.put("count", students.size());
-        res.put("students", students);
-        LOG.info("searchByName found {} students matching '{}'", students.size(), name);
+        res.put("count", students.totalElements());
+        res.put("pageNumber", students.pageNumber());
+        res.put("hasNext", students.hasNext());
+        res.put("students", students.content());
+        LOG.info("searchByName found {} students matching '{}'", students.totalElements(), name);
         return ResponseEntity.ok(res);
     }
 
@@ -135,11 +371,15 @@ public class ApiController {
      * Perform a full-text search over student-first names, last names, and email addresses.
      * Uses the MongoDB text index to match the given term.
      *
-     * @param term      the search term to match against the text index
-     * @param page      1-based page number to retrieve (default = 1)
-     * @param size      number of records per page (default = 20)
-     * @param sortField the field by which to sort results (default = "lastName")
-     * @param sortDir   sort a direction, either "asc" for ascending or "desc" for descending (default = "asc")
+     * @param term          the search term to match against the text index
+     * @param page          1-based page number to retrieve (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     the field by which to sort results (default = "lastName"); "score" sorts by relevance, best first
+     * @param sortDir       sort a direction, either "asc" for ascending or "desc" for descending (default = "asc")
+     * @param minScore      minimum text score of the returned matches (optional), drops low-relevance tails
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a paginated response containing the list of matching students and page metadata
      */
     @GetMapping("/search/{text}")
@@ -148,23 +388,33 @@ public class ApiController {
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "minScore", required = false) Float minScore,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
-        LOG.info("GET api/v1/students/search/{} - textSearch called with term={}, page={}, size={}, sortField={}, sortDir={} ",
-                term, term, page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.textSearch(term, page, size, sortField, sortDir);
+        LOG.info("GET api/v1/students/search/{} - textSearch called with term={}, page={}, size={}, sortField={}, sortDir={}, minScore={}",
+                term, term, page, size, sortField, sortDir, minScore);
+        StudentPageResponse res = studentService.textSearch(term, minScore, PageParams.of(page, size, sortField, sortDir)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("textSearch returned {} records on page {}/{}",
-                res.content().size(), res.pageNumber() + 1, res.totalPages());
-        return ResponseEntity.ok(res);
+                res.content().size(), res.pageNumber(), res.totalPages());
+        return pageResponse(res);
     }
 
     /**
      * Retrieve active students with paging.
      *
-     * @param page      1-based page number (default = 1)
-     * @param size      number of records per page (default = 20)
-     * @param sortField field to sort by (default = lastName)
-     * @param sortDir   sort direction: "asc" or "desc" (default = asc)
+     * @param page          1-based page number (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     field to sort by (default = lastName)
+     * @param sortDir       sort direction: "asc" or "desc" (default = asc)
+     * @param after         keyset cursor (nextCursor of the previous page), used instead of page; empty starts at the beginning
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a StudentPageResponse containing page metadata and content
      */
     @GetMapping("/active")
@@ -172,24 +422,33 @@ public class ApiController {
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
         LOG.info("GET /api/v1/students/active - activeStudents called with page={}, size={}, sortField={}, sortDir={}",
                 page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.getActiveStudents(page, size, sortField, sortDir);
+        StudentPageResponse res = studentService.getActiveStudents(PageParams.of(page, size, sortField, sortDir).withAfter(after)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("activeStudents returned {} records", res.content().size());
-        return ResponseEntity.ok(res);
+        return pageResponse(res);
     }
 
     /**
      * Retrieve a paginated list of active students in a given department.
      * Uses the MongoDB compound index (dept_active_idx) to retrieve data.
      *
-     * @param deptId    the identifier of the department to filter active students
-     * @param page      1-based page number for pagination (default = 1)
-     * @param size      number of records per page (default = 20)
-     * @param sortField the entity field by which to sort results (default = “lastName”)
-     * @param sortDir   in the sort direction, “asc” or “desc” (default = “asc”)
+     * @param deptId        the identifier of the department to filter active students
+     * @param page          1-based page number for pagination (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     the entity field by which to sort results (default = “lastName”)
+     * @param sortDir       in the sort direction, “asc” or “desc” (default = “asc”)
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a {@link StudentPageResponse} containing only active students
      * belonging to the specified department, with paging metadata
      */
@@ -199,13 +458,18 @@ public class ApiController {
             @RequestParam(defaultValue = "1") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
         LOG.info("GET /api/v1/students/active/by-department/{} - activeByDept called with page={}, size={}, sortField={}, sortDir={}",
                 deptId, page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.getActiveByDepartment(deptId, page, size, sortField, sortDir);
+        StudentPageResponse res = studentService.getActiveByDepartment(deptId, PageParams.of(page, size, sortField, sortDir)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("activeByDept returned {} records", res.content().size());
-        return ResponseEntity.ok(res);
+        return pageResponse(res);
     }
 
     /**
@@ -245,11 +509,15 @@ public class ApiController {
     /**
      * Retrieve a paginated list of students enrolled in a given course.
      *
-     * @param courseName the name of the course to filter students by
-     * @param page       1-based page number (default = 1)
-     * @param size       number of records per page (default = 20)
-     * @param sortField  property name to sort results by (default = "lastName")
-     * @param sortDir    sort direction, either "asc" or "desc" (default = "asc")
+     * @param courseName    the name of the course to filter students by
+     * @param page          1-based page number (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     property name to sort results by (default = "lastName")
+     * @param sortDir       sort direction, either "asc" or "desc" (default = "asc")
+     * @param after         keyset cursor (nextCursor of the previous page), used instead of page; empty starts at the beginning
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a StudentPageResponse containing page metadata and content
      */
     @GetMapping("/by-course")
@@ -258,24 +526,33 @@ public class ApiController {
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
         LOG.info("GET /api/v1/students/by-course - getStudentsByCourse called with courseName={}, page={}, size={}, sortField={}, sortDir={}",
                 courseName, page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.getStudentByCourse(courseName, page, size, sortField, sortDir);
+        StudentPageResponse res = studentService.getStudentByCourse(courseName, PageParams.of(page, size, sortField, sortDir).withAfter(after)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("getStudentsByCourse returned {} records", res.content().size());
-        return ResponseEntity.ok(res);
+        return pageResponse(res);
     }
 
     /**
      * Retrieve a paginated list of students who scored at least a minimum mark in a given course.
      *
-     * @param courseName the name of the course to filter by
-     * @param minScore   the minimum score threshold (inclusive)
-     * @param page       1-based page number (default = 1)
-     * @param size       number of records per page (default = 20)
-     * @param sortField  property name to sort results by (default = "lastName")
-     * @param sortDir    sort direction, either "asc" or "desc" (default = "asc")
+     * @param courseName    the name of the course to filter by
+     * @param minScore      the minimum score threshold (inclusive)
+     * @param page          1-based page number (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     property name to sort results by (default = "lastName")
+     * @param sortDir       sort direction, either "asc" or "desc" (default = "asc")
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a StudentPageResponse containing page metadata and content
      */
     @GetMapping("/high-scorers")
@@ -285,23 +562,32 @@ public class ApiController {
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
         LOG.info("GET /api/v1/students/high-scorers - getHighScorers called with courseName={}, minScore={} page={}, size={}, sortField={}, sortDir={}",
                 courseName, minScore, page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.getHighScorers(courseName, minScore, page, size, sortField, sortDir);
+        StudentPageResponse res = studentService.getHighScorers(courseName, minScore, PageParams.of(page, size, sortField, sortDir)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("getHighScorers returned {} records", res.content().size());
-        return ResponseEntity.ok(res);
+        return pageResponse(res);
     }
 
     /**
      * Retrieve a paginated list of students belonging to a specific department.
      *
-     * @param deptId    the ID of the department to filter by
-     * @param page      1-based page number (default = 1)
-     * @param size      number of records per page (default = 20)
-     * @param sortField property name to sort by (default = "lastName")
-     * @param sortDir   sort direction, either "asc" or "desc" (default = "asc")
+     * @param deptId        the ID of the department to filter by
+     * @param page          1-based page number (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     property name to sort by (default = "lastName")
+     * @param sortDir       sort direction, either "asc" or "desc" (default = "asc")
+     * @param after         keyset cursor (nextCursor of the previous page), used instead of page; empty starts at the beginning
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a StudentPageResponse containing page metadata and content
      */
     @GetMapping("/by-department/{deptId}")
@@ -310,24 +596,34 @@ public class ApiController {
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "lastName") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
         LOG.info("GET /api/v1/students/by-department/{} - getStudentsByDepartment called with page={}, size={}, sortField={}, sortDir={}",
                 deptId, page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.getStudentsByDepartment(deptId, page, size, sortField, sortDir);
+        StudentPageResponse res = studentService.getStudentsByDepartment(deptId, PageParams.of(page, size, sortField, sortDir).withAfter(after)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("getStudentsByDepartment returned {} records", res.content().size());
-        return ResponseEntity.ok(res);
+        return pageResponse(res);
     }
 
     /**
      * Retrieve a paginated list of students born between two dates (inclusive).
      *
-     * @param start     the start date (inclusive) of birth range in ISO format (yyyy-MM-dd)
-     * @param end       the end date (inclusive) of birth range in ISO format (yyyy-MM-dd)
-     * @param page      1-based page number (default = 1)
-     * @param size      number of records per page (default = 20)
-     * @param sortField property name to sort by (default = "dob")
-     * @param sortDir   sort direction, either "asc" or "desc" (default = "asc")
+     * @param start         the start date (inclusive) of birth range in ISO format (yyyy-MM-dd)
+     * @param end           the end date (inclusive) of birth range in ISO format (yyyy-MM-dd)
+     * @param page          1-based page number (default = 1)
+     * @param size          number of records per page (default = 20)
+     * @param sortField     property name to sort by (default = "dob")
+     * @param sortDir       sort direction, either "asc" or "desc" (default = "asc")
+     * @param after         keyset cursor (nextCursor of the previous page), used instead of page; empty starts at the beginning
+     * @param withTotal     "true" for an exact total, "estimated" for an approximate one, "false" to skip counting
+     * @param fields        comma-separated StudentDTO fields to return (default = all)
+     * @param minPercentage minimum percentage (inclusive) of the returned students (optional)
      * @return a StudentPageResponse containing page metadata and content
      */
     @GetMapping("/born-between")
@@ -337,13 +633,19 @@ public class ApiController {
             @RequestParam(value = "page", defaultValue = "1") int page,
             @RequestParam(value = "size", defaultValue = "20") int size,
             @RequestParam(value = "sort", defaultValue = "dob") String sortField,
-            @RequestParam(value = "dir", defaultValue = "asc") String sortDir
+            @RequestParam(value = "dir", defaultValue = "asc") String sortDir,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "withTotal", defaultValue = "true") String withTotal,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "minPercentage", required = false) Double minPercentage
     ) {
         LOG.info("GET /api/v1/students/born-between - getStudentsBornBetween called with start={}, end={}, page={}, size={}, sortField={}, sortDir={}",
                 start, end, page, size, sortField, sortDir);
-        StudentPageResponse res = studentService.getStudentsBornBetween(start, end, page, size, sortField, sortDir);
+        StudentPageResponse res = studentService.getStudentsBornBetween(start, end, PageParams.of(page, size, sortField, sortDir).withAfter(after)
+                .withTotal(TotalMode.fromParam(withTotal)).withFields(StudentFields.fromParam(fields))
+                .withMinPercentage(minPercentage));
         LOG.info("getStudentsBornBetween returned {} records", res.content().size());
-        return ResponseEntity.ok(res);
+        return pageResponse(res);
     }
 
     /**
@@ -366,4 +668,10 @@ public class ApiController {
         return ResponseEntity.ok(res);
     }
 
+    /**
+     * A page with the ETag of its students' versions; Spring answers a matching {@code If-None-Match} with 304.
+     */
+    private static ResponseEntity<StudentPageResponse> pageResponse(StudentPageResponse res) {
+        return ResponseEntity.ok().eTag(StudentETags.of(res)).body(res);
+    }
 }
@@ -1,5 +1,7 @@
 package dev.demo.spring_boot_with_mongodb.controller;
 
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.exception.PreconditionFailedException;
 import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
 import dev.demo.spring_boot_with_mongodb.payload.ErrorResponse;
 import dev.demo.spring_boot_with_mongodb.payload.FieldValidationError;
@@ -43,6 +45,42 @@ public class ApiControllerAdvice {
                 .body(error);
     }
 
+    /**
+     * Handle failed conditional writes (412), e.g. an outdated If-Match.
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest request) {
+        LOG.info("Precondition failed: {} at {}", ex.getMessage(), request.getRequestURI());
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.PRECONDITION_FAILED.value(),
+                HttpStatus.PRECONDITION_FAILED.getReasonPhrase(),
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(error);
+    }
+
+    /**
+     * Handle unusable request parameters (400), e.g. a malformed paging cursor.
+     */
+    @ExceptionHandler(InvalidRequestParameterException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidParameter(InvalidRequestParameterException ex, HttpServletRequest request) {
+        LOG.info("Invalid request parameter: {} at {}", ex.getMessage(), request.getRequestURI());
+        ErrorResponse error = new ErrorResponse(
+                LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(error);
+    }
+
     /**
      * Handle validation failures (400), e.g. @Valid.
      */
@@ -0,0 +1,87 @@
+package dev.demo.spring_boot_with_mongodb.controller;
+
+import dev.demo.spring_boot_with_mongodb.payload.CourseStatsDTO;
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+import dev.demo.spring_boot_with_mongodb.payload.MarksPercentiles;
+import dev.demo.spring_boot_with_mongodb.service.CourseStatsService;
+import dev.demo.spring_boot_with_mongodb.service.LeaderboardService;
+import dev.demo.spring_boot_with_mongodb.service.MarksPercentileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for course-level views over the students.
+ */
+@RestController
+@RequestMapping("/api/v1/courses")
+public class CourseController {
+    private static final Logger LOG = LoggerFactory.getLogger(CourseController.class);
+
+    private final CourseStatsService courseStatsService;
+    private final MarksPercentileService marksPercentileService;
+    private final LeaderboardService leaderboardService;
+
+    public CourseController(CourseStatsService courseStatsService,
+                            MarksPercentileService marksPercentileService, LeaderboardService leaderboardService) {
+        this.courseStatsService = courseStatsService;
+        this.marksPercentileService = marksPercentileService;
+        this.leaderboardService = leaderboardService;
+    }
+
+    /**
+     * Retrieve the enrollment count and the mean, min and max marks of every course.
+     *
+     * @return the statistics of each course, ordered by course name
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<CourseStatsDTO>> getStats() {
+        LOG.info("GET /api/v1/courses/stats - getStats called");
+        List<CourseStatsDTO> res = courseStatsService.getAll();
+        LOG.info("getStats returned {} courses", res.size());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Retrieve percentiles of the marks of the course, served from memory.
+     *
+     * @param name the course name
+     * @param p    comma-separated percentile ranks in (0, 100] (default = 50,90,99)
+     * @return the mark at each requested percentile (nearest rank) and the number of marks
+     */
+    @GetMapping("/{name}/percentiles")
+    public ResponseEntity<MarksPercentiles> getPercentiles(
+            @PathVariable String name,
+            @RequestParam(value = MarksPercentiles.PARAMETER, defaultValue = MarksPercentiles.DEFAULT_RANKS) String p
+    ) {
+        LOG.info("GET /api/v1/courses/{}/percentiles - getPercentiles called with p={}", name, p);
+        MarksPercentiles res = marksPercentileService.getCoursePercentiles(name, MarksPercentiles.ranksFromParam(p));
+        LOG.info("getPercentiles returned {} over {} marks", res.percentiles(), res.count());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Retrieve the best students of the course, ranked by their marks in it, served from memory.
+     *
+     * @param name  the course name
+     * @param limit number of students to return, at most {@code app.leaderboard.size} (default = 10)
+     * @return the best students, best first, and the number of ranked students
+     */
+    @GetMapping("/{name}/leaderboard")
+    public ResponseEntity<Leaderboard> getLeaderboard(
+            @PathVariable String name,
+            @RequestParam(defaultValue = Leaderboard.DEFAULT_LIMIT) int limit
+    ) {
+        LOG.info("GET /api/v1/courses/{}/leaderboard - getLeaderboard called with limit={}", name, limit);
+        Leaderboard res = leaderboardService.getCourseLeaderboard(name, limit);
+        LOG.info("getLeaderboard returned {} of {} students", res.entries().size(), res.members());
+        return ResponseEntity.ok(res);
+    }
+}
@@ -0,0 +1,117 @@
+package dev.demo.spring_boot_with_mongodb.controller;
+
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+import dev.demo.spring_boot_with_mongodb.payload.MarksPercentiles;
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+import dev.demo.spring_boot_with_mongodb.service.DepartmentService;
+import dev.demo.spring_boot_with_mongodb.service.LeaderboardService;
+import dev.demo.spring_boot_with_mongodb.service.MarksPercentileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for Department resources.
+ * Exposes aggregated student statistics per department.
+ */
+@RestController
+@RequestMapping("/api/v1/departments")
+public class DepartmentController {
+    private static final Logger LOG = LoggerFactory.getLogger(DepartmentController.class);
+
+    private final DepartmentService departmentService;
+    private final MarksPercentileService marksPercentileService;
+    private final LeaderboardService leaderboardService;
+
+    public DepartmentController(DepartmentService departmentService,
+                                MarksPercentileService marksPercentileService, LeaderboardService leaderboardService) {
+        this.departmentService = departmentService;
+        this.marksPercentileService = marksPercentileService;
+        this.leaderboardService = leaderboardService;
+    }
+
+    /**
+     * Retrieve the student statistics of every department that has students.
+     *
+     * @return student count, active ratio and average marks per department, ordered by department name
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<DepartmentStats>> getAllStats() {
+        LOG.info("GET /api/v1/departments/stats - getAllStats called");
+        List<DepartmentStats> res = departmentService.getAllStats();
+        LOG.info("getAllStats returned {} departments", res.size());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Retrieve the student statistics of one department.
+     *
+     * @param id the department ID
+     * @return student count, active ratio and average marks of the department
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<DepartmentStats> getStats(@PathVariable String id) {
+        LOG.info("GET /api/v1/departments/{}/stats - getStats called", id);
+        DepartmentStats res = departmentService.getStats(id);
+        LOG.info("getStats returned {} students for department {}", res.studentCount(), id);
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Retrieve the number of students of one department, a point read of the materialized counters.
+     *
+     * @param id the department ID
+     * @return total and active number of students of the department
+     */
+    @GetMapping("/{id}/counts")
+    public ResponseEntity<StudentCounts> getCounts(@PathVariable String id) {
+        LOG.info("GET /api/v1/departments/{}/counts - getCounts called", id);
+        StudentCounts res = departmentService.getCounts(id);
+        LOG.info("getCounts returned {} students, {} active, for department {}", res.total(), res.active(), id);
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Retrieve percentiles of the marks of all students of the department, served from memory.
+     *
+     * @param id the department ID
+     * @param p  comma-separated percentile ranks in (0, 100] (default = 50,90,99)
+     * @return the mark at each requested percentile (nearest rank) and the number of marks
+     */
+    @GetMapping("/{id}/percentiles")
+    public ResponseEntity<MarksPercentiles> getPercentiles(
+            @PathVariable String id,
+            @RequestParam(value = MarksPercentiles.PARAMETER, defaultValue = MarksPercentiles.DEFAULT_RANKS) String p
+    ) {
+        LOG.info("GET /api/v1/departments/{}/percentiles - getPercentiles called with p={}", id, p);
+        MarksPercentiles res = marksPercentileService.getDepartmentPercentiles(id, MarksPercentiles.ranksFromParam(p));
+        LOG.info("getPercentiles returned {} over {} marks", res.percentiles(), res.count());
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Retrieve the best students of the department, ranked by percentage, served from memory.
+     *
+     * @param id    the department ID
+     * @param limit number of students to return, at most {@code app.leaderboard.size} (default = 10)
+     * @return the best students, best first, and the number of ranked students
+     */
+    @GetMapping("/{id}/leaderboard")
+    public ResponseEntity<Leaderboard> getLeaderboard(
+            @PathVariable String id,
+            @RequestParam(defaultValue = Leaderboard.DEFAULT_LIMIT) int limit
+    ) {
+        LOG.info("GET /api/v1/departments/{}/leaderboard - getLeaderboard called with limit={}", id, limit);
+        Leaderboard res = leaderboardService.getDepartmentLeaderboard(id, limit);
+        LOG.info("getLeaderboard returned {} of {} students", res.entries().size(), res.members());
+        return ResponseEntity.ok(res);
+    }
+}
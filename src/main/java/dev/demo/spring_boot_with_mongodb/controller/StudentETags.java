@@ -0,0 +1,67 @@
+package dev.demo.spring_boot_with_mongodb.controller;
+
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Strong ETags of student resources, made of the stored versions rather than a hash of the rendered body,
+ * so that a conditional GET of one student can be answered from its version alone.
+ */
+final class StudentETags {
+    private static final String ANY = "*";
+
+    private StudentETags() {
+    }
+
+    /**
+     * @param version the student's version, may be {@code null} if it was not loaded
+     * @return the quoted ETag, or {@code null} without a version
+     */
+    static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * A page changes when a student on it changes, or when the page itself moves (totals, next page);
+     * so its ETag hashes the id and version of each student together with the page metadata.
+     *
+     * @return the quoted ETag, or {@code null} if a student on the page lacks its id or version (sparse fieldsets)
+     */
+    static String of(StudentPageResponse page) {
+        StringBuilder state = new StringBuilder()
+                .append(page.pageNumber()).append('/').append(page.pageSize()).append('/')
+                .append(page.totalElements()).append('/').append(page.totalPages()).append('/')
+                .append(page.hasNext()).append('/').append(page.nextCursor());
+        for (StudentDTO student : page.content()) {
+            if (student.id() == null || student.version() == null) return null;
+            state.append(';').append(student.id()).append(':').append(student.version());
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Versions an {@code If-Match} header accepts. Strong comparison applies, so weak and foreign tags match nothing.
+     *
+     * @param ifMatch the header value, may be {@code null}
+     * @return {@code null} if any version will do (no header or {@code *}), otherwise the accepted versions, possibly none
+     */
+    static Set<Long> versions(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) return null;
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) continue;
+            try {
+                versions.add(Long.parseLong(value.substring(1, value.length() - 1)));
+            } catch (NumberFormatException ignored) {
+                // not one of ours, cannot match
+            }
+        }
+        return versions;
+    }
+}
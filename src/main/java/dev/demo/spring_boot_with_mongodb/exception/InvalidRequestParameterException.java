@@ -0,0 +1,44 @@
+package dev.demo.spring_boot_with_mongodb.exception;
+
+/**
+ * Exception thrown when a request parameter (e.g., a paging cursor)
+ * is syntactically valid for binding but cannot be used to serve the request.
+ */
+public class InvalidRequestParameterException extends RuntimeException {
+    /**
+     * Name of the offending request parameter, e.g. "after".
+     */
+    private final String parameterName;
+    /**
+     * Value of the offending request parameter.
+     */
+    private final String parameterValue;
+
+    /**
+     * Constructs a new InvalidRequestParameterException.
+     *
+     * @param parameterName  the name of the request parameter
+     * @param parameterValue the rejected value
+     * @param reason         why the value was rejected (for error message)
+     */
+    public InvalidRequestParameterException(String parameterName, String parameterValue, String reason) {
+        super(String.format("Invalid value for parameter %s : '%s' (%s)",
+                parameterName, parameterValue, reason));
+        this.parameterName = parameterName;
+        this.parameterValue = parameterValue;
+    }
+
+    /**
+     * @return the name of the rejected request parameter
+     */
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    /**
+     * @return the rejected request parameter value
+     */
+    public String getParameterValue() {
+        return parameterValue;
+    }
+}
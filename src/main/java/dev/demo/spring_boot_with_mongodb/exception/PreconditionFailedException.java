@@ -0,0 +1,44 @@
+package dev.demo.spring_boot_with_mongodb.exception;
+
+/**
+ * Exception thrown when a conditional write (e.g., an {@code If-Match} update)
+ * finds the resource changed since the client read it.
+ */
+public class PreconditionFailedException extends RuntimeException {
+    /**
+     * Name of the resource type, e.g. "Student".
+     */
+    private final String resourceName;
+    /**
+     * ID of the resource that did not meet the precondition.
+     */
+    private final String id;
+
+    /**
+     * Constructs a new PreconditionFailedException.
+     *
+     * @param resourceName the type of the resource (for error message)
+     * @param id           the ID of the resource
+     * @param condition    the precondition that failed, e.g. the expected ETag
+     */
+    public PreconditionFailedException(String resourceName, String id, String condition) {
+        super(String.format("%s with id '%s' does not match %s",
+                resourceName, id, condition));
+        this.resourceName = resourceName;
+        this.id = id;
+    }
+
+    /**
+     * @return the resource type name
+     */
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    /**
+     * @return the ID of the resource
+     */
+    public String getId() {
+        return id;
+    }
+}
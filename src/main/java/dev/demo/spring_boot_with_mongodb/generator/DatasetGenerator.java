@@ -0,0 +1,237 @@
+package dev.demo.spring_boot_with_mongodb.generator;
+
+import com.mongodb.MongoClientSettings;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.MarksHistogramSnapshotRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentDerivedFields;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates a synthetic dataset of {@code app.generator.students} students for scale tests, then exits.
+ * Active with the {@code generate} profile, e.g.
+ * {@code mvn spring-boot:run -Dspring-boot.run.profiles=generate -Dspring-boot.run.arguments=--app.generator.students=1000000}.
+ * <p>
+ * With {@code app.generator.target=mongo} the students are inserted with unordered bulk writes of
+ * {@code app.generator.batch-size}, {@code app.generator.threads} at a time. With {@code ndjson} the departments and
+ * students are written to {@code departments.ndjson} and {@code students.ndjson} in {@code app.generator.output-dir},
+ * as the documents MongoDB would store (same field names, DBRefs and derived fields), ready for {@code mongoimport}.
+ * Chunks are generated on the worker threads; at most {@code threads} chunks are in memory.
+ * <p>
+ * Into a database that already has departments, the students are spread over those departments, by id order,
+ * and no departments are added. Generated ids carry a fixed creation time, so the marks histogram snapshots,
+ * whose staleness check relies on the newest id, are deleted and rebuilt on the next start.
+ * <p>
+ * Runs before the other runners, so the seed data, backfills and index builds do not run against the generated data;
+ * the indexes are built on the next regular start.
+ */
+@Component
+@Profile("generate")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatasetGenerator implements ApplicationRunner {
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetGenerator.class);
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    private final ApplicationContext context;
+    private final StudentRepository studentRepo;
+    private final DepartmentRepository deptRepo;
+    private final MarksHistogramSnapshotRepository snapshotRepo;
+    private final MongoConverter converter;
+    private final StudentDerivedFields derivedFields;
+    private final SyntheticStudents synthetic;
+    private final long students;
+    private final String target;
+    private final Path outputDir;
+    private final int threads;
+    private final int batchSize;
+
+    public DatasetGenerator(ApplicationContext context, StudentRepository studentRepo, DepartmentRepository deptRepo,
+                            MarksHistogramSnapshotRepository snapshotRepo, MongoConverter converter, StudentDerivedFields derivedFields,
+                            @Value("${app.generator.students:1000000}") long students,
+                            @Value("${app.generator.departments:20}") int departments,
+                            @Value("${app.generator.active-ratio:0.85}") double activeRatio,
+                            @Value("${app.generator.courses-min:1}") int minCourses,
+                            @Value("${app.generator.courses-max:5}") int maxCourses,
+                            @Value("${app.generator.department-skew:0.8}") double departmentSkew,
+                            @Value("${app.generator.course-skew:1.0}") double courseSkew,
+                            @Value("${app.generator.seed:42}") long seed,
+                            @Value("${app.generator.target:mongo}") String target,
+                            @Value("${app.generator.output-dir:dataset}") Path outputDir,
+                            @Value("${app.generator.threads:4}") int threads,
+                            @Value("${app.generator.batch-size:1000}") int batchSize) {
+        if (!target.equals("mongo") && !target.equals("ndjson")) {
+            throw new IllegalArgumentException("app.generator.target must be mongo or ndjson, not " + target);
+        }
+        this.context = context;
+        this.studentRepo = studentRepo;
+        this.deptRepo = deptRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.converter = converter;
+        this.derivedFields = derivedFields;
+        this.synthetic = new SyntheticStudents(seed, departments, activeRatio, minCourses, maxCourses,
+                departmentSkew, courseSkew);
+        this.students = students;
+        this.target = target;
+        this.outputDir = outputDir;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        generate();
+        System.exit(SpringApplication.exit(context));
+    }
+
+    /**
+     * Generate the departments, or reuse the stored ones, then the students chunk by chunk.
+     *
+     * @return the number of students written
+     */
+    long generate() throws IOException, InterruptedException {
+        LOG.info("=== Generating {} students into {} ===", students, target.equals("mongo") ? "MongoDB" : outputDir);
+        long start = System.currentTimeMillis();
+        List<Department> departments;
+        long written;
+        if (target.equals("mongo")) {
+            departments = deptRepo.findAll(Sort.by("id"));
+            if (departments.isEmpty()) {
+                departments = deptRepo.insert(synthetic.departments());
+            } else {
+                LOG.info("→ Reusing the {} stored departments", departments.size());
+            }
+            snapshotRepo.deleteAll();
+            written = generateStudents(departments, this::insert);
+        } else {
+            departments = synthetic.departments();
+            Files.createDirectories(outputDir);
+            try (Writer out = Files.newBufferedWriter(outputDir.resolve("departments.ndjson"), StandardCharsets.UTF_8)) {
+                out.write(toNdjson(departments));
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(outputDir.resolve("students.ndjson"), StandardCharsets.UTF_8)) {
+                written = generateStudents(departments, chunk -> append(out, toNdjson(chunk), chunk.size()));
+            }
+        }
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        LOG.info("=== Generated {} students over {} departments in {} ms ({} students/s) ===",
+                written, departments.size(), millis, written * 1000 / millis);
+        return written;
+    }
+
+    /**
+     * Generate and write the students in chunks of {@code batchSize}, with at most {@code threads} chunks in flight.
+     * Stops submitting after the first failed chunk and rethrows its failure.
+     */
+    private long generateStudents(List<Department> departments, ChunkWriter writer) throws InterruptedException {
+        long chunks = (students + batchSize - 1) / batchSize;
+        long progressEvery = Math.max(1, chunks / 20);
+        Semaphore slots = new Semaphore(threads);
+        AtomicLong written = new AtomicLong();
+        AtomicLong done = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long start = System.currentTimeMillis();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (long chunk = 0; chunk < chunks && failure.get() == null; chunk++) {
+                long first = chunk * batchSize;
+                int size = (int) Math.min(batchSize, students - first);
+                long number = chunk;
+                slots.acquire();
+                executor.execute(() -> {
+                    try {
+                        long total = written.addAndGet(writer.write(synthetic.students(number, first, size, departments)));
+                        if (done.incrementAndGet() % progressEvery == 0) {
+                            long millis = Math.max(1, System.currentTimeMillis() - start);
+                            LOG.info("→ {} of {} students ({} students/s)", total, students, total * 1000 / millis);
+                        }
+                    } catch (RuntimeException e) {
+                        if (failure.compareAndSet(null, e)) LOG.error("✘ Failed to write generated students", e);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) throw failure.get();
+        return written.get();
+    }
+
+    private long insert(List<Student> chunk) {
+        BulkInsertResult result = studentRepo.insertUnordered(chunk);
+        if (!result.failures().isEmpty()) {
+            LOG.warn("{} generated students were not inserted, first: {}",
+                    result.failures().size(), result.failures().get(0).message());
+        }
+        return result.inserted();
+    }
+
+    /**
+     * Append a rendered chunk; chunks land in completion order, which mongoimport does not care about.
+     */
+    private static long append(BufferedWriter out, String lines, int count) {
+        synchronized (out) {
+            try {
+                out.write(lines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Render entities as MongoDB stores them, one relaxed Extended JSON document per line.
+     * Students go through the same derived-fields callback as inserts.
+     */
+    String toNdjson(List<?> entities) {
+        StringBuilder lines = new StringBuilder(entities.size() * 512);
+        for (Object entity : entities) {
+            if (entity instanceof Student student) derivedFields.onBeforeConvert(student, "students");
+            Document doc = new Document();
+            converter.write(entity, doc);
+            lines.append(doc.toJson(JSON, CODEC)).append('\n');
+        }
+        return lines.toString();
+    }
+
+    @FunctionalInterface
+    private interface ChunkWriter {
+        /**
+         * @return the number of students written
+         */
+        long write(List<Student> chunk);
+    }
+}
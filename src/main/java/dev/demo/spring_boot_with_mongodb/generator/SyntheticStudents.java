@@ -0,0 +1,209 @@
+package dev.demo.spring_boot_with_mongodb.generator;
+
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates realistic departments and students for scale tests.
+ * Departments, courses and names are drawn from Zipf distributions, so a few of them are popular and most are rare,
+ * as in real enrollments. Every chunk of students has its own random stream derived from the seed, and ids are derived
+ * from the seed and the department or student number, so a dataset is the same, ids included, whatever the number
+ * of threads generating it.
+ */
+final class SyntheticStudents {
+    private static final List<String> DEPARTMENTS = List.of(
+            "Computer Science", "Electrical Engineering", "Mechanical Engineering", "Civil Engineering",
+            "Chemical Engineering", "Biology", "Chemistry", "Physics", "Mathematics", "Economics", "History", "English",
+            "Business Administration", "Psychology", "Sociology", "Philosophy", "Art", "Music", "Law", "Medicine");
+    private static final List<String> COURSES = List.of(
+            "AI", "Operating Systems", "Web Development", "Software Engineering", "Databases", "Algorithms",
+            "Data Structures", "Mobile Development", "Networks", "Machine Learning", "Compilers", "Computer Graphics",
+            "Distributed Systems", "Security", "Statistics", "Linear Algebra", "Calculus", "Physics I", "Ethics",
+            "Technical Writing");
+    private static final List<String> FIRST_NAMES = List.of(
+            "David", "Sam", "Nina", "Kyle", "Jane", "Tina", "Charlie", "Grace", "Eva", "Frank", "Alice", "Paul",
+            "Quincy", "Michael", "Oliver", "Bob", "Ian", "Laura", "Rachel", "Hannah", "Maria", "José", "Wei", "Aisha",
+            "Lukas", "Sofia", "Mateo", "Emma", "Noah", "Yuki", "Omar", "Priya", "Elena", "Jonas", "Chloe", "Ravi");
+    private static final List<String> LAST_NAMES = List.of(
+            "Hernandez", "Martinez", "Garcia", "Miller", "Moore", "Williams", "Gonzalez", "Johnson", "Martin",
+            "Thomas", "Taylor", "Rodriguez", "Lopez", "Davis", "Smith", "Jackson", "Jones", "Anderson", "Wilson",
+            "Brown", "Müller", "Nguyen", "Kim", "Singh", "Rossi", "Dubois", "Kowalski", "Okafor", "Sato", "O'Brien");
+    private static final double NAME_SKEW = 1.0;
+    private static final LocalDate FIRST_DOB = LocalDate.of(1995, 1, 1);
+    /**
+     * Creation time of the generated ObjectIds, fixed so that ids are reproducible.
+     */
+    static final int ID_TIMESTAMP = (int) LocalDate.of(2020, 1, 1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    private static final long MAX_STUDENTS = 1L << 32;
+
+    private final long seed;
+    private final int departments;
+    private final double activeRatio;
+    private final int minCourses;
+    private final int maxCourses;
+    private final double departmentSkew;
+    private final Zipf coursePicks;
+    private final Zipf firstNamePicks = new Zipf(FIRST_NAMES.size(), NAME_SKEW);
+    private final Zipf lastNamePicks = new Zipf(LAST_NAMES.size(), NAME_SKEW);
+
+    /**
+     * @param seed           seed of the random streams
+     * @param departments    number of departments
+     * @param activeRatio    share of active students, between 0 and 1
+     * @param minCourses     minimum number of courses per student
+     * @param maxCourses     maximum number of courses per student, at most the size of the course catalogue
+     * @param departmentSkew Zipf exponent of the department sizes, 0 for departments of equal size
+     * @param courseSkew     Zipf exponent of the course popularity, 0 for equally popular courses
+     */
+    SyntheticStudents(long seed, int departments, double activeRatio, int minCourses, int maxCourses,
+                      double departmentSkew, double courseSkew) {
+        if (departments < 1) throw new IllegalArgumentException("At least one department is required");
+        if (minCourses < 0 || minCourses > maxCourses || maxCourses > COURSES.size()) {
+            throw new IllegalArgumentException("Courses per student must be between 0 and " + COURSES.size());
+        }
+        this.seed = seed;
+        this.departments = departments;
+        this.activeRatio = activeRatio;
+        this.minCourses = minCourses;
+        this.maxCourses = maxCourses;
+        this.departmentSkew = departmentSkew;
+        this.coursePicks = new Zipf(COURSES.size(), courseSkew);
+    }
+
+    /**
+     * @return the departments, with ids derived from the seed; names repeat with a number past the built-in list
+     */
+    List<Department> departments() {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Department> result = new ArrayList<>(departments);
+        for (int i = 0; i < departments; i++) {
+            Department dept = new Department();
+            dept.setId(id(i));
+            String name = DEPARTMENTS.get(i % DEPARTMENTS.size());
+            dept.setName(i < DEPARTMENTS.size() ? name : name + " " + (i / DEPARTMENTS.size() + 1));
+            dept.setLocation("Block " + (char) ('A' + i % 26));
+            dept.setCreatedAt(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(365 * 70)));
+            result.add(dept);
+        }
+        return result;
+    }
+
+    /**
+     * Generate one chunk of students. Student {@code first + i} of the dataset is the i-th of the chunk;
+     * its email address and id derive from that number, so both are unique across the dataset.
+     * Departments are picked by their position in {@code departments}, the first being the largest.
+     *
+     * @param chunk       the chunk number, which selects the random stream
+     * @param first       the number of the chunk's first student in the dataset
+     * @param size        the number of students of the chunk
+     * @param departments the departments to assign, as returned by {@link #departments()} or already stored
+     * @return the students with ids derived from the seed; derived fields are left to the write path
+     */
+    List<Student> students(long chunk, long first, int size, List<Department> departments) {
+        if (first < 0 || first + size > MAX_STUDENTS) {
+            throw new IllegalArgumentException("Student numbers must be below " + MAX_STUDENTS);
+        }
+        Zipf departmentPicks = new Zipf(departments.size(), departmentSkew);
+        SplittableRandom random = new SplittableRandom(seed ^ (chunk + 1) * 0x9E3779B97F4A7C15L);
+        LocalDate today = LocalDate.now();
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Student student = new Student();
+            student.setId(id(first + i));
+            String firstName = FIRST_NAMES.get(firstNamePicks.sample(random));
+            String lastName = LAST_NAMES.get(lastNamePicks.sample(random));
+            student.setFirstName(firstName);
+            student.setLastName(lastName);
+            student.setEmail((firstName + "." + lastName).toLowerCase(Locale.ROOT).replace("'", "")
+                    + "." + (first + i) + "@example.com");
+            LocalDate dob = FIRST_DOB.plusDays(random.nextInt(365 * 12));
+            student.setDob(dob);
+            LocalDate enrolled = dob.plusYears(18).plusDays(random.nextInt(365 * 4));
+            student.setEnrollmentDate(enrolled.isAfter(today) ? today : enrolled);
+            student.setDepartment(departments.get(departmentPicks.sample(random)));
+            student.setCourses(courses(random));
+            student.setActive(random.nextDouble() < activeRatio);
+            students.add(student);
+        }
+        return students;
+    }
+
+    /**
+     * ObjectId of department or student {@code number}: the fixed {@link #ID_TIMESTAMP}, the seed, then the number.
+     * Departments and students live in separate collections, so they may share ids.
+     */
+    private String id(long number) {
+        long mixed = seed * 0x9E3779B97F4A7C15L;
+        return new ObjectId(ByteBuffer.allocate(12)
+                .putInt(ID_TIMESTAMP)
+                .putInt((int) (mixed ^ mixed >>> 32))
+                .putInt((int) number)
+                .flip()).toHexString();
+    }
+
+    /**
+     * Distinct courses by popularity. Marks combine the student's ability with a per-course deviation.
+     */
+    private List<Course> courses(SplittableRandom random) {
+        int count = minCourses + random.nextInt(maxCourses - minCourses + 1);
+        double ability = 70 + 12 * gaussian(random);
+        boolean[] taken = new boolean[COURSES.size()];
+        List<Course> courses = new ArrayList<>(count);
+        while (courses.size() < count) {
+            int pick = coursePicks.sample(random);
+            if (taken[pick]) continue;
+            taken[pick] = true;
+            Course course = new Course();
+            course.setName(COURSES.get(pick));
+            course.setMarks((int) Math.round(Math.clamp(ability + 8 * gaussian(random), 0, 100)));
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    /**
+     * Standard normal sample (Box-Muller); SplittableRandom has no nextGaussian.
+     */
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /**
+     * Zipf distribution over {@code 0..n-1}: rank k has weight {@code 1 / (k + 1)^skew}.
+     */
+    static final class Zipf {
+        private final double[] cumulative;
+
+        Zipf(int n, double skew) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int k = 0; k < n; k++) {
+                total += 1 / Math.pow(k + 1, skew);
+                cumulative[k] = total;
+            }
+            for (int k = 0; k < n; k++) cumulative[k] /= total;
+        }
+
+        int sample(SplittableRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
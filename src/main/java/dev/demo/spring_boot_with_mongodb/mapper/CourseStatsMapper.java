@@ -0,0 +1,30 @@
+package dev.demo.spring_boot_with_mongodb.mapper;
+
+import dev.demo.spring_boot_with_mongodb.model.CourseStats;
+import dev.demo.spring_boot_with_mongodb.payload.CourseStatsDTO;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+/**
+ * Mapper for converting {@link CourseStats} documents to {@link CourseStatsDTO} payloads.
+ * Uses MapStruct to generate the implementation at compile time.
+ */
+@Mapper(componentModel = "spring")
+public interface CourseStatsMapper {
+    /**
+     * Convert a CourseStats document to a CourseStatsDTO.
+     *
+     * @param entity the CourseStats document to convert
+     * @return a CourseStatsDTO populated from the document
+     */
+    CourseStatsDTO toDto(CourseStats entity);
+
+    /**
+     * Convert a list of CourseStats documents to a list of CourseStatsDTOs.
+     *
+     * @param entities the list of CourseStats documents
+     * @return the list of corresponding CourseStatsDTOs
+     */
+    List<CourseStatsDTO> toDtoList(List<CourseStats> entities);
+}
@@ -4,7 +4,10 @@ import dev.demo.spring_boot_with_mongodb.model.Student;
 import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
 import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 
 import java.util.List;
 
@@ -24,6 +27,11 @@ public interface StudentMapper {
      * @param dto the data transfer object containing student data
      * @return a new Student entity populated from the DTO
      */
+    @Mapping(target = "score", ignore = true)
+    @Mapping(target = "percentage", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "firstNameLower", ignore = true)
+    @Mapping(target = "lastNameLower", ignore = true)
     Student toEntity(StudentDTO dto);
 
     /**
@@ -63,4 +71,51 @@ public interface StudentMapper {
                 page.hasPrevious()
         );
     }
+
+    /**
+     * Wrap a count-free {@link Slice} of Student entities into a {@link StudentPageResponse} DTO.
+     * Totals are not known for a slice and left {@code null}.
+     *
+     * @param slice the Slice of Student entities
+     * @return a StudentPageResponse containing mapped DTOs and paging info
+     */
+    default StudentPageResponse toSliceResponse(Slice<Student> slice) {
+        return new StudentPageResponse(
+                toDtoList(slice.getContent()),
+                // Convert a zero-based index to one-based for the client
+                slice.getNumber() + 1,
+                slice.getSize(),
+                null,
+                null,
+                slice.isFirst(),
+                slice.isLast(),
+                slice.hasNext(),
+                slice.hasPrevious()
+        );
+    }
+
+    /**
+     * Wrap a keyset {@link Window} of Student entities into a {@link StudentPageResponse} DTO.
+     * Page number and totals are unknown in cursor mode and left {@code null}.
+     *
+     * @param window     the Window of Student entities
+     * @param size       the requested page size
+     * @param first      whether this window starts the listing
+     * @param nextCursor the cursor of the following window, or {@code null} if this is the last one
+     * @return a StudentPageResponse containing mapped DTOs and the next cursor
+     */
+    default StudentPageResponse toScrollResponse(Window<Student> window, int size, boolean first, String nextCursor) {
+        return new StudentPageResponse(
+                toDtoList(window.getContent()),
+                null,
+                size,
+                null,
+                null,
+                first,
+                window.isLast(),
+                window.hasNext(),
+                !first,
+                nextCursor
+        );
+    }
 }
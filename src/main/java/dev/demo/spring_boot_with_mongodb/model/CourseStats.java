@@ -0,0 +1,108 @@
+package dev.demo.spring_boot_with_mongodb.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+
+/**
+ * Represents the marks statistics of one course in the "course_stats" collection,
+ * a materialized view over the courses embedded in the students.
+ * Kept up to date on every student write and rebuilt periodically.
+ */
+@Document("course_stats")
+public class CourseStats {
+    /**
+     * Name of the course; the document ID.
+     */
+    @Id
+    private String courseName;
+    /**
+     * Number of students enrolled in the course.
+     */
+    private long enrollments;
+    /**
+     * Sum of the marks of all enrollments; mapped as "total_marks".
+     */
+    @Field(name = "total_marks")
+    private long totalMarks;
+    /**
+     * Lowest mark in the course; mapped as "min_marks".
+     */
+    @Field(name = "min_marks")
+    private Integer minMarks;
+    /**
+     * Highest mark in the course; mapped as "max_marks".
+     */
+    @Field(name = "max_marks")
+    private Integer maxMarks;
+    /**
+     * When the statistics were last written; mapped as "updated_at".
+     */
+    @Field(name = "updated_at")
+    private Instant updatedAt;
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public void setCourseName(String courseName) {
+        this.courseName = courseName;
+    }
+
+    public long getEnrollments() {
+        return enrollments;
+    }
+
+    public void setEnrollments(long enrollments) {
+        this.enrollments = enrollments;
+    }
+
+    public long getTotalMarks() {
+        return totalMarks;
+    }
+
+    public void setTotalMarks(long totalMarks) {
+        this.totalMarks = totalMarks;
+    }
+
+    public Integer getMinMarks() {
+        return minMarks;
+    }
+
+    public void setMinMarks(Integer minMarks) {
+        this.minMarks = minMarks;
+    }
+
+    public Integer getMaxMarks() {
+        return maxMarks;
+    }
+
+    public void setMaxMarks(Integer maxMarks) {
+        this.maxMarks = maxMarks;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    // --- Business Logic ---
+
+    /**
+     * Calculates the mean mark of the course, rounded to two decimal places.
+     *
+     * @return the mean mark, or {@code null} without enrollments
+     */
+    public Double getMeanMarks() {
+        if (enrollments <= 0) return null;
+        return BigDecimal.valueOf(totalMarks)
+                .divide(BigDecimal.valueOf(enrollments), 2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
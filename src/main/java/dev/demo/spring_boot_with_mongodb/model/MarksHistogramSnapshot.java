@@ -0,0 +1,78 @@
+package dev.demo.spring_boot_with_mongodb.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Represents a snapshot of one in-memory marks distribution in the "marks_histograms" collection,
+ * so that a restart restores the percentiles without rescanning the students.
+ */
+@Document("marks_histograms")
+public class MarksHistogramSnapshot {
+    /**
+     * Unique identifier: the scope and key, e.g. "course:AI".
+     */
+    @Id
+    private String id;
+    /**
+     * What the distribution is grouped by: "course" or "department".
+     */
+    private String scope;
+    /**
+     * The course name or department ID.
+     */
+    private String key;
+    /**
+     * Number of marks per mark value, indexed by mark (0–100).
+     */
+    private List<Long> counts;
+    /**
+     * When the snapshot was taken; mapped as "updated_at".
+     */
+    @Field(name = "updated_at")
+    private Instant updatedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public List<Long> getCounts() {
+        return counts;
+    }
+
+    public void setCounts(List<Long> counts) {
+        this.counts = counts;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
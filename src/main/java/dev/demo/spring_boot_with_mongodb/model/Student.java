@@ -1,10 +1,11 @@
 package dev.demo.spring_boot_with_mongodb.model;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -14,7 +15,7 @@ import java.util.List;
 /**
  * Represents a Student document in the "students" collection.
  * Includes personal details, department reference, course marks,
- * enrollment information, and a transient calculated percentage.
+ * enrollment information, and the average marks percentage derived on write.
  */
 @Document("students")
 public class Student {
@@ -33,6 +34,18 @@ public class Student {
      */
     @Field(name = "last_name")
     private String lastName;
+
+    /**
+     * Lowercase first name for index-backed prefix search; maintained on write, mapped as "first_name_lower".
+     */
+    @Field(name = "first_name_lower")
+    private String firstNameLower;
+
+    /**
+     * Lowercase last name for index-backed prefix search; maintained on write, mapped as "last_name_lower".
+     */
+    @Field(name = "last_name_lower")
+    private String lastNameLower;
     /**
      * Student's email address; mapped as "email_address".
      */
@@ -45,8 +58,10 @@ public class Student {
     private LocalDate dob;
     /**
      * Reference to the Department document.
+     * Resolved lazily so that paged reads can batch-load all referenced
+     * departments at once instead of issuing one lookup per student.
      */
-    @DBRef
+    @DBRef(lazy = true)
     private Department department;
     /**
      * List of courses (embedded sub-documents).
@@ -63,12 +78,23 @@ public class Student {
     @Field(name = "is_active")
     private Boolean active;
     /**
-     * Transient field to hold the computed average marks percentage.
-     * Not persisted to MongoDB.
+     * Average marks percentage, stored so that it can be indexed, sorted and filtered on;
+     * maintained on write from the courses.
      */
-    @Transient
     private Double percentage;
 
+    /**
+     * Relevance of the student for a text search; only set on scored search results, never persisted.
+     */
+    @TextScore
+    private Float score;
+
+    /**
+     * Incremented by every write; starts at 0 on insert. Exposed as the student's ETag.
+     */
+    @Version
+    private Long version;
+
     public String getId() {
         return id;
     }
@@ -93,6 +119,22 @@ public class Student {
         this.lastName = lastName;
     }
 
+    public String getFirstNameLower() {
+        return firstNameLower;
+    }
+
+    public void setFirstNameLower(String firstNameLower) {
+        this.firstNameLower = firstNameLower;
+    }
+
+    public String getLastNameLower() {
+        return lastNameLower;
+    }
+
+    public void setLastNameLower(String lastNameLower) {
+        this.lastNameLower = lastNameLower;
+    }
+
     public String getEmail() {
         return email;
     }
@@ -143,22 +185,70 @@ public class Student {
 
     // --- Business Logic ---
 
+    public Float getScore() {
+        return score;
+    }
+
+    public void setScore(Float score) {
+        this.score = score;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Double getPercentage() {
+        return percentage;
+    }
+
+    public void setPercentage(Double percentage) {
+        this.percentage = percentage;
+    }
+
+    /**
+     * Shallow copy of this student, e.g. to keep the state before an update.
+     * Setters replace values rather than mutating them, so the copy is not affected by later changes.
+     *
+     * @return a new Student with the same field values
+     */
+    public Student copy() {
+        Student copy = new Student();
+        copy.id = id;
+        copy.firstName = firstName;
+        copy.lastName = lastName;
+        copy.firstNameLower = firstNameLower;
+        copy.lastNameLower = lastNameLower;
+        copy.email = email;
+        copy.dob = dob;
+        copy.department = department;
+        copy.courses = courses;
+        copy.enrollmentDate = enrollmentDate;
+        copy.active = active;
+        copy.percentage = percentage;
+        copy.score = score;
+        copy.version = version;
+        return copy;
+    }
+
     /**
-     * Calculates and returns the student's average marks percentage,
+     * Calculates the student's average marks percentage from the courses,
      * rounded to two decimal places.
      * If there are no courses, returns 0.00.
      *
      * @return the average course marks percentage, or 0.00 if no courses
      */
-    public Double getPercentage() {
+    public Double calculatePercentage() {
         if (courses == null || courses.isEmpty()) return 0.0;
         double sum = courses.stream()
                 .mapToDouble(Course::getMarks)
                 .sum();
         double average = sum / courses.size();
         // Round to 2 decimal places (HALF_UP)
-        percentage = BigDecimal.valueOf(average)
+        return BigDecimal.valueOf(average)
                 .setScale(2, RoundingMode.HALF_UP).doubleValue();
-        return percentage;
     }
 }
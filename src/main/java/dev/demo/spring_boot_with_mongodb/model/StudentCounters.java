@@ -0,0 +1,114 @@
+package dev.demo.spring_boot_with_mongodb.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents the student counters in the "student_counters" collection: a single document
+ * holding the total and active number of students, overall and per department.
+ * Kept up to date with {@code $inc} on every student write and reconciled periodically.
+ */
+@Document("student_counters")
+public class StudentCounters {
+    /**
+     * ID of the single counters document.
+     */
+    public static final String ID = "students";
+
+    @Id
+    private String id = ID;
+    /**
+     * Number of students.
+     */
+    private long total;
+    /**
+     * Number of active students.
+     */
+    private long active;
+    /**
+     * Department ID → counts of the students of that department.
+     */
+    private Map<String, Counts> departments = new HashMap<>();
+    /**
+     * When the counters were last written; mapped as "updated_at".
+     */
+    @Field(name = "updated_at")
+    private Instant updatedAt;
+
+    /**
+     * Total and active number of students of one department.
+     */
+    public static class Counts {
+        private long total;
+        private long active;
+
+        public Counts() {
+        }
+
+        public Counts(long total, long active) {
+            this.total = total;
+            this.active = active;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public long getActive() {
+            return active;
+        }
+
+        public void setActive(long active) {
+            this.active = active;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getActive() {
+        return active;
+    }
+
+    public void setActive(long active) {
+        this.active = active;
+    }
+
+    public Map<String, Counts> getDepartments() {
+        return departments;
+    }
+
+    public void setDepartments(Map<String, Counts> departments) {
+        this.departments = departments;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import java.util.List;
+
+/**
+ * Result of a bulk creation of students.
+ *
+ * @param received number of students in the request
+ * @param created  number of students inserted
+ * @param rejected number of students not inserted
+ * @param items    the outcome of each student, in request order
+ */
+public record BulkCreateResponse(int received, int created, int rejected, List<BulkItemResult> items) {
+}
@@ -0,0 +1,22 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one student of a bulk creation.
+ *
+ * @param index  0-based position of the student in the request
+ * @param status what happened to the student
+ * @param id     the new student's ID, if created
+ * @param error  why the student was rejected, if not created
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkItemResult(int index, BulkItemStatus status, String id, String error) {
+    public static BulkItemResult created(int index, String id) {
+        return new BulkItemResult(index, BulkItemStatus.CREATED, id, null);
+    }
+
+    public static BulkItemResult rejected(int index, BulkItemStatus status, String error) {
+        return new BulkItemResult(index, status, null, error);
+    }
+}
@@ -0,0 +1,27 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+/**
+ * Outcome of one student of a bulk creation.
+ */
+public enum BulkItemStatus {
+    /**
+     * The student was inserted.
+     */
+    CREATED,
+    /**
+     * The student could not be read or failed validation.
+     */
+    INVALID,
+    /**
+     * The referenced department does not exist.
+     */
+    DEPARTMENT_NOT_FOUND,
+    /**
+     * Another student already has the email address.
+     */
+    DUPLICATE,
+    /**
+     * The database rejected the student for another reason.
+     */
+    FAILED
+}
@@ -0,0 +1,19 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+/**
+ * Marks statistics of one course.
+ *
+ * @param courseName  the name of the course
+ * @param enrollments number of students enrolled in the course
+ * @param meanMarks   mean mark, rounded to two decimal places
+ * @param minMarks    lowest mark
+ * @param maxMarks    highest mark
+ */
+public record CourseStatsDTO(
+        String courseName,
+        long enrollments,
+        Double meanMarks,
+        Integer minMarks,
+        Integer maxMarks
+) {
+}
@@ -0,0 +1,27 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+/**
+ * Student statistics of one department, computed by MongoDB.
+ *
+ * @param departmentId   the department's ID
+ * @param departmentName the department's name
+ * @param studentCount   number of students in the department
+ * @param activeCount    number of active students in the department
+ * @param activeRatio    share of active students, 0 to 1
+ * @param averageMarks   mean mark over all course enrolments of the department, {@code null} without any
+ */
+public record DepartmentStats(
+        String departmentId,
+        String departmentName,
+        long studentCount,
+        long activeCount,
+        double activeRatio,
+        Double averageMarks
+) {
+    /**
+     * Statistics of a department without students.
+     */
+    public static DepartmentStats empty(String departmentId, String departmentName) {
+        return new DepartmentStats(departmentId, departmentName, 0, 0, 0, null);
+    }
+}
@@ -0,0 +1,54 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+
+import java.util.Locale;
+
+/**
+ * File format of a student export, which the import reads as well.
+ */
+public enum ExportFormat {
+    /**
+     * One StudentDTO JSON document per line.
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /**
+     * RFC 4180 CSV with a header row; courses are a JSON array in their cell.
+     */
+    CSV("text/csv", "csv");
+
+    public static final String PARAMETER = "format";
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * @return the media type of the response
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * @return the file name extension of the download
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Parse the {@code format} request parameter: "ndjson" or "csv".
+     */
+    public static ExportFormat fromParam(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new InvalidRequestParameterException(PARAMETER, value, "expected ndjson or csv");
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import java.util.List;
+
+/**
+ * Result of a streaming student import.
+ *
+ * @param read             number of rows read, blank lines and the CSV header excluded
+ * @param created          number of students inserted
+ * @param rejected         number of rows not inserted
+ * @param rejects          the rejected rows by 0-based position, at most {@code app.students.import.max-rejects}
+ * @param rejectsTruncated {@code true} if more rows were rejected than listed
+ * @param stoppedEarly     {@code true} if a row over the length limit ended the import before the end of the upload
+ */
+public record ImportResponse(long read, long created, long rejected, List<BulkItemResult> rejects, boolean rejectsTruncated,
+                             boolean stoppedEarly) {
+}
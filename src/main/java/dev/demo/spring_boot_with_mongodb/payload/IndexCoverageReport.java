@@ -0,0 +1,37 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result of explaining every student query shape against the current indexes.
+ *
+ * @param verifiedAt when the plans were taken
+ * @param queries    the winning plan summary of each query shape
+ */
+public record IndexCoverageReport(Instant verifiedAt, List<QueryPlan> queries) {
+    /**
+     * @param query          name of the query shape (the service operation issuing it)
+     * @param stages         stage names of the winning plan, outermost first
+     * @param indexes        indexes read by the winning plan
+     * @param collectionScan whether the plan scans the whole collection
+     * @param inMemorySort   whether the plan sorts in memory instead of reading an index in order
+     */
+    public record QueryPlan(String query, List<String> stages, List<String> indexes,
+                            boolean collectionScan, boolean inMemorySort) {
+    }
+
+    /**
+     * @return {@code true} if any query shape scans the whole collection
+     */
+    public boolean hasCollectionScan() {
+        return queries.stream().anyMatch(QueryPlan::collectionScan);
+    }
+
+    /**
+     * @return {@code true} if any query shape sorts in memory
+     */
+    public boolean hasInMemorySort() {
+        return queries.stream().anyMatch(QueryPlan::inMemorySort);
+    }
+}
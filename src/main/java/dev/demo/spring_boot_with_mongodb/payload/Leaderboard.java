@@ -0,0 +1,25 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import java.util.List;
+
+/**
+ * The best students of one course or department.
+ *
+ * @param scope   what the students are ranked within: "course" or "department"
+ * @param key     the course name or department ID
+ * @param members number of ranked students in the course or department
+ * @param entries the best students, best first
+ */
+public record Leaderboard(String scope, String key, long members, List<Entry> entries) {
+    public static final String DEFAULT_LIMIT = "10";
+
+    /**
+     * @param rank      1-based position; students with equal scores are ordered by ID
+     * @param studentId the student's ID
+     * @param firstName the student's first name
+     * @param lastName  the student's last name
+     * @param score     the course marks, or the percentage for a department
+     */
+    public record Entry(int rank, String studentId, String firstName, String lastName, double score) {
+    }
+}
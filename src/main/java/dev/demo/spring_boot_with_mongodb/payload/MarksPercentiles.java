@@ -0,0 +1,51 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Percentiles of the marks of one course or department.
+ *
+ * @param scope       what the marks are grouped by: "course" or "department"
+ * @param key         the course name or department ID
+ * @param count       number of marks in the distribution
+ * @param percentiles percentile label (e.g. "p90") → mark, in the requested order
+ */
+public record MarksPercentiles(String scope, String key, long count, Map<String, Integer> percentiles) {
+    public static final String PARAMETER = "p";
+    public static final String DEFAULT_RANKS = "50,90,99";
+
+    /**
+     * Parse the {@code p} request parameter, a comma-separated list of percentile ranks in (0, 100].
+     */
+    public static List<Double> ranksFromParam(String value) {
+        List<Double> ranks = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (part.isBlank()) continue;
+            double rank;
+            try {
+                rank = Double.parseDouble(part.trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidRequestParameterException(PARAMETER, value, "not a number: " + part.trim());
+            }
+            if (!(rank > 0 && rank <= 100)) {
+                throw new InvalidRequestParameterException(PARAMETER, value, "percentiles must be in (0, 100]");
+            }
+            ranks.add(rank);
+        }
+        if (ranks.isEmpty()) {
+            throw new InvalidRequestParameterException(PARAMETER, value, "no percentile requested");
+        }
+        return ranks;
+    }
+
+    /**
+     * @return the response label of a percentile rank, e.g. "p50" or "p99.9"
+     */
+    public static String label(double rank) {
+        return rank == Math.rint(rank) ? "p" + (long) rank : "p" + rank;
+    }
+}
@@ -0,0 +1,16 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * New marks of one course of a student.
+ */
+public record MarksUpdate(
+        @NotNull(message = "Marks must be provided")
+        @Min(value = 0, message = "Marks cannot be less than {value}")
+        @Max(value = 100, message = "Marks cannot exceed {value}")
+        Integer marks
+) {
+}
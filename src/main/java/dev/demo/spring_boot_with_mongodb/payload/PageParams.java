@@ -0,0 +1,51 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+/**
+ * Paging, sorting and common filter parameters shared by all paged student endpoints.
+ *
+ * @param page          1-based page number, ignored in cursor mode
+ * @param size          number of records per page
+ * @param sortField     property name to sort by
+ * @param sortDir       sort direction: "asc" or "desc"
+ * @param after         opaque keyset cursor; {@code null} for offset paging, empty to start cursor paging
+ * @param total         how the total number of matches is computed
+ * @param fields        the student fields to return
+ * @param minPercentage minimum percentage (inclusive) added to the endpoint's filter, {@code null} for none
+ */
+public record PageParams(
+        int page,
+        int size,
+        String sortField,
+        String sortDir,
+        String after,
+        TotalMode total,
+        StudentFields fields,
+        Double minPercentage
+) {
+    public static PageParams of(int page, int size, String sortField, String sortDir) {
+        return new PageParams(page, size, sortField, sortDir, null, TotalMode.EXACT, StudentFields.ALL, null);
+    }
+
+    public PageParams withAfter(String after) {
+        return new PageParams(page, size, sortField, sortDir, after, total, fields, minPercentage);
+    }
+
+    public PageParams withTotal(TotalMode total) {
+        return new PageParams(page, size, sortField, sortDir, after, total, fields, minPercentage);
+    }
+
+    public PageParams withFields(StudentFields fields) {
+        return new PageParams(page, size, sortField, sortDir, after, total, fields, minPercentage);
+    }
+
+    public PageParams withMinPercentage(Double minPercentage) {
+        return new PageParams(page, size, sortField, sortDir, after, total, fields, minPercentage);
+    }
+
+    /**
+     * @return {@code true} if the client asked for keyset (cursor) paging instead of page numbers
+     */
+    public boolean isKeyset() {
+        return after != null;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+/**
+ * Number of students of one department, read from the materialized counters.
+ *
+ * @param departmentId the department's ID
+ * @param total        number of students in the department
+ * @param active       number of active students in the department
+ */
+public record StudentCounts(String departmentId, long total, long active) {
+}
@@ -1,11 +1,18 @@
 package dev.demo.spring_boot_with_mongodb.payload;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 
 import java.time.LocalDate;
 import java.util.List;
 
+/**
+ * Student payload. Fields left out by a sparse fieldset ({@code fields=}) are {@code null} and not serialized;
+ * {@code score} is only set on relevance-sorted text search results. {@code version} is the stored version the
+ * ETag is made of; it is ignored on writes, where {@code If-Match} carries the expected version.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record StudentDTO(
         String id,
         @NotBlank(message = "First name must not be blank")
@@ -27,6 +34,12 @@ public record StudentDTO(
         LocalDate enrollmentDate,
         @NotNull(message = "Active status must be specified")
         Boolean active,
-        Double percentage
+        Double percentage,
+        Float score,
+        Long version
 ) {
+    public StudentDTO(String id, String firstName, String lastName, String email, LocalDate dob, DepartmentDTO department,
+                      List<CourseDTO> courses, LocalDate enrollmentDate, Boolean active, Double percentage) {
+        this(id, firstName, lastName, email, dob, department, courses, enrollmentDate, active, percentage, null, null);
+    }
 }
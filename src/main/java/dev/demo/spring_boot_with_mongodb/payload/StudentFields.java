@@ -0,0 +1,99 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Map.entry;
+
+/**
+ * Sparse fieldset requested through the {@code fields} parameter: the {@link StudentDTO}
+ * fields to return. An empty set means the whole student. {@code version} is not selectable:
+ * it is returned whenever it was loaded, so that a response still carries its ETag.
+ *
+ * @param names the selected StudentDTO field names
+ */
+public record StudentFields(Set<String> names) {
+    public static final String PARAMETER = "fields";
+    public static final StudentFields ALL = new StudentFields(Set.of());
+
+    /**
+     * StudentDTO field → Student property it is read from.
+     */
+    private static final Map<String, String> PROPERTIES = Map.ofEntries(
+            entry("id", "id"),
+            entry("firstName", "firstName"),
+            entry("lastName", "lastName"),
+            entry("email", "email"),
+            entry("dob", "dob"),
+            entry("department", "department"),
+            entry("courses", "courses"),
+            entry("enrollmentDate", "enrollmentDate"),
+            entry("active", "active"),
+            entry("percentage", "percentage"),
+            entry("score", "score")
+    );
+
+    /**
+     * Parse the {@code fields} request parameter, a comma-separated list of StudentDTO field names.
+     * A missing or blank value selects every field.
+     */
+    public static StudentFields fromParam(String value) {
+        if (value == null || value.isBlank()) return ALL;
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : value.split(",")) {
+            String field = name.trim();
+            if (field.isEmpty()) continue;
+            if (!PROPERTIES.containsKey(field)) {
+                throw new InvalidRequestParameterException(PARAMETER, value, "unknown field " + field);
+            }
+            names.add(field);
+        }
+        return new StudentFields(Set.copyOf(names));
+    }
+
+    /**
+     * @return {@code true} if the whole student is requested
+     */
+    public boolean isAll() {
+        return names.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if the given StudentDTO field is part of the response
+     */
+    public boolean includes(String field) {
+        return isAll() || names.contains(field);
+    }
+
+    /**
+     * @return the Student properties to load from MongoDB, empty for the whole document
+     */
+    public Set<String> properties() {
+        return names.stream().map(PROPERTIES::get).collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Drop the fields that were not requested, e.g. the sort key and id a cursor page always loads.
+     */
+    public StudentDTO trim(StudentDTO dto) {
+        if (isAll()) return dto;
+        return new StudentDTO(
+                includes("id") ? dto.id() : null,
+                includes("firstName") ? dto.firstName() : null,
+                includes("lastName") ? dto.lastName() : null,
+                includes("email") ? dto.email() : null,
+                includes("dob") ? dto.dob() : null,
+                includes("department") ? dto.department() : null,
+                includes("courses") ? dto.courses() : null,
+                includes("enrollmentDate") ? dto.enrollmentDate() : null,
+                includes("active") ? dto.active() : null,
+                includes("percentage") ? dto.percentage() : null,
+                includes("score") ? dto.score() : null,
+                dto.version()
+        );
+    }
+}
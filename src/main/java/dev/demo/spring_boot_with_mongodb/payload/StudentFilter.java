@@ -0,0 +1,27 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters of a student export, the same ones the listing endpoints offer.
+ * Every given filter must hold; {@code null} filters are ignored.
+ *
+ * @param active        only active ({@code true}) or inactive ({@code false}) students
+ * @param deptId        only students of this department
+ * @param courseName    only students enrolled in this course
+ * @param minScore      with {@code courseName}: only students with at least these marks in the course
+ * @param start         with {@code end}: first date of birth (inclusive)
+ * @param end           with {@code start}: last date of birth (inclusive)
+ * @param minPercentage only students with at least this percentage
+ */
+public record StudentFilter(
+        Boolean active,
+        String deptId,
+        String courseName,
+        Integer minScore,
+        LocalDate start,
+        LocalDate end,
+        Double minPercentage
+) {
+    public static final StudentFilter NONE = new StudentFilter(null, null, null, null, null, null, null);
+}
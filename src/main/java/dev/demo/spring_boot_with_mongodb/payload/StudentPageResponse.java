@@ -2,15 +2,28 @@ package dev.demo.spring_boot_with_mongodb.payload;
 
 import java.util.List;
 
+/**
+ * A page of students. In cursor mode {@code pageNumber}, {@code totalElements} and
+ * {@code totalPages} are {@code null} and {@code nextCursor} continues the listing.
+ */
 public record StudentPageResponse(
         List<StudentDTO> content,
-        int pageNumber,
+        Integer pageNumber,
         int pageSize,
-        long totalElements,
-        int totalPages,
+        Long totalElements,
+        Integer totalPages,
         boolean first,
         boolean last,
         boolean hasNext,
-        boolean hasPrevious
+        boolean hasPrevious,
+        String nextCursor
 ) {
+    public StudentPageResponse(List<StudentDTO> content, Integer pageNumber, int pageSize, Long totalElements,
+                               Integer totalPages, boolean first, boolean last, boolean hasNext, boolean hasPrevious) {
+        this(content, pageNumber, pageSize, totalElements, totalPages, first, last, hasNext, hasPrevious, null);
+    }
+
+    public StudentPageResponse withContent(List<StudentDTO> content) {
+        return new StudentPageResponse(content, pageNumber, pageSize, totalElements, totalPages, first, last, hasNext, hasPrevious, nextCursor);
+    }
 }
@@ -0,0 +1,29 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.PastOrPresent;
+import jakarta.validation.constraints.Pattern;
+
+import java.time.LocalDate;
+
+/**
+ * Partial student update: only the fields present are changed, {@code null} fields are left as they are.
+ * Courses are changed through the course sub-resources.
+ */
+public record StudentPatch(
+        @Pattern(regexp = ".*\\S.*", message = "First name must not be blank")
+        String firstName,
+        @Pattern(regexp = ".*\\S.*", message = "Last name must not be blank")
+        String lastName,
+        @Pattern(regexp = ".*\\S.*", message = "Email address must not be blank")
+        @Email(message = "Email address must be valid")
+        String email,
+        @Past(message = "Date of birth must be in the past")
+        LocalDate dob,
+        DepartmentDTO department,
+        @PastOrPresent(message = "Enrollment date cannot be in the future")
+        LocalDate enrollmentDate,
+        Boolean active
+) {
+}
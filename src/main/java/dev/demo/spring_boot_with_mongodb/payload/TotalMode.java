@@ -0,0 +1,37 @@
+package dev.demo.spring_boot_with_mongodb.payload;
+
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+
+import java.util.Locale;
+
+/**
+ * How the total number of matching students is computed for a page.
+ */
+public enum TotalMode {
+    /**
+     * Exact count of the matching students.
+     */
+    EXACT,
+    /**
+     * Collection metadata count for unfiltered listings, short-lived cached count otherwise.
+     */
+    ESTIMATED,
+    /**
+     * No count at all; {@code hasNext} is derived by fetching one extra row.
+     */
+    NONE;
+
+    public static final String PARAMETER = "withTotal";
+
+    /**
+     * Parse the {@code withTotal} request parameter: "true", "false" or "estimated".
+     */
+    public static TotalMode fromParam(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true" -> EXACT;
+            case "false" -> NONE;
+            case "estimated" -> ESTIMATED;
+            default -> throw new InvalidRequestParameterException(PARAMETER, value, "expected true, false or estimated");
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import java.util.List;
+
+/**
+ * Outcome of an unordered bulk insert: every document was attempted, whatever failed before it.
+ *
+ * @param inserted number of inserted documents
+ * @param failures the documents that were not inserted
+ */
+public record BulkInsertResult(int inserted, List<Failure> failures) {
+    /**
+     * @param index        position of the document in the inserted list
+     * @param duplicateKey whether a unique index rejected the document
+     * @param message      the server's error message
+     */
+    public record Failure(int index, boolean duplicateKey, String message) {
+    }
+}
@@ -0,0 +1,51 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived cache of per-filter document counts.
+ * Trades exactness for skipping the count query on repeated page requests of the same listing.
+ */
+class CountCache {
+    /**
+     * Upper bound on cached filters, protecting the heap from high-cardinality filters.
+     */
+    static final int MAX_ENTRIES = 10_000;
+
+    private record Entry(long count, long expiresAt) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    CountCache(Duration ttl) {
+        this(ttl, System::nanoTime);
+    }
+
+    CountCache(Duration ttl, LongSupplier clock) {
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Return the cached count for the key, running {@code counter} if it is absent or expired.
+     */
+    long get(String key, LongSupplier counter) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.expiresAt() < 0) {
+            return entry.count();
+        }
+        long count = counter.getAsLong();
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.values().removeIf(e -> now - e.expiresAt() >= 0);
+            if (entries.size() >= MAX_ENTRIES) entries.clear();
+        }
+        entries.put(key, new Entry(count, now + ttlNanos));
+        return count;
+    }
+}
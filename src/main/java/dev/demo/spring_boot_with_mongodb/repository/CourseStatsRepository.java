@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.CourseStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the {@link CourseStats} materialized view.
+ * Reads come from Spring Data’s {@link MongoRepository}; the maintenance
+ * operations are in {@link CourseStatsRepositoryCustom}.
+ */
+@Repository
+public interface CourseStatsRepository extends MongoRepository<CourseStats, String>, CourseStatsRepositoryCustom {
+}
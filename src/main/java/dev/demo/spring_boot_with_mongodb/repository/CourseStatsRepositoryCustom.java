@@ -0,0 +1,42 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.CourseStats;
+
+import java.util.Collection;
+
+/**
+ * Custom repository fragment maintaining the {@link CourseStats} materialized view.
+ * Implemented by {@link CourseStatsRepositoryCustomImpl} on top of
+ * {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ */
+public interface CourseStatsRepositoryCustom {
+    /**
+     * Apply the change of one student write to a course in a single atomic update (upsert).
+     * Counters are incremented; min and max can only be widened this way, see {@link #refresh(String)}.
+     *
+     * @param courseName  the name of the course
+     * @param enrollments change in the number of enrollments
+     * @param marks       change in the sum of marks
+     * @param addedMin    lowest added mark, or {@code null} if no mark was added
+     * @param addedMax    highest added mark, or {@code null} if no mark was added
+     * @return the statistics after the update
+     */
+    CourseStats increment(String courseName, long enrollments, long marks, Integer addedMin, Integer addedMax);
+
+    /**
+     * Recount the lowest and highest mark of one course from its students ({@code $merge}), e.g. after
+     * one of them was removed. Bounded by course_marks_idx. The counters are left to {@link #increment},
+     * so that concurrent increments are neither lost nor counted twice; a course without enrollments
+     * is removed from the view.
+     *
+     * @param courseName the name of the course
+     */
+    void refresh(String courseName);
+
+    /**
+     * Replace the whole view: upsert the given statistics and drop every other course.
+     *
+     * @param stats the statistics of every course with enrollments
+     */
+    void replaceAll(Collection<CourseStats> stats);
+}
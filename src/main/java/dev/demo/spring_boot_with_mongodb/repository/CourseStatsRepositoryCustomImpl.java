@@ -0,0 +1,87 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.CourseStats;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * {@link MongoTemplate} backed implementation of {@link CourseStatsRepositoryCustom}.
+ */
+public class CourseStatsRepositoryCustomImpl implements CourseStatsRepositoryCustom {
+    private static final Logger LOG = LoggerFactory.getLogger(CourseStatsRepositoryCustomImpl.class);
+
+    private final MongoTemplate mongo;
+
+    public CourseStatsRepositoryCustomImpl(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public CourseStats increment(String courseName, long enrollments, long marks, Integer addedMin, Integer addedMax) {
+        Update update = new Update()
+                .inc("enrollments", enrollments)
+                .inc("totalMarks", marks)
+                .set("updatedAt", Instant.now());
+        if (addedMin != null) update.min("minMarks", addedMin);
+        if (addedMax != null) update.max("maxMarks", addedMax);
+        return mongo.findAndModify(query(where("courseName").is(courseName)), update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), CourseStats.class);
+    }
+
+    @Override
+    public void refresh(String courseName) {
+        long start = System.currentTimeMillis();
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(match(StudentCriteria.byCourse(courseName)));
+        stages.add(unwind("courses"));
+        // Hand-written stages are not mapped, hence the stored field names
+        stages.add(context -> new Document("$match", new Document("courses.course_name", courseName)
+                .append("courses.marks", new Document("$type", "number"))));
+        stages.add(context -> new Document("$group", new Document("_id", "$courses.course_name")
+                .append("min_marks", new Document("$min", "$courses.marks"))
+                .append("max_marks", new Document("$max", "$courses.marks"))));
+        // Only the range is merged into the course's document; its counters belong to increment()
+        stages.add(merge().intoCollection(mongo.getCollectionName(CourseStats.class))
+                .whenMatched(MergeOperation.WhenDocumentsMatch.mergeDocuments())
+                .whenDocumentsDontMatch(MergeOperation.WhenDocumentsDontMatch.discardDocument())
+                .build());
+        mongo.aggregate(newAggregation(Student.class, stages), Document.class);
+        long removed = mongo.remove(query(where("courseName").is(courseName).and("enrollments").lte(0)), CourseStats.class)
+                .getDeletedCount();
+        LOG.debug("Recounted the range of course {} in {} ms, removed {}", courseName,
+                System.currentTimeMillis() - start, removed);
+    }
+
+    @Override
+    public void replaceAll(Collection<CourseStats> stats) {
+        long start = System.currentTimeMillis();
+        if (!stats.isEmpty()) {
+            BulkOperations bulk = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, CourseStats.class);
+            stats.forEach(course -> bulk.replaceOne(query(where("courseName").is(course.getCourseName())), course,
+                    FindAndReplaceOptions.options().upsert()));
+            bulk.execute();
+        }
+        List<String> courses = stats.stream().map(CourseStats::getCourseName).toList();
+        long removed = mongo.remove(query(where("courseName").nin(courses)), CourseStats.class).getDeletedCount();
+        LOG.debug("Replaced the stats of {} courses in {} ms, removed {} empty courses",
+                stats.size(), System.currentTimeMillis() - start, removed);
+    }
+}
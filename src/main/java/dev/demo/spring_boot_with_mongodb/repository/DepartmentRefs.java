@@ -0,0 +1,36 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+
+/**
+ * Helpers for working with the lazy {@code @DBRef} from {@link dev.demo.spring_boot_with_mongodb.model.Student}
+ * to {@link Department} without triggering its resolution.
+ */
+public final class DepartmentRefs {
+    private DepartmentRefs() {
+    }
+
+    /**
+     * Return the id of the referenced department.
+     * For an unresolved lazy proxy the id is read from the underlying DBRef,
+     * so no query is issued against the "departments" collection.
+     *
+     * @param department a department entity or lazy proxy, may be {@code null}
+     * @return the department id, or {@code null} if there is no department
+     */
+    public static String idOf(Department department) {
+        if (department == null) return null;
+        if (department instanceof LazyLoadingProxy proxy) {
+            return proxy.toDBRef().getId().toString();
+        }
+        return department.getId();
+    }
+
+    /**
+     * @return {@code true} if the given department is a lazy proxy that has not been replaced yet
+     */
+    public static boolean isUnresolved(Department department) {
+        return department instanceof LazyLoadingProxy;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.MarksHistogramSnapshot;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for {@link MarksHistogramSnapshot} documents.
+ * Extends Spring Data’s {@link MongoRepository} to provide standard
+ * CRUD operations on the "marks_histograms" collection.
+ */
+@Repository
+public interface MarksHistogramSnapshotRepository extends MongoRepository<MarksHistogramSnapshot, String> {
+}
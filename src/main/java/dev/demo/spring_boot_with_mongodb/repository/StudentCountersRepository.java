@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.StudentCounters;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the {@link StudentCounters} document.
+ * Reads and reconciliation go through Spring Data’s {@link MongoRepository};
+ * the per-write increments are in {@link StudentCountersRepositoryCustom}.
+ */
+@Repository
+public interface StudentCountersRepository extends MongoRepository<StudentCounters, String>, StudentCountersRepositoryCustom {
+}
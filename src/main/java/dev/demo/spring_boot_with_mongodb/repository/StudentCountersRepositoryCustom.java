@@ -0,0 +1,24 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.StudentCounters;
+
+import java.util.Map;
+
+/**
+ * Custom repository fragment maintaining the {@link StudentCounters} document.
+ * Implemented by {@link StudentCountersRepositoryCustomImpl} on top of
+ * {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ */
+public interface StudentCountersRepositoryCustom {
+    /**
+     * Apply the change of one student write to the counters in a single atomic {@code $inc}.
+     * Only a counters document written by a reconciliation is updated: an upsert before the first
+     * reconciliation would create partial counters that read as the real totals.
+     *
+     * @param total       change in the number of students
+     * @param active      change in the number of active students
+     * @param departments department ID → change in that department's counts
+     * @return {@code false} if there are no counters to update yet
+     */
+    boolean increment(long total, long active, Map<String, StudentCounters.Counts> departments);
+}
@@ -0,0 +1,35 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.StudentCounters;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * {@link MongoTemplate} backed implementation of {@link StudentCountersRepositoryCustom}.
+ */
+public class StudentCountersRepositoryCustomImpl implements StudentCountersRepositoryCustom {
+    private final MongoTemplate mongo;
+
+    public StudentCountersRepositoryCustomImpl(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public boolean increment(long total, long active, Map<String, StudentCounters.Counts> departments) {
+        Update update = new Update()
+                .inc("total", total)
+                .inc("active", active)
+                .set("updatedAt", Instant.now());
+        departments.forEach((deptId, counts) -> update
+                .inc("departments." + deptId + ".total", counts.getTotal())
+                .inc("departments." + deptId + ".active", counts.getActive()));
+        return mongo.updateFirst(query(where("id").is(StudentCounters.ID)), update, StudentCounters.class)
+                .getMatchedCount() > 0;
+    }
+}
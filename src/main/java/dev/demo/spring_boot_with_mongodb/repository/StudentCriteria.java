@@ -0,0 +1,186 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Filter criteria for the student listing endpoints, expressed once so that
+ * every read mode (offset, keyset, ...) runs exactly the same filter.
+ * Property names are mapped to their {@code @Field} names by Spring Data.
+ */
+public final class StudentCriteria {
+    private static final Pattern REGEX_META = Pattern.compile("[\\\\.^$|?*+()\\[\\]{}]");
+
+    private StudentCriteria() {
+    }
+
+    /**
+     * @return criteria matching every student
+     */
+    public static Criteria all() {
+        return new Criteria();
+    }
+
+    /**
+     * Conjunction of independent filters, e.g. the optional filters of an export.
+     *
+     * @param criteria the filters that must all hold
+     * @return criteria matching students that meet every filter, all students if there is none
+     */
+    public static Criteria allOf(List<Criteria> criteria) {
+        if (criteria.isEmpty()) return all();
+        if (criteria.size() == 1) return criteria.get(0);
+        return new Criteria().andOperator(criteria);
+    }
+
+    /**
+     * @return criteria matching active students
+     */
+    public static Criteria active() {
+        return where("active").is(true);
+    }
+
+    /**
+     * @param active {@code true} for active students, {@code false} for inactive ones
+     * @return criteria matching students with the given status
+     */
+    public static Criteria active(boolean active) {
+        return where("active").is(active);
+    }
+
+    /**
+     * @param versions the accepted versions
+     * @return criteria matching students at one of the versions
+     */
+    public static Criteria versionIn(Collection<Long> versions) {
+        return where("version").in(versions);
+    }
+
+    /**
+     * Prefix of course_marks_idx, so the index bounds the course name.
+     *
+     * @param courseName the name of the course
+     * @return criteria matching students enrolled in the course
+     */
+    public static Criteria byCourse(String courseName) {
+        return where("courses.name").is(courseName);
+    }
+
+    /**
+     * @param courseName the name of the course
+     * @return criteria matching students not enrolled in the course
+     */
+    public static Criteria notEnrolled(String courseName) {
+        return where("courses.name").ne(courseName);
+    }
+
+    /**
+     * Both conditions must hold for the same course element, hence {@code $elemMatch}:
+     * two independent conditions on the array would also match a student whose high mark
+     * is in another course. Bounded by course_marks_idx on both fields.
+     *
+     * @param courseName the name of the course
+     * @param minScore   the minimum marks threshold (inclusive)
+     * @return criteria matching students meeting the threshold in that course
+     */
+    public static Criteria highScorers(String courseName, int minScore) {
+        return where("courses").elemMatch(where("name").is(courseName).and("marks").gte(minScore));
+    }
+
+    /**
+     * Targets {@code department.$id} directly: a {@code department.id} path would be
+     * mapped to an equality on the whole DBRef sub-document, which no index supports.
+     *
+     * @param deptId the department's ID
+     * @return criteria matching students of the department
+     */
+    public static Criteria byDepartment(String deptId) {
+        return where("department.$id").is(refId(deptId));
+    }
+
+    /**
+     * Prefix of dept_active_idx, so the index bounds both fields.
+     *
+     * @param deptId the department's ID
+     * @return criteria matching active students of the department
+     */
+    public static Criteria activeByDepartment(String deptId) {
+        return byDepartment(deptId).and("active").is(true);
+    }
+
+    /**
+     * @param start start date (inclusive) of birth range
+     * @param end   end date (inclusive) of birth range
+     * @return criteria matching students born between the dates
+     */
+    public static Criteria bornBetween(LocalDate start, LocalDate end) {
+        return where("dob").gte(start).lte(end);
+    }
+
+    /**
+     * Anchored prefix match on the normalized names, so that first_name_lower_idx and
+     * last_name_lower_idx bound each branch of the {@code $or} instead of a collection scan.
+     *
+     * @param name the name prefix, matched case-insensitively
+     * @return criteria matching students whose first or last name starts with the prefix
+     */
+    public static Criteria namePrefix(String name) {
+        String prefix = "^" + REGEX_META.matcher(StudentDerivedFields.normalize(name)).replaceAll("\\\\$0");
+        return new Criteria().orOperator(
+                where("firstNameLower").regex(prefix),
+                where("lastNameLower").regex(prefix)
+        );
+    }
+
+    /**
+     * @param term the search term to match against the text index
+     * @return text search criteria in the default language
+     */
+    public static TextCriteria text(String term) {
+        return TextCriteria.forDefaultLanguage().matching(term);
+    }
+
+    /**
+     * Narrow a filter to students with at least the given percentage, bounded by percentage_idx.
+     * The range is added next to the filter's own conditions, so it also applies to a {@code $text} filter.
+     *
+     * @param filter        the endpoint's filter criteria
+     * @param minPercentage the minimum percentage (inclusive), or {@code null} to keep the filter as is
+     * @return criteria matching the filter and the percentage threshold
+     */
+    public static CriteriaDefinition withMinPercentage(CriteriaDefinition filter, Double minPercentage) {
+        if (minPercentage == null) return filter;
+        Document criteria = new Document(filter.getCriteriaObject());
+        criteria.putAll(where("percentage").gte(minPercentage).getCriteriaObject());
+        return new CombinedCriteria(filter.getKey(), criteria);
+    }
+
+    private record CombinedCriteria(String key, Document criteria) implements CriteriaDefinition {
+        @Override
+        public Document getCriteriaObject() {
+            return criteria;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * DBRef ids are stored as ObjectId when the referenced id is a valid ObjectId hex string.
+     */
+    private static Object refId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
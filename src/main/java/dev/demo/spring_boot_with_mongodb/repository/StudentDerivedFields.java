@@ -0,0 +1,34 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Maintains the fields derived from a {@link Student} (lowercase names, percentage, initial version) on every write
+ * (save, insert and bulk insert), whichever code path changed the source fields.
+ */
+@Component
+public class StudentDerivedFields implements BeforeConvertCallback<Student> {
+    @Override
+    public Student onBeforeConvert(Student student, String collection) {
+        student.setFirstNameLower(normalize(student.getFirstName()));
+        student.setLastNameLower(normalize(student.getLastName()));
+        student.setPercentage(student.calculatePercentage());
+        // MongoTemplate inserts start the version at 0, bulk inserts leave it unset
+        if (student.getVersion() == null) student.setVersion(0L);
+        return student;
+    }
+
+    /**
+     * Normal form of a name for case-insensitive prefix matching.
+     *
+     * @param name the name as entered, may be {@code null}
+     * @return the lowercase name, or {@code null}
+     */
+    public static String normalize(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+}
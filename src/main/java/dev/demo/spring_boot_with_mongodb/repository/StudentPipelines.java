@@ -0,0 +1,85 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * The aggregation pipelines of the paged student reads, built in one place so that the index coverage check
+ * explains exactly what {@link StudentRepositoryCustomImpl} runs.
+ * <p>
+ * The filter stages and the sort run once, then a {@code $facet} pages and counts the result in a single round trip.
+ * The sort stays outside the {@code $facet}, where it can follow an index together with the {@code $match};
+ * a sort inside a {@code $facet} branch always runs in memory. Only the content branch projects.
+ */
+public final class StudentPipelines {
+    static final String CONTENT_FACET = "content";
+    static final String TOTAL_FACET = "total";
+    static final String SCORE = "score";
+
+    private StudentPipelines() {
+    }
+
+    /**
+     * The aggregation of a filtered {@link StudentRepositoryCustom#findPage}.
+     *
+     * @param filter   the filter criteria, see {@link StudentCriteria}; not empty
+     * @param pageable pagination and sorting instructions
+     * @param fields   the Student properties to return, empty for whole documents
+     */
+    public static TypedAggregation<Student> page(CriteriaDefinition filter, Pageable pageable, Collection<String> fields) {
+        return facetPage(new ArrayList<>(List.of(match(filter))), pageable.getSort(), pageable, fields);
+    }
+
+    /**
+     * The aggregation of {@link StudentRepositoryCustom#textSearchByScore}.
+     * A sort on {@code score} orders by descending relevance (then {@code _id}); other sorts apply as given.
+     */
+    public static TypedAggregation<Student> textSearchByScore(CriteriaDefinition text, Float minScore, Pageable pageable,
+                                                              Collection<String> fields) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(match(text));
+        stages.add(context -> new Document("$addFields", new Document(SCORE, new Document("$meta", "textScore"))));
+        if (minScore != null) {
+            stages.add(match(where(SCORE).gte(minScore)));
+        }
+        // Relevance only makes sense best first; _id keeps pages stable among equal scores
+        Sort sort = pageable.getSort().getOrderFor(SCORE) != null
+                ? Sort.by(Sort.Direction.DESC, SCORE).and(Sort.by("id"))
+                : pageable.getSort();
+        return facetPage(stages, sort, pageable, fields);
+    }
+
+    private static TypedAggregation<Student> facetPage(List<AggregationOperation> stages, Sort sort, Pageable pageable,
+                                                       Collection<String> fields) {
+        if (sort.isSorted()) {
+            stages.add(sort(sort));
+        }
+        List<AggregationOperation> page = new ArrayList<>();
+        page.add(skip(pageable.getOffset()));
+        page.add(limit(pageable.getPageSize()));
+        if (!fields.isEmpty()) {
+            // Mapped like a find projection so that the documents keep their stored field names
+            Document projection = StudentRepositoryCustomImpl.project(new Query(), fields).getFieldsObject();
+            page.add(context -> new Document("$project", context.getMappedObject(projection)));
+        }
+        stages.add(facet(page.toArray(AggregationOperation[]::new)).as(CONTENT_FACET)
+                .and(count().as(TOTAL_FACET)).as(TOTAL_FACET));
+        // The sorted matches of deep pages may exceed the in-memory limit; unknown sort fields pass through as before
+        return newAggregation(Student.class, stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).relaxedMapping().build());
+    }
+}
@@ -0,0 +1,188 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Custom repository fragment for {@link Student} reads that cannot be
+ * expressed as derived queries. Implemented by {@link StudentRepositoryCustomImpl}
+ * on top of {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ */
+public interface StudentRepositoryCustom {
+    /**
+     * Resolve the lazy department references of the given students in one round trip.
+     * Gathers the distinct department ids and loads them with a single {@code $in} query,
+     * then replaces each proxy with the loaded {@link dev.demo.spring_boot_with_mongodb.model.Department}.
+     *
+     * @param students the students whose departments should be resolved
+     */
+    void resolveDepartments(Collection<Student> students);
+
+    /**
+     * Case-insensitive name prefix search, see {@link StudentCriteria#namePrefix(String)}.
+     * Results are capped at {@code app.students.search.max-results}: pages past the cap are
+     * empty and the total is counted only up to the cap, so broad prefixes stay cheap.
+     *
+     * @param name     the first or last name prefix
+     * @param pageable pagination and sorting instructions
+     * @return a Page of matching students with a total of at most the cap
+     */
+    Page<Student> searchByName(String name, Pageable pageable);
+
+    /**
+     * Load a single student, restricted to the given properties.
+     *
+     * @param id     the student's ID
+     * @param fields the Student properties to return, empty for the whole document
+     * @return the student, or empty if not found
+     */
+    Optional<Student> findById(String id, Collection<String> fields);
+
+    /**
+     * Keyset (seek) read of the students matching the filter.
+     * Resumes strictly after the given position using a range predicate on the
+     * sort key plus {@code _id}, so the cost of a page does not grow with its depth.
+     * Projections always keep the sort key and {@code _id} needed for the next position.
+     *
+     * @param filter   the filter criteria, see {@link StudentCriteria}
+     * @param position the position to continue after, or an initial keyset position
+     * @param sort     the sort order; {@code _id} is appended as tie-breaker
+     * @param limit    maximum number of students to return
+     * @param fields   the Student properties to return, empty for whole documents
+     * @return a Window of students and the positions to continue from
+     */
+    Window<Student> scroll(CriteriaDefinition filter, KeysetScrollPosition position, Sort sort, int limit,
+                           Collection<String> fields);
+
+    /**
+     * Read one page of the students matching the filter together with the exact total
+     * in a single round trip: the filter and the sort run once, then a {@code $facet} stage feeds the sorted matches
+     * to a {@code $skip/$limit} branch and a {@code $count} branch.
+     * An unfiltered listing is a plain find with a {@code countDocuments} of the collection.
+     *
+     * @param filter   the filter criteria, see {@link StudentCriteria}
+     * @param pageable pagination and sorting instructions
+     * @param fields   the Student properties to return, empty for whole documents
+     * @return a Page of students with the exact total
+     */
+    Page<Student> findPage(CriteriaDefinition filter, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Text search that exposes the relevance of each match as {@link Student#getScore()}.
+     * A sort on {@code score} orders by descending relevance (then {@code _id}); other sorts apply as given.
+     * With a minimum score the low-relevance tail is dropped on the server, before paging and counting.
+     *
+     * @param text     the text search criteria, optionally narrowed by further conditions
+     * @param minScore the minimum text score to return, or {@code null} for all matches
+     * @param pageable pagination and sorting instructions
+     * @param fields   the Student properties to return, empty for whole documents
+     * @return a Page of scored students with the exact total
+     */
+    Page<Student> textSearchByScore(CriteriaDefinition text, Float minScore, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Count-free read of one page of the students matching the filter.
+     * Fetches {@code size + 1} rows to tell whether a next page exists.
+     *
+     * @param filter   the filter criteria, see {@link StudentCriteria}
+     * @param pageable pagination and sorting instructions
+     * @param fields   the Student properties to return, empty for whole documents
+     * @return a Slice of students without total count
+     */
+    Slice<Student> findSlice(CriteriaDefinition filter, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Read one page of the students matching the filter with an approximate total.
+     * Unfiltered listings use the collection metadata count ({@code estimatedDocumentCount}),
+     * filtered listings a count cached per filter for a short TTL.
+     *
+     * @param filter   the filter criteria, see {@link StudentCriteria}
+     * @param pageable pagination and sorting instructions
+     * @param fields   the Student properties to return, empty for whole documents
+     * @return a Page of students whose total may lag behind recent writes
+     */
+    Page<Student> findPageWithEstimatedTotal(CriteriaDefinition filter, Pageable pageable, Collection<String> fields);
+
+    /**
+     * Per-department student count, active ratio and average marks of the students matching the filter,
+     * computed by a single {@code $group} pipeline so that no student document leaves the database.
+     *
+     * @param filter the filter criteria, see {@link StudentCriteria}; a department filter is bounded by dept_active_idx
+     * @return the statistics of each department with matching students, ordered by department name
+     */
+    List<DepartmentStats> departmentStats(CriteriaDefinition filter);
+
+    /**
+     * Stream every student through a server-side cursor, restricted to the given properties,
+     * so in-memory views can be warmed in one pass without loading the collection at once.
+     * The stream must be closed.
+     *
+     * @param fields the Student properties to load, empty for whole documents
+     * @return a stream over all students
+     */
+    Stream<Student> streamAll(Collection<String> fields);
+
+    /**
+     * Stream every student through a server-side cursor in {@code _id} order, restricted to the given properties,
+     * so that a pass over the collection can tell which students it has already read. The stream must be closed.
+     *
+     * @param fields the Student properties to load, empty for whole documents; the id is always loaded
+     * @return a stream over all students, by ascending id
+     */
+    Stream<Student> streamById(Collection<String> fields);
+
+    /**
+     * Time of the newest insert, read from the largest {@code _id} in one index lookup.
+     *
+     * @return the creation time of the newest ObjectId {@code _id}, or empty if no student has one
+     */
+    Optional<Instant> lastInsertedAt();
+
+    /**
+     * Stream the students matching the filter through a server-side cursor, restricted to the given properties.
+     * The next batch is only fetched once the consumer has taken the current one, so a slow consumer
+     * slows the cursor down instead of buffering students. The stream must be closed.
+     *
+     * @param filter the filter criteria, see {@link StudentCriteria}
+     * @param fields the Student properties to load, empty for whole documents
+     * @return a stream over the matching students, in no particular order
+     */
+    Stream<Student> stream(CriteriaDefinition filter, Collection<String> fields);
+
+    /**
+     * Insert the students with one unordered bulk write: the server carries on past failing documents,
+     * e.g. duplicates on the unique email index, and reports them per document.
+     * Derived fields are set by the usual before-convert callback.
+     *
+     * @param students the students to insert, with their IDs assigned
+     * @return the number of inserted students and the failures by position
+     */
+    BulkInsertResult insertUnordered(List<Student> students);
+
+    /**
+     * Apply an update to one student in a single round trip ({@code findAndModify}).
+     *
+     * @param id     the student's ID
+     * @param guard  further conditions the student must meet, see {@link StudentCriteria}
+     * @param update the update, see {@link StudentUpdates}
+     * @return the student as it was before the update, or empty if no student has the ID and meets the guard
+     */
+    Optional<Student> modify(String id, CriteriaDefinition guard, UpdateDefinition update);
+
+    /**
+     * Delete one student in a single round trip ({@code findAndModify} with {@code remove}).
+     *
+     * @param id the student's ID
+     * @return the deleted student, or empty if no student has the ID
+     */
+    Optional<Student> remove(String id);
+}
@@ -0,0 +1,279 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static dev.demo.spring_boot_with_mongodb.repository.StudentPipelines.CONTENT_FACET;
+import static dev.demo.spring_boot_with_mongodb.repository.StudentPipelines.TOTAL_FACET;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * {@link MongoTemplate} backed implementation of {@link StudentRepositoryCustom}.
+ */
+public class StudentRepositoryCustomImpl implements StudentRepositoryCustom {
+    private static final Logger LOG = LoggerFactory.getLogger(StudentRepositoryCustomImpl.class);
+
+    /**
+     * Groups students by the id of their department DBRef ({@code $getField}, as a {@code $id} path is not
+     * allowed in expressions). Hand-written stages are not mapped, hence the stored field names.
+     */
+    private static final Document DEPARTMENT_GROUP = Document.parse("""
+            { $group: {
+                _id: { $getField: { field: { $literal: "$id" }, input: "$department" } },
+                students: { $sum: 1 },
+                active: { $sum: { $cond: [ { $eq: [ "$is_active", true ] }, 1, 0 ] } },
+                marks: { $sum: { $sum: "$courses.marks" } },
+                enrolments: { $sum: { $size: { $ifNull: [ "$courses", [] ] } } }
+            } }""");
+    private static final Document DEPARTMENT_STATS = Document.parse("""
+            { $project: {
+                _id: 0,
+                departmentId: { $toString: "$_id" },
+                departmentName: { $first: "$department.dept_name" },
+                studentCount: "$students",
+                activeCount: "$active",
+                activeRatio: { $round: [ { $divide: [ "$active", "$students" ] }, 4 ] },
+                averageMarks: { $cond: [ { $gt: [ "$enrolments", 0 ] },
+                                         { $round: [ { $divide: [ "$marks", "$enrolments" ] }, 2 ] }, null ] }
+            } }""");
+
+    private final MongoTemplate mongo;
+    private final CountCache countCache;
+    private final int maxSearchResults;
+
+    public StudentRepositoryCustomImpl(MongoTemplate mongo,
+                                       @Value("${app.students.count-cache-ttl:30s}") Duration countCacheTtl,
+                                       @Value("${app.students.search.max-results:1000}") int maxSearchResults) {
+        this.mongo = mongo;
+        this.countCache = new CountCache(countCacheTtl);
+        this.maxSearchResults = maxSearchResults;
+    }
+
+    @Override
+    public void resolveDepartments(Collection<Student> students) {
+        // Only still-unresolved references need a lookup
+        List<Student> unresolved = students.stream()
+                .filter(s -> DepartmentRefs.isUnresolved(s.getDepartment()))
+                .toList();
+        if (unresolved.isEmpty()) return;
+        Set<String> ids = unresolved.stream()
+                .map(s -> DepartmentRefs.idOf(s.getDepartment()))
+                .collect(Collectors.toSet());
+        // One $in query instead of one lookup per student
+        Map<String, Department> departments = mongo.find(query(where("id").in(ids)), Department.class)
+                .stream()
+                .collect(Collectors.toMap(Department::getId, Function.identity()));
+        unresolved.forEach(s -> s.setDepartment(departments.get(DepartmentRefs.idOf(s.getDepartment()))));
+        LOG.debug("Resolved {} departments for {} students in 1 round trip instead of {}",
+                departments.size(), unresolved.size(), unresolved.size());
+    }
+
+    @Override
+    public Page<Student> searchByName(String name, Pageable pageable) {
+        Query query = new Query(StudentCriteria.namePrefix(name));
+        // Never read past the cap; a limit of 0 would mean no limit at all
+        long remaining = Math.max(0, maxSearchResults - pageable.getOffset());
+        int limit = (int) Math.min(pageable.getPageSize(), remaining);
+        List<Student> content = limit == 0 ? List.of()
+                : mongo.find(Query.of(query).with(pageable).limit(limit), Student.class);
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> mongo.count(Query.of(query).limit(maxSearchResults), Student.class));
+    }
+
+    @Override
+    public Optional<Student> findById(String id, Collection<String> fields) {
+        return Optional.ofNullable(mongo.findOne(project(query(where("id").is(id)), fields), Student.class));
+    }
+
+    @Override
+    public Window<Student> scroll(CriteriaDefinition filter, KeysetScrollPosition position, Sort sort, int limit,
+                                  Collection<String> fields) {
+        Query query = new Query(filter).with(position).with(sort).limit(limit);
+        if (!fields.isEmpty()) {
+            // The next position is read from the sort key and id of the last row
+            Set<String> keys = new LinkedHashSet<>(fields);
+            keys.add("id");
+            sort.forEach(order -> keys.add(order.getProperty()));
+            project(query, keys);
+        }
+        return mongo.scroll(query, Student.class);
+    }
+
+    @Override
+    public Page<Student> findPage(CriteriaDefinition filter, Pageable pageable, Collection<String> fields) {
+        if (filter.getCriteriaObject().isEmpty()) {
+            // The page itself is an index-backed find; the total is an exact countDocuments, not the metadata
+            // estimate, which can be off after an unclean shutdown or with orphaned documents on a sharded cluster
+            List<Student> content = mongo.find(project(new Query().with(pageable), fields), Student.class);
+            return PageableExecutionUtils.getPage(content, pageable, () -> mongo.count(new Query(), Student.class));
+        }
+        return facetPage(StudentPipelines.page(filter, pageable, fields), pageable);
+    }
+
+    @Override
+    public Page<Student> textSearchByScore(CriteriaDefinition text, Float minScore, Pageable pageable, Collection<String> fields) {
+        return facetPage(StudentPipelines.textSearchByScore(text, minScore, pageable, fields), pageable);
+    }
+
+    /**
+     * Run a paging pipeline of {@link StudentPipelines} and read its content and total.
+     */
+    private Page<Student> facetPage(TypedAggregation<Student> aggregation, Pageable pageable) {
+        Document result = mongo.aggregate(aggregation, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return Page.empty(pageable);
+        }
+        List<Student> content = result.getList(CONTENT_FACET, Document.class).stream()
+                .map(doc -> mongo.getConverter().read(Student.class, doc))
+                .toList();
+        // $count emits no document at all when nothing matches
+        List<Document> total = result.getList(TOTAL_FACET, Document.class);
+        long totalElements = total.isEmpty() ? 0 : total.get(0).get(TOTAL_FACET, Number.class).longValue();
+        return new PageImpl<>(content, pageable, totalElements);
+    }
+
+    @Override
+    public List<DepartmentStats> departmentStats(CriteriaDefinition filter) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (!filter.getCriteriaObject().isEmpty()) {
+            stages.add(match(filter));
+        }
+        stages.add(context -> DEPARTMENT_GROUP);
+        // One lookup per department, not per student
+        stages.add(context -> new Document("$lookup", new Document("from", mongo.getCollectionName(Department.class))
+                .append("localField", "_id").append("foreignField", "_id").append("as", "department")));
+        stages.add(context -> DEPARTMENT_STATS);
+        stages.add(context -> new Document("$sort", new Document("departmentName", 1).append("departmentId", 1)));
+        return mongo.aggregate(newAggregation(Student.class, stages), DepartmentStats.class).getMappedResults();
+    }
+
+    @Override
+    public Slice<Student> findSlice(CriteriaDefinition filter, Pageable pageable, Collection<String> fields) {
+        // One extra row tells whether there is a next page, no count needed
+        Query query = project(new Query(filter).with(pageable).limit(pageable.getPageSize() + 1), fields);
+        List<Student> rows = mongo.find(query, Student.class);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Student> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public Page<Student> findPageWithEstimatedTotal(CriteriaDefinition filter, Pageable pageable, Collection<String> fields) {
+        Query query = new Query(filter);
+        List<Student> content = mongo.find(project(Query.of(query).with(pageable), fields), Student.class);
+        // The count is skipped entirely when the page itself reveals the total
+        return PageableExecutionUtils.getPage(content, pageable, () -> estimatedCount(query));
+    }
+
+    @Override
+    public Stream<Student> streamAll(Collection<String> fields) {
+        return stream(StudentCriteria.all(), fields);
+    }
+
+    @Override
+    public Stream<Student> streamById(Collection<String> fields) {
+        Set<String> keys = new LinkedHashSet<>(fields);
+        if (!keys.isEmpty()) keys.add("id");
+        // Walks the _id index, no sort in memory
+        return mongo.stream(project(new Query().with(Sort.by("id")), keys), Student.class);
+    }
+
+    @Override
+    public Optional<Instant> lastInsertedAt() {
+        // String ids sort before ObjectIds, so the largest _id is the newest ObjectId if there is one
+        Query newest = project(new Query().with(Sort.by(Sort.Direction.DESC, "id")).limit(1), Set.of("id"));
+        return Optional.ofNullable(mongo.findOne(newest, Student.class))
+                .map(Student::getId)
+                .filter(ObjectId::isValid)
+                .map(id -> new ObjectId(id).getDate().toInstant());
+    }
+
+    @Override
+    public Stream<Student> stream(CriteriaDefinition filter, Collection<String> fields) {
+        return mongo.stream(project(new Query(filter), fields), Student.class);
+    }
+
+    @Override
+    public BulkInsertResult insertUnordered(List<Student> students) {
+        if (students.isEmpty()) return new BulkInsertResult(0, List.of());
+        try {
+            int inserted = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Student.class)
+                    .insert(students)
+                    .execute()
+                    .getInsertedCount();
+            return new BulkInsertResult(inserted, List.of());
+        } catch (BulkOperationException e) {
+            List<BulkInsertResult.Failure> failures = new ArrayList<>(e.getErrors().size());
+            for (BulkWriteError error : e.getErrors()) {
+                boolean duplicateKey = ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY;
+                failures.add(new BulkInsertResult.Failure(error.getIndex(), duplicateKey, error.getMessage()));
+            }
+            return new BulkInsertResult(e.getResult().getInsertedCount(), failures);
+        }
+    }
+
+    @Override
+    public Optional<Student> modify(String id, CriteriaDefinition guard, UpdateDefinition update) {
+        Query query = new Query(where("id").is(id)).addCriteria(guard);
+        return Optional.ofNullable(mongo.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false), Student.class));
+    }
+
+    @Override
+    public Optional<Student> remove(String id) {
+        return Optional.ofNullable(mongo.findAndRemove(new Query(where("id").is(id)), Student.class));
+    }
+
+    private long estimatedCount(Query query) {
+        if (query.getQueryObject().isEmpty()) {
+            return mongo.estimatedCount(Student.class);
+        }
+        return countCache.get(query.getQueryObject().toString(), () -> mongo.count(query, Student.class));
+    }
+
+    /**
+     * Restrict the returned documents to the given properties. Unless the id is requested
+     * {@code _id} is excluded too, so a listing of indexed fields only is a covered query.
+     */
+    static Query project(Query query, Collection<String> fields) {
+        if (fields.isEmpty()) return query;
+        query.fields().include(fields.toArray(String[]::new));
+        if (!fields.contains("id")) {
+            query.fields().exclude("id");
+        }
+        return query;
+    }
+}
@@ -0,0 +1,174 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Targeted updates of single students, so a partial change is one small update instead of a full
+ * document replace. Like {@link StudentDerivedFields} on full writes, every update also maintains
+ * the fields derived from what it changes.
+ * <p>
+ * Course changes are update pipelines: they recompute the stored percentage from the new marks in the
+ * same write, which {@code $push}, {@code $pull} and positional {@code $set} cannot. Hand-written
+ * stages are not mapped, hence the stored field names.
+ * <p>
+ * Every update increments the version itself; MongoTemplate only adds its own increment to updates that do not.
+ * <p>
+ * {@code findAndModify} returns one image of the document, and the listeners of a write need the one before it.
+ * The image after it is therefore built in Java by the method paired with each update, rather than read back
+ * in a second round trip; StudentUpdatesMongoTest keeps each pair equal against a real MongoDB.
+ */
+public final class StudentUpdates {
+    private StudentUpdates() {
+    }
+
+    /**
+     * @param changes the properties to change; {@code null} properties are left as they are
+     * @return a {@code $set} of the changed properties and the names derived from them, empty if nothing changes
+     */
+    public static Update patch(Student changes) {
+        Update update = new Update();
+        setIfPresent(update, "firstName", changes.getFirstName());
+        setIfPresent(update, "firstNameLower", StudentDerivedFields.normalize(changes.getFirstName()));
+        setIfPresent(update, "lastName", changes.getLastName());
+        setIfPresent(update, "lastNameLower", StudentDerivedFields.normalize(changes.getLastName()));
+        setIfPresent(update, "email", changes.getEmail());
+        setIfPresent(update, "dob", changes.getDob());
+        setIfPresent(update, "department", changes.getDepartment());
+        setIfPresent(update, "enrollmentDate", changes.getEnrollmentDate());
+        setIfPresent(update, "active", changes.isActive());
+        if (!update.getUpdateObject().isEmpty()) update.inc("version", 1);
+        return update;
+    }
+
+    private static void setIfPresent(Update update, String property, Object value) {
+        if (value != null) update.set(property, value);
+    }
+
+    /**
+     * @return the student as {@link #patch(Student)} leaves it
+     */
+    public static Student patched(Student before, Student changes) {
+        Student after = next(before);
+        if (changes.getFirstName() != null) after.setFirstName(changes.getFirstName());
+        if (changes.getLastName() != null) after.setLastName(changes.getLastName());
+        if (changes.getEmail() != null) after.setEmail(changes.getEmail());
+        if (changes.getDob() != null) after.setDob(changes.getDob());
+        if (changes.getDepartment() != null) after.setDepartment(changes.getDepartment());
+        if (changes.getEnrollmentDate() != null) after.setEnrollmentDate(changes.getEnrollmentDate());
+        if (changes.isActive() != null) after.setActive(changes.isActive());
+        after.setFirstNameLower(StudentDerivedFields.normalize(after.getFirstName()));
+        after.setLastNameLower(StudentDerivedFields.normalize(after.getLastName()));
+        return after;
+    }
+
+    /**
+     * A full update as one {@code $set} instead of a document replace, so it can be applied with
+     * {@code findAndModify}: every property and the fields derived from them, the department only if given.
+     *
+     * @param values the new state of the student; a {@code null} department keeps the current one
+     * @return a {@code $set} of all properties
+     */
+    public static Update replace(Student values) {
+        return patch(values)
+                .set("courses", values.getCourses())
+                .set("percentage", values.calculatePercentage());
+    }
+
+    /**
+     * @return the student as {@link #replace(Student)} leaves it
+     */
+    public static Student replaced(Student before, Student values) {
+        Student after = patched(before, values);
+        after.setCourses(values.getCourses());
+        after.setPercentage(after.calculatePercentage());
+        return after;
+    }
+
+    /**
+     * Append a course; pair with a guard that the student does not take it yet.
+     */
+    public static AggregationUpdate addCourse(Course course) {
+        Document added = new Document("course_name", course.getName()).append("marks", course.getMarks());
+        return withPercentage(new Document("$concatArrays", List.of(
+                new Document("$ifNull", List.of("$courses", List.of())),
+                List.of(new Document("$literal", added)))));
+    }
+
+    /**
+     * Drop a course by name.
+     */
+    public static AggregationUpdate removeCourse(String courseName) {
+        return withPercentage(new Document("$filter", new Document("input", "$courses")
+                .append("as", "c")
+                .append("cond", new Document("$ne", List.of("$$c.course_name", literal(courseName))))));
+    }
+
+    /**
+     * Change the marks of a course; pair with a guard that the student takes it.
+     */
+    public static AggregationUpdate setMarks(String courseName, int marks) {
+        Document changed = new Document("$mergeObjects", List.of("$$c", new Document("marks", marks)));
+        return withPercentage(new Document("$map", new Document("input", "$courses")
+                .append("as", "c")
+                .append("in", new Document("$cond", List.of(
+                        new Document("$eq", List.of("$$c.course_name", literal(courseName))), changed, "$$c")))));
+    }
+
+    /**
+     * @return the student as the course update leaves it, with the percentage recomputed
+     */
+    public static Student withCourses(Student before, List<Course> courses) {
+        Student after = next(before);
+        after.setCourses(courses);
+        after.setPercentage(after.calculatePercentage());
+        return after;
+    }
+
+    /**
+     * @return a copy of the student with the version the update gives it; an update increments a missing version to 1
+     */
+    private static Student next(Student before) {
+        Student after = before.copy();
+        after.setVersion((before.getVersion() == null ? 0 : before.getVersion()) + 1);
+        return after;
+    }
+
+    /**
+     * The stored percentage as an update pipeline expression over the stored courses: average marks rounded half up
+     * to two places ({@code $round} would round half to even), 0 without courses.
+     */
+    public static Document percentage() {
+        Document average = new Document("$ifNull", List.of(new Document("$avg", "$courses.marks"), 0));
+        return new Document("$divide", List.of(new Document("$floor", new Document("$add", List.of(
+                new Document("$multiply", List.of(average, 100)), 0.5))), 100));
+    }
+
+    /**
+     * Course names are user input: as {@code $literal} a name such as "$x" is not read as a field path.
+     */
+    private static Document literal(String value) {
+        return new Document("$literal", value);
+    }
+
+    /**
+     * Set the courses, then the percentage from them: average marks rounded half up to two places,
+     * as {@link Student#calculatePercentage()} computes it.
+     */
+    private static AggregationUpdate withPercentage(Document courses) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$set", new Document("courses", courses)));
+        stages.add(context -> new Document("$set", new Document("percentage", percentage())));
+        return AggregationUpdate.from(stages)
+                .set("version").toValue(ArithmeticOperators.valueOf(ConditionalOperators.ifNull("version").then(0)).add(1));
+    }
+}
@@ -0,0 +1,84 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Top-N students of one course or department, best score first.
+ * Retains at most {@code capacity} students, more than are ever served, so that students leaving the
+ * board can be replaced without a query; once removals leave fewer students than served while others
+ * were dropped for capacity, the board is incomplete until it is rebuilt.
+ * All methods lock the board itself, so boards are updated concurrently with each other.
+ */
+final class BoundedLeaderboard {
+    private static final Comparator<Ranked> ORDER =
+            Comparator.comparingDouble(Ranked::score).reversed().thenComparing(Ranked::studentId);
+
+    private final int capacity;
+    private final TreeSet<Ranked> ranked = new TreeSet<>(ORDER);
+    private final Map<String, Ranked> byStudent = new HashMap<>();
+    private long members;
+
+    BoundedLeaderboard(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Count a student into the board, keeping them if they rank within the capacity.
+     */
+    synchronized void add(String studentId, String firstName, String lastName, double score) {
+        Ranked entry = new Ranked(studentId, firstName, lastName, score);
+        Ranked previous = byStudent.put(studentId, entry);
+        // A student already on the board is re-ranked, not counted again
+        if (previous != null) ranked.remove(previous);
+        else members++;
+        ranked.add(entry);
+        if (ranked.size() > capacity) byStudent.remove(ranked.pollLast().studentId());
+    }
+
+    /**
+     * Count a student out of the board.
+     */
+    synchronized void remove(String studentId) {
+        members = Math.max(0, members - 1);
+        Ranked previous = byStudent.remove(studentId);
+        if (previous != null) ranked.remove(previous);
+    }
+
+    /**
+     * @return the number of students counted into the board
+     */
+    synchronized long members() {
+        return members;
+    }
+
+    /**
+     * @return {@code false} if students ranked within {@code limit} may have been dropped for capacity
+     */
+    synchronized boolean isComplete(int limit) {
+        return ranked.size() >= Math.min(members, limit);
+    }
+
+    /**
+     * @return the best {@code limit} students, best first
+     */
+    synchronized List<Leaderboard.Entry> top(int limit) {
+        List<Leaderboard.Entry> top = new ArrayList<>(Math.min(limit, ranked.size()));
+        Iterator<Ranked> it = ranked.iterator();
+        while (it.hasNext() && top.size() < limit) {
+            Ranked entry = it.next();
+            top.add(new Leaderboard.Entry(top.size() + 1, entry.studentId(), entry.firstName(), entry.lastName(), entry.score()));
+        }
+        return top;
+    }
+
+    private record Ranked(String studentId, String firstName, String lastName, double score) {
+    }
+}
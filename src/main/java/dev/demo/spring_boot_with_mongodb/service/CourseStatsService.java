@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.CourseStatsDTO;
+
+import java.util.List;
+
+/**
+ * Service interface for the per-course statistics view.
+ */
+public interface CourseStatsService {
+    List<CourseStatsDTO> getAll();
+
+    void rebuild();
+}
@@ -0,0 +1,224 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.mapper.CourseStatsMapper;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.CourseStats;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.CourseStatsDTO;
+import dev.demo.spring_boot_with_mongodb.repository.CourseStatsRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Service implementation maintaining and serving the {@link CourseStats} view.
+ * Each student write is applied as a delta to the courses it touches. The whole view is rebuilt once the
+ * application is ready and every {@code app.course-stats.rebuild-interval}, which repairs deltas that failed
+ * or were made behind the application's back (imports into the collection, other instances).
+ * <p>
+ * A rebuild counts the marks of every course into a {@link MarksHistogram} with one streaming pass over the
+ * students; writes during the pass reach the new histograms too, see {@link RebuildCoordinator}. The histograms
+ * then replace the view while deltas wait, so each delta of this instance is counted exactly once.
+ */
+@Service
+public class CourseStatsServiceImpl implements CourseStatsService {
+    private static final Logger LOG = LoggerFactory.getLogger(CourseStatsServiceImpl.class);
+
+    static final Set<String> FIELDS = Set.of("courses");
+
+    private final CourseStatsRepository courseStatsRepo;
+    private final StudentRepository studentRepo;
+    private final CourseStatsMapper courseStatsMapper;
+    private final RebuildCoordinator<Map<String, MarksHistogram>> marks = new RebuildCoordinator<>(new ConcurrentHashMap<>());
+    /**
+     * Deltas share it, the swap of a rebuilt view takes it alone: a delta recorded in the new histograms
+     * must not reach the collection after they replaced it.
+     */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public CourseStatsServiceImpl(CourseStatsRepository courseStatsRepo, StudentRepository studentRepo,
+                                  CourseStatsMapper courseStatsMapper) {
+        this.courseStatsRepo = courseStatsRepo;
+        this.studentRepo = studentRepo;
+        this.courseStatsMapper = courseStatsMapper;
+    }
+
+    /**
+     * Retrieve the statistics of every course, ordered by course name.
+     * Reads one document per course, however many students there are.
+     */
+    @Override
+    public List<CourseStatsDTO> getAll() {
+        LOG.info("getAll() called");
+        List<CourseStats> stats = courseStatsRepo.findAll(Sort.by("courseName"));
+        LOG.info("getAll() returning {} courses", stats.size());
+        return courseStatsMapper.toDtoList(stats);
+    }
+
+    /**
+     * First rebuild, off the startup thread: until it is done the view is served as stored.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Recompute the whole view from the students.
+     */
+    @Override
+    @Scheduled(initialDelayString = "${app.course-stats.rebuild-interval:PT1H}",
+            fixedDelayString = "${app.course-stats.rebuild-interval:PT1H}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        marks.start(new ConcurrentHashMap<>());
+        try (Stream<Student> students = studentRepo.streamById(FIELDS)) {
+            students.forEach(student -> marks.scanned(student.getId(), view -> record(view, student, 1)));
+        } catch (RuntimeException e) {
+            marks.abort();
+            throw e;
+        }
+        swapLock.writeLock().lock();
+        try {
+            Map<String, MarksHistogram> view = marks.finish((ids, next) ->
+                    studentRepo.findAllById(ids).forEach(student -> record(next, student, 1)));
+            Instant now = Instant.now();
+            List<CourseStats> stats = new ArrayList<>();
+            view.forEach((courseName, histogram) -> {
+                if (histogram.count() > 0) stats.add(stats(courseName, histogram, now));
+            });
+            courseStatsRepo.replaceAll(stats);
+            LOG.info("Rebuilt the stats of {} courses in {} ms", stats.size(), System.currentTimeMillis() - start);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private static CourseStats stats(String courseName, MarksHistogram histogram, Instant now) {
+        CourseStats stats = new CourseStats();
+        stats.setCourseName(courseName);
+        stats.setEnrollments(histogram.count());
+        stats.setTotalMarks(histogram.sum());
+        stats.setMinMarks(histogram.min());
+        stats.setMaxMarks(histogram.max());
+        stats.setUpdatedAt(now);
+        return stats;
+    }
+
+    /**
+     * Apply a student write to the statistics of the courses it changed.
+     * Failures are logged rather than failing the already persisted write; the next rebuild repairs them.
+     */
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        Student student = event.after() != null ? event.after() : event.before();
+        if (student == null) return;
+        Map<String, CourseDelta> deltas = new LinkedHashMap<>();
+        courses(event.before()).forEach(c -> deltas.computeIfAbsent(c.getName(), n -> new CourseDelta()).removed.add(c.getMarks()));
+        courses(event.after()).forEach(c -> deltas.computeIfAbsent(c.getName(), n -> new CourseDelta()).added.add(c.getMarks()));
+        if (deltas.values().stream().allMatch(CourseDelta::isNoop)) return;
+        swapLock.readLock().lock();
+        try {
+            marks.write(student.getId(), view -> {
+                record(view, event.before(), -1);
+                record(view, event.after(), 1);
+            });
+            apply(deltas);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a batch of inserted students with one update per course.
+     */
+    @EventListener
+    public void onStudentsCreated(StudentsCreatedEvent event) {
+        Map<String, CourseDelta> deltas = new LinkedHashMap<>();
+        event.students().forEach(student -> courses(student).forEach(c ->
+                deltas.computeIfAbsent(c.getName(), n -> new CourseDelta()).added.add(c.getMarks())));
+        swapLock.readLock().lock();
+        try {
+            event.students().forEach(student -> marks.write(student.getId(), view -> record(view, student, 1)));
+            apply(deltas);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void record(Map<String, MarksHistogram> view, Student student, int sign) {
+        for (Course course : courses(student)) {
+            MarksHistogram histogram = view.computeIfAbsent(course.getName(), k -> new MarksHistogram());
+            if (sign > 0) histogram.add(course.getMarks());
+            else histogram.remove(course.getMarks());
+        }
+    }
+
+    private void apply(Map<String, CourseDelta> deltas) {
+        deltas.forEach((courseName, delta) -> {
+            if (delta.isNoop()) return;
+            try {
+                CourseStats stats = courseStatsRepo.increment(courseName, delta.enrollments(), delta.marks(),
+                        delta.added.isEmpty() ? null : Collections.min(delta.added),
+                        delta.added.isEmpty() ? null : Collections.max(delta.added));
+                // $min/$max cannot narrow the range, so a removed extreme needs a recount of that course's range
+                if (delta.removedExtreme(stats)) {
+                    courseStatsRepo.refresh(courseName);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Could not update course stats of {}, left to the next rebuild", courseName, e);
+            }
+        });
+    }
+
+    private static List<Course> courses(Student student) {
+        if (student == null || student.getCourses() == null) return List.of();
+        return student.getCourses().stream().filter(c -> c.getName() != null && c.getMarks() != null).toList();
+    }
+
+    /**
+     * Marks removed from and added to one course by a student write.
+     */
+    private static final class CourseDelta {
+        private final List<Integer> removed = new ArrayList<>();
+        private final List<Integer> added = new ArrayList<>();
+
+        boolean isNoop() {
+            return removed.stream().sorted().toList().equals(added.stream().sorted().toList());
+        }
+
+        long enrollments() {
+            return added.size() - removed.size();
+        }
+
+        long marks() {
+            return added.stream().mapToLong(Integer::longValue).sum() - removed.stream().mapToLong(Integer::longValue).sum();
+        }
+
+        boolean removedExtreme(CourseStats stats) {
+            if (removed.isEmpty()) return false;
+            if (stats == null || stats.getEnrollments() <= 0 || stats.getMinMarks() == null || stats.getMaxMarks() == null) {
+                return true;
+            }
+            return removed.stream().anyMatch(m -> m <= stats.getMinMarks() || m >= stats.getMaxMarks());
+        }
+    }
+}
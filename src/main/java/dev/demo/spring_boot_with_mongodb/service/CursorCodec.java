@@ -0,0 +1,83 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import com.mongodb.MongoClientSettings;
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import org.bson.BSONException;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Encodes keyset scroll positions as opaque, URL-safe cursor tokens.
+ * <p>
+ * The keys (last sort value plus id) are written as a BSON document so that
+ * dates, numbers and ObjectIds round-trip with their original types, next to the sort direction:
+ * the same keys mean a different position in the opposite order.
+ */
+final class CursorCodec {
+    static final String PARAMETER = "after";
+
+    private static final String DIRECTION = "dir";
+    private static final String KEYS = "keys";
+    private static final DocumentCodec CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encode the keyset of the given position and the direction of the listing into a cursor token.
+     */
+    static String encode(ScrollPosition position, Sort.Direction direction) {
+        KeysetScrollPosition keyset = (KeysetScrollPosition) position;
+        Document cursor = new Document(DIRECTION, direction.name()).append(KEYS, new Document(keyset.getKeys()));
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        CODEC.encode(new BsonBinaryWriter(buffer), cursor, EncoderContext.builder().build());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.toByteArray());
+    }
+
+    /**
+     * Decode a cursor token produced by {@link #encode(ScrollPosition, Sort.Direction)} for a listing sorted by
+     * {@code sortField} in the given direction. An empty token starts a new keyset listing.
+     *
+     * @throws InvalidRequestParameterException if the token is malformed or belongs to a different sort
+     */
+    static KeysetScrollPosition decode(String token, String sortField, Sort.Direction direction) {
+        if (token.isEmpty()) return ScrollPosition.keyset();
+        Document cursor;
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            cursor = CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+        } catch (IllegalArgumentException | BSONException e) {
+            throw new InvalidRequestParameterException(PARAMETER, token, "malformed cursor");
+        }
+        if (!(cursor.get(KEYS) instanceof Document keys) || !(cursor.get(DIRECTION) instanceof String dir)) {
+            throw new InvalidRequestParameterException(PARAMETER, token, "malformed cursor");
+        }
+        if (!dir.equals(direction.name())) {
+            throw new InvalidRequestParameterException(PARAMETER, token,
+                    "cursor does not match sort direction '" + direction.name().toLowerCase() + "'");
+        }
+        if (!keys.containsKey(sortField) || !keys.containsKey("id")) {
+            throw new InvalidRequestParameterException(PARAMETER, token, "cursor does not match sort '" + sortField + "'");
+        }
+        // Only plain values may end up in the keyset filter, never operator documents
+        boolean scalar = keys.values().stream().allMatch(v -> v == null || v instanceof String
+                || v instanceof Number || v instanceof Boolean || v instanceof Date || v instanceof ObjectId);
+        if (!scalar || keys.size() > 2) {
+            throw new InvalidRequestParameterException(PARAMETER, token, "malformed cursor");
+        }
+        return ScrollPosition.forward(keys);
+    }
+}
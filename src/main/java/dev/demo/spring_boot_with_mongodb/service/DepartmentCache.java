@@ -0,0 +1,68 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The departments by ID, held in memory so that a student write can answer with its full department
+ * without a query on "departments". There are few departments and the API never writes them.
+ * <p>
+ * All departments are loaded on first use and again every {@code app.department-cache.refresh-interval},
+ * which picks up departments changed behind the application's back; one the cache does not know yet is
+ * looked up on its own.
+ */
+@Component
+public class DepartmentCache {
+    private static final Logger LOG = LoggerFactory.getLogger(DepartmentCache.class);
+
+    private final DepartmentRepository departmentRepo;
+    private volatile Map<String, Department> departments;
+
+    public DepartmentCache(DepartmentRepository departmentRepo) {
+        this.departmentRepo = departmentRepo;
+    }
+
+    /**
+     * @param id the department ID
+     * @return the department, or empty if it does not exist
+     */
+    public Optional<Department> get(String id) {
+        if (id == null) return Optional.empty();
+        Map<String, Department> current = departments;
+        if (current == null) current = reload();
+        Department dept = current.get(id);
+        if (dept != null) return Optional.of(dept);
+        Optional<Department> found = departmentRepo.findById(id);
+        found.ifPresent(this::put);
+        return found;
+    }
+
+    /**
+     * Replace the cache with all departments.
+     *
+     * @return the departments by ID
+     */
+    @Scheduled(initialDelayString = "${app.department-cache.refresh-interval:PT10M}",
+            fixedDelayString = "${app.department-cache.refresh-interval:PT10M}")
+    public Map<String, Department> reload() {
+        Map<String, Department> loaded = new HashMap<>();
+        departmentRepo.findAll().forEach(d -> loaded.put(d.getId(), d));
+        departments = Map.copyOf(loaded);
+        LOG.debug("Cached {} departments", loaded.size());
+        return departments;
+    }
+
+    private synchronized void put(Department dept) {
+        Map<String, Department> next = departments == null ? new HashMap<>() : new HashMap<>(departments);
+        next.put(dept.getId(), dept);
+        departments = Map.copyOf(next);
+    }
+}
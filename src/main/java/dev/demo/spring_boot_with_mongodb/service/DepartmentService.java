@@ -0,0 +1,17 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+
+import java.util.List;
+
+/**
+ * Service interface for department-level views over the students.
+ */
+public interface DepartmentService {
+    DepartmentStats getStats(String id);
+
+    List<DepartmentStats> getAllStats();
+
+    StudentCounts getCounts(String id);
+}
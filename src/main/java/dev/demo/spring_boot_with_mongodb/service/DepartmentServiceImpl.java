@@ -0,0 +1,79 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Service implementation for department statistics.
+ * The numbers are aggregated by MongoDB; only one document per department is transferred.
+ * Plain counts are read from the materialized student counters instead.
+ */
+@Service
+public class DepartmentServiceImpl implements DepartmentService {
+    private static final Logger LOG = LoggerFactory.getLogger(DepartmentServiceImpl.class);
+
+    private final DepartmentRepository departmentRepo;
+    private final StudentRepository studentRepo;
+    private final StudentCountersService countersService;
+
+    public DepartmentServiceImpl(DepartmentRepository departmentRepo, StudentRepository studentRepo,
+                                 StudentCountersService countersService) {
+        this.departmentRepo = departmentRepo;
+        this.studentRepo = studentRepo;
+        this.countersService = countersService;
+    }
+
+    /**
+     * Statistics of one department, or throw if the department does not exist.
+     */
+    @Override
+    public DepartmentStats getStats(String id) {
+        LOG.info("getStats() called for department ID: {}", id);
+        Department dept = departmentRepo.findById(id).orElseThrow(() -> {
+            LOG.warn("getStats() did not find department ID: {}", id);
+            return new ResourceNotFoundException("Department", "id", id);
+        });
+        // No group is emitted for a department without students
+        DepartmentStats stats = studentRepo.departmentStats(StudentCriteria.byDepartment(id)).stream()
+                .findFirst()
+                .orElseGet(() -> DepartmentStats.empty(dept.getId(), dept.getName()));
+        LOG.info("getStats() for department {}: {}", id, stats);
+        return stats;
+    }
+
+    /**
+     * Statistics of every department that has students, ordered by department name.
+     */
+    @Override
+    public List<DepartmentStats> getAllStats() {
+        LOG.info("getAllStats() called");
+        List<DepartmentStats> stats = studentRepo.departmentStats(StudentCriteria.all());
+        LOG.info("getAllStats() returning {} departments", stats.size());
+        return stats;
+    }
+
+    /**
+     * Total and active number of students of one department, or throw if the department does not exist.
+     */
+    @Override
+    public StudentCounts getCounts(String id) {
+        LOG.info("getCounts() called for department ID: {}", id);
+        if (!departmentRepo.existsById(id)) {
+            LOG.warn("getCounts() did not find department ID: {}", id);
+            throw new ResourceNotFoundException("Department", "id", id);
+        }
+        StudentCounts counts = countersService.getDepartmentCounts(id);
+        LOG.info("getCounts() for department {}: {}", id, counts);
+        return counts;
+    }
+}
@@ -0,0 +1,188 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process {@link ScalableBloomFilter} of the student email addresses, consulted before the
+ * unique email index: an email the filter has never seen certainly does not exist, so most negative
+ * existence checks need no MongoDB round trip.
+ * <p>
+ * The filter is built with one streaming pass once the application is ready and receives the email of
+ * every saved or updated student. Emails of deleted or changed students stay in the filter and only cost
+ * a lookup; they are purged by the rebuild every {@code app.email-filter.rebuild-interval}.
+ * Until the first build completes every email is a "maybe".
+ * <p>
+ * Metrics: {@code students.email_filter.checks} by result ({@code absent}, {@code present},
+ * {@code false_positive}), the observed and expected false-positive rates, the number of emails and
+ * the memory of the bit arrays.
+ */
+@Component
+public class EmailExistenceFilter {
+    private static final Logger LOG = LoggerFactory.getLogger(EmailExistenceFilter.class);
+    private static final String METRIC = "students.email_filter";
+
+    /**
+     * Serializes rebuilds. A lock rather than a monitor: a virtual thread blocked on MongoDB inside
+     * {@code synchronized} would pin its carrier thread for the whole scan.
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    /**
+     * Shared by writes, exclusive for the swap: a write reads {@code filter} and {@code building} as one pair,
+     * so it reaches either the view being built or the one swapped in, never neither.
+     */
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final StudentRepository studentRepo;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter absent;
+    private final Counter present;
+    private final Counter falsePositive;
+    private volatile ScalableBloomFilter filter;
+    private volatile ScalableBloomFilter building;
+
+    public EmailExistenceFilter(StudentRepository studentRepo, MeterRegistry registry,
+                                @Value("${app.email-filter.expected-insertions:100000}") long expectedInsertions,
+                                @Value("${app.email-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.studentRepo = studentRepo;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.absent = checks(registry, "absent");
+        this.present = checks(registry, "present");
+        this.falsePositive = checks(registry, "false_positive");
+        Gauge.builder(METRIC + ".false_positive_rate", this, EmailExistenceFilter::observedFalsePositiveRate)
+                .description("Share of absent emails the filter reported as maybe present")
+                .register(registry);
+        Gauge.builder(METRIC + ".expected_false_positive_rate", this, f -> f.filter == null ? 1 : f.filter.expectedFalsePositiveRate())
+                .description("False-positive rate expected from the fill of the filter")
+                .register(registry);
+        Gauge.builder(METRIC + ".size", this, f -> f.filter == null ? 0 : f.filter.count())
+                .description("Number of emails added to the filter")
+                .register(registry);
+        Gauge.builder(METRIC + ".memory", this, f -> f.filter == null ? 0 : f.filter.memoryBytes())
+                .description("Size of the filter's bit arrays")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static Counter checks(MeterRegistry registry, String result) {
+        return Counter.builder(METRIC + ".checks")
+                .description("Email existence checks by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * @return {@code false} if no student has the email, {@code true} if the unique index must be asked
+     */
+    public boolean mightContain(String email) {
+        ScalableBloomFilter current = filter;
+        if (current == null) return true;
+        if (current.mightContain(email)) return true;
+        absent.increment();
+        return false;
+    }
+
+    /**
+     * Record the outcome of an index lookup made after {@link #mightContain(String)} answered "maybe".
+     */
+    public void recordLookup(boolean exists) {
+        (exists ? present : falsePositive).increment();
+    }
+
+    double observedFalsePositiveRate() {
+        double negatives = absent.count() + falsePositive.count();
+        return negatives == 0 ? 0 : falsePositive.count() / negatives;
+    }
+
+    /**
+     * Add the email of a saved or updated student.
+     */
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        add(event.after());
+    }
+
+    /**
+     * Add the emails of a batch of inserted students.
+     */
+    @EventListener
+    public void onStudentsCreated(StudentsCreatedEvent event) {
+        event.students().forEach(this::add);
+    }
+
+    private void add(Student student) {
+        String email = student == null ? null : student.getEmail();
+        if (email == null) return;
+        swapLock.readLock().lock();
+        try {
+            add(filter, email);
+            // Writes during a rebuild must reach the new filter too, the scan may already be past them
+            add(building, email);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void add(ScalableBloomFilter target, String email) {
+        if (target != null) target.add(email);
+    }
+
+    /**
+     * Build the first filter in the background; until then every email might exist.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Build a fresh filter with one streaming pass over the emails, then swap it in.
+     */
+    @Scheduled(initialDelayString = "${app.email-filter.rebuild-interval:PT1H}",
+            fixedDelayString = "${app.email-filter.rebuild-interval:PT1H}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            ScalableBloomFilter next = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+            building = next;
+            try (Stream<Student> students = studentRepo.streamAll(Set.of("email"))) {
+                students.map(Student::getEmail).filter(email -> email != null).forEach(next::add);
+            } catch (RuntimeException e) {
+                building = null;
+                throw e;
+            }
+            // Publish the new filter before letting go of it as the one being built
+            swapLock.writeLock().lock();
+            try {
+                filter = next;
+                building = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            LOG.info("Built email filter of {} emails ({} bytes, expected false-positive rate {}) in {} ms",
+                    next.count(), next.memoryBytes(), String.format("%.4f", next.expectedFalsePositiveRate()),
+                    System.currentTimeMillis() - start);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+}
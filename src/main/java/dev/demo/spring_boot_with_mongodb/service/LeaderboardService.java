@@ -0,0 +1,12 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+
+/**
+ * Service interface for the top students per course and per department.
+ */
+public interface LeaderboardService {
+    Leaderboard getCourseLeaderboard(String courseName, int limit);
+
+    Leaderboard getDepartmentLeaderboard(String deptId, int limit);
+}
@@ -0,0 +1,185 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRefs;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Service implementation keeping a {@link BoundedLeaderboard} per course (ranked by the course marks) and per
+ * department (ranked by percentage) in memory, so leaderboards are served without touching MongoDB.
+ * <p>
+ * The boards follow every student write and are built with one streaming pass over the students once the
+ * application is ready; writes during a pass reach the new boards too, see {@link RebuildCoordinator}. A board made incomplete by removals triggers a new pass on the next
+ * {@code app.leaderboard.rebuild-interval}; until then it serves the students it still holds.
+ */
+@Service
+public class LeaderboardServiceImpl implements LeaderboardService {
+    private static final Logger LOG = LoggerFactory.getLogger(LeaderboardServiceImpl.class);
+    static final String COURSE = "course";
+    static final String DEPARTMENT = "department";
+    static final String LIMIT = "limit";
+    static final Set<String> FIELDS = Set.of("firstName", "lastName", "department", "courses", "percentage");
+
+    private final StudentRepository studentRepo;
+    private final int size;
+    private final int capacity;
+    private final RebuildCoordinator<Boards> boards = new RebuildCoordinator<>(Boards.empty());
+
+    public LeaderboardServiceImpl(StudentRepository studentRepo,
+                                  @Value("${app.leaderboard.size:10}") int size) {
+        this.studentRepo = studentRepo;
+        this.size = size;
+        this.capacity = 2 * size;
+    }
+
+    /**
+     * The students with the highest marks in one course.
+     */
+    @Override
+    public Leaderboard getCourseLeaderboard(String courseName, int limit) {
+        return leaderboard(COURSE, courseName, boards.current().byCourse().get(courseName), limit);
+    }
+
+    /**
+     * The students of one department with the highest percentage.
+     */
+    @Override
+    public Leaderboard getDepartmentLeaderboard(String deptId, int limit) {
+        return leaderboard(DEPARTMENT, deptId, boards.current().byDepartment().get(deptId), limit);
+    }
+
+    private Leaderboard leaderboard(String scope, String key, BoundedLeaderboard board, int limit) {
+        if (limit < 1 || limit > size) {
+            throw new InvalidRequestParameterException(LIMIT, String.valueOf(limit), "must be between 1 and " + size);
+        }
+        long members = board == null ? 0 : board.members();
+        if (members <= 0) {
+            LOG.warn("No ranked students for {} {}", scope, key);
+            throw new ResourceNotFoundException("Leaderboard", scope, key);
+        }
+        return new Leaderboard(scope, key, members, board.top(limit));
+    }
+
+    /**
+     * Apply a student write: the student leaves the boards of their old courses and department,
+     * then enters those of the new ones with their new scores.
+     */
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        Student student = event.after() != null ? event.after() : event.before();
+        if (student == null) return;
+        boards.write(student.getId(), view -> {
+            remove(event.before(), view);
+            add(event.after(), view);
+        });
+    }
+
+    /**
+     * Rank a batch of inserted students.
+     */
+    @EventListener
+    public void onStudentsCreated(StudentsCreatedEvent event) {
+        event.students().forEach(student -> boards.write(student.getId(), view -> add(student, view)));
+    }
+
+    private static void remove(Student student, Boards view) {
+        if (student == null) return;
+        bestMarks(student).keySet().forEach(course -> {
+            BoundedLeaderboard board = view.byCourse().get(course);
+            if (board != null) board.remove(student.getId());
+        });
+        String deptId = DepartmentRefs.idOf(student.getDepartment());
+        if (deptId != null && student.getPercentage() != null) {
+            BoundedLeaderboard board = view.byDepartment().get(deptId);
+            if (board != null) board.remove(student.getId());
+        }
+    }
+
+    private void add(Student student, Boards view) {
+        if (student == null) return;
+        bestMarks(student).forEach((course, marks) -> board(view.byCourse(), course).add(
+                student.getId(), student.getFirstName(), student.getLastName(), marks));
+        String deptId = DepartmentRefs.idOf(student.getDepartment());
+        if (deptId != null && student.getPercentage() != null) {
+            board(view.byDepartment(), deptId).add(
+                    student.getId(), student.getFirstName(), student.getLastName(), student.getPercentage());
+        }
+    }
+
+    private BoundedLeaderboard board(Map<String, BoundedLeaderboard> boards, String key) {
+        return boards.computeIfAbsent(key, k -> new BoundedLeaderboard(capacity));
+    }
+
+    /**
+     * A student is ranked once per course, by their best marks in it.
+     */
+    private static Map<String, Integer> bestMarks(Student student) {
+        Map<String, Integer> marks = new HashMap<>();
+        if (student.getCourses() == null) return marks;
+        for (Course course : student.getCourses()) {
+            if (course.getName() != null && course.getMarks() != null) {
+                marks.merge(course.getName(), course.getMarks(), Math::max);
+            }
+        }
+        return marks;
+    }
+
+    /**
+     * Build every board with one streaming pass over the students, then swap them in.
+     * Asynchronous when triggered by the ready event, so the first boards are built while requests are served.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        boards.start(Boards.empty());
+        try (Stream<Student> students = studentRepo.streamById(FIELDS)) {
+            students.forEach(student -> boards.scanned(student.getId(), view -> add(student, view)));
+        } catch (RuntimeException e) {
+            boards.abort();
+            throw e;
+        }
+        Boards view = boards.finish((ids, next) -> studentRepo.findAllById(ids).forEach(student -> add(student, next)));
+        LOG.info("Built {} course and {} department leaderboards in {} ms",
+                view.byCourse().size(), view.byDepartment().size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Rebuild the boards if removals left any of them unable to serve its full size.
+     */
+    @Scheduled(initialDelayString = "${app.leaderboard.rebuild-interval:PT10M}",
+            fixedDelayString = "${app.leaderboard.rebuild-interval:PT10M}")
+    public void rebuildIfIncomplete() {
+        Boards view = boards.current();
+        boolean incomplete = Stream.concat(view.byCourse().values().stream(), view.byDepartment().values().stream())
+                .anyMatch(board -> !board.isComplete(size));
+        if (incomplete) rebuild();
+    }
+
+    /**
+     * The boards of every course and department, swapped as a whole by a rebuild.
+     */
+    private record Boards(Map<String, BoundedLeaderboard> byCourse, Map<String, BoundedLeaderboard> byDepartment) {
+        static Boards empty() {
+            return new Boards(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Exact, mergeable distribution of marks: one counter per possible mark (0–100).
+ * As marks are small integers, 101 counters answer any percentile exactly in constant
+ * time and space, where a t-digest would only approximate them. Safe for concurrent updates.
+ */
+final class MarksHistogram {
+    static final int BUCKETS = 101;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Add the counters of a snapshot, see {@link #toList()}, to those already recorded.
+     */
+    void addAll(List<Long> counts) {
+        for (int mark = 0; mark < Math.min(BUCKETS, counts.size()); mark++) {
+            this.counts.addAndGet(mark, counts.get(mark));
+        }
+    }
+
+    void add(int mark) {
+        counts.incrementAndGet(bucket(mark));
+    }
+
+    void remove(int mark) {
+        counts.decrementAndGet(bucket(mark));
+    }
+
+    /**
+     * @return the number of marks in the distribution
+     */
+    long count() {
+        long count = 0;
+        for (int mark = 0; mark < BUCKETS; mark++) count += counts.get(mark);
+        return count;
+    }
+
+    /**
+     * @return the sum of the marks in the distribution
+     */
+    long sum() {
+        long sum = 0;
+        for (int mark = 0; mark < BUCKETS; mark++) sum += mark * counts.get(mark);
+        return sum;
+    }
+
+    /**
+     * @return the lowest mark, or {@code null} if the distribution is empty
+     */
+    Integer min() {
+        for (int mark = 0; mark < BUCKETS; mark++) {
+            if (counts.get(mark) > 0) return mark;
+        }
+        return null;
+    }
+
+    /**
+     * @return the highest mark, or {@code null} if the distribution is empty
+     */
+    Integer max() {
+        for (int mark = BUCKETS - 1; mark >= 0; mark--) {
+            if (counts.get(mark) > 0) return mark;
+        }
+        return null;
+    }
+
+    /**
+     * Nearest-rank percentile: the smallest mark with at least {@code rank}% of the marks at or below it.
+     *
+     * @param rank the percentile rank, greater than 0 and at most 100
+     * @return the mark, or {@code null} if the distribution is empty
+     */
+    Integer percentile(double rank) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int mark = 0; mark < BUCKETS; mark++) {
+            snapshot[mark] = counts.get(mark);
+            count += snapshot[mark];
+        }
+        if (count <= 0) return null;
+        long target = Math.max(1, (long) Math.ceil(rank / 100 * count));
+        long seen = 0;
+        for (int mark = 0; mark < BUCKETS; mark++) {
+            seen += snapshot[mark];
+            if (seen >= target) return mark;
+        }
+        return BUCKETS - 1;
+    }
+
+    /**
+     * @return the counters, indexed by mark, for snapshotting
+     */
+    List<Long> toList() {
+        List<Long> list = new ArrayList<>(BUCKETS);
+        for (int mark = 0; mark < BUCKETS; mark++) list.add(counts.get(mark));
+        return list;
+    }
+
+    private static int bucket(int mark) {
+        return Math.clamp(mark, 0, BUCKETS - 1);
+    }
+}
@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.MarksPercentiles;
+
+import java.util.List;
+
+/**
+ * Service interface for marks percentiles per course and per department.
+ */
+public interface MarksPercentileService {
+    MarksPercentiles getCoursePercentiles(String courseName, List<Double> ranks);
+
+    MarksPercentiles getDepartmentPercentiles(String deptId, List<Double> ranks);
+}
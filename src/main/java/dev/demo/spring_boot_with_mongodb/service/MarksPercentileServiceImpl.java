@@ -0,0 +1,237 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.MarksHistogramSnapshot;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.MarksPercentiles;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRefs;
+import dev.demo.spring_boot_with_mongodb.repository.MarksHistogramSnapshotRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Service implementation keeping one {@link MarksHistogram} per course and per department in memory,
+ * so percentiles are answered without touching MongoDB.
+ * <p>
+ * The histograms follow every student write and are rebuilt with one streaming pass over the students every
+ * {@code app.marks-percentiles.rebuild-interval}, which also corrects changes made behind the application's back
+ * (imports into the collection, other instances, lost events).
+ * They are snapshotted to "marks_histograms" every {@code app.marks-percentiles.snapshot-interval} and on shutdown.
+ * A restart serves the snapshots and only rescans the students if they are missing or stale.
+ */
+@Service
+public class MarksPercentileServiceImpl implements MarksPercentileService {
+    private static final Logger LOG = LoggerFactory.getLogger(MarksPercentileServiceImpl.class);
+    static final String COURSE = "course";
+    static final String DEPARTMENT = "department";
+    static final Set<String> FIELDS = Set.of("courses", "department");
+
+    private final StudentRepository studentRepo;
+    private final MarksHistogramSnapshotRepository snapshotRepo;
+    private final Duration maxSnapshotAge;
+    private final RebuildCoordinator<Histograms> histograms = new RebuildCoordinator<>(Histograms.empty());
+
+    public MarksPercentileServiceImpl(StudentRepository studentRepo, MarksHistogramSnapshotRepository snapshotRepo,
+                                      @Value("${app.marks-percentiles.rebuild-interval:PT1H}") Duration maxSnapshotAge) {
+        this.studentRepo = studentRepo;
+        this.snapshotRepo = snapshotRepo;
+        this.maxSnapshotAge = maxSnapshotAge;
+    }
+
+    /**
+     * Percentiles of the marks of one course.
+     */
+    @Override
+    public MarksPercentiles getCoursePercentiles(String courseName, List<Double> ranks) {
+        return percentiles(COURSE, courseName, histograms.current().byCourse().get(courseName), ranks);
+    }
+
+    /**
+     * Percentiles of the marks of all students of one department.
+     */
+    @Override
+    public MarksPercentiles getDepartmentPercentiles(String deptId, List<Double> ranks) {
+        return percentiles(DEPARTMENT, deptId, histograms.current().byDepartment().get(deptId), ranks);
+    }
+
+    private static MarksPercentiles percentiles(String scope, String key, MarksHistogram histogram, List<Double> ranks) {
+        long count = histogram == null ? 0 : histogram.count();
+        if (count <= 0) {
+            LOG.warn("No marks recorded for {} {}", scope, key);
+            throw new ResourceNotFoundException("Marks", scope, key);
+        }
+        Map<String, Integer> percentiles = new LinkedHashMap<>();
+        ranks.forEach(rank -> percentiles.put(MarksPercentiles.label(rank), histogram.percentile(rank)));
+        return new MarksPercentiles(scope, key, count, percentiles);
+    }
+
+    /**
+     * Apply a student write: the marks before the change leave the histograms, the marks after it enter them.
+     */
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        Student student = event.after() != null ? event.after() : event.before();
+        if (student == null) return;
+        histograms.write(student.getId(), view -> {
+            apply(view, event.before(), -1);
+            apply(view, event.after(), 1);
+        });
+    }
+
+    /**
+     * Add the marks of a batch of inserted students.
+     */
+    @EventListener
+    public void onStudentsCreated(StudentsCreatedEvent event) {
+        event.students().forEach(student -> histograms.write(student.getId(), view -> apply(view, student, 1)));
+    }
+
+    private static void apply(Histograms view, Student student, int sign) {
+        if (student == null || student.getCourses() == null) return;
+        String deptId = DepartmentRefs.idOf(student.getDepartment());
+        for (Course course : student.getCourses()) {
+            if (course.getMarks() == null) continue;
+            if (course.getName() != null) update(view.byCourse(), course.getName(), course.getMarks(), sign);
+            if (deptId != null) update(view.byDepartment(), deptId, course.getMarks(), sign);
+        }
+    }
+
+    private static void update(Map<String, MarksHistogram> histograms, String key, int mark, int sign) {
+        MarksHistogram histogram = histograms.computeIfAbsent(key, k -> new MarksHistogram());
+        if (sign > 0) histogram.add(mark);
+        else histogram.remove(mark);
+    }
+
+    /**
+     * Serve the latest snapshot right away. Only if it is missing or stale are the histograms rebuilt from the students;
+     * otherwise the scheduled rebuild corrects them later.
+     * Snapshot counts are added to the changes already recorded since startup rather than replacing them.
+     * Runs in the background, so requests can be served while a stale snapshot is rebuilt.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        List<MarksHistogramSnapshot> snapshots = snapshotRepo.findAll();
+        Histograms view = histograms.current();
+        for (MarksHistogramSnapshot snapshot : snapshots) {
+            Map<String, MarksHistogram> scope = COURSE.equals(snapshot.getScope()) ? view.byCourse() : view.byDepartment();
+            scope.computeIfAbsent(snapshot.getKey(), k -> new MarksHistogram()).addAll(snapshot.getCounts());
+        }
+        LOG.info("Restored {} marks histograms from snapshot in {} ms", snapshots.size(), System.currentTimeMillis() - start);
+        String stale = staleness(snapshots);
+        if (stale == null) {
+            LOG.info("Marks histogram snapshot is current, next rebuild in {}", maxSnapshotAge);
+            return;
+        }
+        LOG.info("Rebuilding marks histograms, {}", stale);
+        rebuild();
+    }
+
+    /**
+     * A snapshot is stale once it is older than the rebuild interval or a student was inserted after it was taken.
+     * Other writes made while the application was down are left to the scheduled rebuild.
+     *
+     * @return why the snapshot cannot be trusted, or {@code null} if it is current
+     */
+    private String staleness(List<MarksHistogramSnapshot> snapshots) {
+        if (snapshots.isEmpty()) return "no snapshot";
+        Instant takenAt = null;
+        for (MarksHistogramSnapshot snapshot : snapshots) {
+            if (snapshot.getUpdatedAt() == null) return "snapshot without timestamp";
+            if (takenAt == null || snapshot.getUpdatedAt().isBefore(takenAt)) takenAt = snapshot.getUpdatedAt();
+        }
+        if (takenAt.isBefore(Instant.now().minus(maxSnapshotAge))) return "snapshot taken at " + takenAt;
+        Instant lastInsert = studentRepo.lastInsertedAt().orElse(null);
+        // ObjectIds only keep whole seconds: an insert in the snapshot's second may have followed it
+        if (lastInsert != null && !lastInsert.isBefore(takenAt.truncatedTo(ChronoUnit.SECONDS))) {
+            return "student inserted at " + lastInsert + " after the snapshot at " + takenAt;
+        }
+        return null;
+    }
+
+    /**
+     * Build fresh histograms with one streaming pass over the students, then swap them in.
+     * Writes during the pass reach the new histograms too, see {@link RebuildCoordinator}.
+     */
+    @Scheduled(initialDelayString = "${app.marks-percentiles.rebuild-interval:PT1H}",
+            fixedDelayString = "${app.marks-percentiles.rebuild-interval:PT1H}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        histograms.start(Histograms.empty());
+        try (Stream<Student> students = studentRepo.streamById(FIELDS)) {
+            students.forEach(student -> histograms.scanned(student.getId(), view -> apply(view, student, 1)));
+        } catch (RuntimeException e) {
+            histograms.abort();
+            throw e;
+        }
+        Histograms view = histograms.finish((ids, next) ->
+                studentRepo.findAllById(ids).forEach(student -> apply(next, student, 1)));
+        LOG.info("Built {} course and {} department marks histograms from the students in {} ms",
+                view.byCourse().size(), view.byDepartment().size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Write the current histograms to "marks_histograms" and drop the snapshots of emptied ones.
+     */
+    @Scheduled(initialDelayString = "${app.marks-percentiles.snapshot-interval:PT5M}",
+            fixedDelayString = "${app.marks-percentiles.snapshot-interval:PT5M}")
+    @PreDestroy
+    public void snapshot() {
+        Instant now = Instant.now();
+        List<MarksHistogramSnapshot> current = new ArrayList<>();
+        List<String> emptied = new ArrayList<>();
+        Histograms view = histograms.current();
+        Map.of(COURSE, view.byCourse(), DEPARTMENT, view.byDepartment()).forEach((scope, byKey) ->
+                byKey.forEach((key, histogram) -> {
+                    if (histogram.count() > 0) current.add(snapshot(scope, key, histogram, now));
+                    else emptied.add(snapshotId(scope, key));
+                }));
+        snapshotRepo.saveAll(current);
+        if (!emptied.isEmpty()) snapshotRepo.deleteAllById(emptied);
+        LOG.debug("Snapshotted {} marks histograms, dropped {}", current.size(), emptied.size());
+    }
+
+    private static String snapshotId(String scope, String key) {
+        return scope + ":" + key;
+    }
+
+    private static MarksHistogramSnapshot snapshot(String scope, String key, MarksHistogram histogram, Instant now) {
+        MarksHistogramSnapshot snapshot = new MarksHistogramSnapshot();
+        snapshot.setId(snapshotId(scope, key));
+        snapshot.setScope(scope);
+        snapshot.setKey(key);
+        snapshot.setCounts(histogram.toList());
+        snapshot.setUpdatedAt(now);
+        return snapshot;
+    }
+
+    /**
+     * The histograms of every course and department, swapped as a whole by a rebuild.
+     */
+    private record Histograms(Map<String, MarksHistogram> byCourse, Map<String, MarksHistogram> byDepartment) {
+        static Histograms empty() {
+            return new Histograms(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import org.bson.types.ObjectId;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an in-memory view of the students correct while it is rebuilt by a streaming pass in {@code _id} order
+ * (see {@link dev.demo.spring_boot_with_mongodb.repository.StudentRepositoryCustom#streamById}).
+ * <p>
+ * Every write reaches the current view. During a pass it also reaches the view being built, but only for students
+ * the pass has already read; the pass reads a later student as it is then. A student written before the pass
+ * reaches it is skipped by the pass instead and read again once the pass is over, so each write lands in the new
+ * view exactly once. Writes, scanned students and the swap take one lock, which is held only for in-memory updates
+ * except while the students written ahead of the pass are read again.
+ *
+ * @param <V> the view, e.g. the maps of histograms of a service
+ */
+final class RebuildCoordinator<V> {
+    /**
+     * MongoDB's {@code _id} order: string ids before ObjectIds, ObjectIds by their bytes, i.e. their hex form.
+     */
+    private static final Comparator<String> ID_ORDER =
+            Comparator.comparing(ObjectId::isValid).thenComparing(Comparator.naturalOrder());
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<String> ahead = new HashSet<>();
+    private volatile V current;
+    private V building;
+    private String position;
+
+    RebuildCoordinator(V initial) {
+        this.current = initial;
+    }
+
+    /**
+     * @return the view to read from
+     */
+    V current() {
+        return current;
+    }
+
+    /**
+     * Apply a write of one student to the current view and, if the pass has read the student already,
+     * to the view being built.
+     */
+    void write(String studentId, Consumer<V> write) {
+        lock.lock();
+        try {
+            write.accept(current);
+            if (building == null) return;
+            if (position != null && studentId != null && ID_ORDER.compare(studentId, position) <= 0) {
+                write.accept(building);
+            } else {
+                ahead.add(studentId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Start a pass that fills the given empty view.
+     */
+    void start(V fresh) {
+        lock.lock();
+        try {
+            building = fresh;
+            position = null;
+            ahead.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add a student read by the pass to the view being built, unless it was written ahead of the pass.
+     */
+    void scanned(String studentId, Consumer<V> add) {
+        lock.lock();
+        try {
+            if (!ahead.contains(studentId)) add.accept(building);
+            position = studentId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * End the pass: the students written ahead of it are read again into the new view, which then replaces the
+     * current one. Writes wait meanwhile, so none of them falls between the read and the swap.
+     *
+     * @param catchUp adds the current state of the given students to the view
+     * @return the new view
+     */
+    V finish(BiConsumer<Set<String>, V> catchUp) {
+        lock.lock();
+        try {
+            if (!ahead.isEmpty()) catchUp.accept(Set.copyOf(ahead), building);
+            current = building;
+            return current;
+        } finally {
+            building = null;
+            ahead.clear();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop a failed pass; the current view stays.
+     */
+    void abort() {
+        lock.lock();
+        try {
+            building = null;
+            ahead.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the rows of an upload one at a time, either NDJSON lines or RFC 4180 CSV records.
+ * Rows are bounded in length, so an upload without line breaks, or with an unbalanced quote,
+ * cannot pull the rest of the file onto the heap.
+ */
+final class RowReader {
+    private final BufferedReader in;
+    private final int maxLength;
+
+    RowReader(InputStream in, int maxLength) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return the next line without its line break, or {@code null} at the end of the upload
+     * @throws RowTooLongException if the line is longer than the limit
+     */
+    String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = in.read();
+        if (c == -1) return null;
+        for (; c != -1 && c != '\n'; c = in.read()) {
+            if (c == '\r') {
+                skipLineFeed();
+                break;
+            }
+            if (line.length() == maxLength) throw new RowTooLongException(maxLength);
+            line.append((char) c);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Read one CSV record: cells are separated by commas, quoted cells may contain commas, line breaks
+     * and doubled quotes. An unbalanced quote runs to the end of the upload.
+     *
+     * @return the cells of the next record, or {@code null} at the end of the upload
+     * @throws RowTooLongException if the record is longer than the limit
+     */
+    List<String> readCsvRecord() throws IOException {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int length = 0;
+        int c = in.read();
+        if (c == -1) return null;
+        for (; c != -1; c = in.read()) {
+            if (++length > maxLength) throw new RowTooLongException(maxLength);
+            if (quoted) {
+                if (c != '"') {
+                    cell.append((char) c);
+                } else if (peek() == '"') {
+                    cell.append((char) in.read());
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') skipLineFeed();
+                break;
+            } else {
+                cell.append((char) c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private int peek() throws IOException {
+        in.mark(1);
+        int c = in.read();
+        in.reset();
+        return c;
+    }
+
+    private void skipLineFeed() throws IOException {
+        if (peek() == '\n') in.read();
+    }
+
+    /**
+     * Thrown when a row exceeds the length limit. The row's end cannot be told apart from the rest
+     * of the upload any more, so reading stops.
+     */
+    static final class RowTooLongException extends IOException {
+        RowTooLongException(int maxLength) {
+            super("Row longer than " + maxLength + " characters, the rest of the upload was not read");
+        }
+    }
+}
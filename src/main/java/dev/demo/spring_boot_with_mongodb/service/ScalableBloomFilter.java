@@ -0,0 +1,163 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter over strings (Almeida et al.): a chain of fixed-size filters where each
+ * new slice doubles the capacity and halves the false-positive rate, so the overall rate stays
+ * below the target however many values are added. Never reports an added value as absent.
+ * Values cannot be removed. Safe for concurrent use.
+ */
+final class ScalableBloomFilter {
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final double falsePositiveRate;
+    private final List<Slice> slices = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param expectedInsertions capacity of the first slice
+     * @param falsePositiveRate  target false-positive rate of the whole filter, e.g. 0.01
+     */
+    ScalableBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+        // The rates of all slices sum up to at most the target: r0 / (1 - TIGHTENING) = falsePositiveRate
+        slices.add(new Slice(Math.max(1, expectedInsertions), falsePositiveRate * (1 - TIGHTENING)));
+    }
+
+    void add(String value) {
+        long[] hash = hash(value);
+        Slice last = slices.getLast();
+        if (last.isFull()) {
+            synchronized (this) {
+                last = slices.getLast();
+                if (last.isFull()) {
+                    last = new Slice(last.capacity * GROWTH, last.falsePositiveRate * TIGHTENING);
+                    slices.add(last);
+                }
+            }
+        }
+        last.add(hash);
+    }
+
+    /**
+     * @return {@code false} if the value was certainly never added, {@code true} if it may have been
+     */
+    boolean mightContain(String value) {
+        long[] hash = hash(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(hash)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of values added
+     */
+    long count() {
+        return slices.stream().mapToLong(slice -> slice.count.get()).sum();
+    }
+
+    /**
+     * @return the size of the bit arrays in bytes
+     */
+    long memoryBytes() {
+        return slices.stream().mapToLong(slice -> slice.bits.length() * (long) Long.BYTES).sum();
+    }
+
+    /**
+     * @return the false-positive rate expected from the current fill of the slices
+     */
+    double expectedFalsePositiveRate() {
+        double none = 1;
+        for (Slice slice : slices) none *= 1 - slice.expectedFalsePositiveRate();
+        return 1 - none;
+    }
+
+    /**
+     * @return the target false-positive rate
+     */
+    double targetFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Two independent 64-bit hashes of the UTF-8 bytes (FNV-1a, finalized by the SplitMix64 mixer),
+     * combined by double hashing into the bit positions.
+     */
+    private static long[] hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        long h1 = mix(h);
+        long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        return new long[]{h1, h2};
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A fixed-size Bloom filter sized for its capacity and false-positive rate.
+     */
+    private static final class Slice {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray bits;
+        private final AtomicLong count = new AtomicLong();
+
+        Slice(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (optimalBits + 63) / 64));
+            this.bitCount = words * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+            this.bits = new AtomicLongArray(words);
+        }
+
+        boolean isFull() {
+            return count.get() >= capacity;
+        }
+
+        void add(long[] hash) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = position(hash, i);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = bits.get(word);
+                while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                    current = bits.get(word);
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        boolean mightContain(long[] hash) {
+            for (int i = 0; i < hashCount; i++) {
+                long bit = position(hash, i);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private long position(long[] hash, int i) {
+            return Math.floorMod(hash[0] + i * hash[1], bitCount);
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashCount * (double) count.get() / bitCount), hashCount);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.BulkCreateResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Service interface for creating many students at once.
+ */
+public interface StudentBulkService {
+    BulkCreateResponse createAll(List<StudentDTO> students);
+
+    BulkCreateResponse createAllFromNdjson(InputStream body) throws IOException;
+}
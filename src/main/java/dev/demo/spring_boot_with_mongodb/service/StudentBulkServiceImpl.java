@@ -0,0 +1,206 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.BulkCreateResponse;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemResult;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemStatus;
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Service implementation creating many students per request.
+ * All referenced departments are loaded with one query, the students are validated in parallel,
+ * and the valid ones are written in chunks of {@code app.students.bulk.chunk-size} with unordered
+ * bulk inserts, so a cohort costs a handful of round trips instead of two per student.
+ * Every student gets its own outcome; one bad student does not reject the others.
+ */
+@Service
+public class StudentBulkServiceImpl implements StudentBulkService {
+    private static final Logger LOG = LoggerFactory.getLogger(StudentBulkServiceImpl.class);
+
+    private final StudentRepository studentRepo;
+    private final DepartmentRepository departmentRepo;
+    private final StudentMapper studentMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public StudentBulkServiceImpl(StudentRepository studentRepo, DepartmentRepository departmentRepo,
+                                  StudentMapper studentMapper, Validator validator, ObjectMapper objectMapper,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${app.students.bulk.chunk-size:1000}") int chunkSize) {
+        this.studentRepo = studentRepo;
+        this.departmentRepo = departmentRepo;
+        this.studentMapper = studentMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Create the students of a JSON array.
+     */
+    @Override
+    public BulkCreateResponse createAll(List<StudentDTO> students) {
+        LOG.info("createAll() called with {} students", students.size());
+        return create(students, new BulkItemResult[students.size()]);
+    }
+
+    /**
+     * Create the students of an NDJSON body, one student per non-blank line.
+     * The body is read one line at a time, so only the parsed students are held.
+     * A line that is not a valid student document is rejected on its own; a line longer than
+     * {@link StudentImportServiceImpl#MAX_ROW_LENGTH} is rejected and ends the body.
+     */
+    @Override
+    public BulkCreateResponse createAllFromNdjson(InputStream body) throws IOException {
+        RowReader rows = new RowReader(body, StudentImportServiceImpl.MAX_ROW_LENGTH);
+        List<StudentDTO> students = new ArrayList<>();
+        List<BulkItemResult> results = new ArrayList<>();
+        try {
+            for (String line = rows.readLine(); line != null; line = rows.readLine()) {
+                if (line.isBlank()) continue;
+                try {
+                    students.add(objectMapper.readValue(line, StudentDTO.class));
+                    results.add(null);
+                } catch (JsonProcessingException e) {
+                    students.add(null);
+                    results.add(BulkItemResult.rejected(results.size(), BulkItemStatus.INVALID,
+                            "Malformed student: " + e.getOriginalMessage()));
+                }
+            }
+        } catch (RowReader.RowTooLongException e) {
+            students.add(null);
+            results.add(BulkItemResult.rejected(results.size(), BulkItemStatus.INVALID, e.getMessage()));
+        }
+        LOG.info("createAllFromNdjson() called with {} lines", students.size());
+        return create(students, results.toArray(new BulkItemResult[0]));
+    }
+
+    /**
+     * @param results the outcome of each student so far, {@code null} for the students still to create
+     */
+    private BulkCreateResponse create(List<StudentDTO> students, BulkItemResult[] results) {
+        long start = System.currentTimeMillis();
+        // Each task writes only its own slot
+        IntStream.range(0, students.size()).parallel()
+                .filter(i -> results[i] == null)
+                .forEach(i -> results[i] = validate(validator, i, students.get(i)));
+        Map<String, Department> departments = departments(students, results);
+
+        List<Student> chunk = new ArrayList<>(Math.min(chunkSize, students.size()));
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < students.size(); i++) {
+            if (results[i] != null) continue;
+            StudentDTO dto = students.get(i);
+            Department dept = departments.get(dto.department().id());
+            if (dept == null) {
+                results[i] = BulkItemResult.rejected(i, BulkItemStatus.DEPARTMENT_NOT_FOUND,
+                        "Department not found with id : '" + dto.department().id() + "'");
+                continue;
+            }
+            Student student = studentMapper.toEntity(dto);
+            student.setId(new ObjectId().toHexString());
+            student.setDepartment(dept);
+            chunk.add(student);
+            positions.add(i);
+            if (chunk.size() == chunkSize) insert(chunk, positions, results);
+        }
+        insert(chunk, positions, results);
+
+        int created = (int) Arrays.stream(results).filter(r -> r.status() == BulkItemStatus.CREATED).count();
+        LOG.info("Bulk created {} of {} students in {} ms", created, students.size(), System.currentTimeMillis() - start);
+        return new BulkCreateResponse(students.size(), created, students.size() - created, Arrays.asList(results));
+    }
+
+    /**
+     * Check that a student is given, meets its constraints and names a department.
+     *
+     * @return the rejection of the student, or {@code null} if it can be created
+     */
+    static BulkItemResult validate(Validator validator, int index, StudentDTO dto) {
+        if (dto == null) {
+            return BulkItemResult.rejected(index, BulkItemStatus.INVALID, "Student must not be null");
+        }
+        Set<ConstraintViolation<StudentDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            String error = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            return BulkItemResult.rejected(index, BulkItemStatus.INVALID, error);
+        }
+        if (dto.department().id() == null) {
+            return BulkItemResult.rejected(index, BulkItemStatus.DEPARTMENT_NOT_FOUND, "Department id must be provided");
+        }
+        return null;
+    }
+
+    /**
+     * Load every department referenced by a valid student with one {@code $in} query.
+     */
+    private Map<String, Department> departments(List<StudentDTO> students, BulkItemResult[] results) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < students.size(); i++) {
+            if (results[i] == null) ids.add(students.get(i).department().id());
+        }
+        Map<String, Department> departments = new HashMap<>();
+        if (!ids.isEmpty()) departmentRepo.findAllById(ids).forEach(d -> departments.put(d.getId(), d));
+        return departments;
+    }
+
+    /**
+     * Write one chunk and record the outcome of each of its students, then clear it.
+     */
+    private void insert(List<Student> chunk, List<Integer> positions, BulkItemResult[] results) {
+        if (chunk.isEmpty()) return;
+        BulkInsertResult result = studentRepo.insertUnordered(chunk);
+        for (BulkInsertResult.Failure failure : result.failures()) {
+            int index = positions.get(failure.index());
+            results[index] = failure.duplicateKey()
+                    ? BulkItemResult.rejected(index, BulkItemStatus.DUPLICATE,
+                    "Email address already exists: " + chunk.get(failure.index()).getEmail())
+                    : BulkItemResult.rejected(index, BulkItemStatus.FAILED, failure.message());
+        }
+        List<Student> created = new ArrayList<>(result.inserted());
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = positions.get(i);
+            if (results[index] == null) {
+                results[index] = BulkItemResult.created(index, chunk.get(i).getId());
+                created.add(chunk.get(i));
+            }
+        }
+        LOG.debug("Inserted chunk of {} students, {} rejected", created.size(), result.failures().size());
+        if (!created.isEmpty()) eventPublisher.publishEvent(new StudentsCreatedEvent(created));
+        chunk.clear();
+        positions.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+
+/**
+ * Published by {@link StudentService} after a student was created, updated or deleted,
+ * so that views derived from the students can be maintained incrementally.
+ *
+ * @param before the student before the change, {@code null} if it was created
+ * @param after  the student after the change, {@code null} if it was deleted
+ */
+public record StudentChangedEvent(Student before, Student after) {
+}
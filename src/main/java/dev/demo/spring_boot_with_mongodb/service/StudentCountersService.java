@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+
+/**
+ * Service interface for the materialized student counters.
+ */
+public interface StudentCountersService {
+    long getActiveCount();
+
+    StudentCounts getDepartmentCounts(String deptId);
+
+    void reconcile();
+}
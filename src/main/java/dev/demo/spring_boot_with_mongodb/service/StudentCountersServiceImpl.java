@@ -0,0 +1,242 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.model.StudentCounters;
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRefs;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCountersRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Service implementation maintaining and serving the {@link StudentCounters} document, so that
+ * counts are a single point read instead of an index scan over the students.
+ * Each student write is applied with one {@code $inc}; the counters are recounted once the application
+ * is ready and every {@code app.student-counters.reconcile-interval}, which corrects any drift.
+ * Until the first reconciliation has written the counters, writes leave them alone and reads count the students.
+ * <p>
+ * A reconciliation counts the students with one streaming pass; writes during the pass reach its counts too, see
+ * {@link RebuildCoordinator}. The difference to the stored counters is then applied as one more {@code $inc} while
+ * increments wait, so no increment is overwritten or counted twice.
+ */
+@Service
+public class StudentCountersServiceImpl implements StudentCountersService {
+    private static final Logger LOG = LoggerFactory.getLogger(StudentCountersServiceImpl.class);
+
+    static final Set<String> FIELDS = Set.of("active", "department");
+
+    private final StudentCountersRepository countersRepo;
+    private final StudentRepository studentRepo;
+    private final RebuildCoordinator<Delta> counts = new RebuildCoordinator<>(new Delta());
+    /**
+     * Increments share it, the correction of a reconciliation takes it alone: the stored counters must not change
+     * between reading them and applying the difference.
+     */
+    private final ReentrantReadWriteLock reconcileLock = new ReentrantReadWriteLock();
+
+    public StudentCountersServiceImpl(StudentCountersRepository countersRepo, StudentRepository studentRepo) {
+        this.countersRepo = countersRepo;
+        this.studentRepo = studentRepo;
+    }
+
+    /**
+     * Number of active students. Counts the students directly until the counters exist.
+     */
+    @Override
+    public long getActiveCount() {
+        return counters().map(StudentCounters::getActive).orElseGet(() -> {
+            LOG.warn("Student counters not initialized yet, counting active students");
+            return studentRepo.countByActiveTrue().longValue();
+        });
+    }
+
+    /**
+     * Total and active number of students of one department; zero for a department without students.
+     */
+    @Override
+    public StudentCounts getDepartmentCounts(String deptId) {
+        StudentCounters.Counts counts = counters()
+                .map(c -> c.getDepartments().get(deptId))
+                .orElseGet(() -> {
+                    LOG.warn("Student counters not initialized yet, counting students of department {}", deptId);
+                    return departmentCounts(deptId);
+                });
+        return counts == null ? new StudentCounts(deptId, 0, 0) : new StudentCounts(deptId, counts.getTotal(), counts.getActive());
+    }
+
+    private Optional<StudentCounters> counters() {
+        return countersRepo.findById(StudentCounters.ID);
+    }
+
+    private StudentCounters.Counts departmentCounts(String deptId) {
+        return studentRepo.departmentStats(StudentCriteria.byDepartment(deptId)).stream()
+                .findFirst()
+                .map(stats -> new StudentCounters.Counts(stats.studentCount(), stats.activeCount()))
+                .orElse(null);
+    }
+
+    /**
+     * Apply a student write to the counters.
+     * Failures are logged rather than failing the already persisted write; the next reconciliation repairs them.
+     */
+    @EventListener
+    public void onStudentChanged(StudentChangedEvent event) {
+        Delta delta = new Delta();
+        delta.apply(event.before(), -1);
+        delta.apply(event.after(), 1);
+        if (delta.isNoop()) return;
+        String studentId = (event.after() != null ? event.after() : event.before()).getId();
+        reconcileLock.readLock().lock();
+        try {
+            counts.write(studentId, view -> {
+                view.apply(event.before(), -1);
+                view.apply(event.after(), 1);
+            });
+            increment(delta);
+        } finally {
+            reconcileLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a batch of inserted students with a single {@code $inc}.
+     */
+    @EventListener
+    public void onStudentsCreated(StudentsCreatedEvent event) {
+        Delta delta = new Delta();
+        event.students().forEach(student -> delta.apply(student, 1));
+        reconcileLock.readLock().lock();
+        try {
+            event.students().forEach(student -> counts.write(student.getId(), view -> view.apply(student, 1)));
+            increment(delta);
+        } finally {
+            reconcileLock.readLock().unlock();
+        }
+    }
+
+    private void increment(Delta delta) {
+        if (delta.isNoop()) return;
+        try {
+            if (!countersRepo.increment(delta.total, delta.active, delta.departments)) {
+                LOG.debug("Student counters not reconciled yet, change left to the first reconciliation");
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Could not update student counters, left to the next reconciliation", e);
+        }
+    }
+
+    /**
+     * First reconciliation, in the background; reads count the students until it has written the counters.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcile();
+    }
+
+    /**
+     * Recount the students and correct the counters by the difference, or write them if there are none yet.
+     */
+    @Override
+    @Scheduled(initialDelayString = "${app.student-counters.reconcile-interval:PT15M}",
+            fixedDelayString = "${app.student-counters.reconcile-interval:PT15M}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        counts.start(new Delta());
+        try (Stream<Student> students = studentRepo.streamById(FIELDS)) {
+            students.forEach(student -> counts.scanned(student.getId(), view -> view.apply(student, 1)));
+        } catch (RuntimeException e) {
+            counts.abort();
+            throw e;
+        }
+        reconcileLock.writeLock().lock();
+        try {
+            Delta counted = counts.finish((ids, next) -> studentRepo.findAllById(ids).forEach(student -> next.apply(student, 1)));
+            Optional<StudentCounters> previous = counters();
+            if (previous.isEmpty()) {
+                countersRepo.save(counted.toCounters());
+            } else {
+                Delta drift = counted.minus(previous.get());
+                if (!drift.isNoop()) {
+                    LOG.warn("Student counters drifted by total {}, active {}, {} departments",
+                            drift.total, drift.active, drift.departments.size());
+                }
+                countersRepo.increment(drift.total, drift.active, drift.departments);
+            }
+        } finally {
+            reconcileLock.writeLock().unlock();
+        }
+        LOG.info("Reconciled student counters in {} ms", System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Counter changes of one student write, or the counts of all students a reconciliation has read.
+     */
+    private static final class Delta {
+        private long total;
+        private long active;
+        private final Map<String, StudentCounters.Counts> departments = new HashMap<>();
+
+        void apply(Student student, int sign) {
+            if (student == null) return;
+            int activeDelta = Boolean.TRUE.equals(student.isActive()) ? sign : 0;
+            total += sign;
+            active += activeDelta;
+            String deptId = DepartmentRefs.idOf(student.getDepartment());
+            if (deptId == null) return;
+            StudentCounters.Counts counts = departments.computeIfAbsent(deptId, id -> new StudentCounters.Counts());
+            counts.setTotal(counts.getTotal() + sign);
+            counts.setActive(counts.getActive() + activeDelta);
+            if (counts.getTotal() == 0 && counts.getActive() == 0) departments.remove(deptId);
+        }
+
+        boolean isNoop() {
+            return total == 0 && active == 0 && departments.isEmpty();
+        }
+
+        /**
+         * @return the change that turns the stored counters into these
+         */
+        Delta minus(StudentCounters stored) {
+            Delta drift = new Delta();
+            drift.total = total - stored.getTotal();
+            drift.active = active - stored.getActive();
+            Set<String> deptIds = new HashSet<>(departments.keySet());
+            deptIds.addAll(stored.getDepartments().keySet());
+            for (String deptId : deptIds) {
+                StudentCounters.Counts now = departments.getOrDefault(deptId, new StudentCounters.Counts());
+                StudentCounters.Counts then = stored.getDepartments().getOrDefault(deptId, new StudentCounters.Counts());
+                if (now.getTotal() != then.getTotal() || now.getActive() != then.getActive()) {
+                    drift.departments.put(deptId, new StudentCounters.Counts(
+                            now.getTotal() - then.getTotal(), now.getActive() - then.getActive()));
+                }
+            }
+            return drift;
+        }
+
+        StudentCounters toCounters() {
+            StudentCounters counters = new StudentCounters();
+            counters.setTotal(total);
+            counters.setActive(active);
+            counters.getDepartments().putAll(departments);
+            counters.setUpdatedAt(Instant.now());
+            return counters;
+        }
+    }
+}
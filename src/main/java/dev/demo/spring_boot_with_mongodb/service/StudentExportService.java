@@ -0,0 +1,30 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFilter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Service interface for exporting students as a file.
+ */
+public interface StudentExportService {
+    /**
+     * Validate the export and return the writer producing it. Invalid filters are rejected here,
+     * before anything is written; the students are only read once the writer runs.
+     */
+    ExportWriter export(StudentFilter filter, StudentFields fields, ExportFormat format);
+
+    /**
+     * Writes an export to a stream, one student at a time.
+     */
+    @FunctionalInterface
+    interface ExportWriter {
+        /**
+         * @return the number of exported students
+         */
+        long writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,217 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFilter;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRefs;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service implementation exporting students with constant memory.
+ * The students are read through a cursor and each one is written as soon as it is read, so the heap holds
+ * one cursor batch at most, whatever the size of the export. Writes go to the response stream, which the
+ * container sends in chunks: a slow client blocks the writes and thereby the cursor, and a client that goes
+ * away fails the next write, which closes the cursor.
+ */
+@Service
+public class StudentExportServiceImpl implements StudentExportService {
+    private static final Logger LOG = LoggerFactory.getLogger(StudentExportServiceImpl.class);
+
+    /**
+     * CSV columns in file order: StudentDTO field → cell value.
+     * The department is exported as its id and the courses as a JSON array.
+     */
+    private static final List<Column> COLUMNS = List.of(
+            new Column("id", StudentDTO::id),
+            new Column("firstName", StudentDTO::firstName),
+            new Column("lastName", StudentDTO::lastName),
+            new Column("email", StudentDTO::email),
+            new Column("dob", StudentDTO::dob),
+            new Column("department", dto -> dto.department() == null ? null : dto.department().id()),
+            new Column("courses", StudentDTO::courses),
+            new Column("enrollmentDate", StudentDTO::enrollmentDate),
+            new Column("active", StudentDTO::active),
+            new Column("percentage", StudentDTO::percentage),
+            new Column("version", StudentDTO::version)
+    );
+
+    private final StudentRepository studentRepo;
+    private final DepartmentRepository departmentRepo;
+    private final StudentMapper studentMapper;
+    private final ObjectMapper objectMapper;
+
+    public StudentExportServiceImpl(StudentRepository studentRepo, DepartmentRepository departmentRepo,
+                                    StudentMapper studentMapper, ObjectMapper objectMapper) {
+        this.studentRepo = studentRepo;
+        this.departmentRepo = departmentRepo;
+        this.studentMapper = studentMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ExportWriter export(StudentFilter filter, StudentFields fields, ExportFormat format) {
+        CriteriaDefinition criteria = criteria(filter);
+        LOG.info("export() called with filter={}, fields={}, format={}", filter, fields.names(), format);
+        return out -> {
+            long start = System.currentTimeMillis();
+            Map<String, Department> departments = fields.includes("department") ? departments() : Map.of();
+            long count;
+            try (Stream<Student> students = studentRepo.stream(criteria, fields.properties())) {
+                Iterator<StudentDTO> dtos = students.map(student -> toDto(student, departments, fields)).iterator();
+                count = format == ExportFormat.NDJSON ? writeNdjson(dtos, out) : writeCsv(dtos, fields, out);
+            } catch (IOException e) {
+                LOG.info("Export aborted after {} ms: {}", System.currentTimeMillis() - start, e.getMessage());
+                throw e;
+            }
+            LOG.info("Exported {} students as {} in {} ms", count, format, System.currentTimeMillis() - start);
+            return count;
+        };
+    }
+
+    /**
+     * Combine the given filters, rejecting the ones that only make sense together.
+     */
+    private static CriteriaDefinition criteria(StudentFilter filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter.active() != null) criteria.add(StudentCriteria.active(filter.active()));
+        if (filter.deptId() != null) criteria.add(StudentCriteria.byDepartment(filter.deptId()));
+        if (filter.minScore() != null) {
+            if (filter.courseName() == null) {
+                throw new InvalidRequestParameterException("minScore", filter.minScore().toString(), "requires courseName");
+            }
+            criteria.add(StudentCriteria.highScorers(filter.courseName(), filter.minScore()));
+        } else if (filter.courseName() != null) {
+            criteria.add(StudentCriteria.byCourse(filter.courseName()));
+        }
+        if ((filter.start() == null) != (filter.end() == null)) {
+            boolean hasStart = filter.start() != null;
+            throw new InvalidRequestParameterException(hasStart ? "start" : "end",
+                    String.valueOf(hasStart ? filter.start() : filter.end()), "start and end must be given together");
+        }
+        if (filter.start() != null) criteria.add(StudentCriteria.bornBetween(filter.start(), filter.end()));
+        return StudentCriteria.withMinPercentage(StudentCriteria.allOf(criteria), filter.minPercentage());
+    }
+
+    /**
+     * Load every department once, so that no student resolves its department reference on its own.
+     */
+    private Map<String, Department> departments() {
+        Map<String, Department> departments = new HashMap<>();
+        departmentRepo.findAll().forEach(d -> departments.put(d.getId(), d));
+        return departments;
+    }
+
+    private StudentDTO toDto(Student student, Map<String, Department> departments, StudentFields fields) {
+        if (DepartmentRefs.isUnresolved(student.getDepartment())) {
+            String deptId = DepartmentRefs.idOf(student.getDepartment());
+            Department dept = departments.get(deptId);
+            if (dept == null) {
+                // Dangling reference: keep the id rather than resolving a proxy that fails
+                dept = new Department();
+                dept.setId(deptId);
+            }
+            student.setDepartment(dept);
+        }
+        return fields.trim(studentMapper.toDto(student));
+    }
+
+    /**
+     * One StudentDTO per line. Flushing after each value is turned off, so the generator only hands
+     * full buffers to the response stream. The response stream is left open for the container to complete.
+     */
+    private long writeNdjson(Iterator<StudentDTO> dtos, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(StudentDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.setRootValueSeparator(null);
+            while (dtos.hasNext()) {
+                writer.writeValue(generator, dtos.next());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * RFC 4180 CSV: a header row, then one row per student with CRLF line breaks.
+     * Only the requested columns are written.
+     */
+    private long writeCsv(Iterator<StudentDTO> dtos, StudentFields fields, OutputStream out) throws IOException {
+        List<Column> columns = COLUMNS.stream().filter(c -> c.name().equals("version") || fields.includes(c.name())).toList();
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeRow(writer, columns, Column::name);
+        while (dtos.hasNext()) {
+            StudentDTO dto = dtos.next();
+            writeRow(writer, columns, column -> cell(column.value().apply(dto)));
+            count++;
+        }
+        // Flush, not close: the response stream is left open for the container to complete
+        writer.flush();
+        return count;
+    }
+
+    private static void writeRow(Writer writer, List<Column> columns, Function<Column, String> cell) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) writer.write(',');
+            writer.write(quote(cell.apply(columns.get(i))));
+        }
+        writer.write("\r\n");
+    }
+
+    private String cell(Object value) {
+        if (value == null) return "";
+        if (value instanceof List<?> list) {
+            try {
+                return objectMapper.writeValueAsString(list);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot write courses", e);
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * Quote a cell containing a separator, quote or line break, doubling its quotes.
+     */
+    static String quote(String cell) {
+        if (cell.chars().noneMatch(c -> c == ',' || c == '"' || c == '\r' || c == '\n')) return cell;
+        return '"' + cell.replace("\"", "\"\"") + '"';
+    }
+
+    private record Column(String name, Function<StudentDTO, Object> value) {
+    }
+}
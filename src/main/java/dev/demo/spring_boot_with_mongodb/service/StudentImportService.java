@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.ImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service interface for importing students from an uploaded file.
+ */
+public interface StudentImportService {
+    ImportResponse importStudents(InputStream in, ExportFormat format) throws IOException;
+}
@@ -0,0 +1,350 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemResult;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemStatus;
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.ImportResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service implementation importing students from NDJSON or CSV uploads of any size.
+ * The upload is read one row at a time on the request thread, which validates the rows and hands batches of
+ * {@code app.students.import.batch-size} students to a writer thread through a queue of
+ * {@code app.students.import.queue-capacity} batches. The writer inserts each batch with an unordered bulk write.
+ * When the writer falls behind, the queue fills up and reading waits, so the heap holds a few batches at most.
+ */
+@Service
+public class StudentImportServiceImpl implements StudentImportService {
+    private static final Logger LOG = LoggerFactory.getLogger(StudentImportServiceImpl.class);
+    private static final String ROWS_COUNTER = "students.imports.rows";
+    static final int MAX_ROW_LENGTH = 1 << 16;
+    /**
+     * CSV columns read into a StudentDTO. The other columns of an export (id, percentage, version) are assigned
+     * on insert and ignored, like unknown columns.
+     */
+    private static final Set<String> CSV_FIELDS = Set.of(
+            "firstName", "lastName", "email", "dob", "department", "courses", "enrollmentDate", "active");
+    /**
+     * Marks the end of the upload for the writer.
+     */
+    private static final Batch END = new Batch(List.of(), List.of());
+
+    private final StudentRepository studentRepo;
+    private final DepartmentRepository departmentRepo;
+    private final StudentMapper studentMapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader studentReader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxRejects;
+    private final Counter createdRows;
+    private final Counter rejectedRows;
+    private final ExecutorService writers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("student-import-", 0).factory());
+
+    public StudentImportServiceImpl(StudentRepository studentRepo, DepartmentRepository departmentRepo,
+                                    StudentMapper studentMapper, Validator validator, ObjectMapper objectMapper,
+                                    ApplicationEventPublisher eventPublisher, MeterRegistry registry,
+                                    @Value("${app.students.import.batch-size:1000}") int batchSize,
+                                    @Value("${app.students.import.queue-capacity:4}") int queueCapacity,
+                                    @Value("${app.students.import.max-rejects:1000}") int maxRejects) {
+        this.studentRepo = studentRepo;
+        this.departmentRepo = departmentRepo;
+        this.studentMapper = studentMapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.studentReader = objectMapper.readerFor(StudentDTO.class);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.maxRejects = maxRejects;
+        // Live progress of running imports, by outcome
+        this.createdRows = Counter.builder(ROWS_COUNTER).tag("outcome", "created").register(registry);
+        this.rejectedRows = Counter.builder(ROWS_COUNTER).tag("outcome", "rejected").register(registry);
+    }
+
+    /**
+     * Import the students of an upload. Rows are numbered from 0, skipping blank lines and the CSV header.
+     * A row that cannot be read or created is rejected on its own; students written before a failure stay written.
+     */
+    @Override
+    public ImportResponse importStudents(InputStream in, ExportFormat format) throws IOException {
+        LOG.info("importStudents() called with format={}", format);
+        long start = System.currentTimeMillis();
+        Map<String, Department> departments = departments();
+        Progress progress = new Progress();
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Future<?> writer = writers.submit(() -> write(queue, progress));
+        try {
+            read(new RowReader(in, MAX_ROW_LENGTH), format, departments, progress, queue, writer);
+        } finally {
+            handOver(queue, END, writer);
+            await(writer);
+        }
+        ImportResponse res = progress.toResponse();
+        LOG.info("Imported {} of {} students in {} ms", res.created(), res.read(), System.currentTimeMillis() - start);
+        return res;
+    }
+
+    private void read(RowReader rows, ExportFormat format, Map<String, Department> departments, Progress progress,
+                      BlockingQueue<Batch> queue, Future<?> writer) throws IOException {
+        int index = 0;
+        Batch batch = new Batch(batchSize);
+        try {
+            boolean csv = format == ExportFormat.CSV;
+            List<String> header = csv ? header(rows.readCsvRecord()) : null;
+            while (!csv || header != null) {
+                String line = null;
+                List<String> record = null;
+                if (!csv) {
+                    line = rows.readLine();
+                    if (line == null) break;
+                    if (line.isBlank()) continue;
+                } else {
+                    record = rows.readCsvRecord();
+                    if (record == null) break;
+                    if (record.size() == 1 && record.get(0).isBlank()) continue;
+                }
+                int row = index++;
+                progress.read();
+                if (record != null && record.size() != header.size()) {
+                    progress.reject(BulkItemResult.rejected(row, BulkItemStatus.INVALID,
+                            "Expected " + header.size() + " cells, found " + record.size()));
+                    continue;
+                }
+                StudentDTO dto;
+                try {
+                    dto = csv ? fromCsv(header, record) : studentReader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    progress.reject(BulkItemResult.rejected(row, BulkItemStatus.INVALID, "Malformed student: " + e.getOriginalMessage()));
+                    continue;
+                }
+                Student student = toStudent(row, dto, departments, progress);
+                if (student == null) continue;
+                batch.add(row, student);
+                if (batch.students().size() == batchSize) {
+                    handOver(queue, batch, writer);
+                    batch = new Batch(batchSize);
+                }
+            }
+        } catch (RowReader.RowTooLongException e) {
+            LOG.warn("Import stopped at row {}: {}", index, e.getMessage());
+            progress.read();
+            progress.reject(BulkItemResult.rejected(index, BulkItemStatus.INVALID, e.getMessage()));
+            progress.stop();
+        }
+        if (!batch.students().isEmpty()) handOver(queue, batch, writer);
+    }
+
+    /**
+     * @return the column names of a CSV upload, without a byte order mark; {@code null} for an empty upload
+     */
+    private static List<String> header(List<String> record) {
+        if (record == null) return null;
+        List<String> header = new ArrayList<>(record.size());
+        record.forEach(name -> header.add(name.trim()));
+        header.set(0, header.get(0).replace("\uFEFF", ""));
+        return header;
+    }
+
+    /**
+     * Read a CSV record in the layout of the export: the department is its id and the courses a JSON array.
+     * Empty cells are left unset.
+     */
+    private StudentDTO fromCsv(List<String> header, List<String> record) throws JsonProcessingException {
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i);
+            String cell = record.get(i);
+            if (cell.isEmpty() || !CSV_FIELDS.contains(name)) continue;
+            switch (name) {
+                case "department" -> node.putObject("department").put("id", cell);
+                case "courses" -> node.set("courses", objectMapper.readTree(cell));
+                default -> node.put(name, cell);
+            }
+        }
+        return objectMapper.treeToValue(node, StudentDTO.class);
+    }
+
+    /**
+     * @return the student to insert, or {@code null} if the row was rejected
+     */
+    private Student toStudent(int row, StudentDTO dto, Map<String, Department> departments, Progress progress) {
+        BulkItemResult invalid = StudentBulkServiceImpl.validate(validator, row, dto);
+        if (invalid != null) {
+            progress.reject(invalid);
+            return null;
+        }
+        Department dept = departments.get(dto.department().id());
+        if (dept == null) {
+            progress.reject(BulkItemResult.rejected(row, BulkItemStatus.DEPARTMENT_NOT_FOUND,
+                    "Department not found with id : '" + dto.department().id() + "'"));
+            return null;
+        }
+        Student student = studentMapper.toEntity(dto);
+        student.setId(new ObjectId().toHexString());
+        student.setDepartment(dept);
+        return student;
+    }
+
+    /**
+     * Load every department once; rows only reference them by id.
+     */
+    private Map<String, Department> departments() {
+        Map<String, Department> departments = new HashMap<>();
+        departmentRepo.findAll().forEach(d -> departments.put(d.getId(), d));
+        return departments;
+    }
+
+    /**
+     * Writer loop: insert the queued batches until the end of the upload, or until the import is cancelled.
+     */
+    private void write(BlockingQueue<Batch> queue, Progress progress) {
+        try {
+            for (Batch batch = queue.take(); batch != END; batch = queue.take()) insert(batch, progress);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void insert(Batch batch, Progress progress) {
+        BulkInsertResult result = studentRepo.insertUnordered(batch.students());
+        Set<Integer> failed = new HashSet<>();
+        for (BulkInsertResult.Failure failure : result.failures()) {
+            failed.add(failure.index());
+            int row = batch.rows().get(failure.index());
+            progress.reject(failure.duplicateKey()
+                    ? BulkItemResult.rejected(row, BulkItemStatus.DUPLICATE,
+                    "Email address already exists: " + batch.students().get(failure.index()).getEmail())
+                    : BulkItemResult.rejected(row, BulkItemStatus.FAILED, failure.message()));
+        }
+        List<Student> created = new ArrayList<>(result.inserted());
+        for (int i = 0; i < batch.students().size(); i++) {
+            if (!failed.contains(i)) created.add(batch.students().get(i));
+        }
+        progress.created(created.size());
+        LOG.debug("Imported batch of {} students, {} rejected", created.size(), failed.size());
+        if (!created.isEmpty()) eventPublisher.publishEvent(new StudentsCreatedEvent(created));
+    }
+
+    /**
+     * Queue a batch for the writer, waiting while the queue is full. Fails if the writer has stopped.
+     */
+    private static void handOver(BlockingQueue<Batch> queue, Batch batch, Future<?> writer) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone()) {
+                    await(writer);
+                    throw new IllegalStateException("Import writer stopped early");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+            throw new IllegalStateException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Wait for the writer to finish, rethrowing its failure.
+     */
+    private static void await(Future<?> writer) {
+        try {
+            writer.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("Import writer failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.cancel(true);
+            throw new IllegalStateException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * Students to insert together with their row numbers.
+     */
+    private record Batch(List<Integer> rows, List<Student> students) {
+        Batch(int size) {
+            this(new ArrayList<>(size), new ArrayList<>(size));
+        }
+
+        void add(int row, Student student) {
+            rows.add(row);
+            students.add(student);
+        }
+    }
+
+    /**
+     * Counts and rejects of one import, updated by the reading and the writing thread.
+     */
+    private final class Progress {
+        private long read;
+        private long created;
+        private long rejected;
+        private boolean stoppedEarly;
+        private final List<BulkItemResult> rejects = new ArrayList<>();
+
+        synchronized void read() {
+            read++;
+        }
+
+        synchronized void created(int count) {
+            created += count;
+            createdRows.increment(count);
+        }
+
+        synchronized void reject(BulkItemResult reject) {
+            rejected++;
+            rejectedRows.increment();
+            if (rejects.size() < maxRejects) rejects.add(reject);
+        }
+
+        synchronized void stop() {
+            stoppedEarly = true;
+        }
+
+        synchronized ImportResponse toResponse() {
+            List<BulkItemResult> sorted = rejects.stream().sorted(Comparator.comparingInt(BulkItemResult::index)).toList();
+            return new ImportResponse(read, created, rejected, sorted, rejected > rejects.size(), stoppedEarly);
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package dev.demo.spring_boot_with_mongodb.service;
 
+import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
+import dev.demo.spring_boot_with_mongodb.payload.MarksUpdate;
+import dev.demo.spring_boot_with_mongodb.payload.PageParams;
 import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
 import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentPatch;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service interface for managing Student entities.
@@ -14,33 +20,43 @@ import java.util.List;
 public interface StudentService {
     StudentDTO save(StudentDTO req);
 
-    StudentPageResponse getAll(int page, int size, String sortField, String sortDir);
+    StudentPageResponse getAll(PageParams paging);
 
-    StudentDTO getById(String id);
+    StudentDTO getById(String id, StudentFields fields);
 
-    StudentDTO update(String id, StudentDTO req);
+    Long getVersion(String id);
+
+    StudentDTO update(String id, StudentDTO req, Set<Long> expectedVersions);
+
+    StudentDTO patch(String id, StudentPatch req);
+
+    StudentDTO addCourse(String id, CourseDTO req);
+
+    StudentDTO updateMarks(String id, String courseName, MarksUpdate req);
+
+    StudentDTO removeCourse(String id, String courseName);
 
     void delete(String id);
 
-    List<StudentDTO> searchByName(String name);
+    StudentPageResponse searchByName(String name, PageParams paging);
 
-    StudentPageResponse getActiveStudents(int page, int size, String sortField, String sortDir);
+    StudentPageResponse getActiveStudents(PageParams paging);
 
     Integer getActiveStudentsCount();
 
     Boolean isStudentExists(String email);
 
-    StudentPageResponse getStudentByCourse(String courseName, int page, int size, String sortField, String sortDir);
+    StudentPageResponse getStudentByCourse(String courseName, PageParams paging);
 
-    StudentPageResponse getHighScorers(String courseName, int minScore, int page, int size, String sortField, String sortDir);
+    StudentPageResponse getHighScorers(String courseName, int minScore, PageParams paging);
 
-    StudentPageResponse getStudentsByDepartment(String deptId, int page, int size, String sortField, String sortDir);
+    StudentPageResponse getStudentsByDepartment(String deptId, PageParams paging);
 
-    StudentPageResponse getStudentsBornBetween(LocalDate start, LocalDate end, int page, int size, String sortField, String sortDir);
+    StudentPageResponse getStudentsBornBetween(LocalDate start, LocalDate end, PageParams paging);
 
     List<StudentDTO> getRecentEnrollments();
 
-    StudentPageResponse textSearch(String term, int page, int size, String sortField, String sortDir);
+    StudentPageResponse textSearch(String term, Float minScore, PageParams paging);
 
-    StudentPageResponse getActiveByDepartment(String deptId, int page, int size, String sortField, String sortDir);
+    StudentPageResponse getActiveByDepartment(String deptId, PageParams paging);
 }
@@ -1,26 +1,45 @@
 package dev.demo.spring_boot_with_mongodb.service;
 
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.exception.PreconditionFailedException;
 import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
 import dev.demo.spring_boot_with_mongodb.mapper.CourseMapper;
 import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
 import dev.demo.spring_boot_with_mongodb.model.Course;
 import dev.demo.spring_boot_with_mongodb.model.Department;
 import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
+import dev.demo.spring_boot_with_mongodb.payload.MarksUpdate;
+import dev.demo.spring_boot_with_mongodb.payload.PageParams;
 import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
 import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentPatch;
+import dev.demo.spring_boot_with_mongodb.payload.TotalMode;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRefs;
 import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
 import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentUpdates;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
 import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing {@link Student} entities.
@@ -31,17 +50,41 @@ public class StudentServiceImpl implements StudentService {
     private static final Logger LOG = LoggerFactory.getLogger(StudentServiceImpl.class);
     private static final String RESOURCE_NAME = "Student";
     private static final String FETCHED_RESOURCE_LOG = "Fetched {} students ({} total pages)";
+    private static final String SCORE_SORT = "score";
+    private static final String WRITE_TIMER = "students.writes";
+    private static final String CREATE = "create";
+    private static final String UPDATE = "update";
+    private static final String PATCH = "patch";
+    private static final String COURSE = "course";
+    private static final String DELETE = "delete";
 
     private final StudentRepository studentRepo;
     private final DepartmentRepository departmentRepo;
     private final StudentMapper studentMapper;
     private final CourseMapper courseMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StudentCountersService countersService;
+    private final EmailExistenceFilter emailFilter;
+    private final DepartmentCache departmentCache;
+    /**
+     * End-to-end latency of the single-student writes by operation, lookups and round trips included.
+     */
+    private final Map<String, Timer> writeTimers;
 
-    public StudentServiceImpl(StudentRepository studentRepo, DepartmentRepository departmentRepo, StudentMapper studentMapper, CourseMapper courseMapper) {
+    public StudentServiceImpl(StudentRepository studentRepo, DepartmentRepository departmentRepo, StudentMapper studentMapper,
+                              CourseMapper courseMapper, ApplicationEventPublisher eventPublisher,
+                              StudentCountersService countersService, EmailExistenceFilter emailFilter,
+                              DepartmentCache departmentCache, MeterRegistry registry) {
         this.studentRepo = studentRepo;
         this.departmentRepo = departmentRepo;
         this.studentMapper = studentMapper;
         this.courseMapper = courseMapper;
+        this.eventPublisher = eventPublisher;
+        this.countersService = countersService;
+        this.emailFilter = emailFilter;
+        this.departmentCache = departmentCache;
+        this.writeTimers = Stream.of(CREATE, UPDATE, PATCH, COURSE, DELETE).collect(Collectors.toMap(op -> op,
+                op -> Timer.builder(WRITE_TIMER).description("Latency of single-student writes").tag("operation", op).register(registry)));
     }
 
     /**
@@ -50,86 +93,248 @@ public class StudentServiceImpl implements StudentService {
     @Override
     public StudentDTO save(StudentDTO req) {
         LOG.info("save() called with payload: {}", req);
-        // Map DTO to the entity and ensure ID is null (new record)
-        Student student = studentMapper.toEntity(req);
-        student.setId(null);
-        // Resolve and set department reference
-        String deptId = req.department().id();
-        Department dept = departmentRepo.findById(deptId).orElseThrow(() -> {
-            LOG.warn("save() did not find department ID: {}", deptId);
-            return new ResourceNotFoundException("Department", "id", deptId);
+        return writeTimers.get(CREATE).record(() -> {
+            // Map DTO to the entity and ensure ID is null (new record)
+            Student student = studentMapper.toEntity(req);
+            student.setId(null);
+            // Resolve and set department reference
+            String deptId = req.department().id();
+            Department dept = departmentRepo.findById(deptId).orElseThrow(() -> {
+                LOG.warn("save() did not find department ID: {}", deptId);
+                return new ResourceNotFoundException("Department", "id", deptId);
+            });
+            student.setDepartment(dept);
+            // Persist entity
+            Student saved = studentRepo.save(student);
+            eventPublisher.publishEvent(new StudentChangedEvent(null, saved));
+            StudentDTO dto = studentMapper.toDto(saved);
+            LOG.info("save() completed, new student ID: {}", dto.id());
+            return dto;
         });
-        student.setDepartment(dept);
-        // Persist entity
-        Student saved = studentRepo.save(student);
-        StudentDTO dto = studentMapper.toDto(saved);
-        LOG.info("save() completed, new student ID: {}", dto.id());
-        return dto;
     }
 
     /**
      * Retrieve all students with pagination and sorting.
      */
     @Override
-    public StudentPageResponse getAll(int page, int size, String sortField, String sortDir) {
-        Pageable pageReq = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findAll(pageReq);
-        LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
-        StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("getAll() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+    public StudentPageResponse getAll(PageParams paging) {
+        return findPage("getAll()", StudentCriteria.all(), paging);
     }
 
     /**
      * Retrieve a single student by ID, or throw if not found.
      */
     @Override
-    public StudentDTO getById(String id) {
-        LOG.info("getById() called for ID: {}", id);
-        // Lookup student or throw 404
-        Student student = studentRepo.findById(id).orElseThrow(() -> {
+    public StudentDTO getById(String id, StudentFields fields) {
+        LOG.info("getById() called for ID: {}, fields: {}", id, fields.names());
+        // Lookup student (only the requested fields and the version) or throw 404
+        Set<String> properties = fields.isAll() ? Set.of() : withVersion(fields.properties());
+        Student student = studentRepo.findById(id, properties).orElseThrow(() -> {
             LOG.warn("getById() did not find student with ID: {}", id);
             return new ResourceNotFoundException(RESOURCE_NAME, "id", id);
         });
-        StudentDTO dto = studentMapper.toDto(student);
+        StudentDTO dto = fields.trim(studentMapper.toDto(student));
         LOG.info("getById() found student: {}", dto);
         return dto;
     }
 
+    private static Set<String> withVersion(Set<String> properties) {
+        Set<String> withVersion = new HashSet<>(properties);
+        withVersion.add("version");
+        return withVersion;
+    }
+
     /**
-     * Update an existing student. Unspecified fields remain unchanged.
+     * Read only the {@code _id} and version of a student, e.g. to answer a conditional GET without loading it.
      */
     @Override
-    public StudentDTO update(String id, StudentDTO req) {
-        LOG.info("update() called for ID: {}, payload: {}", id, req);
-        // Fetch existing record or throw
-        Student student = studentRepo.findById(id).orElseThrow(() -> {
-            LOG.warn("update() did not find student with ID: {}", id);
+    public Long getVersion(String id) {
+        return studentRepo.findById(id, Set.of("id", "version")).map(Student::getVersion).orElseThrow(() -> {
+            LOG.warn("getVersion() did not find student with ID: {}", id);
             return new ResourceNotFoundException(RESOURCE_NAME, "id", id);
         });
-        // Apply updates
-        student.setFirstName(req.firstName());
-        student.setLastName(req.lastName());
-        student.setEmail(req.email());
-        student.setDob(req.dob());
-        student.setEnrollmentDate(req.enrollmentDate());
-        student.setActive(req.active());
-        // Department update if provided
-        if (req.department() != null && req.department().id() != null) {
-            Department dept = departmentRepo.findById(req.department().id()).orElseThrow(() -> {
-                LOG.warn("update() did not find department ID: {}", req.department().id());
-                return new ResourceNotFoundException("Department", "id", req.department().id());
+    }
+
+    /**
+     * Update an existing student. A department left out remains unchanged.
+     * With expected versions ({@code If-Match}) the update only applies to a student still at one of them.
+     */
+    @Override
+    public StudentDTO update(String id, StudentDTO req, Set<Long> expectedVersions) {
+        LOG.info("update() called for ID: {}, payload: {}, expected versions: {}", id, req, expectedVersions);
+        return writeTimers.get(UPDATE).record(() -> {
+            Student values = new Student();
+            values.setFirstName(req.firstName());
+            values.setLastName(req.lastName());
+            values.setEmail(req.email());
+            values.setDob(req.dob());
+            values.setEnrollmentDate(req.enrollmentDate());
+            values.setActive(req.active());
+            // Department update if provided
+            if (req.department() != null && req.department().id() != null) {
+                Department dept = departmentRepo.findById(req.department().id()).orElseThrow(() -> {
+                    LOG.warn("update() did not find department ID: {}", req.department().id());
+                    return new ResourceNotFoundException("Department", "id", req.department().id());
+                });
+                values.setDepartment(dept);
+            }
+            values.setCourses(req.courses().stream().map(courseMapper::toEntity).toList());
+            // Apply in one round trip; no match means no such student, or one at another version
+            CriteriaDefinition guard = expectedVersions == null ? StudentCriteria.all() : StudentCriteria.versionIn(expectedVersions);
+            Student before = studentRepo.modify(id, guard, StudentUpdates.replace(values)).orElseThrow(() -> {
+                if (expectedVersions == null) {
+                    LOG.warn("update() did not find student with ID: {}", id);
+                    return new ResourceNotFoundException(RESOURCE_NAME, "id", id);
+                }
+                requireStudent("update()", id);
+                LOG.info("update() found student {} changed since versions {}", id, expectedVersions);
+                return new PreconditionFailedException(RESOURCE_NAME, id, "If-Match");
+            });
+            Student updated = StudentUpdates.replaced(before, values);
+            eventPublisher.publishEvent(new StudentChangedEvent(before, updated));
+            StudentDTO dto = writtenDto(updated);
+            LOG.info("update() completed for ID: {}, updated DTO: {}", id, dto);
+            return dto;
+        });
+    }
+
+    /**
+     * Change only the fields present in the request, with one targeted {@code $set}.
+     */
+    @Override
+    public StudentDTO patch(String id, StudentPatch req) {
+        LOG.info("patch() called for ID: {}, payload: {}", id, req);
+        return writeTimers.get(PATCH).record(() -> {
+            Student changes = new Student();
+            changes.setFirstName(req.firstName());
+            changes.setLastName(req.lastName());
+            changes.setEmail(req.email());
+            changes.setDob(req.dob());
+            changes.setEnrollmentDate(req.enrollmentDate());
+            changes.setActive(req.active());
+            if (req.department() != null && req.department().id() != null) {
+                String deptId = req.department().id();
+                changes.setDepartment(departmentRepo.findById(deptId).orElseThrow(() -> {
+                    LOG.warn("patch() did not find department ID: {}", deptId);
+                    return new ResourceNotFoundException("Department", "id", deptId);
+                }));
+            }
+            Update update = StudentUpdates.patch(changes);
+            if (update.getUpdateObject().isEmpty()) {
+                LOG.info("patch() has nothing to change for ID: {}", id);
+                return getById(id, StudentFields.ALL);
+            }
+            Student before = studentRepo.modify(id, StudentCriteria.all(), update).orElseThrow(() -> {
+                LOG.warn("patch() did not find student with ID: {}", id);
+                return new ResourceNotFoundException(RESOURCE_NAME, "id", id);
             });
+            Student after = StudentUpdates.patched(before, changes);
+            eventPublisher.publishEvent(new StudentChangedEvent(before, after));
+            StudentDTO dto = writtenDto(after);
+            LOG.info("patch() completed for ID: {}, updated DTO: {}", id, dto);
+            return dto;
+        });
+    }
+
+    /**
+     * Enroll a student in a course they do not take yet, in one update.
+     */
+    @Override
+    public StudentDTO addCourse(String id, CourseDTO req) {
+        LOG.info("addCourse() called for ID: {}, course: {}", id, req);
+        return writeTimers.get(COURSE).record(() -> {
+            Course course = courseMapper.toEntity(req);
+            Student before = studentRepo.modify(id, StudentCriteria.notEnrolled(course.getName()), StudentUpdates.addCourse(course))
+                    .orElseThrow(() -> {
+                        requireStudent("addCourse()", id);
+                        LOG.warn("addCourse() found student {} already enrolled in {}", id, course.getName());
+                        return new InvalidRequestParameterException("name", course.getName(), "student already takes this course");
+                    });
+            List<Course> courses = new ArrayList<>(courses(before));
+            courses.add(course);
+            return courseChanged("addCourse()", before, courses);
+        });
+    }
+
+    /**
+     * Change the marks of one course of a student, in one update.
+     */
+    @Override
+    public StudentDTO updateMarks(String id, String courseName, MarksUpdate req) {
+        LOG.info("updateMarks() called for ID: {}, course: {}, marks: {}", id, courseName, req.marks());
+        return writeTimers.get(COURSE).record(() -> {
+            Student before = studentRepo.modify(id, StudentCriteria.byCourse(courseName), StudentUpdates.setMarks(courseName, req.marks()))
+                    .orElseThrow(() -> courseNotFound("updateMarks()", id, courseName));
+            List<Course> courses = courses(before).stream().map(c -> {
+                if (!courseName.equals(c.getName())) return c;
+                Course changed = new Course();
+                changed.setName(c.getName());
+                changed.setMarks(req.marks());
+                return changed;
+            }).toList();
+            return courseChanged("updateMarks()", before, courses);
+        });
+    }
+
+    /**
+     * Drop one course of a student, in one update.
+     */
+    @Override
+    public StudentDTO removeCourse(String id, String courseName) {
+        LOG.info("removeCourse() called for ID: {}, course: {}", id, courseName);
+        return writeTimers.get(COURSE).record(() -> {
+            Student before = studentRepo.modify(id, StudentCriteria.byCourse(courseName), StudentUpdates.removeCourse(courseName))
+                    .orElseThrow(() -> courseNotFound("removeCourse()", id, courseName));
+            List<Course> courses = courses(before).stream().filter(c -> !courseName.equals(c.getName())).toList();
+            return courseChanged("removeCourse()", before, courses);
+        });
+    }
+
+    private static List<Course> courses(Student student) {
+        return student.getCourses() == null ? List.of() : student.getCourses();
+    }
+
+    private StudentDTO courseChanged(String operation, Student before, List<Course> courses) {
+        Student after = StudentUpdates.withCourses(before, courses);
+        eventPublisher.publishEvent(new StudentChangedEvent(before, after));
+        StudentDTO dto = writtenDto(after);
+        LOG.info("{} completed for ID: {}, updated DTO: {}", operation, before.getId(), dto);
+        return dto;
+    }
+
+    /**
+     * Map a student built from the document returned by its write. The department of that document is still the
+     * lazy reference; it is taken from the {@link DepartmentCache} instead, so the response costs no query on
+     * "departments". A department that no longer exists comes back as its {@code id} alone.
+     */
+    private StudentDTO writtenDto(Student student) {
+        if (DepartmentRefs.isUnresolved(student.getDepartment())) {
+            String deptId = DepartmentRefs.idOf(student.getDepartment());
+            Department dept = departmentCache.get(deptId).orElseGet(() -> {
+                Department ref = new Department();
+                ref.setId(deptId);
+                return ref;
+            });
+            student = student.copy();
             student.setDepartment(dept);
         }
-        // Update courses list
-        List<Course> courses = req.courses().stream().map(courseMapper::toEntity).toList();
-        student.setCourses(courses);
-        // Persist and return
-        Student updated = studentRepo.save(student);
-        StudentDTO dto = studentMapper.toDto(updated);
-        LOG.info("update() completed for ID: {}, updated DTO: {}", id, dto);
-        return dto;
+        return studentMapper.toDto(student);
+    }
+
+    /**
+     * A guarded update matched nothing: only then is it worth a query to tell a missing student from a missing course.
+     */
+    private ResourceNotFoundException courseNotFound(String operation, String id, String courseName) {
+        requireStudent(operation, id);
+        LOG.warn("{} did not find course {} of student {}", operation, courseName, id);
+        return new ResourceNotFoundException("Course", "name", courseName);
+    }
+
+    private void requireStudent(String operation, String id) {
+        if (!studentRepo.existsById(id)) {
+            LOG.warn("{} did not find student with ID: {}", operation, id);
+            throw new ResourceNotFoundException(RESOURCE_NAME, "id", id);
+        }
     }
 
     /**
@@ -138,58 +343,61 @@ public class StudentServiceImpl implements StudentService {
     @Override
     public void delete(String id) {
         LOG.info("delete() called for ID: {}", id);
-        // Ensure the student exists
-        Student student = studentRepo.findById(id).orElseThrow(() -> {
-            LOG.warn("delete() did not find student with ID: {}", id);
-            return new ResourceNotFoundException(RESOURCE_NAME, "id", id);
+        writeTimers.get(DELETE).record(() -> {
+            // Delete in one round trip; the deleted document feeds the change listeners
+            Student student = studentRepo.remove(id).orElseThrow(() -> {
+                LOG.warn("delete() did not find student with ID: {}", id);
+                return new ResourceNotFoundException(RESOURCE_NAME, "id", id);
+            });
+            eventPublisher.publishEvent(new StudentChangedEvent(student, null));
+            LOG.info("delete() successful for ID: {}", id);
         });
-        // Perform deletion
-        studentRepo.delete(student);
-        LOG.info("delete() successful for ID: {}", id);
     }
 
     /**
-     * Search students by name (first or last, case-insensitive).
+     * Search students by name prefix (first or last, case-insensitive), paged and capped.
      */
     @Override
-    public List<StudentDTO> searchByName(String name) {
+    public StudentPageResponse searchByName(String name, PageParams paging) {
         LOG.info("searchByName() called with name: {}", name);
-        List<Student> list = studentRepo.getByName(name);
-        LOG.info("searchByName() found {} records", list.size());
-        return list.stream().map(studentMapper::toDto).toList();
+        Page<Student> studentPage = studentRepo.searchByName(name, getPageRequest(paging));
+        LOG.info("searchByName() found {} records", studentPage.getTotalElements());
+        studentRepo.resolveDepartments(studentPage.getContent());
+        return studentMapper.toPageResponse(studentPage);
     }
 
     /**
      * Retrieve active students with pagination.
      */
     @Override
-    public StudentPageResponse getActiveStudents(int page, int size, String sortField, String sortDir) {
-        Pageable pageReq = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findByActiveTrue(pageReq);
-        LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
-        StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("getActiveStudents() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+    public StudentPageResponse getActiveStudents(PageParams paging) {
+        return findPage("getActiveStudents()", StudentCriteria.active(), paging);
     }
 
     /**
-     * Count the total number of active students.
+     * Count the total number of active students, a point read of the materialized counters.
      */
     @Override
     public Integer getActiveStudentsCount() {
         LOG.info("getActiveStudentsCount() called");
-        int count = studentRepo.countByActiveTrue();
+        int count = Math.toIntExact(countersService.getActiveCount());
         LOG.info("Active student count: {}", count);
         return count;
     }
 
     /**
      * Check the existence of a student by email.
+     * Emails the Bloom filter has never seen are answered without querying the unique index.
      */
     @Override
     public Boolean isStudentExists(String email) {
         LOG.info("isStudentExists() called for email: {}", email);
+        if (!emailFilter.mightContain(email)) {
+            LOG.info("isStudentExists() result for {}: false (email filter)", email);
+            return false;
+        }
         boolean exists = studentRepo.existsByEmail(email);
+        emailFilter.recordLookup(exists);
         LOG.info("isStudentExists() result for {}: {}", email, exists);
         return exists;
     }
@@ -198,55 +406,32 @@ public class StudentServiceImpl implements StudentService {
      * Retrieve students by course name with pagination.
      */
     @Override
-    public StudentPageResponse getStudentByCourse(String courseName, int page, int size, String sortField, String sortDir) {
-        Pageable pageReq = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findByCoursesName(courseName, pageReq);
-        LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
-        StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("getStudentByCourse() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+    public StudentPageResponse getStudentByCourse(String courseName, PageParams paging) {
+        return findPage("getStudentByCourse()", StudentCriteria.byCourse(courseName), paging);
     }
 
     /**
      * Retrieve students scoring >= minScore in a given course with pagination.
      */
     @Override
-    public StudentPageResponse getHighScorers(String courseName, int minScore, int page, int size, String sortField, String sortDir) {
-        Pageable pageReq = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findByCoursesNameAndCoursesMarksGreaterThanEqual(courseName, minScore, pageReq);
-        LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
-        // Map entities to DTOs and wrap in the response object
-        StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("getHighScorers() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+    public StudentPageResponse getHighScorers(String courseName, int minScore, PageParams paging) {
+        return findPage("getHighScorers()", StudentCriteria.highScorers(courseName, minScore), paging);
     }
 
     /**
      * Retrieve students by department ID with pagination.
      */
     @Override
-    public StudentPageResponse getStudentsByDepartment(String deptId, int page, int size, String sortField, String sortDir) {
-        Pageable pageReq = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findByDepartment_Id(deptId, pageReq);
-        LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
-        // Map entities to DTOs and wrap in the response object
-        StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("getStudentsByDepartment() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+    public StudentPageResponse getStudentsByDepartment(String deptId, PageParams paging) {
+        return findPage("getStudentsByDepartment()", StudentCriteria.byDepartment(deptId), paging);
     }
 
     /**
      * Retrieve students born between two dates with pagination.
      */
     @Override
-    public StudentPageResponse getStudentsBornBetween(LocalDate start, LocalDate end, int page, int size, String sortField, String sortDir) {
-        Pageable pageReq = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findByDobBetween(start, end, pageReq);
-        LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
-        // Map entities to DTOs and wrap in the response object
-        StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("getStudentsBornBetween() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+    public StudentPageResponse getStudentsBornBetween(LocalDate start, LocalDate end, PageParams paging) {
+        return findPage("getStudentsBornBetween()", StudentCriteria.bornBetween(start, end), paging);
     }
 
     /**
@@ -257,23 +442,30 @@ public class StudentServiceImpl implements StudentService {
         LOG.info("getRecentEnrollments() called");
         List<Student> students = studentRepo.findTop5ByOrderByEnrollmentDateDesc();
         LOG.info("getRecentEnrollments() fetched {} students", students.size());
+        studentRepo.resolveDepartments(students);
         return students.stream().map(studentMapper::toDto).toList();
     }
 
     /**
      * Perform a full-text search over student-first names, last names, and email addresses.
-     * Uses the MongoDB text index to match the given term.
+     * Uses the MongoDB text index to match the given term. Sorting by "score" or
+     * a minimum score switches to the relevance-scored search.
      */
     @Override
-    public StudentPageResponse textSearch(String term, int page, int size, String sortField, String sortDir) {
+    public StudentPageResponse textSearch(String term, Float minScore, PageParams paging) {
         LOG.info("textSearch() called");
-        TextCriteria criteria = TextCriteria.forDefaultLanguage().matching(term);
-        Pageable pg = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findAllBy(criteria, pg);
+        TextCriteria criteria = StudentCriteria.text(term);
+        if (!SCORE_SORT.equalsIgnoreCase(paging.sortField()) && minScore == null) {
+            return findPage("textSearch()", criteria, paging);
+        }
+        Page<Student> studentPage = studentRepo.textSearchByScore(
+                StudentCriteria.withMinPercentage(criteria, paging.minPercentage()), minScore, getPageRequest(paging),
+                paging.fields().properties());
         LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
+        studentRepo.resolveDepartments(studentPage.getContent());
         StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("textSearch() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+        LOG.info("textSearch() returning page {} of {} by score, {} items", response.pageNumber(), response.totalPages(), response.content().size());
+        return trim(response, paging.fields());
     }
 
     /**
@@ -281,24 +473,80 @@ public class StudentServiceImpl implements StudentService {
      * Uses the MongoDB compound index (dept_active_idx) to retrieve data.
      */
     @Override
-    public StudentPageResponse getActiveByDepartment(String deptId, int page, int size, String sortField, String sortDir) {
+    public StudentPageResponse getActiveByDepartment(String deptId, PageParams paging) {
         LOG.info("getActiveByDepartment() called");
-        Pageable pageReq = getPageRequest(page, size, sortField, sortDir);
-        Page<Student> studentPage = studentRepo.findByDepartment_IdAndActiveTrue(deptId, pageReq);
-        LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
-        StudentPageResponse response = studentMapper.toPageResponse(studentPage);
-        LOG.info("getActiveByDepartment() returning page {} of {}, {} items", response.pageNumber() + 1, response.totalPages(), response.content().size());
-        return response;
+        return findPage("getActiveByDepartment()", StudentCriteria.activeByDepartment(deptId), paging);
+    }
+
+    /**
+     * Run a paged read in the mode requested by the client: keyset cursor,
+     * count-free slice, estimated total or exact total (single $facet round trip).
+     * A minimum percentage requested by the client narrows the endpoint's filter.
+     */
+    private StudentPageResponse findPage(String operation, CriteriaDefinition endpointFilter, PageParams paging) {
+        CriteriaDefinition filter = StudentCriteria.withMinPercentage(endpointFilter, paging.minPercentage());
+        if (paging.isKeyset()) return scroll(operation, filter, paging);
+        Pageable pageReq = getPageRequest(paging);
+        Set<String> properties = paging.fields().properties();
+        StudentPageResponse response;
+        if (paging.total() == TotalMode.NONE) {
+            Slice<Student> studentSlice = studentRepo.findSlice(filter, pageReq, properties);
+            LOG.debug("Fetched {} students (hasNext={})", studentSlice.getNumberOfElements(), studentSlice.hasNext());
+            studentRepo.resolveDepartments(studentSlice.getContent());
+            response = studentMapper.toSliceResponse(studentSlice);
+        } else {
+            Page<Student> studentPage = paging.total() == TotalMode.ESTIMATED
+                    ? studentRepo.findPageWithEstimatedTotal(filter, pageReq, properties)
+                    : studentRepo.findPage(filter, pageReq, properties);
+            LOG.debug(FETCHED_RESOURCE_LOG, studentPage.getNumberOfElements(), studentPage.getTotalPages());
+            studentRepo.resolveDepartments(studentPage.getContent());
+            // Map entities to DTOs and wrap in the response object
+            response = studentMapper.toPageResponse(studentPage);
+        }
+        LOG.info("{} returning page {} of {}, {} items", operation, response.pageNumber(), response.totalPages(), response.content().size());
+        return trim(response, paging.fields());
+    }
+
+    /**
+     * Keyset variant of the paged reads: continues after the cursor instead of skipping rows.
+     */
+    private StudentPageResponse scroll(String operation, CriteriaDefinition filter, PageParams paging) {
+        Sort sort = getSort(paging);
+        Sort.Direction direction = sort.getOrderFor(paging.sortField()).getDirection();
+        KeysetScrollPosition position = CursorCodec.decode(paging.after(), paging.sortField(), direction);
+        Window<Student> window = studentRepo.scroll(filter, position, sort, paging.size(), paging.fields().properties());
+        LOG.debug("Fetched {} students (hasNext={})", window.size(), window.hasNext());
+        studentRepo.resolveDepartments(window.getContent());
+        String nextCursor = window.hasNext() ? CursorCodec.encode(window.positionAt(window.size() - 1), direction) : null;
+        StudentPageResponse response = studentMapper.toScrollResponse(window, paging.size(), position.isInitial(), nextCursor);
+        LOG.info("{} returning cursor page of {} items, hasNext={}", operation, response.content().size(), response.hasNext());
+        return trim(response, paging.fields());
+    }
+
+    /**
+     * Helper to drop the fields the client did not ask for from a page.
+     */
+    private StudentPageResponse trim(StudentPageResponse response, StudentFields fields) {
+        if (fields.isAll()) return response;
+        return response.withContent(response.content().stream().map(fields::trim).toList());
     }
 
     /**
      * Helper to construct a Pageable with zero-based page index and sort.
      */
-    private Pageable getPageRequest(int page, int size, String sortField, String sortDir) {
-        LOG.info("Constructing Pageable: page={}, size={}, sortField={}, sortDir={}", page, size, sortField, sortDir);
-        // Determine a sort direction: asc → ASC, otherwise DESC
-        Sort.Direction direction = sortDir.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+    private Pageable getPageRequest(PageParams paging) {
+        LOG.info("Constructing Pageable: page={}, size={}, sortField={}, sortDir={}",
+                paging.page(), paging.size(), paging.sortField(), paging.sortDir());
         // Build and return Pageable (convert to zero-based page index)
-        return PageRequest.of(page - 1, size, Sort.by(direction, sortField));
+        return PageRequest.of(paging.page() - 1, paging.size(), getSort(paging));
+    }
+
+    /**
+     * Helper to construct the Sort of a paged read.
+     */
+    private Sort getSort(PageParams paging) {
+        // Determine a sort direction: asc → ASC, otherwise DESC
+        Sort.Direction direction = paging.sortDir().equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return Sort.by(direction, paging.sortField());
     }
 }
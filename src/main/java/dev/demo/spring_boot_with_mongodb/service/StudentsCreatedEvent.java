@@ -0,0 +1,14 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+
+import java.util.List;
+
+/**
+ * Published after a batch of students was inserted at once, so that views derived from the students
+ * can apply the whole batch as one change instead of one {@link StudentChangedEvent} per student.
+ *
+ * @param students the inserted students
+ */
+public record StudentsCreatedEvent(List<Student> students) {
+}
@@ -0,0 +1,143 @@
+package dev.demo.spring_boot_with_mongodb.bootstrap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class InitDataLoaderTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+    private static final String DEPARTMENTS = """
+            [{"id": "d1", "name": "Computer Science", "location": "Block A", "createdAt": "1985-01-01"}]""";
+
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    DepartmentRepository deptRepo;
+
+    private static String students(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> """
+                        {"id": "s%d", "firstName": "Jane", "lastName": "Doe", "email": "jane%d@example.com",
+                         "dob": "1997-01-20", "department": {"id": "d1"}, "courses": [{"name": "AI", "marks": 81}],
+                         "enrollmentDate": "2019-02-16", "active": true}""".formatted(i, i))
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private InitDataLoader loader(String students) {
+        return loader(students, false);
+    }
+
+    private InitDataLoader loader(String students, boolean resume) {
+        // two students per batch, two batches in flight
+        return new InitDataLoader(studentRepo, deptRepo, MAPPER,
+                new ByteArrayResource(DEPARTMENTS.getBytes(StandardCharsets.UTF_8)),
+                new ByteArrayResource(students.getBytes(StandardCharsets.UTF_8)), 2, 2, resume);
+    }
+
+    @Test
+    @DisplayName("run() seeds the departments and streams the students into fixed-size batches")
+    @SuppressWarnings("unchecked")
+    void seedsInBatches() throws Exception {
+        // given
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        given(studentRepo.insertUnordered(anyList())).willAnswer(inv -> {
+            List<Student> batch = inv.getArgument(0);
+            batches.add(batch.stream().map(Student::getId).toList());
+            return new BulkInsertResult(batch.size(), List.of());
+        });
+        // when
+        loader(students(5)).run();
+        // then
+        assertThat(batches).hasSize(3).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+        assertThat(batches.stream().flatMap(List::stream)).containsExactlyInAnyOrder("s0", "s1", "s2", "s3", "s4");
+        then(deptRepo).should().insert(ArgumentMatchers.<List<Department>>argThat(d -> d.size() == 1
+                && d.get(0).getName().equals("Computer Science")));
+    }
+
+    @Test
+    @DisplayName("run() leaves collections that already hold data alone")
+    void skipsSeededCollections() throws Exception {
+        // given
+        given(deptRepo.count()).willReturn(3L);
+        given(studentRepo.count()).willReturn(10L);
+        // when
+        loader(students(5)).run();
+        // then
+        then(studentRepo).should(never()).insertUnordered(anyList());
+        then(deptRepo).should(never()).insert(anyList());
+    }
+
+    @Test
+    @DisplayName("run() stops reading and fails when a batch cannot be written")
+    void failsOnWriteError() {
+        // given
+        given(studentRepo.insertUnordered(anyList())).willThrow(new IllegalStateException("database down"));
+        // when / then
+        assertThatThrownBy(() -> loader(students(50)).run())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database down");
+    }
+
+    @Test
+    @DisplayName("run() keeps what was read before a malformed element and starts")
+    void partialSeedOnParseError() throws Exception {
+        // given: the third element is not a student
+        given(studentRepo.insertUnordered(anyList())).willAnswer(inv -> new BulkInsertResult(inv.<List<Student>>getArgument(0).size(), List.of()));
+        String students = students(2);
+        // when
+        loader(students.substring(0, students.length() - 1) + ", {\"dob\": \"yesterday\"}]").run();
+        // then
+        then(studentRepo).should().insertUnordered(ArgumentMatchers.<List<Student>>argThat(batch -> batch.size() == 2));
+        then(studentRepo).should(times(1)).insertUnordered(anyList());
+    }
+
+    @Test
+    @DisplayName("run() with resume seeds a non-empty collection; stored ids are duplicates, not failures")
+    void resumesPartialSeed() throws Exception {
+        // given: s0 and s1 were stored by the seed that stopped early
+        given(deptRepo.count()).willReturn(3L);
+        given(studentRepo.count()).willReturn(2L);
+        List<String> written = new CopyOnWriteArrayList<>();
+        given(studentRepo.insertUnordered(anyList())).willAnswer(inv -> {
+            List<Student> batch = inv.getArgument(0);
+            List<BulkInsertResult.Failure> duplicates = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                String id = batch.get(i).getId();
+                if (id.equals("s0") || id.equals("s1")) duplicates.add(new BulkInsertResult.Failure(i, true, "E11000"));
+                else written.add(id);
+            }
+            return new BulkInsertResult(batch.size() - duplicates.size(), duplicates);
+        });
+        // when
+        loader(students(5), true).run();
+        // then
+        assertThat(written).containsExactlyInAnyOrder("s2", "s3", "s4");
+        then(deptRepo).should(never()).insert(anyList());
+    }
+}
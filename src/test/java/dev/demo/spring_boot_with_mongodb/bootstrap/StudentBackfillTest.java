@@ -0,0 +1,69 @@
+package dev.demo.spring_boot_with_mongodb.bootstrap;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class StudentBackfillTest {
+    @Mock
+    MongoTemplate mongo;
+    @Mock
+    BulkOperations bulk;
+    @InjectMocks
+    StudentBackfill backfill;
+
+    private static Student student(String id, String firstName, String lastName) {
+        Student student = new Student();
+        student.setId(id);
+        student.setFirstName(firstName);
+        student.setLastName(lastName);
+        return student;
+    }
+
+    @Test
+    @DisplayName("lowercase names are folded in Java like every write, beyond ASCII, in bulk batches")
+    void lowercaseNames() {
+        // given
+        given(mongo.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Student.class)))
+                .willReturn(UpdateResult.acknowledged(0, 0L, null));
+        List<Student> students = IntStream.range(0, StudentBackfill.BATCH_SIZE)
+                .mapToObj(i -> student("s" + i, "Ann", "Lee")).toList();
+        given(mongo.stream(any(Query.class), eq(Student.class))).willReturn(
+                Stream.concat(Stream.of(student("s", "ÉMILE", "ÖZTÜRK")), students.stream()));
+        given(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Student.class)).willReturn(bulk);
+        given(bulk.execute()).willReturn(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()));
+        // when
+        backfill.run(null);
+        // then: two batches, the first starting with the folded non-ASCII names
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        then(bulk).should(times(StudentBackfill.BATCH_SIZE + 1)).updateOne(any(Query.class), update.capture());
+        then(bulk).should(times(2)).execute();
+        assertThat(update.getAllValues().get(0).getUpdateObject().get("$set", Document.class))
+                .containsEntry("firstNameLower", "émile").containsEntry("lastNameLower", "öztürk");
+    }
+}
@@ -0,0 +1,207 @@
+package dev.demo.spring_boot_with_mongodb.config;
+
+import dev.demo.spring_boot_with_mongodb.payload.IndexCoverageReport;
+import dev.demo.spring_boot_with_mongodb.payload.IndexCoverageReport.QueryPlan;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+@ExtendWith(MockitoExtension.class)
+class IndexCoverageVerifierTest {
+    private static final Document COLLSCAN_PLAN = explained(new Document("stage", "SORT")
+            .append("inputStage", new Document("stage", "COLLSCAN")));
+    private static final Document INDEXED_PLAN = explained(new Document("stage", "LIMIT")
+            .append("inputStage", new Document("stage", "FETCH")
+                    .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "last_name_idx"))));
+    private static final Document INDEXED_SORTED_PLAN = explained(new Document("stage", "SORT")
+            .append("inputStage", new Document("stage", "FETCH")
+                    .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "last_name_idx"))));
+
+    @Mock
+    private MongoTemplate mongo;
+    @Mock
+    private ApplicationEventPublisher publisher;
+
+    private static Document explained(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan).append("rejectedPlans", List.of()));
+    }
+
+    private IndexCoverageVerifier verifier(boolean failReadiness, Document explain) {
+        return verifier(failReadiness, false, explain);
+    }
+
+    private IndexCoverageVerifier verifier(boolean failReadiness, boolean strictSort, Document explain) {
+        IndexCoverageVerifier verifier = spy(new IndexCoverageVerifier(mongo, publisher, true, failReadiness, strictSort));
+        doReturn(explain).when(verifier).explain(any());
+        return verifier;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ReadinessState> publishedStates() {
+        ArgumentCaptor<AvailabilityChangeEvent<ReadinessState>> captor = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        then(publisher).should(atLeast(0)).publishEvent(captor.capture());
+        return captor.getAllValues().stream().map(AvailabilityChangeEvent::getState).toList();
+    }
+
+    @Test
+    @DisplayName("summarize(): classic plan → stages outermost first, index names, flags")
+    void summarizeClassicPlan() {
+        // when
+        QueryPlan plan = IndexCoverageVerifier.summarize("getAll", INDEXED_PLAN);
+        // then
+        assertThat(plan.stages()).containsExactly("LIMIT", "FETCH", "IXSCAN");
+        assertThat(plan.indexes()).containsExactly("last_name_idx");
+        assertThat(plan.collectionScan()).isFalse();
+        assertThat(plan.inMemorySort()).isFalse();
+    }
+
+    @Test
+    @DisplayName("summarize(): plan nested under queryPlan and inputStages → COLLSCAN and SORT flagged")
+    void summarizeNestedPlan() {
+        // given
+        Document winningPlan = new Document("queryPlan", new Document("stage", "SORT")
+                .append("inputStage", new Document("stage", "OR").append("inputStages", List.of(
+                        new Document("stage", "IXSCAN").append("indexName", "first_name_lower_idx"),
+                        new Document("stage", "COLLSCAN")))));
+        // when
+        QueryPlan plan = IndexCoverageVerifier.summarize("searchByName", explained(winningPlan));
+        // then
+        assertThat(plan.stages()).containsExactly("SORT", "OR", "IXSCAN", "COLLSCAN");
+        assertThat(plan.indexes()).containsExactly("first_name_lower_idx");
+        assertThat(plan.collectionScan()).isTrue();
+        assertThat(plan.inMemorySort()).isTrue();
+    }
+
+    @Test
+    @DisplayName("summarize(): aggregation explain → $cursor plan plus the pipeline stages, $sort flagged")
+    void summarizeAggregationExplain() {
+        // given
+        Document explain = new Document("stages", List.of(
+                new Document("$cursor", new Document("queryPlanner", new Document("winningPlan",
+                        new Document("stage", "FETCH").append("inputStage",
+                                new Document("stage", "IXSCAN").append("indexName", "active_idx")))
+                        .append("rejectedPlans", List.of(new Document("stage", "COLLSCAN"))))),
+                new Document("$sort", new Document("sortKey", new Document("last_name", 1))),
+                new Document("$facet", new Document("content", List.of(new Document("$limit", 20L))))));
+        // when
+        QueryPlan plan = IndexCoverageVerifier.summarize("getActiveStudents", explain);
+        // then
+        assertThat(plan.stages()).containsExactly("$sort", "$facet", "FETCH", "IXSCAN");
+        assertThat(plan.indexes()).containsExactly("active_idx");
+        assertThat(plan.collectionScan()).isFalse();
+        assertThat(plan.inMemorySort()).isTrue();
+    }
+
+    @Test
+    @DisplayName("queryShapes(): filtered pages as the repository's $match, $sort, $facet pipeline; unfiltered as a find")
+    void queryShapesMirrorTheRepository() {
+        // when
+        var shapes = IndexCoverageVerifier.queryShapes();
+        // then
+        assertThat(shapes.get("getAll").find()).isNotNull();
+        assertThat(shapes.get("getRecentEnrollments").find()).isNotNull();
+        var pipeline = shapes.get("getActiveStudents").pipeline();
+        assertThat(pipeline).isNotNull();
+        assertThat(pipeline.getPipeline().getOperations()).extracting(AggregationOperation::getOperator)
+                .containsExactly("$match", "$sort", "$facet");
+        assertThat(shapes.get("textSearch").pipeline()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("strict-sort: the unavoidable sort of a $text match → still ready, reported")
+    void textSearchSortIsExempt() {
+        // given
+        IndexCoverageVerifier verifier = spy(new IndexCoverageVerifier(mongo, publisher, true, true, true));
+        doReturn(INDEXED_PLAN).when(verifier).explain(any());
+        doReturn(INDEXED_SORTED_PLAN).when(verifier).explain(argThat(shape -> shape.pipeline() != null
+                && shape.pipeline().getPipeline().getOperations().get(0).toDocument(Aggregation.DEFAULT_CONTEXT)
+                .get("$match", Document.class).containsKey("$text")));
+        // when
+        IndexCoverageReport report = verifier.verify();
+        // then
+        assertThat(report.queries()).filteredOn(QueryPlan::inMemorySort).extracting(QueryPlan::query)
+                .containsExactly("textSearch");
+        then(publisher).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("strict-sort: an avoidable in-memory sort → refuse traffic")
+    void strictSortRefusesTraffic() {
+        // given
+        IndexCoverageVerifier verifier = verifier(true, true, INDEXED_SORTED_PLAN);
+        // when
+        verifier.verify();
+        // then
+        assertThat(publishedStates()).containsExactly(ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    @Test
+    @DisplayName("verify(): explains every query shape")
+    void verifyExplainsEveryShape() {
+        // when
+        IndexCoverageReport report = verifier(false, INDEXED_PLAN).verify();
+        // then
+        assertThat(report.queries()).extracting(QueryPlan::query)
+                .contains("getAll", "getHighScorers", "getStudentsBornBetween", "getRecentEnrollments");
+        assertThat(report.hasCollectionScan()).isFalse();
+    }
+
+    @Test
+    @DisplayName("fail-readiness: a collection scan → refuse traffic, also when Boot reports ACCEPTING_TRAFFIC")
+    void collectionScanRefusesTraffic() {
+        // given
+        IndexCoverageVerifier verifier = verifier(true, COLLSCAN_PLAN);
+        // when
+        verifier.verifyOnStartup();
+        verifier.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        // then
+        assertThat(publishedStates()).containsExactly(ReadinessState.REFUSING_TRAFFIC, ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    @Test
+    @DisplayName("fail-readiness: a passing re-verification → accept traffic again")
+    void passingReportAcceptsTraffic() {
+        // given
+        IndexCoverageVerifier verifier = verifier(true, COLLSCAN_PLAN);
+        verifier.verify();
+        doReturn(INDEXED_PLAN).when(verifier).explain(any());
+        // when
+        verifier.verify();
+        verifier.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        // then
+        assertThat(publishedStates()).containsExactly(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    @Test
+    @DisplayName("readiness untouched without fail-readiness")
+    void reportOnlyByDefault() {
+        // given
+        IndexCoverageVerifier verifier = verifier(false, COLLSCAN_PLAN);
+        // when
+        IndexCoverageReport report = verifier.verify();
+        verifier.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        // then
+        assertThat(report.hasCollectionScan()).isTrue();
+        then(publisher).shouldHaveNoInteractions();
+    }
+}
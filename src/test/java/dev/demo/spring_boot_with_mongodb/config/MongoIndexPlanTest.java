@@ -0,0 +1,140 @@
+package dev.demo.spring_boot_with_mongodb.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.IndexCoverageReport;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Plan-shape regression tests for the indexed student queries, run against a real MongoDB.
+ * Skipped when no Docker daemon is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MongoIndexPlanTest {
+    @Container
+    static final MongoDBContainer MONGO_DB = new MongoDBContainer("mongo:7.0");
+
+    static MongoClient client;
+    static MongoTemplate mongo;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        client = MongoClients.create(MONGO_DB.getConnectionString());
+        mongo = new MongoTemplate(client, "studentdb");
+        new MongoIndexConfig().initIndexes(mongo).run(null);
+        mongo.insertAll(List.of(
+                student("s1", "AI", 90, "Networks", 40),
+                student("s2", "AI", 40, "Networks", 95)
+        ));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        client.close();
+    }
+
+    private static Student student(String id, String course1, int marks1, String course2, int marks2) {
+        Student student = new Student();
+        student.setId(id);
+        student.setEmail(id + "@example.com");
+        student.setCourses(List.of(course(course1, marks1), course(course2, marks2)));
+        return student;
+    }
+
+    private static Course course(String name, int marks) {
+        Course course = new Course();
+        course.setName(name);
+        course.setMarks(marks);
+        return course;
+    }
+
+    private static Document explain(Criteria criteria) {
+        Document filter = new QueryMapper(mongo.getConverter()).getMappedObject(criteria.getCriteriaObject(),
+                mongo.getConverter().getMappingContext().getPersistentEntity(Student.class));
+        Document explain = mongo.getCollection("students").find(filter).explain();
+        return explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+    }
+
+    /**
+     * All plan stages, depth first, whatever nesting (inputStage, inputStages, queryPlan) the server uses.
+     */
+    private static List<Document> stages(Object node) {
+        List<Document> stages = new ArrayList<>();
+        if (node instanceof Document doc) {
+            if (doc.containsKey("stage")) stages.add(doc);
+            doc.values().forEach(value -> stages.addAll(stages(value)));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> stages.addAll(stages(value)));
+        }
+        return stages;
+    }
+
+    private static Document indexScan(Document plan) {
+        return stages(plan).stream().filter(stage -> "IXSCAN".equals(stage.getString("stage"))).findFirst().orElseThrow();
+    }
+
+    @Test
+    @DisplayName("high scorers: both conditions bound course_marks_idx, no collection scan")
+    void highScorersPlan() {
+        // when
+        Document plan = explain(StudentCriteria.highScorers("AI", 80));
+        // then
+        assertThat(stages(plan)).extracting(stage -> stage.getString("stage")).doesNotContain("COLLSCAN");
+        Document scan = indexScan(plan);
+        assertThat(scan.getString("indexName")).isEqualTo("course_marks_idx");
+        Document bounds = scan.get("indexBounds", Document.class);
+        assertThat(bounds.getList("courses.course_name", String.class)).containsExactly("[\"AI\", \"AI\"]");
+        assertThat(bounds.getList("courses.marks", String.class)).singleElement().asString().startsWith("[80");
+    }
+
+    @Test
+    @DisplayName("high scorers: the mark must belong to the requested course")
+    void highScorersSameElement() {
+        // when
+        List<Student> students = mongo.find(query(StudentCriteria.highScorers("AI", 80)), Student.class);
+        // then: s2 scored 95 in Networks, not in AI
+        assertThat(students).extracting(Student::getId).containsExactly("s1");
+    }
+
+    @Test
+    @DisplayName("by course: course_marks_idx prefix, no collection scan")
+    void byCoursePlan() {
+        // when
+        Document plan = explain(StudentCriteria.byCourse("AI"));
+        // then
+        assertThat(stages(plan)).extracting(stage -> stage.getString("stage")).doesNotContain("COLLSCAN");
+        assertThat(indexScan(plan).getString("indexName")).isEqualTo("course_marks_idx");
+    }
+
+    @Test
+    @DisplayName("index coverage: no query shape needs a collection scan")
+    void indexCoverage() {
+        // given
+        IndexCoverageVerifier verifier = new IndexCoverageVerifier(mongo, mock(ApplicationEventPublisher.class), false, true, false);
+        // when
+        IndexCoverageReport report = verifier.verify();
+        // then
+        assertThat(report.queries()).isNotEmpty().noneMatch(IndexCoverageReport.QueryPlan::collectionScan);
+    }
+}
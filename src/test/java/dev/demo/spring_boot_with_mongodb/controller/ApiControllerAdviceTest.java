@@ -1,5 +1,7 @@
 package dev.demo.spring_boot_with_mongodb.controller;
 
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.exception.PreconditionFailedException;
 import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
 import dev.demo.spring_boot_with_mongodb.payload.ErrorResponse;
 import dev.demo.spring_boot_with_mongodb.payload.FieldValidationError;
@@ -49,6 +51,34 @@ class ApiControllerAdviceTest {
         assertThat(body.timestamp()).isBeforeOrEqualTo(LocalDateTime.now());
     }
 
+    @Test
+    void handlePreconditionFailed_returns412AndErrorResponse() {
+        // given
+        PreconditionFailedException ex = new PreconditionFailedException("Student", "123", "If-Match");
+        // when
+        ResponseEntity<ErrorResponse> resp = advice.handlePreconditionFailed(ex, request);
+        // then
+        assertThat(resp.getStatusCode().value()).isEqualTo(412);
+        ErrorResponse body = resp.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.error()).isEqualTo("Precondition Failed");
+        assertThat(body.message()).contains("does not match If-Match");
+    }
+
+    @Test
+    void handleInvalidParameter_returns400AndErrorResponse() {
+        // given
+        InvalidRequestParameterException ex = new InvalidRequestParameterException("after", "xyz", "malformed cursor");
+        // when
+        ResponseEntity<ErrorResponse> resp = advice.handleInvalidParameter(ex, request);
+        // then
+        assertThat(resp.getStatusCode().value()).isEqualTo(400);
+        ErrorResponse body = resp.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.error()).isEqualTo("Bad Request");
+        assertThat(body.message()).contains("after").contains("malformed cursor");
+    }
+
     @Test
     void handleMalformedJson_returns400WithGenericMessage() {
         // given
@@ -1,27 +1,54 @@
 package dev.demo.spring_boot_with_mongodb.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.demo.spring_boot_with_mongodb.exception.PreconditionFailedException;
+import dev.demo.spring_boot_with_mongodb.payload.BulkCreateResponse;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemResult;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemStatus;
 import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
 import dev.demo.spring_boot_with_mongodb.payload.DepartmentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.ImportResponse;
+import dev.demo.spring_boot_with_mongodb.payload.MarksUpdate;
+import dev.demo.spring_boot_with_mongodb.payload.PageParams;
 import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFilter;
 import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentPatch;
+import dev.demo.spring_boot_with_mongodb.payload.TotalMode;
+import dev.demo.spring_boot_with_mongodb.service.StudentBulkService;
+import dev.demo.spring_boot_with_mongodb.service.StudentExportService;
+import dev.demo.spring_boot_with_mongodb.service.StudentImportService;
 import dev.demo.spring_boot_with_mongodb.service.StudentService;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +63,12 @@ class ApiControllerTest {
     private ObjectMapper mapper;
     @MockitoBean
     private StudentService studentService;
+    @MockitoBean
+    private StudentBulkService studentBulkService;
+    @MockitoBean
+    private StudentExportService studentExportService;
+    @MockitoBean
+    private StudentImportService studentImportService;
 
     private StudentDTO sampleDto(String id, String fn, String ln) {
         DepartmentDTO dept = new DepartmentDTO("dept123", "Computer Science", "Uni hall", LocalDate.now());
@@ -80,7 +113,7 @@ class ApiControllerTest {
         StudentPageResponse page = new StudentPageResponse(
                 List.of(one), 1, 20, 1L, 1, true, true, false, false
         );
-        given(studentService.getAll(1, 20, "lastName", "asc")).willReturn(page);
+        given(studentService.getAll(PageParams.of(1, 20, "lastName", "asc"))).willReturn(page);
         // when / then
         mvc.perform(get(BASE_URL)
                         .param("page", "1")
@@ -92,13 +125,99 @@ class ApiControllerTest {
                 .andExpect(jsonPath("$.totalElements").value(1));
     }
 
+    @Test
+    @DisplayName("GET /students?after= → 200 + cursor page")
+    @Order(2)
+    void getStudentsWithCursor() throws Exception {
+        // given
+        StudentDTO one = sampleDto("id1", "Bob", "Smith");
+        StudentPageResponse page = new StudentPageResponse(
+                List.of(one), null, 20, null, null, false, false, true, true, "next-token"
+        );
+        given(studentService.getAll(PageParams.of(1, 20, "lastName", "asc").withAfter("token"))).willReturn(page);
+        // when / then
+        mvc.perform(get(BASE_URL).param("after", "token"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"))
+                .andExpect(jsonPath("$.totalElements").isEmpty());
+    }
+
+    @Test
+    @DisplayName("GET /students?withTotal=false → 200 + page without totals")
+    @Order(2)
+    void getStudentsWithoutTotal() throws Exception {
+        // given
+        StudentDTO one = sampleDto("id1", "Bob", "Smith");
+        StudentPageResponse page = new StudentPageResponse(
+                List.of(one), 1, 20, null, null, true, false, true, false
+        );
+        given(studentService.getAll(PageParams.of(1, 20, "lastName", "asc").withTotal(TotalMode.NONE))).willReturn(page);
+        // when / then
+        mvc.perform(get(BASE_URL).param("withTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalPages").isEmpty());
+    }
+
+    @Test
+    @DisplayName("GET /students?fields=firstName,email → 200 + only those fields")
+    @Order(2)
+    void getStudentsSparseFieldset() throws Exception {
+        // given
+        StudentDTO trimmed = new StudentDTO(null, "Bob", null, "bob@example.com", null, null, null, null, null, null);
+        StudentPageResponse page = new StudentPageResponse(
+                List.of(trimmed), 1, 20, 1L, 1, true, true, false, false
+        );
+        given(studentService.getAll(PageParams.of(1, 20, "lastName", "asc")
+                .withFields(StudentFields.fromParam("firstName,email")))).willReturn(page);
+        // when / then
+        mvc.perform(get(BASE_URL).param("fields", "firstName,email"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].firstName").value("Bob"))
+                .andExpect(jsonPath("$.content[0].email").value("bob@example.com"))
+                .andExpect(jsonPath("$.content[0].courses").doesNotExist())
+                .andExpect(jsonPath("$.content[0].id").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("GET /students?sort=percentage&minPercentage=80 → 200, ranked and filtered by the service")
+    @Order(2)
+    void getStudentsMinPercentage() throws Exception {
+        // given
+        StudentPageResponse page = new StudentPageResponse(
+                List.of(sampleDto("id1", "Bob", "Smith")), 1, 20, 1L, 1, true, true, false, false
+        );
+        given(studentService.getAll(PageParams.of(1, 20, "percentage", "desc").withMinPercentage(80.0))).willReturn(page);
+        // when / then
+        mvc.perform(get(BASE_URL).param("sort", "percentage").param("dir", "desc").param("minPercentage", "80"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value("id1"));
+    }
+
+    @Test
+    @DisplayName("GET /students?fields=password → 400")
+    @Order(2)
+    void getStudentsUnknownField() throws Exception {
+        mvc.perform(get(BASE_URL).param("fields", "firstName,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /students?withTotal=maybe → 400")
+    @Order(2)
+    void getStudentsInvalidTotalMode() throws Exception {
+        mvc.perform(get(BASE_URL).param("withTotal", "maybe"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("GET /students/{id} → 200 + JSON")
     @Order(3)
     void getStudentById() throws Exception {
         // given
         StudentDTO dto = sampleDto("xyz", "Carol", "Jones");
-        given(studentService.getById("xyz")).willReturn(dto);
+        given(studentService.getById("xyz", StudentFields.ALL)).willReturn(dto);
         // when / then
         mvc.perform(get(BASE_URL + "/xyz"))
                 .andExpect(status().isOk())
@@ -112,7 +231,7 @@ class ApiControllerTest {
         // given
         StudentDTO req = sampleDto(null, "Dan", "Brown");
         StudentDTO updated = sampleDto("u1", "Dan", "Brown");
-        given(studentService.update(eq("u1"), any())).willReturn(updated);
+        given(studentService.update(eq("u1"), any(), isNull())).willReturn(updated);
         // when / then
         mvc.perform(put(BASE_URL + "/u1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -137,11 +256,15 @@ class ApiControllerTest {
     void searchByName() throws Exception {
         // given
         StudentDTO a = sampleDto("A1", "Eve", "Lee");
-        given(studentService.searchByName("E")).willReturn(List.of(a));
+        StudentPageResponse page = new StudentPageResponse(
+                List.of(a), 1, 20, 1L, 1, true, true, false, false);
+        given(studentService.searchByName("E", PageParams.of(1, 20, "lastName", "asc"))).willReturn(page);
         // when / then
         mvc.perform(get(BASE_URL + "/searchByName").param("name", "E"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.count").value(1));
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.students[0].firstName").value("Eve"));
     }
 
     @Test
@@ -153,7 +276,7 @@ class ApiControllerTest {
         StudentDTO dto = sampleDto("id1", "Alice", "Smith");
         StudentPageResponse pageResponse = new StudentPageResponse(
                 List.of(dto), 1, 20, 1L, 1, true, true, false, false);
-        given(studentService.textSearch(term, 1, 20, "lastName", "asc"))
+        given(studentService.textSearch(term, null, PageParams.of(1, 20, "lastName", "asc")))
                 .willReturn(pageResponse);
         // when / then
         mvc.perform(get("/api/v1/students/search/{text}", term)
@@ -170,10 +293,28 @@ class ApiControllerTest {
                 .andExpect(jsonPath("$.pageNumber").value(1))
                 .andExpect(jsonPath("$.totalElements").value(1));
         // verify service invocation
-        verify(studentService).textSearch(term, 1, 20, "lastName", "asc");
+        verify(studentService).textSearch(term, null, PageParams.of(1, 20, "lastName", "asc"));
     }
 
 
+    @Test
+    @DisplayName("GET /api/v1/students/search/{text}?sort=score&minScore= → 200 + scored results")
+    @Order(7)
+    void searchByRelevance() throws Exception {
+        // given
+        StudentDTO dto = new StudentDTO("id1", "Alice", "Smith", "alice@example.com", null, null, null, null, true, 80.0, 1.5f, null);
+        StudentPageResponse pageResponse = new StudentPageResponse(
+                List.of(dto), 1, 20, 1L, 1, true, true, false, false);
+        given(studentService.textSearch("Alice", 1.0f, PageParams.of(1, 20, "score", "asc")))
+                .willReturn(pageResponse);
+        // when / then
+        mvc.perform(get("/api/v1/students/search/{text}", "Alice")
+                        .param("sort", "score")
+                        .param("minScore", "1.0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].score").value(1.5));
+    }
+
     @Test
     @DisplayName("GET /students/active → 200 + paged JSON")
     @Order(8)
@@ -183,7 +324,7 @@ class ApiControllerTest {
         StudentPageResponse page = new StudentPageResponse(
                 List.of(active), 1, 20, 1L, 1, true, true, false, false
         );
-        given(studentService.getActiveStudents(1, 20, "lastName", "asc")).willReturn(page);
+        given(studentService.getActiveStudents(PageParams.of(1, 20, "lastName", "asc"))).willReturn(page);
         // when / then
         mvc.perform(get(BASE_URL + "/active")
                         .param("page", "1").param("size", "20")
@@ -201,8 +342,8 @@ class ApiControllerTest {
         StudentDTO s1 = sampleDto("id1", "Alice", "Wonder");
         StudentDTO s2 = sampleDto("id2", "Bob", "Builder");
         StudentPageResponse pageResp = new StudentPageResponse(
-                List.of(s1, s2), 1, 20, 2, 1, true, true, false, false);
-        given(studentService.getActiveByDepartment(deptId, 1, 20, "lastName", "asc")).willReturn(pageResp);
+                List.of(s1, s2), 1, 20, 2L, 1, true, true, false, false);
+        given(studentService.getActiveByDepartment(deptId, PageParams.of(1, 20, "lastName", "asc"))).willReturn(pageResp);
         //when / then
         mvc.perform(get("/api/v1/students/active/by-department/{deptId}", deptId)
                         .contentType(MediaType.APPLICATION_JSON))
@@ -215,7 +356,7 @@ class ApiControllerTest {
                 .andExpect(jsonPath("$.content[0].id").value("id1"))
                 .andExpect(jsonPath("$.content[1].id").value("id2"));
         // verify that service was called with defaults
-        verify(studentService).getActiveByDepartment(deptId, 1, 20, "lastName", "asc");
+        verify(studentService).getActiveByDepartment(deptId, PageParams.of(1, 20, "lastName", "asc"));
     }
 
     @Test
@@ -251,7 +392,7 @@ class ApiControllerTest {
         StudentPageResponse page = new StudentPageResponse(
                 List.of(c), 1, 20, 1L, 1, true, true, false, false
         );
-        given(studentService.getStudentByCourse("AI", 1, 20, "lastName", "asc")).willReturn(page);
+        given(studentService.getStudentByCourse("AI", PageParams.of(1, 20, "lastName", "asc"))).willReturn(page);
         // when / then
         mvc.perform(get(BASE_URL + "/by-course")
                         .param("courseName", "AI")
@@ -270,7 +411,7 @@ class ApiControllerTest {
         StudentPageResponse page = new StudentPageResponse(
                 List.of(h), 1, 20, 1L, 1, true, true, false, false
         );
-        given(studentService.getHighScorers("AI", 80, 1, 20, "lastName", "asc")).willReturn(page);
+        given(studentService.getHighScorers("AI", 80, PageParams.of(1, 20, "lastName", "asc"))).willReturn(page);
         // when / then
         mvc.perform(get(BASE_URL + "/high-scorers")
                         .param("courseName", "AI").param("minScore", "80")
@@ -289,7 +430,7 @@ class ApiControllerTest {
         StudentPageResponse page = new StudentPageResponse(
                 List.of(d), 1, 20, 1L, 1, true, true, false, false
         );
-        given(studentService.getStudentsByDepartment("dept1", 1, 20, "lastName", "asc")).willReturn(page);
+        given(studentService.getStudentsByDepartment("dept1", PageParams.of(1, 20, "lastName", "asc"))).willReturn(page);
         // when / then
         mvc.perform(get(BASE_URL + "/by-department/dept1")
                         .param("page", "1").param("size", "20")
@@ -309,7 +450,7 @@ class ApiControllerTest {
         );
         String start = "1990-01-01";
         String end = "2000-12-31";
-        given(studentService.getStudentsBornBetween(LocalDate.parse(start), LocalDate.parse(end), 1, 20, "dob", "asc")).willReturn(page);
+        given(studentService.getStudentsBornBetween(LocalDate.parse(start), LocalDate.parse(end), PageParams.of(1, 20, "dob", "asc"))).willReturn(page);
         // when / then
         mvc.perform(get(BASE_URL + "/born-between")
                         .param("start", start)
@@ -333,4 +474,257 @@ class ApiControllerTest {
                 .andExpect(jsonPath("$.total").value(1))
                 .andExpect(jsonPath("$.students[0].id").value("r1"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("POST /students/bulk with a JSON array → 200 + per-item results")
+    @Order(17)
+    void addStudentsBulk() throws Exception {
+        // given
+        List<StudentDTO> req = List.of(sampleDto(null, "Alice", "Wong"), sampleDto(null, "Bob", "Smith"));
+        BulkCreateResponse res = new BulkCreateResponse(2, 1, 1, List.of(
+                BulkItemResult.created(0, "abc123"),
+                BulkItemResult.rejected(1, BulkItemStatus.DUPLICATE, "Email address already exists: bob.smith@example.com")));
+        given(studentBulkService.createAll(req)).willReturn(res);
+        // when / then
+        mvc.perform(post(BASE_URL + "/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.items[0].id").value("abc123"))
+                .andExpect(jsonPath("$.items[1].status").value("DUPLICATE"));
+    }
+
+    @Test
+    @DisplayName("POST /students/bulk with NDJSON → 200 + per-item results")
+    @Order(18)
+    void addStudentsBulkNdjson() throws Exception {
+        // given
+        String body = mapper.writeValueAsString(sampleDto(null, "Alice", "Wong")) + "\n{oops\n";
+        BulkCreateResponse res = new BulkCreateResponse(2, 1, 1, List.of(
+                BulkItemResult.created(0, "abc123"),
+                BulkItemResult.rejected(1, BulkItemStatus.INVALID, "Malformed student")));
+        given(studentBulkService.createAllFromNdjson(any(InputStream.class))).willReturn(res);
+        // when / then
+        mvc.perform(post(BASE_URL + "/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.items[1].status").value("INVALID"));
+    }
+
+    @Test
+    @DisplayName("PATCH /students/{id} → 200 + updated body")
+    @Order(19)
+    void patchStudent() throws Exception {
+        // given
+        StudentPatch req = new StudentPatch("Alicia", null, null, null, null, null, null);
+        given(studentService.patch("abc123", req)).willReturn(sampleDto("abc123", "Alicia", "Wong"));
+        // when / then
+        mvc.perform(patch(BASE_URL + "/abc123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Alicia\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Alicia"));
+    }
+
+    @Test
+    @DisplayName("PATCH /students/{id} with a blank name → 400")
+    @Order(20)
+    void patchStudentBlankName() throws Exception {
+        mvc.perform(patch(BASE_URL + "/abc123")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\" \"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /students/{id}/courses → 201 + updated body")
+    @Order(21)
+    void addCourse() throws Exception {
+        // given
+        CourseDTO req = new CourseDTO("Databases", 75);
+        given(studentService.addCourse("abc123", req)).willReturn(sampleDto("abc123", "Alice", "Wong"));
+        // when / then
+        mvc.perform(post(BASE_URL + "/abc123/courses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value("abc123"));
+    }
+
+    @Test
+    @DisplayName("PATCH /students/{id}/courses/{name} → 200; out-of-range marks → 400")
+    @Order(22)
+    void updateMarks() throws Exception {
+        // given
+        given(studentService.updateMarks("abc123", "Algorithms", new MarksUpdate(70)))
+                .willReturn(sampleDto("abc123", "Alice", "Wong"));
+        // when / then
+        mvc.perform(patch(BASE_URL + "/abc123/courses/Algorithms")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"marks\":70}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("abc123"));
+        mvc.perform(patch(BASE_URL + "/abc123/courses/Algorithms")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"marks\":101}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("DELETE /students/{id}/courses/{name} → 200 + updated body")
+    @Order(23)
+    void removeCourse() throws Exception {
+        // given
+        given(studentService.removeCourse("abc123", "Algorithms")).willReturn(sampleDto("abc123", "Alice", "Wong"));
+        // when / then
+        mvc.perform(delete(BASE_URL + "/abc123/courses/Algorithms"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("abc123"));
+        verify(studentService).removeCourse("abc123", "Algorithms");
+    }
+
+    private StudentDTO versioned(StudentDTO dto, long version) {
+        return new StudentDTO(dto.id(), dto.firstName(), dto.lastName(), dto.email(), dto.dob(), dto.department(),
+                dto.courses(), dto.enrollmentDate(), dto.active(), dto.percentage(), null, version);
+    }
+
+    @Test
+    @DisplayName("GET /students/{id} → ETag of the version; If-None-Match on it → 304 from the version alone")
+    @Order(24)
+    void getStudentByIdConditional() throws Exception {
+        // given
+        given(studentService.getById("xyz", StudentFields.ALL)).willReturn(versioned(sampleDto("xyz", "Carol", "Jones"), 3));
+        given(studentService.getVersion("xyz")).willReturn(3L);
+        // when / then
+        mvc.perform(get(BASE_URL + "/xyz"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mvc.perform(get(BASE_URL + "/xyz").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        verify(studentService, times(1)).getById("xyz", StudentFields.ALL);
+    }
+
+    @Test
+    @DisplayName("GET /students/{id} with an outdated If-None-Match → 200 + body")
+    @Order(25)
+    void getStudentByIdChanged() throws Exception {
+        // given
+        given(studentService.getVersion("xyz")).willReturn(4L);
+        given(studentService.getById("xyz", StudentFields.ALL)).willReturn(versioned(sampleDto("xyz", "Carol", "Jones"), 4));
+        // when / then
+        mvc.perform(get(BASE_URL + "/xyz").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    @DisplayName("GET /students → ETag of the page's versions; If-None-Match on it → 304")
+    @Order(26)
+    void getStudentsConditional() throws Exception {
+        // given
+        StudentPageResponse res = new StudentPageResponse(
+                List.of(versioned(sampleDto("a1", "Alice", "Wong"), 1), versioned(sampleDto("b2", "Bob", "Smith"), 7)),
+                1, 2, 2L, 1, true, true, false, false);
+        given(studentService.getAll(any(PageParams.class))).willReturn(res);
+        // when
+        String etag = mvc.perform(get(BASE_URL))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // then
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        mvc.perform(get(BASE_URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("PUT /students/{id} with If-Match → conditional update; changed since → 412")
+    @Order(27)
+    void updateStudentIfMatch() throws Exception {
+        // given
+        StudentDTO req = sampleDto(null, "Dan", "Brown");
+        given(studentService.update(eq("u1"), any(), eq(Set.of(3L)))).willReturn(versioned(sampleDto("u1", "Dan", "Brown"), 4));
+        given(studentService.update(eq("u2"), any(), eq(Set.of(3L))))
+                .willThrow(new PreconditionFailedException("Student", "u2", "If-Match"));
+        // when / then
+        mvc.perform(put(BASE_URL + "/u1").header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        mvc.perform(put(BASE_URL + "/u2").header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(req)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("GET /students/export?format=csv → streamed CSV attachment with the filters passed on")
+    @Order(28)
+    void exportStudents() throws Exception {
+        // given
+        StudentFilter filter = new StudentFilter(true, "d1", null, null, null, null, 50.0);
+        given(studentExportService.export(eq(filter), eq(StudentFields.fromParam("id,email")), eq(ExportFormat.CSV)))
+                .willReturn(out -> {
+                    out.write("id,email,version\r\na1,a@example.com,1\r\n".getBytes(StandardCharsets.UTF_8));
+                    return 1;
+                });
+        // when
+        MvcResult started = mvc.perform(get(BASE_URL + "/export")
+                        .param("format", "csv")
+                        .param("active", "true")
+                        .param("deptId", "d1")
+                        .param("minPercentage", "50")
+                        .param("fields", "id,email"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // then
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"students.csv\""))
+                .andExpect(content().string("id,email,version\r\na1,a@example.com,1\r\n"));
+    }
+
+    @Test
+    @DisplayName("GET /students/export with an unknown format → 400 before anything is streamed")
+    @Order(29)
+    void exportStudentsUnknownFormat() throws Exception {
+        mvc.perform(get(BASE_URL + "/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(studentExportService);
+    }
+
+    @Test
+    @DisplayName("POST /students/import (CSV and NDJSON) → the upload's body is streamed to the import")
+    @Order(30)
+    void importStudents() throws Exception {
+        // given
+        ImportResponse res = new ImportResponse(2, 1, 1,
+                List.of(BulkItemResult.rejected(1, BulkItemStatus.DUPLICATE, "Email address already exists: b@example.com")), false, false);
+        given(studentImportService.importStudents(any(InputStream.class), eq(ExportFormat.CSV))).willReturn(res);
+        given(studentImportService.importStudents(any(InputStream.class), eq(ExportFormat.NDJSON))).willReturn(res);
+        // when / then
+        mvc.perform(post(BASE_URL + "/import")
+                        .contentType("text/csv")
+                        .content("firstName,lastName\r\nAlice,Wong\r\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read").value(2))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejects[0].status").value("DUPLICATE"))
+                .andExpect(jsonPath("$.rejectsTruncated").value(false))
+                .andExpect(jsonPath("$.stoppedEarly").value(false));
+        mvc.perform(post(BASE_URL + "/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rejected").value(1));
+        verify(studentImportService).importStudents(any(InputStream.class), eq(ExportFormat.CSV));
+        verify(studentImportService).importStudents(any(InputStream.class), eq(ExportFormat.NDJSON));
+    }
+}
@@ -0,0 +1,91 @@
+package dev.demo.spring_boot_with_mongodb.controller;
+
+import dev.demo.spring_boot_with_mongodb.payload.CourseStatsDTO;
+import dev.demo.spring_boot_with_mongodb.service.CourseStatsService;
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+import dev.demo.spring_boot_with_mongodb.payload.MarksPercentiles;
+import dev.demo.spring_boot_with_mongodb.service.LeaderboardService;
+import dev.demo.spring_boot_with_mongodb.service.MarksPercentileService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = CourseController.class)
+class CourseControllerTest {
+    @Autowired
+    private MockMvc mvc;
+    @MockitoBean
+    private CourseStatsService courseStatsService;
+    @MockitoBean
+    private MarksPercentileService marksPercentileService;
+    @MockitoBean
+    private LeaderboardService leaderboardService;
+
+    @Test
+    @DisplayName("GET /courses/stats → 200 + one entry per course")
+    void getStats() throws Exception {
+        // given
+        given(courseStatsService.getAll()).willReturn(List.of(
+                new CourseStatsDTO("Algo", 2, 80.0, 70, 90),
+                new CourseStatsDTO("DB", 1, 65.0, 65, 65)));
+        // when / then
+        mvc.perform(get("/api/v1/courses/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].courseName").value("Algo"))
+                .andExpect(jsonPath("$[0].meanMarks").value(80.0))
+                .andExpect(jsonPath("$[1].maxMarks").value(65));
+    }
+
+    @Test
+    @DisplayName("GET /courses/{name}/percentiles → 200 + default p50/p90/p99")
+    void getPercentiles() throws Exception {
+        // given
+        Map<String, Integer> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", 72);
+        percentiles.put("p90", 91);
+        percentiles.put("p99", 99);
+        given(marksPercentileService.getCoursePercentiles("AI", List.of(50.0, 90.0, 99.0)))
+                .willReturn(new MarksPercentiles("course", "AI", 250, percentiles));
+        // when / then
+        mvc.perform(get("/api/v1/courses/AI/percentiles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(250))
+                .andExpect(jsonPath("$.percentiles.p90").value(91));
+    }
+
+    @Test
+    @DisplayName("GET /courses/{name}/percentiles?p=150 → 400")
+    void getPercentilesInvalidRank() throws Exception {
+        mvc.perform(get("/api/v1/courses/AI/percentiles").param("p", "150"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /courses/{name}/leaderboard?limit=2 → 200 + best students")
+    void getLeaderboard() throws Exception {
+        // given
+        given(leaderboardService.getCourseLeaderboard("AI", 2)).willReturn(new Leaderboard("course", "AI", 5, List.of(
+                new Leaderboard.Entry(1, "s1", "Ada", "Lovelace", 98),
+                new Leaderboard.Entry(2, "s2", "Alan", "Turing", 91))));
+        // when / then
+        mvc.perform(get("/api/v1/courses/AI/leaderboard").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.members").value(5))
+                .andExpect(jsonPath("$.entries", hasSize(2)))
+                .andExpect(jsonPath("$.entries[0].studentId").value("s1"));
+    }
+}
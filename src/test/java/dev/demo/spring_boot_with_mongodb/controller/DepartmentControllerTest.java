@@ -0,0 +1,116 @@
+package dev.demo.spring_boot_with_mongodb.controller;
+
+import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import dev.demo.spring_boot_with_mongodb.service.DepartmentService;
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+import dev.demo.spring_boot_with_mongodb.payload.MarksPercentiles;
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+import dev.demo.spring_boot_with_mongodb.service.LeaderboardService;
+import dev.demo.spring_boot_with_mongodb.service.MarksPercentileService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = DepartmentController.class)
+class DepartmentControllerTest {
+    private static final String BASE_URL = "/api/v1/departments";
+
+    @Autowired
+    private MockMvc mvc;
+    @MockitoBean
+    private DepartmentService departmentService;
+    @MockitoBean
+    private MarksPercentileService marksPercentileService;
+    @MockitoBean
+    private LeaderboardService leaderboardService;
+
+    @Test
+    @DisplayName("GET /departments/stats → 200 + one entry per department")
+    void getAllStats() throws Exception {
+        // given
+        given(departmentService.getAllStats()).willReturn(List.of(
+                new DepartmentStats("d1", "CS", 4, 3, 0.75, 82.5),
+                new DepartmentStats("d2", "EE", 2, 1, 0.5, 70.0)));
+        // when / then
+        mvc.perform(get(BASE_URL + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].departmentName").value("CS"))
+                .andExpect(jsonPath("$[0].activeRatio").value(0.75))
+                .andExpect(jsonPath("$[1].averageMarks").value(70.0));
+    }
+
+    @Test
+    @DisplayName("GET /departments/{id}/stats → 200 + stats")
+    void getStats() throws Exception {
+        // given
+        given(departmentService.getStats("d1")).willReturn(new DepartmentStats("d1", "CS", 4, 3, 0.75, 82.5));
+        // when / then
+        mvc.perform(get(BASE_URL + "/d1/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.studentCount").value(4))
+                .andExpect(jsonPath("$.activeCount").value(3));
+    }
+
+    @Test
+    @DisplayName("GET /departments/{id}/stats of an unknown department → 404")
+    void getStatsNotFound() throws Exception {
+        // given
+        given(departmentService.getStats("nope")).willThrow(new ResourceNotFoundException("Department", "id", "nope"));
+        // when / then
+        mvc.perform(get(BASE_URL + "/nope/stats"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /departments/{id}/percentiles?p=95 → 200 + p95")
+    void getPercentiles() throws Exception {
+        // given
+        given(marksPercentileService.getDepartmentPercentiles("d1", List.of(95.0)))
+                .willReturn(new MarksPercentiles("department", "d1", 40, Map.of("p95", 97)));
+        // when / then
+        mvc.perform(get(BASE_URL + "/d1/percentiles").param("p", "95"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.percentiles.p95").value(97));
+    }
+
+    @Test
+    @DisplayName("GET /departments/{id}/leaderboard?limit=2 → 200 + best students")
+    void getLeaderboard() throws Exception {
+        // given
+        given(leaderboardService.getDepartmentLeaderboard("d1", 2)).willReturn(new Leaderboard("department", "d1", 5, List.of(
+                new Leaderboard.Entry(1, "s1", "Ada", "Lovelace", 98),
+                new Leaderboard.Entry(2, "s2", "Alan", "Turing", 91))));
+        // when / then
+        mvc.perform(get(BASE_URL + "/d1/leaderboard").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.members").value(5))
+                .andExpect(jsonPath("$.entries", hasSize(2)))
+                .andExpect(jsonPath("$.entries[0].studentId").value("s1"));
+    }
+
+    @Test
+    @DisplayName("GET /departments/{id}/counts → 200 + counts")
+    void getCounts() throws Exception {
+        // given
+        given(departmentService.getCounts("d1")).willReturn(new StudentCounts("d1", 4, 3));
+        // when / then
+        mvc.perform(get(BASE_URL + "/d1/counts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.active").value(3));
+    }
+}
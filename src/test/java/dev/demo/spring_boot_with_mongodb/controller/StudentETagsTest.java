@@ -0,0 +1,48 @@
+package dev.demo.spring_boot_with_mongodb.controller;
+
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudentETagsTest {
+
+    private static StudentDTO student(String id, Long version) {
+        return new StudentDTO(id, "Alice", null, null, null, null, null, null, null, null, null, version);
+    }
+
+    private static StudentPageResponse page(long total, StudentDTO... students) {
+        return new StudentPageResponse(List.of(students), 1, 20, total, 1, true, true, false, false);
+    }
+
+    @Test
+    @DisplayName("of(version) is a strong ETag, none without a version")
+    void ofVersion() {
+        assertThat(StudentETags.of(3L)).isEqualTo("\"3\"");
+        assertThat(StudentETags.of((Long) null)).isNull();
+    }
+
+    @Test
+    @DisplayName("of(page) changes with the versions on the page and with the page metadata")
+    void ofPage() {
+        String etag = StudentETags.of(page(2, student("a", 1L), student("b", 7L)));
+        assertThat(etag).isEqualTo(StudentETags.of(page(2, student("a", 1L), student("b", 7L))));
+        assertThat(etag).isNotEqualTo(StudentETags.of(page(2, student("a", 1L), student("b", 8L))));
+        assertThat(etag).isNotEqualTo(StudentETags.of(page(3, student("a", 1L), student("b", 7L))));
+        assertThat(StudentETags.of(page(2, student("a", 1L), student(null, null)))).isNull();
+    }
+
+    @Test
+    @DisplayName("versions() accepts strong tags only and any version for * or no header")
+    void versions() {
+        assertThat(StudentETags.versions(null)).isNull();
+        assertThat(StudentETags.versions("*")).isNull();
+        assertThat(StudentETags.versions("\"3\", \"5\"")).containsExactlyInAnyOrder(3L, 5L);
+        assertThat(StudentETags.versions("W/\"3\"")).isEmpty();
+        assertThat(StudentETags.versions("\"abc\"")).isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package dev.demo.spring_boot_with_mongodb.generator;
+
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.MarksHistogramSnapshotRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentDerivedFields;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class DatasetGeneratorTest {
+    @Mock
+    ApplicationContext context;
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    DepartmentRepository deptRepo;
+    @Mock
+    MarksHistogramSnapshotRepository snapshotRepo;
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    private DatasetGenerator generator(String target, Path outputDir) {
+        // 25 students in chunks of 10 on two threads
+        return new DatasetGenerator(context, studentRepo, deptRepo, snapshotRepo, converter(), new StudentDerivedFields(),
+                25, 3, 0.85, 1, 3, 0.8, 1.0, 42, target, outputDir, 2, 10);
+    }
+
+    @Test
+    @DisplayName("generate() inserts the departments, then the students in unordered bulk writes")
+    void insertsIntoMongo(@TempDir Path dir) throws Exception {
+        given(deptRepo.findAll(any(Sort.class))).willReturn(List.of());
+        given(deptRepo.insert(anyList())).willAnswer(inv -> inv.getArgument(0));
+        given(studentRepo.insertUnordered(anyList()))
+                .willAnswer(inv -> new BulkInsertResult(inv.<List<Student>>getArgument(0).size(), List.of()));
+
+        assertThat(generator("mongo", dir).generate()).isEqualTo(25);
+
+        then(deptRepo).should().insert(anyList());
+        then(studentRepo).should(times(3)).insertUnordered(anyList());
+        then(snapshotRepo).should().deleteAll();
+    }
+
+    @Test
+    @DisplayName("generate() spreads the students over the stored departments without adding any")
+    void reusesStoredDepartments(@TempDir Path dir) throws Exception {
+        Department stored = new Department();
+        stored.setId("dept-1");
+        given(deptRepo.findAll(any(Sort.class))).willReturn(List.of(stored));
+        List<Student> inserted = new ArrayList<>();
+        given(studentRepo.insertUnordered(anyList())).willAnswer(inv -> {
+            List<Student> chunk = inv.getArgument(0);
+            synchronized (inserted) {
+                inserted.addAll(chunk);
+            }
+            return new BulkInsertResult(chunk.size(), List.of());
+        });
+
+        assertThat(generator("mongo", dir).generate()).isEqualTo(25);
+
+        then(deptRepo).should(never()).insert(anyList());
+        assertThat(inserted).hasSize(25).allSatisfy(s -> assertThat(s.getDepartment()).isSameAs(stored));
+    }
+
+    @Test
+    @DisplayName("generate() writes mongoimport-ready NDJSON with the stored field names")
+    void writesNdjson(@TempDir Path dir) throws Exception {
+        assertThat(generator("ndjson", dir).generate()).isEqualTo(25);
+
+        List<String> departments = Files.readAllLines(dir.resolve("departments.ndjson"));
+        List<String> students = Files.readAllLines(dir.resolve("students.ndjson"));
+        assertThat(departments).hasSize(3);
+        assertThat(Document.parse(departments.get(0))).containsKeys("_id", "dept_name", "established_on");
+        assertThat(students).hasSize(25);
+        Document student = Document.parse(students.get(0));
+        assertThat(student).containsKeys("_id", "first_name", "last_name", "email_address", "date_of_birth",
+                "enrollment_date", "department", "courses", "is_active", "first_name_lower", "percentage", "version");
+        assertThat(students.get(0)).contains("\"$ref\": \"departments\"", "\"$date\"", "\"course_name\"");
+        then(studentRepo).shouldHaveNoInteractions();
+    }
+}
@@ -0,0 +1,110 @@
+package dev.demo.spring_boot_with_mongodb.generator;
+
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class SyntheticStudentsTest {
+    private final SyntheticStudents synthetic = new SyntheticStudents(42, 25, 0.7, 2, 4, 0.8, 1.0);
+    private final List<Department> departments = synthetic.departments();
+
+    @Test
+    @DisplayName("departments() names past the built-in list get a number")
+    void departments() {
+        assertThat(departments).hasSize(25)
+                .allSatisfy(d -> assertThat(d.getId()).hasSize(24));
+        assertThat(departments.get(0).getName()).isEqualTo("Computer Science");
+        assertThat(departments.get(20).getName()).isEqualTo("Computer Science 2");
+    }
+
+    @Test
+    @DisplayName("students() stays within the configured bounds, with unique emails")
+    void bounds() {
+        List<Student> students = synthetic.students(3, 3000, 1000, departments);
+
+        assertThat(students).hasSize(1000).allSatisfy(s -> {
+            assertThat(s.getCourses()).hasSizeBetween(2, 4)
+                    .extracting(Course::getMarks).allSatisfy(m -> assertThat(m).isBetween(0, 100));
+            assertThat(s.getCourses()).extracting(Course::getName).doesNotHaveDuplicates();
+            assertThat(s.getDepartment()).isIn(departments);
+            assertThat(s.getDob()).isBetween(LocalDate.of(1995, 1, 1), LocalDate.of(2006, 12, 31));
+            assertThat(s.getEnrollmentDate()).isAfter(s.getDob().plusYears(18).minusDays(1));
+        });
+        assertThat(students.get(0).getEmail()).endsWith(".3000@example.com");
+        assertThat(students).extracting(Student::getEmail).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("students() is deterministic per chunk, ids included, whatever was generated before")
+    void deterministic() {
+        synthetic.students(0, 0, 10, departments);
+        List<Student> first = synthetic.students(7, 7000, 50, departments);
+        SyntheticStudents same = new SyntheticStudents(42, 25, 0.7, 2, 4, 0.8, 1.0);
+        List<Student> again = same.students(7, 7000, 50, same.departments());
+
+        assertThat(again).usingRecursiveFieldByFieldElementComparator().isEqualTo(first);
+        assertThat(synthetic.students(8, 7000, 50, departments)).extracting(Student::getFirstName)
+                .isNotEqualTo(first.stream().map(Student::getFirstName).toList());
+    }
+
+    @Test
+    @DisplayName("ids derive from the seed and the student number, with a fixed creation time")
+    void ids() {
+        List<Student> students = synthetic.students(0, 0, 3, departments);
+        List<Student> otherSeed = new SyntheticStudents(43, 25, 0.7, 2, 4, 0.8, 1.0).students(0, 0, 3, departments);
+
+        assertThat(students).extracting(Student::getId).doesNotHaveDuplicates()
+                .allSatisfy(id -> assertThat(new ObjectId(id).getTimestamp()).isEqualTo(SyntheticStudents.ID_TIMESTAMP))
+                .doesNotContainAnyElementsOf(otherSeed.stream().map(Student::getId).toList());
+        assertThat(synthetic.students(5, 1, 1, departments).get(0).getId()).isEqualTo(students.get(1).getId());
+        assertThat(departments).extracting(Department::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("students() follows the active ratio and the skew of departments and courses")
+    void distributions() {
+        List<Student> students = synthetic.students(0, 0, 20_000, departments);
+
+        assertThat(students.stream().filter(Student::isActive).count() / 20_000.0).isCloseTo(0.7, within(0.02));
+        Map<String, Long> perDepartment = students.stream()
+                .collect(Collectors.groupingBy(s -> s.getDepartment().getId(), Collectors.counting()));
+        assertThat(perDepartment.get(departments.get(0).getId()))
+                .isGreaterThan(perDepartment.get(departments.get(1).getId()))
+                .isGreaterThan(3 * perDepartment.get(departments.get(24).getId()));
+        Map<String, Long> perCourse = students.stream().flatMap(s -> s.getCourses().stream())
+                .collect(Collectors.groupingBy(Course::getName, Collectors.counting()));
+        assertThat(perCourse.get("AI")).isGreaterThan(perCourse.get("Databases"));
+        assertThat(perCourse.get("Databases")).isGreaterThan(perCourse.get("Technical Writing"));
+    }
+
+    @Test
+    @DisplayName("students() without skew spreads students evenly")
+    void uniform() {
+        SyntheticStudents flat = new SyntheticStudents(1, 4, 1.0, 1, 1, 0, 0);
+        Map<Department, Long> perDepartment = flat.students(0, 0, 8000, flat.departments()).stream()
+                .collect(Collectors.groupingBy(Student::getDepartment, Collectors.counting()));
+
+        assertThat(perDepartment).hasSize(4).allSatisfy((d, n) -> assertThat(n).isBetween(1800L, 2200L));
+    }
+
+    @Test
+    @DisplayName("the constructor rejects more courses per student than the catalogue holds")
+    void rejectsCourseBounds() {
+        assertThatThrownBy(() -> new SyntheticStudents(1, 4, 1.0, 1, 21, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SyntheticStudents(1, 0, 1.0, 1, 2, 0, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
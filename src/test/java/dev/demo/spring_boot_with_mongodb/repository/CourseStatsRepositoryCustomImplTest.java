@@ -0,0 +1,133 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import com.mongodb.client.result.DeleteResult;
+import dev.demo.spring_boot_with_mongodb.model.CourseStats;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+
+@ExtendWith(MockitoExtension.class)
+class CourseStatsRepositoryCustomImplTest {
+    @Mock
+    MongoTemplate mongo;
+    CourseStatsRepositoryCustomImpl repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = new CourseStatsRepositoryCustomImpl(mongo);
+    }
+
+    /**
+     * The aggregation context MongoTemplate uses for a typed Student aggregation.
+     */
+    private static AggregationOperationContext studentContext() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return new TypeBasedAggregationOperationContext(Student.class, mappingContext, new QueryMapper(converter));
+    }
+
+    @Test
+    @DisplayName("increment() is one atomic upsert with $inc, $min and $max")
+    void increment() {
+        // when
+        repo.increment("Algo", 1, 80, 80, 80);
+        // then
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        then(mongo).should().findAndModify(any(Query.class), update.capture(), options.capture(), eq(CourseStats.class));
+        Document doc = update.getValue().getUpdateObject();
+        assertThat(doc.get("$inc", Document.class)).containsEntry("enrollments", 1L).containsEntry("totalMarks", 80L);
+        assertThat(doc.get("$min", Document.class)).containsEntry("minMarks", 80);
+        assertThat(doc.get("$max", Document.class)).containsEntry("maxMarks", 80);
+        assertThat(options.getValue().isUpsert()).isTrue();
+        assertThat(options.getValue().isReturnNew()).isTrue();
+    }
+
+    @Test
+    @DisplayName("increment() without added marks leaves min/max alone")
+    void incrementRemovalOnly() {
+        // when
+        repo.increment("Algo", -1, -95, null, null);
+        // then
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        then(mongo).should().findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(CourseStats.class));
+        assertThat(update.getValue().getUpdateObject()).doesNotContainKeys("$min", "$max");
+    }
+
+    @Test
+    @DisplayName("refresh() recounts the range of one course through course_marks_idx, merges only it and drops the course if empty")
+    @SuppressWarnings("unchecked")
+    void refresh() {
+        // given
+        given(mongo.getCollectionName(CourseStats.class)).willReturn("course_stats");
+        given(mongo.remove(any(Query.class), eq(CourseStats.class))).willReturn(DeleteResult.acknowledged(0));
+        // when
+        repo.refresh("Algo");
+        // then
+        ArgumentCaptor<TypedAggregation<Student>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        then(mongo).should().aggregate(aggregation.capture(), eq(Document.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(studentContext());
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$unwind", "$match", "$group", "$merge");
+        assertThat(pipeline.get(0).get("$match", Document.class)).containsEntry("courses.course_name", "Algo");
+        assertThat(pipeline.get(3).get("$group", Document.class)).containsOnlyKeys("_id", "min_marks", "max_marks");
+        assertThat(pipeline.get(4).get("$merge", Document.class)).containsEntry("into", "course_stats")
+                .containsEntry("whenMatched", "merge").containsEntry("whenNotMatched", "discard");
+        ArgumentCaptor<Query> empty = ArgumentCaptor.forClass(Query.class);
+        then(mongo).should().remove(empty.capture(), eq(CourseStats.class));
+        assertThat(empty.getValue().getQueryObject()).containsEntry("courseName", "Algo").containsKey("enrollments");
+    }
+
+    @Test
+    @DisplayName("replaceAll() upserts every course in one bulk write and drops the others")
+    void replaceAll() {
+        // given
+        CourseStats algo = new CourseStats();
+        algo.setCourseName("Algo");
+        BulkOperations bulk = mock(BulkOperations.class);
+        given(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, CourseStats.class)).willReturn(bulk);
+        given(mongo.remove(any(Query.class), eq(CourseStats.class))).willReturn(DeleteResult.acknowledged(1));
+        // when
+        repo.replaceAll(List.of(algo));
+        // then
+        then(bulk).should().replaceOne(any(Query.class), eq(algo), any(FindAndReplaceOptions.class));
+        then(bulk).should().execute();
+        ArgumentCaptor<Query> others = ArgumentCaptor.forClass(Query.class);
+        then(mongo).should().remove(others.capture(), eq(CourseStats.class));
+        assertThat(others.getValue().getQueryObject().get("courseName", Document.class))
+                .containsEntry("$nin", List.of("Algo"));
+    }
+}
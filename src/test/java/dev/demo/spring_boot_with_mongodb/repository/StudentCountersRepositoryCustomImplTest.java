@@ -0,0 +1,51 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import dev.demo.spring_boot_with_mongodb.model.StudentCounters;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class StudentCountersRepositoryCustomImplTest {
+    @Mock
+    MongoTemplate mongo;
+
+    @Test
+    @DisplayName("increment() is one atomic $inc of the existing counters document, never an upsert")
+    void increment() {
+        // given
+        StudentCountersRepositoryCustomImpl repo = new StudentCountersRepositoryCustomImpl(mongo);
+        given(mongo.updateFirst(any(Query.class), any(Update.class), eq(StudentCounters.class)))
+                .willReturn(UpdateResult.acknowledged(0, 0L, null));
+        // when
+        boolean updated = repo.increment(0, -1, Map.of("d1", new StudentCounters.Counts(-1, -1), "d2", new StudentCounters.Counts(1, 0)));
+        // then
+        assertThat(updated).isFalse();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        then(mongo).should().updateFirst(query.capture(), update.capture(), eq(StudentCounters.class));
+        then(mongo).should(never()).upsert(any(Query.class), any(Update.class), eq(StudentCounters.class));
+        assertThat(query.getValue().getQueryObject()).containsEntry("id", StudentCounters.ID);
+        Document inc = update.getValue().getUpdateObject().get("$inc", Document.class);
+        assertThat(inc).containsEntry("total", 0L).containsEntry("active", -1L)
+                .containsEntry("departments.d1.total", -1L).containsEntry("departments.d1.active", -1L)
+                .containsEntry("departments.d2.total", 1L).containsEntry("departments.d2.active", 0L);
+    }
+}
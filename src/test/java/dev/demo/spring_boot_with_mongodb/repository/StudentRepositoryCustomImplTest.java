@@ -0,0 +1,632 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import com.mongodb.DBRef;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.aggregation.TypeBasedAggregationOperationContext;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudentRepositoryCustomImplTest {
+    private static final String CS_ID = new ObjectId().toHexString();
+    private static final String EE_ID = new ObjectId().toHexString();
+
+    @Mock
+    MongoTemplate mongo;
+    @Mock
+    MongoConverter converter;
+    StudentRepositoryCustomImpl repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = new StudentRepositoryCustomImpl(mongo, Duration.ofSeconds(30), 50);
+    }
+
+    private static Department department(String id, String name) {
+        Department dept = new Department();
+        dept.setId(id);
+        dept.setName(name);
+        return dept;
+    }
+
+    private static Department lazyRef(String id) {
+        Department proxy = mock(Department.class, withSettings().extraInterfaces(LazyLoadingProxy.class));
+        lenient().when(((LazyLoadingProxy) proxy).toDBRef()).thenReturn(new DBRef("departments", new ObjectId(id)));
+        return proxy;
+    }
+
+    /**
+     * The aggregation context MongoTemplate uses for a typed Student aggregation.
+     */
+    private static AggregationOperationContext studentContext() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return new TypeBasedAggregationOperationContext(Student.class, mappingContext, new QueryMapper(converter));
+    }
+
+    private static Student student(Department dept) {
+        Student student = new Student();
+        student.setDepartment(dept);
+        return student;
+    }
+
+    @Test
+    @DisplayName("resolveDepartments() loads a page of 100 students with a single $in query")
+    void resolveDepartmentsBatchesLookups() {
+        // given
+        List<Student> page = IntStream.range(0, 100)
+                .mapToObj(i -> student(lazyRef(i % 2 == 0 ? CS_ID : EE_ID)))
+                .toList();
+        given(mongo.find(any(Query.class), eq(Department.class)))
+                .willReturn(List.of(department(CS_ID, "CS"), department(EE_ID, "EE")));
+        // when
+        repo.resolveDepartments(page);
+        // then: one round trip instead of 100
+        then(mongo).should(times(1)).find(any(Query.class), eq(Department.class));
+        assertThat(page).allSatisfy(s -> assertThat(DepartmentRefs.isUnresolved(s.getDepartment())).isFalse());
+        assertThat(page.get(0).getDepartment().getName()).isEqualTo("CS");
+        assertThat(page.get(1).getDepartment().getName()).isEqualTo("EE");
+    }
+
+    @Test
+    @DisplayName("resolveDepartments() skips the query when nothing is unresolved")
+    void resolveDepartmentsNoop() {
+        // given
+        List<Student> page = List.of(student(department(CS_ID, "CS")), student(null));
+        // when
+        repo.resolveDepartments(page);
+        // then
+        then(mongo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("findPage() returns content and exact total from one $facet aggregation")
+    @SuppressWarnings("unchecked")
+    void findPageSingleRoundTrip() {
+        // given
+        Document row = new Document("_id", CS_ID);
+        Student student = new Student();
+        Document facets = new Document("content", List.of(row))
+                .append("total", List.of(new Document("total", 41)));
+        given(mongo.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(facets), new Document()));
+        given(mongo.getConverter()).willReturn(converter);
+        given(converter.read(Student.class, row)).willReturn(student);
+        // when
+        Page<Student> page = repo.findPage(StudentCriteria.byCourse("AI"), PageRequest.of(2, 20, Sort.by("lastName")), Set.of());
+        // then: one aggregation, no separate count
+        assertThat(page.getContent()).containsExactly(student);
+        assertThat(page.getTotalElements()).isEqualTo(41);
+        ArgumentCaptor<TypedAggregation<Student>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        then(mongo).should(times(1)).aggregate(aggregation.capture(), eq(Document.class));
+        then(mongo).should(never()).count(any(Query.class), eq(Student.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        // the sort runs before the $facet, where an index can serve it
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$sort", "$facet");
+        assertThat(pipeline.get(1)).isEqualTo(new Document("$sort", new Document("lastName", 1)));
+        Document facet = pipeline.get(2).get("$facet", Document.class);
+        assertThat(facet.getList("content", Document.class)).containsExactly(
+                new Document("$skip", 40L), new Document("$limit", 20L));
+        // the count branch does not project
+        assertThat(facet.getList("total", Document.class)).containsExactly(new Document("$count", "total"));
+        assertThat(aggregation.getValue().getOptions().isAllowDiskUse()).isTrue();
+    }
+
+    @Test
+    @DisplayName("findPage() of an unfiltered listing pages with find and counts the documents exactly")
+    @SuppressWarnings("unchecked")
+    void findPageUnfiltered() {
+        // given
+        given(mongo.find(any(Query.class), eq(Student.class))).willReturn(List.of(new Student(), new Student()));
+        given(mongo.count(new Query(), Student.class)).willReturn(1_000_000L);
+        // when
+        Page<Student> page = repo.findPage(StudentCriteria.all(), PageRequest.of(3, 2, Sort.by("lastName")), Set.of());
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(1_000_000L);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        then(mongo).should().find(query.capture(), eq(Student.class));
+        assertThat(query.getValue().getSkip()).isEqualTo(6);
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("lastName", 1));
+        then(mongo).should(never()).aggregate(any(TypedAggregation.class), eq(Document.class));
+        then(mongo).should(never()).estimatedCount(Student.class);
+    }
+
+    @Test
+    @DisplayName("findPage() projects the requested fields by their stored names and drops _id")
+    @SuppressWarnings("unchecked")
+    void findPageProjection() {
+        // given
+        Document facets = new Document("content", List.of()).append("total", List.of());
+        given(mongo.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(facets), new Document()));
+        // when
+        repo.findPage(StudentCriteria.active(), PageRequest.of(0, 20), Set.of("email"));
+        // then
+        ArgumentCaptor<TypedAggregation<Student>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        then(mongo).should().aggregate(aggregation.capture(), eq(Document.class));
+        Document facet = aggregation.getValue().toPipeline(studentContext()).get(1).get("$facet", Document.class);
+        Document project = facet.getList("content", Document.class).getLast();
+        assertThat(project).isEqualTo(new Document("$project", new Document("email_address", 1).append("_id", 0)));
+    }
+
+    @Test
+    @DisplayName("scroll() keeps the sort key and id in a projection")
+    void scrollProjectionKeepsKeys() {
+        // when
+        repo.scroll(StudentCriteria.active(), ScrollPosition.keyset(), Sort.by("lastName"), 20, Set.of("email"));
+        // then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        then(mongo).should().scroll(query.capture(), eq(Student.class));
+        assertThat(query.getValue().getFieldsObject())
+                .isEqualTo(new Document("email", 1).append("id", 1).append("lastName", 1));
+    }
+
+    @Test
+    @DisplayName("textSearchByScore() projects the text score, applies the cutoff and sorts by relevance")
+    @SuppressWarnings("unchecked")
+    void textSearchByScore() {
+        // given
+        Document facets = new Document("content", List.of()).append("total", List.of());
+        given(mongo.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(facets), new Document()));
+        // when
+        repo.textSearchByScore(StudentCriteria.text("wong"), 0.75f, PageRequest.of(0, 20, Sort.by("score")), Set.of());
+        // then
+        ArgumentCaptor<TypedAggregation<Student>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        then(mongo).should().aggregate(aggregation.capture(), eq(Document.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(studentContext());
+        assertThat(pipeline.get(0)).isEqualTo(new Document("$match",
+                new Document("$text", new Document("$search", "wong"))));
+        assertThat(pipeline.get(1)).isEqualTo(new Document("$addFields",
+                new Document("score", new Document("$meta", "textScore"))));
+        assertThat(pipeline.get(2)).isEqualTo(new Document("$match",
+                new Document("score", new Document("$gte", 0.75f))));
+        assertThat(pipeline.get(3)).isEqualTo(new Document("$sort", new Document("score", -1).append("_id", 1)));
+        assertThat(pipeline.get(4)).containsKey("$facet");
+    }
+
+    @Test
+    @DisplayName("departmentStats() of one department: index-bounded $match, then $group, $lookup and $project")
+    @SuppressWarnings("unchecked")
+    void departmentStatsPipeline() {
+        // given
+        given(mongo.getCollectionName(Department.class)).willReturn("departments");
+        DepartmentStats cs = new DepartmentStats(CS_ID, "CS", 3, 2, 0.6667, 81.5);
+        given(mongo.aggregate(any(TypedAggregation.class), eq(DepartmentStats.class)))
+                .willReturn(new AggregationResults<>(List.of(cs), new Document()));
+        // when
+        List<DepartmentStats> stats = repo.departmentStats(StudentCriteria.byDepartment(CS_ID));
+        // then
+        assertThat(stats).containsExactly(cs);
+        ArgumentCaptor<TypedAggregation<Student>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        then(mongo).should().aggregate(aggregation.capture(), eq(DepartmentStats.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(studentContext());
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$group", "$lookup", "$project", "$sort");
+        assertThat(pipeline.get(0).get("$match", Document.class)).containsEntry("department.$id", new ObjectId(CS_ID));
+        assertThat(pipeline.get(2).get("$lookup", Document.class)).containsEntry("from", "departments");
+    }
+
+    @Test
+    @DisplayName("departmentStats() of all students: no $match stage")
+    @SuppressWarnings("unchecked")
+    void departmentStatsAll() {
+        // given
+        given(mongo.aggregate(any(TypedAggregation.class), eq(DepartmentStats.class)))
+                .willReturn(new AggregationResults<>(List.of(), new Document()));
+        // when
+        repo.departmentStats(StudentCriteria.all());
+        // then
+        ArgumentCaptor<TypedAggregation<Student>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        then(mongo).should().aggregate(aggregation.capture(), eq(DepartmentStats.class));
+        assertThat(aggregation.getValue().toPipeline(studentContext()).get(0)).containsKey("$group");
+    }
+
+    @Test
+    @DisplayName("findPage() reports an empty page when $count emits nothing")
+    @SuppressWarnings("unchecked")
+    void findPageNoMatches() {
+        // given
+        Document facets = new Document("content", List.of()).append("total", List.of());
+        given(mongo.aggregate(any(TypedAggregation.class), eq(Document.class)))
+                .willReturn(new AggregationResults<>(List.of(facets), new Document()));
+        // when
+        Page<Student> page = repo.findPage(StudentCriteria.active(), PageRequest.of(0, 20), Set.of());
+        // then
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+    }
+
+    @Test
+    @DisplayName("findSlice() fetches one extra row to derive hasNext and never counts")
+    void findSliceHasNext() {
+        // given
+        given(mongo.find(any(Query.class), eq(Student.class)))
+                .willReturn(new ArrayList<>(List.of(new Student(), new Student(), new Student())));
+        // when
+        Slice<Student> slice = repo.findSlice(StudentCriteria.active(), PageRequest.of(0, 2), Set.of());
+        // then
+        assertThat(slice.getContent()).hasSize(2);
+        assertThat(slice.hasNext()).isTrue();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        then(mongo).should().find(query.capture(), eq(Student.class));
+        assertThat(query.getValue().getLimit()).isEqualTo(3);
+        then(mongo).should(never()).count(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("findPageWithEstimatedTotal() uses estimatedDocumentCount for unfiltered listings")
+    void estimatedTotalUnfiltered() {
+        // given
+        given(mongo.find(any(Query.class), eq(Student.class))).willReturn(List.of(new Student(), new Student()));
+        given(mongo.estimatedCount(Student.class)).willReturn(1_000_000L);
+        // when
+        Page<Student> page = repo.findPageWithEstimatedTotal(StudentCriteria.all(), PageRequest.of(0, 2), Set.of());
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(1_000_000L);
+        then(mongo).should(never()).count(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("findPageWithEstimatedTotal() caches per-filter counts")
+    void estimatedTotalCached() {
+        // given
+        given(mongo.find(any(Query.class), eq(Student.class))).willReturn(List.of(new Student(), new Student()));
+        given(mongo.count(any(Query.class), eq(Student.class))).willReturn(42L);
+        // when
+        repo.findPageWithEstimatedTotal(StudentCriteria.byCourse("AI"), PageRequest.of(0, 2), Set.of());
+        Page<Student> page = repo.findPageWithEstimatedTotal(StudentCriteria.byCourse("AI"), PageRequest.of(1, 2), Set.of());
+        repo.findPageWithEstimatedTotal(StudentCriteria.byCourse("ML"), PageRequest.of(0, 2), Set.of());
+        // then: one count per distinct filter
+        assertThat(page.getTotalElements()).isEqualTo(42L);
+        then(mongo).should(times(2)).count(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("CountCache recounts once the TTL has expired")
+    void countCacheExpires() {
+        // given
+        AtomicLong now = new AtomicLong();
+        CountCache cache = new CountCache(Duration.ofSeconds(30), now::get);
+        AtomicLong counted = new AtomicLong();
+        // when
+        cache.get("k", counted::incrementAndGet);
+        now.addAndGet(Duration.ofSeconds(29).toNanos());
+        long cached = cache.get("k", counted::incrementAndGet);
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        long recounted = cache.get("k", counted::incrementAndGet);
+        // then
+        assertThat(cached).isEqualTo(1);
+        assertThat(recounted).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("searchByName() runs an anchored prefix match on the lowercase names and caps the count")
+    void searchByNamePrefix() {
+        // given
+        given(mongo.find(any(Query.class), eq(Student.class))).willReturn(List.of(new Student(), new Student()));
+        given(mongo.count(any(Query.class), eq(Student.class))).willReturn(50L);
+        // when
+        Page<Student> page = repo.searchByName("O'Br", PageRequest.of(0, 2));
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(50);
+        ArgumentCaptor<Query> count = ArgumentCaptor.forClass(Query.class);
+        then(mongo).should().count(count.capture(), eq(Student.class));
+        assertThat(count.getValue().getLimit()).isEqualTo(50);
+        assertThat(count.getValue().getQueryObject().toJson()).contains("firstNameLower", "lastNameLower", "^o'br");
+    }
+
+    @Test
+    @DisplayName("searchByName() does not read past the cap")
+    void searchByNamePastCap() {
+        // given
+        given(mongo.count(any(Query.class), eq(Student.class))).willReturn(50L);
+        // when
+        Page<Student> page = repo.searchByName("a", PageRequest.of(3, 20));
+        // then
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.hasNext()).isFalse();
+        then(mongo).should(never()).find(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("namePrefix() escapes regex metacharacters so the prefix stays a literal")
+    void namePrefixEscapes() {
+        Document filter = StudentCriteria.namePrefix("A.(b").getCriteriaObject();
+        assertThat(filter.toJson()).contains("^a\\\\.\\\\(b");
+    }
+
+    @Test
+    @DisplayName("highScorers() requires name and marks on the same course element")
+    void highScorersElemMatch() {
+        assertThat(StudentCriteria.highScorers("AI", 80).getCriteriaObject()).isEqualTo(new Document("courses",
+                new Document("$elemMatch", new Document("name", "AI").append("marks", new Document("$gte", 80)))));
+    }
+
+    @Test
+    @DisplayName("withMinPercentage() keeps $text top-level and adds the percentage range next to it")
+    void withMinPercentageText() {
+        // when
+        CriteriaDefinition filter = StudentCriteria.withMinPercentage(StudentCriteria.text("wong"), 75.0);
+        // then
+        assertThat(filter.getCriteriaObject()).containsKey("$text")
+                .containsEntry("percentage", new Document("$gte", 75.0));
+    }
+
+    @Test
+    @DisplayName("withMinPercentage() without a threshold returns the filter unchanged")
+    void withMinPercentageNone() {
+        Criteria active = StudentCriteria.active();
+        assertThat(StudentCriteria.withMinPercentage(active, null)).isSameAs(active);
+    }
+
+    @Test
+    @DisplayName("allOf() returns no, the single or the $and of the given criteria")
+    void allOfCriteria() {
+        Criteria active = StudentCriteria.active();
+        assertThat(StudentCriteria.allOf(List.of()).getCriteriaObject()).isEmpty();
+        assertThat(StudentCriteria.allOf(List.of(active))).isSameAs(active);
+        assertThat(StudentCriteria.allOf(List.of(active, StudentCriteria.byCourse("AI"))).getCriteriaObject())
+                .isEqualTo(new Document("$and", List.of(new Document("active", true), new Document("courses.name", "AI"))));
+    }
+
+    @Test
+    @DisplayName("streamById() walks the students by id and always loads the id")
+    void streamByIdKeepsId() {
+        // given
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        given(mongo.stream(query.capture(), eq(Student.class))).willReturn(Stream.of(new Student()));
+        // when
+        try (Stream<Student> students = repo.streamById(Set.of("courses"))) {
+            assertThat(students).hasSize(1);
+        }
+        // then
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("id", 1));
+        assertThat(query.getValue().getFieldsObject()).isEqualTo(new Document("courses", 1).append("id", 1));
+    }
+
+    @Test
+    @DisplayName("lastInsertedAt() reads the time of the largest ObjectId")
+    void lastInsertedAt() {
+        // given
+        ObjectId newest = new ObjectId();
+        Student student = new Student();
+        student.setId(newest.toHexString());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        given(mongo.findOne(query.capture(), eq(Student.class))).willReturn(student);
+        // when / then
+        assertThat(repo.lastInsertedAt()).contains(newest.getDate().toInstant());
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("id", -1));
+        assertThat(query.getValue().getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("stream() runs the filter through a cursor with the projection")
+    void streamFilterWithProjection() {
+        // given
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        given(mongo.stream(query.capture(), eq(Student.class))).willReturn(Stream.of(new Student()));
+        // when
+        try (Stream<Student> students = repo.stream(StudentCriteria.active(false), Set.of("email"))) {
+            assertThat(students).hasSize(1);
+        }
+        // then
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("active", false));
+        assertThat(query.getValue().getFieldsObject()).containsEntry("email", 1);
+        assertThat(query.getValue().getSortObject()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("StudentDerivedFields stores the percentage before every write")
+    void derivedPercentage() {
+        // given
+        Course algo = new Course();
+        algo.setName("Algo");
+        algo.setMarks(90);
+        Course db = new Course();
+        db.setName("DB");
+        db.setMarks(85);
+        Student student = new Student();
+        student.setCourses(List.of(algo, db));
+        // when
+        new StudentDerivedFields().onBeforeConvert(student, "students");
+        // then
+        assertThat(student.getPercentage()).isEqualTo(87.5);
+    }
+
+    @Test
+    @DisplayName("StudentDerivedFields maintains the lowercase names before every write")
+    void derivedLowercaseNames() {
+        // given
+        Student student = new Student();
+        student.setFirstName("Élodie");
+        student.setLastName("McDONALD");
+        // when
+        new StudentDerivedFields().onBeforeConvert(student, "students");
+        // then
+        assertThat(student.getFirstNameLower()).isEqualTo("élodie");
+        assertThat(student.getLastNameLower()).isEqualTo("mcdonald");
+    }
+
+    @Test
+    @DisplayName("idOf() reads the id from the DBRef without resolving the proxy")
+    void idOfLazyProxy() {
+        // given
+        Department proxy = lazyRef(CS_ID);
+        // when / then
+        assertThat(DepartmentRefs.idOf(proxy)).isEqualTo(CS_ID);
+        verify(proxy, never()).getId();
+    }
+
+    @Test
+    @DisplayName("insertUnordered() reports the documents the unordered bulk rejected")
+    void insertUnorderedReportsFailures() {
+        // given: the second of three students duplicates an email
+        List<Student> students = List.of(new Student(), new Student(), new Student());
+        BulkOperations bulk = mock(BulkOperations.class);
+        given(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, Student.class)).willReturn(bulk);
+        given(bulk.insert(students)).willReturn(bulk);
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        MongoBulkWriteException error = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()),
+                List.of(duplicate), null, new ServerAddress(), Set.of());
+        given(bulk.execute()).willThrow(new BulkOperationException("bulk failed", error));
+        // when
+        BulkInsertResult result = repo.insertUnordered(students);
+        // then
+        assertThat(result.inserted()).isEqualTo(2);
+        assertThat(result.failures()).containsExactly(
+                new BulkInsertResult.Failure(1, true, "E11000 duplicate key error"));
+    }
+
+    @Test
+    @DisplayName("modify() applies the guarded update in one findAndModify and returns the previous document")
+    void modifySingleRoundTrip() {
+        // given
+        Student before = new Student();
+        given(mongo.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(Student.class)))
+                .willReturn(before);
+        // when
+        var result = repo.modify("s1", StudentCriteria.byCourse("AI"), StudentUpdates.removeCourse("AI"));
+        // then
+        assertThat(result).containsSame(before);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        then(mongo).should(times(1)).findAndModify(query.capture(), any(UpdateDefinition.class), options.capture(), eq(Student.class));
+        assertThat(query.getValue().getQueryObject()).containsEntry("id", "s1").containsEntry("courses.name", "AI");
+        assertThat(options.getValue().isReturnNew()).isFalse();
+    }
+
+    @Test
+    @DisplayName("remove() deletes by id in one findAndModify and returns the deleted document")
+    void removeSingleRoundTrip() {
+        // given
+        Student deleted = new Student();
+        given(mongo.findAndRemove(any(Query.class), eq(Student.class))).willReturn(deleted);
+        // when / then
+        assertThat(repo.remove("s1")).containsSame(deleted);
+        then(mongo).should(times(1)).findAndRemove(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("replace() sets every property with the derived names and the recomputed percentage")
+    void replaceUpdate() {
+        // given
+        Student values = new Student();
+        values.setFirstName("Ann");
+        values.setLastName("Lee");
+        values.setActive(true);
+        Course ai = new Course();
+        ai.setName("AI");
+        ai.setMarks(81);
+        Course db = new Course();
+        db.setName("DB");
+        db.setMarks(70);
+        values.setCourses(List.of(ai, db));
+        // when
+        Document set = StudentUpdates.replace(values).getUpdateObject().get("$set", Document.class);
+        // then
+        assertThat(set).containsKeys("firstNameLower", "lastNameLower", "courses")
+                .containsEntry("percentage", 75.5)
+                .doesNotContainKey("department");
+    }
+
+    @Test
+    @DisplayName("course updates recompute the stored percentage in the same pipeline and keep names literal")
+    void courseUpdatePipeline() {
+        // when
+        List<Document> stages = StudentUpdates.setMarks("$AI", 70).getPipeline().getOperations().stream()
+                .flatMap(stage -> stage.toPipelineStages(studentContext()).stream())
+                .toList();
+        // then
+        assertThat(stages).hasSize(3);
+        Document map = stages.get(0).get("$set", Document.class).get("courses", Document.class).get("$map", Document.class);
+        assertThat(map.toJson()).contains("\"$$c.course_name\"").contains("{\"$literal\": \"$AI\"}");
+        assertThat(stages.get(1).get("$set", Document.class)).containsEntry("percentage", StudentUpdates.percentage());
+        assertThat(stages.get(2).get("$set", Document.class).toJson())
+                .isEqualTo("{\"version\": {\"$add\": [{\"$ifNull\": [\"$version\", 0]}, 1]}}");
+    }
+
+    @Test
+    @DisplayName("percentage() rounds the average marks half up, like Student.calculatePercentage()")
+    void percentageExpression() {
+        // when / then
+        assertThat(StudentUpdates.percentage().toJson()).isEqualTo("{\"$divide\": [{\"$floor\": {\"$add\": [{\"$multiply\": "
+                + "[{\"$ifNull\": [{\"$avg\": \"$courses.marks\"}, 0]}, 100]}, 0.5]}}, 100]}");
+    }
+
+    @Test
+    @DisplayName("patch() sets only the given properties and the names derived from them")
+    void patchUpdate() {
+        // given
+        Student changes = new Student();
+        changes.setLastName("McDONALD");
+        changes.setActive(false);
+        // when
+        Document update = StudentUpdates.patch(changes).getUpdateObject();
+        // then
+        assertThat(update.get("$set", Document.class)).containsOnlyKeys("lastName", "lastNameLower", "active")
+                .containsEntry("lastNameLower", "mcdonald");
+        assertThat(update.get("$inc", Document.class)).containsEntry("version", 1);
+        assertThat(StudentUpdates.patch(new Student()).getUpdateObject()).isEmpty();
+    }
+}
@@ -0,0 +1,132 @@
+package dev.demo.spring_boot_with_mongodb.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * The single-student writes return the document as it was and build the response and the published post-image
+ * from it in Java ({@link StudentUpdates#patched}, {@link StudentUpdates#replaced}, {@link StudentUpdates#withCourses}).
+ * These tests keep that copy of the update semantics equal to what the server stores, against a real MongoDB.
+ * Skipped when no Docker daemon is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class StudentUpdatesMongoTest {
+    @Container
+    static final MongoDBContainer MONGO_DB = new MongoDBContainer("mongo:7.0");
+
+    static MongoClient client;
+    static MongoTemplate mongo;
+
+    @BeforeAll
+    static void setUp() {
+        client = MongoClients.create(MONGO_DB.getConnectionString());
+        mongo = new MongoTemplate(client, "studentdb");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        client.close();
+    }
+
+    @BeforeEach
+    void insertStudent() {
+        mongo.dropCollection(Student.class);
+        Student student = new Student();
+        student.setId("s1");
+        student.setFirstName("Alice");
+        student.setLastName("Wong");
+        student.setEmail("a.wong@example.com");
+        student.setDob(LocalDate.of(2000, 1, 1));
+        student.setEnrollmentDate(LocalDate.of(2020, 8, 20));
+        student.setActive(true);
+        student.setCourses(new ArrayList<>(List.of(course("AI", 90), course("Networks", 71))));
+        mongo.insert(new StudentDerivedFields().onBeforeConvert(student, "students"));
+    }
+
+    private static Course course(String name, int marks) {
+        Course course = new Course();
+        course.setName(name);
+        course.setMarks(marks);
+        return course;
+    }
+
+    /**
+     * Apply the update as the repository does and compare the stored document with the post-image built in Java.
+     */
+    private static void assertPostImage(UpdateDefinition update, UnaryOperator<Student> postImage) {
+        Student before = mongo.findAndModify(query(where("id").is("s1")), update,
+                FindAndModifyOptions.options().returnNew(false), Student.class);
+        assertThat(before).isNotNull();
+        assertThat(mongo.findById("s1", Student.class)).usingRecursiveComparison().isEqualTo(postImage.apply(before));
+    }
+
+    @Test
+    @DisplayName("patch(): the stored student equals patched()")
+    void patch() {
+        Student changes = new Student();
+        changes.setFirstName("ÉMILE");
+        changes.setActive(false);
+        assertPostImage(StudentUpdates.patch(changes), before -> StudentUpdates.patched(before, changes));
+    }
+
+    @Test
+    @DisplayName("replace(): the stored student equals replaced()")
+    void replace() {
+        Student values = new Student();
+        values.setFirstName("Alicia");
+        values.setLastName("Wong");
+        values.setEmail("alicia.wong@example.com");
+        values.setDob(LocalDate.of(2001, 2, 3));
+        values.setEnrollmentDate(LocalDate.of(2021, 9, 1));
+        values.setActive(true);
+        values.setCourses(List.of(course("AI", 85), course("Databases", 66)));
+        assertPostImage(StudentUpdates.replace(values), before -> StudentUpdates.replaced(before, values));
+    }
+
+    @Test
+    @DisplayName("addCourse(): the stored student equals withCourses(), percentage rounded half up")
+    void addCourse() {
+        Course added = course("$Databases", 60);
+        assertPostImage(StudentUpdates.addCourse(added), before -> {
+            List<Course> courses = new ArrayList<>(before.getCourses());
+            courses.add(added);
+            return StudentUpdates.withCourses(before, courses);
+        });
+    }
+
+    @Test
+    @DisplayName("setMarks(): the stored student equals withCourses()")
+    void setMarks() {
+        assertPostImage(StudentUpdates.setMarks("Networks", 72), before -> StudentUpdates.withCourses(before,
+                List.of(before.getCourses().get(0), course("Networks", 72))));
+    }
+
+    @Test
+    @DisplayName("removeCourse(): the stored student equals withCourses()")
+    void removeCourse() {
+        assertPostImage(StudentUpdates.removeCourse("AI"), before -> StudentUpdates.withCourses(before,
+                List.of(before.getCourses().get(1))));
+    }
+}
@@ -0,0 +1,176 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.mapper.CourseStatsMapper;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.CourseStats;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.CourseStatsDTO;
+import dev.demo.spring_boot_with_mongodb.repository.CourseStatsRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseStatsServiceImplTest {
+    @Mock
+    CourseStatsRepository courseStatsRepo;
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    CourseStatsMapper courseStatsMapper;
+    @InjectMocks
+    private CourseStatsServiceImpl service;
+
+    private static Student student(Object... courseMarks) {
+        return identified(null, courseMarks);
+    }
+
+    private static Student identified(String id, Object... courseMarks) {
+        Student student = new Student();
+        student.setId(id);
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < courseMarks.length; i += 2) {
+            Course course = new Course();
+            course.setName((String) courseMarks[i]);
+            course.setMarks((Integer) courseMarks[i + 1]);
+            courses.add(course);
+        }
+        student.setCourses(courses);
+        return student;
+    }
+
+    private static CourseStats stats(long enrollments, int min, int max) {
+        CourseStats stats = new CourseStats();
+        stats.setEnrollments(enrollments);
+        stats.setMinMarks(min);
+        stats.setMaxMarks(max);
+        return stats;
+    }
+
+    @Test
+    @DisplayName("getAll() reads the view ordered by course name")
+    void getAll() {
+        // given
+        List<CourseStats> stats = List.of(stats(2, 70, 90));
+        List<CourseStatsDTO> dtos = List.of(new CourseStatsDTO("Algo", 2, 80.0, 70, 90));
+        given(courseStatsRepo.findAll(Sort.by("courseName"))).willReturn(stats);
+        given(courseStatsMapper.toDtoList(stats)).willReturn(dtos);
+        // when / then
+        assertThat(service.getAll()).isEqualTo(dtos);
+    }
+
+    @Test
+    @DisplayName("created student: increments each course and widens min/max")
+    void createdStudent() {
+        // given
+        given(courseStatsRepo.increment(any(), anyLong(), anyLong(), any(), any())).willReturn(stats(3, 60, 95));
+        // when
+        service.onStudentChanged(new StudentChangedEvent(null, student("Algo", 80, "DB", 70)));
+        // then
+        then(courseStatsRepo).should().increment("Algo", 1, 80, 80, 80);
+        then(courseStatsRepo).should().increment("DB", 1, 70, 70, 70);
+        then(courseStatsRepo).should(never()).refresh(any());
+    }
+
+    @Test
+    @DisplayName("bulk-created students: one increment per course for the whole batch")
+    void createdStudents() {
+        // given
+        given(courseStatsRepo.increment(any(), anyLong(), anyLong(), any(), any())).willReturn(stats(3, 60, 95));
+        // when
+        service.onStudentsCreated(new StudentsCreatedEvent(List.of(student("Algo", 80), student("Algo", 60, "DB", 70))));
+        // then
+        then(courseStatsRepo).should().increment("Algo", 2, 140, 60, 80);
+        then(courseStatsRepo).should().increment("DB", 1, 70, 70, 70);
+        then(courseStatsRepo).should(never()).refresh(any());
+    }
+
+    @Test
+    @DisplayName("updated student with unchanged courses: no write")
+    void unchangedCourses() {
+        // when
+        service.onStudentChanged(new StudentChangedEvent(student("Algo", 80), student("Algo", 80)));
+        // then
+        then(courseStatsRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("changed mark that was not an extreme: increment only")
+    void changedInnerMark() {
+        // given
+        given(courseStatsRepo.increment("Algo", 0, 5, 85, 85)).willReturn(stats(3, 60, 95));
+        // when
+        service.onStudentChanged(new StudentChangedEvent(student("Algo", 80), student("Algo", 85)));
+        // then
+        then(courseStatsRepo).should(never()).refresh(any());
+    }
+
+    @Test
+    @DisplayName("removed mark was the course maximum: the course is recounted")
+    void removedMaximum() {
+        // given
+        given(courseStatsRepo.increment("Algo", -1, -95, null, null)).willReturn(stats(2, 60, 95));
+        // when
+        service.onStudentChanged(new StudentChangedEvent(student("Algo", 95), null));
+        // then
+        then(courseStatsRepo).should().refresh("Algo");
+    }
+
+    @Test
+    @DisplayName("a failed delta does not fail the student write")
+    void failedDelta() {
+        // given
+        given(courseStatsRepo.increment(any(), anyLong(), anyLong(), any(), any()))
+                .willThrow(new DataAccessResourceFailureException("down"));
+        // when / then
+        assertThatCode(() -> service.onStudentChanged(new StudentChangedEvent(null, student("Algo", 80))))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("rebuild() replaces the view with the students' marks, counting writes during the pass once")
+    @SuppressWarnings("unchecked")
+    void rebuildCountsWritesDuringThePassOnce() {
+        // given: s2 is changed after the pass read it, s3 before the pass reaches it
+        given(courseStatsRepo.increment(any(), anyLong(), anyLong(), any(), any())).willReturn(stats(3, 10, 95));
+        Student s2 = identified("s2", "Algo", 20);
+        Student s3Updated = identified("s3", "Algo", 40);
+        given(studentRepo.streamById(CourseStatsServiceImpl.FIELDS)).willReturn(Stream.of(
+                identified("s1", "Algo", 10, "DB", 70), s2, s3Updated).peek(student -> {
+            // peek runs just before the pass takes the student, i.e. after it took s2
+            if (student == s3Updated) {
+                service.onStudentChanged(new StudentChangedEvent(s2, identified("s2", "Algo", 25)));
+                service.onStudentChanged(new StudentChangedEvent(identified("s3", "Algo", 30), s3Updated));
+            }
+        }));
+        given(studentRepo.findAllById(Set.of("s3"))).willReturn(List.of(s3Updated));
+        // when
+        service.rebuild();
+        // then: Algo holds 10, 25 and 40
+        ArgumentCaptor<Collection<CourseStats>> replaced = ArgumentCaptor.forClass(Collection.class);
+        then(courseStatsRepo).should().replaceAll(replaced.capture());
+        assertThat(replaced.getValue()).extracting(CourseStats::getCourseName, CourseStats::getEnrollments,
+                        CourseStats::getTotalMarks, CourseStats::getMinMarks, CourseStats::getMaxMarks)
+                .containsExactlyInAnyOrder(tuple("Algo", 3L, 75L, 10, 40), tuple("DB", 1L, 70L, 70, 70));
+    }
+}
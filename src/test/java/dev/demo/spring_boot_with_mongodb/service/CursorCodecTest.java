@@ -0,0 +1,96 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorCodecTest {
+
+    @Test
+    @DisplayName("encode() / decode() round-trip keeps BSON value types")
+    void roundTrip() {
+        // given
+        ObjectId id = new ObjectId();
+        LocalDate dob = LocalDate.of(1999, 5, 15);
+        String token = CursorCodec.encode(ScrollPosition.forward(Map.of("dob", dob, "id", id)), Sort.Direction.DESC);
+        // when
+        KeysetScrollPosition position = CursorCodec.decode(token, "dob", Sort.Direction.DESC);
+        // then
+        assertThat(token).doesNotContain("+", "/", "=");
+        assertThat(position.getKeys())
+                .containsEntry("id", id)
+                .containsEntry("dob", Date.from(dob.atStartOfDay().toInstant(ZoneOffset.UTC)));
+    }
+
+    @Test
+    @DisplayName("decode() of an empty token starts a new listing")
+    void decodeEmpty() {
+        assertThat(CursorCodec.decode("", "lastName", Sort.Direction.ASC).isInitial()).isTrue();
+    }
+
+    @Test
+    @DisplayName("decode() rejects garbage")
+    void decodeMalformed() {
+        assertThatThrownBy(() -> CursorCodec.decode("not a cursor!", "lastName", Sort.Direction.ASC))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("malformed cursor");
+    }
+
+    @Test
+    @DisplayName("decode() rejects a cursor issued for another sort")
+    void decodeOtherSort() {
+        String token = CursorCodec.encode(ScrollPosition.forward(Map.of("lastName", "Wong", "id", "s1")), Sort.Direction.ASC);
+        assertThatThrownBy(() -> CursorCodec.decode(token, "dob", Sort.Direction.ASC))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("does not match sort");
+    }
+
+    @Test
+    @DisplayName("decode() rejects a cursor issued for the opposite direction")
+    void decodeOtherDirection() {
+        String token = CursorCodec.encode(ScrollPosition.forward(Map.of("lastName", "Wong", "id", "s1")), Sort.Direction.ASC);
+        assertThatThrownBy(() -> CursorCodec.decode(token, "lastName", Sort.Direction.DESC))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("does not match sort direction 'desc'");
+    }
+
+    @Test
+    @DisplayName("decode() rejects a cursor without a direction")
+    void decodeWithoutDirection() {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        new DocumentCodec().encode(new BsonBinaryWriter(buffer), new Document("lastName", "Wong").append("id", "s1"),
+                EncoderContext.builder().build());
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.toByteArray());
+        assertThatThrownBy(() -> CursorCodec.decode(token, "lastName", Sort.Direction.ASC))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("malformed cursor");
+    }
+
+    @Test
+    @DisplayName("decode() rejects operator documents smuggled into the keyset")
+    void decodeOperator() {
+        String token = CursorCodec.encode(ScrollPosition.forward(
+                Map.of("lastName", new Document("$ne", null), "id", "s1")), Sort.Direction.ASC);
+        assertThatThrownBy(() -> CursorCodec.decode(token, "lastName", Sort.Direction.ASC))
+                .isInstanceOf(InvalidRequestParameterException.class);
+        assertThat(Base64.getUrlDecoder().decode(token)).isNotEmpty();
+    }
+}
@@ -0,0 +1,73 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DepartmentCacheTest {
+    @Mock
+    DepartmentRepository departmentRepo;
+    @InjectMocks
+    DepartmentCache cache;
+
+    private static Department department(String id) {
+        Department dept = new Department();
+        dept.setId(id);
+        dept.setName("Dept " + id);
+        return dept;
+    }
+
+    @Test
+    @DisplayName("get() loads all departments once, then answers from memory")
+    void loadsOnce() {
+        // given
+        Department d1 = department("d1");
+        given(departmentRepo.findAll()).willReturn(List.of(d1, department("d2")));
+        // when / then
+        assertThat(cache.get("d1")).containsSame(d1);
+        assertThat(cache.get("d2")).isPresent();
+        then(departmentRepo).should(times(1)).findAll();
+        then(departmentRepo).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    @DisplayName("get() looks up an unknown department on its own and keeps it")
+    void unknownDepartment() {
+        // given
+        Department d3 = department("d3");
+        given(departmentRepo.findAll()).willReturn(List.of(department("d1")));
+        given(departmentRepo.findById("d3")).willReturn(Optional.of(d3));
+        given(departmentRepo.findById("gone")).willReturn(Optional.empty());
+        // when / then
+        assertThat(cache.get("d3")).containsSame(d3);
+        assertThat(cache.get("d3")).containsSame(d3);
+        assertThat(cache.get("gone")).isEmpty();
+        then(departmentRepo).should(times(1)).findById("d3");
+    }
+
+    @Test
+    @DisplayName("reload() replaces the cached departments")
+    void reload() {
+        // given
+        Department renamed = department("d1");
+        renamed.setName("Renamed");
+        given(departmentRepo.findAll()).willReturn(List.of(department("d1")), List.of(renamed));
+        cache.get("d1");
+        // when
+        cache.reload();
+        // then
+        assertThat(cache.get("d1")).containsSame(renamed);
+    }
+}
@@ -0,0 +1,120 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentStats;
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DepartmentServiceImplTest {
+    @Mock
+    DepartmentRepository departmentRepo;
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    StudentCountersService countersService;
+    Department dept;
+    @InjectMocks
+    private DepartmentServiceImpl service;
+
+    @BeforeEach
+    void setup() {
+        dept = new Department();
+        dept.setId("d1");
+        dept.setName("CS");
+    }
+
+    @Test
+    @DisplayName("getStats() aggregates the students of the department")
+    void getStats() {
+        // given
+        DepartmentStats stats = new DepartmentStats("d1", "CS", 4, 3, 0.75, 82.5);
+        given(departmentRepo.findById("d1")).willReturn(Optional.of(dept));
+        given(studentRepo.departmentStats(StudentCriteria.byDepartment("d1"))).willReturn(List.of(stats));
+        // when
+        DepartmentStats result = service.getStats("d1");
+        // then
+        assertThat(result).isEqualTo(stats);
+    }
+
+    @Test
+    @DisplayName("getStats() of a department without students → zero counts")
+    void getStatsNoStudents() {
+        // given
+        given(departmentRepo.findById("d1")).willReturn(Optional.of(dept));
+        given(studentRepo.departmentStats(any())).willReturn(List.of());
+        // when
+        DepartmentStats result = service.getStats("d1");
+        // then
+        assertThat(result).isEqualTo(DepartmentStats.empty("d1", "CS"));
+    }
+
+    @Test
+    @DisplayName("getStats() of an unknown department → ResourceNotFoundException")
+    void getStatsNotFound() {
+        // given
+        given(departmentRepo.findById("d1")).willReturn(Optional.empty());
+        // then
+        assertThatThrownBy(() -> service.getStats("d1"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Department not found");
+        then(studentRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("getAllStats() runs one aggregation over all students")
+    void getAllStats() {
+        // given
+        List<DepartmentStats> stats = List.of(new DepartmentStats("d1", "CS", 4, 3, 0.75, 82.5),
+                new DepartmentStats("d2", "EE", 2, 1, 0.5, 70.0));
+        given(studentRepo.departmentStats(StudentCriteria.all())).willReturn(stats);
+        // when
+        List<DepartmentStats> result = service.getAllStats();
+        // then
+        assertThat(result).isEqualTo(stats);
+        then(departmentRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("getCounts() reads the counters of an existing department")
+    void getCounts() {
+        // given
+        StudentCounts counts = new StudentCounts("d1", 4, 3);
+        given(departmentRepo.existsById("d1")).willReturn(true);
+        given(countersService.getDepartmentCounts("d1")).willReturn(counts);
+        // when
+        StudentCounts result = service.getCounts("d1");
+        // then
+        assertThat(result).isEqualTo(counts);
+        then(studentRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("getCounts() of an unknown department → ResourceNotFoundException")
+    void getCountsNotFound() {
+        // given
+        given(departmentRepo.existsById("x")).willReturn(false);
+        // when / then
+        assertThatThrownBy(() -> service.getCounts("x"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        then(countersService).shouldHaveNoInteractions();
+    }
+}
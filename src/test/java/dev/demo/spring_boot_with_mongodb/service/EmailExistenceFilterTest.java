@@ -0,0 +1,136 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class EmailExistenceFilterTest {
+    @Mock
+    StudentRepository studentRepo;
+    SimpleMeterRegistry registry;
+    EmailExistenceFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filter = new EmailExistenceFilter(studentRepo, registry, 1_000, 0.01);
+    }
+
+    private static Student student(String email) {
+        Student student = new Student();
+        student.setEmail(email);
+        return student;
+    }
+
+    @Test
+    @DisplayName("before the first build every email is a maybe")
+    void notBuilt() {
+        assertThat(filter.mightContain("a@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("rebuild() loads the stored emails; saved emails are added on write")
+    void rebuildAndWrites() {
+        // given
+        given(studentRepo.streamAll(Set.of("email"))).willReturn(Stream.of(student("a@example.com"), student(null)));
+        // when
+        filter.rebuild();
+        filter.onStudentChanged(new StudentChangedEvent(null, student("b@example.com")));
+        // then
+        assertThat(filter.mightContain("a@example.com")).isTrue();
+        assertThat(filter.mightContain("b@example.com")).isTrue();
+        assertThat(filter.mightContain("c@example.com")).isFalse();
+        assertThat(registry.get("students.email_filter.size").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("students.email_filter.memory").gauge().value()).isPositive();
+    }
+
+    @Test
+    @DisplayName("emails saved while the filter is being rebuilt reach the new filter")
+    void writesDuringRebuild() {
+        // given: a save arrives while the scan is running
+        given(studentRepo.streamAll(Set.of("email"))).willReturn(Stream.of(student("a@example.com"))
+                .peek(s -> filter.onStudentChanged(new StudentChangedEvent(null, student("late@example.com")))));
+        // when
+        filter.rebuild();
+        // then
+        assertThat(filter.mightContain("late@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("an email saved concurrently with the end of a rebuild is never lost by the swap")
+    void writeRacingTheSwap() throws Exception {
+        // given: a save during the scan whose writer stalls until the rebuild is over
+        given(studentRepo.streamAll(Set.of("email"))).willReturn(Stream.of(student("a@example.com")));
+        filter.rebuild();
+        CountDownLatch writerMidway = new CountDownLatch(1);
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Student late = new Student() {
+            @Override
+            public String getEmail() {
+                if (calls.incrementAndGet() > 1) {
+                    writerMidway.countDown();
+                    await(rebuilt);
+                }
+                return "late@example.com";
+            }
+        };
+        AtomicReference<Thread> writer = new AtomicReference<>();
+        given(studentRepo.streamAll(Set.of("email"))).willReturn(Stream.of(student("a@example.com"))
+                .peek(s -> writer.set(Thread.ofVirtual().start(
+                        () -> filter.onStudentChanged(new StudentChangedEvent(null, late)))))
+                .onClose(() -> await(writerMidway)));
+        // when
+        filter.rebuild();
+        rebuilt.countDown();
+        writer.get().join();
+        // then
+        assertThat(filter.mightContain("late@example.com")).isTrue();
+    }
+
+    /**
+     * Wait for a step of the other thread, but not forever: with the swap under the lock it never comes.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(500, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("checks are counted by outcome and give the observed false-positive rate")
+    void metrics() {
+        // given
+        given(studentRepo.streamAll(Set.of("email"))).willReturn(Stream.of(student("a@example.com")));
+        filter.rebuild();
+        // when
+        filter.mightContain("x@example.com");
+        filter.mightContain("y@example.com");
+        filter.mightContain("z@example.com");
+        filter.recordLookup(false);
+        filter.recordLookup(true);
+        // then
+        assertThat(registry.get("students.email_filter.checks").tag("result", "absent").counter().count()).isEqualTo(3);
+        assertThat(registry.get("students.email_filter.checks").tag("result", "present").counter().count()).isEqualTo(1);
+        assertThat(registry.get("students.email_filter.false_positive_rate").gauge().value()).isEqualTo(0.25);
+    }
+}
@@ -0,0 +1,161 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.Leaderboard;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LeaderboardServiceImplTest {
+    @Mock
+    StudentRepository studentRepo;
+    private LeaderboardServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        // boards are served up to 2 students and retain 4
+        service = new LeaderboardServiceImpl(studentRepo, 2);
+    }
+
+    private static Student student(String id, String deptId, int marks) {
+        Department dept = new Department();
+        dept.setId(deptId);
+        Course course = new Course();
+        course.setName("AI");
+        course.setMarks(marks);
+        Student student = new Student();
+        student.setId(id);
+        student.setFirstName("First" + id);
+        student.setLastName("Last" + id);
+        student.setDepartment(dept);
+        student.setCourses(List.of(course));
+        student.setPercentage((double) marks);
+        return student;
+    }
+
+    private void save(Student student) {
+        service.onStudentChanged(new StudentChangedEvent(null, student));
+    }
+
+    @Test
+    @DisplayName("boards rank by course marks and by percentage, best first")
+    void ranking() {
+        // given
+        save(student("s1", "d1", 70));
+        save(student("s2", "d1", 95));
+        save(student("s3", "d2", 80));
+        // when
+        Leaderboard course = service.getCourseLeaderboard("AI", 2);
+        Leaderboard dept = service.getDepartmentLeaderboard("d1", 2);
+        // then
+        assertThat(course.members()).isEqualTo(3);
+        assertThat(course.entries()).extracting(Leaderboard.Entry::studentId).containsExactly("s2", "s3");
+        assertThat(course.entries().getFirst().rank()).isEqualTo(1);
+        assertThat(dept.entries()).extracting(Leaderboard.Entry::score).containsExactly(95.0, 70.0);
+    }
+
+    @Test
+    @DisplayName("an update re-ranks the student; a delete removes them")
+    void updateAndDelete() {
+        // given
+        Student before = student("s1", "d1", 70);
+        save(before);
+        save(student("s2", "d1", 90));
+        Student after = student("s1", "d1", 99);
+        // when
+        service.onStudentChanged(new StudentChangedEvent(before, after));
+        // then
+        assertThat(service.getCourseLeaderboard("AI", 2).entries())
+                .extracting(Leaderboard.Entry::studentId).containsExactly("s1", "s2");
+        assertThat(service.getCourseLeaderboard("AI", 2).members()).isEqualTo(2);
+        // when
+        service.onStudentChanged(new StudentChangedEvent(after, null));
+        // then
+        assertThat(service.getDepartmentLeaderboard("d1", 2).entries())
+                .extracting(Leaderboard.Entry::studentId).containsExactly("s2");
+    }
+
+    @Test
+    @DisplayName("rebuildIfIncomplete() rescans only when removals emptied the retained students")
+    void rebuildIfIncomplete() {
+        // given: 6 students, the 2 lowest dropped for capacity
+        for (int i = 1; i <= 6; i++) save(student("s" + i, "d1", 50 + i));
+        service.rebuildIfIncomplete();
+        then(studentRepo).shouldHaveNoInteractions();
+        for (int i = 3; i <= 5; i++) service.onStudentChanged(new StudentChangedEvent(student("s" + i, "d1", 50 + i), null));
+        given(studentRepo.streamById(LeaderboardServiceImpl.FIELDS))
+                .willReturn(Stream.of(student("s1", "d1", 51), student("s2", "d1", 52), student("s6", "d1", 56)));
+        // when
+        service.rebuildIfIncomplete();
+        // then
+        assertThat(service.getCourseLeaderboard("AI", 2).entries())
+                .extracting(Leaderboard.Entry::studentId).containsExactly("s6", "s2");
+    }
+
+    @Test
+    @DisplayName("a save of a student already on the board re-ranks them without counting them twice")
+    void saveTwice() {
+        // given
+        save(student("s1", "d1", 70));
+        // when
+        save(student("s1", "d1", 75));
+        // then
+        assertThat(service.getCourseLeaderboard("AI", 2).members()).isEqualTo(1);
+        assertThat(service.getCourseLeaderboard("AI", 2).entries()).extracting(Leaderboard.Entry::score).containsExactly(75.0);
+    }
+
+    @Test
+    @DisplayName("rebuild() keeps the writes that land during the pass")
+    void writesDuringRebuild() {
+        // given: s2 is updated after the pass read it, s3 before the pass reaches it, s4 is created
+        Student s2 = student("s2", "d1", 60);
+        Student s3 = student("s3", "d1", 65);
+        Student s3Updated = student("s3", "d1", 97);
+        given(studentRepo.streamById(LeaderboardServiceImpl.FIELDS)).willReturn(Stream.of(
+                student("s1", "d1", 70), s2, s3Updated).peek(student -> {
+            // peek runs just before the pass takes the student, i.e. after it took s2
+            if (student == s3Updated) {
+                service.onStudentChanged(new StudentChangedEvent(s2, student("s2", "d1", 99)));
+                service.onStudentChanged(new StudentChangedEvent(s3, s3Updated));
+                service.onStudentsCreated(new StudentsCreatedEvent(List.of(student("s4", "d1", 98))));
+            }
+        }));
+        given(studentRepo.findAllById(Set.of("s3", "s4"))).willReturn(List.of(s3Updated, student("s4", "d1", 98)));
+        // when
+        service.rebuild();
+        // then
+        Leaderboard course = service.getCourseLeaderboard("AI", 2);
+        assertThat(course.members()).isEqualTo(4);
+        assertThat(course.entries()).extracting(Leaderboard.Entry::studentId).containsExactly("s2", "s4");
+        assertThat(service.getDepartmentLeaderboard("d1", 2).entries())
+                .extracting(Leaderboard.Entry::score).containsExactly(99.0, 98.0);
+    }
+
+    @Test
+    @DisplayName("unknown boards → 404, limit above the size → 400")
+    void errors() {
+        save(student("s1", "d1", 70));
+        assertThatThrownBy(() -> service.getDepartmentLeaderboard("d9", 2))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> service.getCourseLeaderboard("AI", 3))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("between 1 and 2");
+    }
+}
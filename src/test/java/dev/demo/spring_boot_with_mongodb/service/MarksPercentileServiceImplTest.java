@@ -0,0 +1,230 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
+import dev.demo.spring_boot_with_mongodb.model.Course;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.MarksHistogramSnapshot;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.MarksPercentiles;
+import dev.demo.spring_boot_with_mongodb.repository.MarksHistogramSnapshotRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MarksPercentileServiceImplTest {
+    private static final List<Double> P50_90_99 = List.of(50.0, 90.0, 99.0);
+
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    MarksHistogramSnapshotRepository snapshotRepo;
+    private MarksPercentileServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MarksPercentileServiceImpl(studentRepo, snapshotRepo, Duration.ofHours(1));
+    }
+
+    private static MarksHistogramSnapshot snapshot(Instant updatedAt, int mark, long count) {
+        MarksHistogramSnapshot snapshot = new MarksHistogramSnapshot();
+        snapshot.setScope("course");
+        snapshot.setKey("AI");
+        List<Long> counts = new ArrayList<>(Collections.nCopies(101, 0L));
+        counts.set(mark, count);
+        snapshot.setCounts(counts);
+        snapshot.setUpdatedAt(updatedAt);
+        return snapshot;
+    }
+
+    private static Student student(String deptId, int... marks) {
+        return student(null, deptId, marks);
+    }
+
+    private static Student student(String id, String deptId, int... marks) {
+        Department dept = new Department();
+        dept.setId(deptId);
+        Student student = new Student();
+        student.setId(id);
+        student.setDepartment(dept);
+        List<Course> courses = new ArrayList<>();
+        for (int mark : marks) {
+            Course course = new Course();
+            course.setName("AI");
+            course.setMarks(mark);
+            courses.add(course);
+        }
+        student.setCourses(courses);
+        return student;
+    }
+
+    @Test
+    @DisplayName("percentiles are exact nearest-rank marks")
+    void exactPercentiles() {
+        // given: marks 1..100, one student each
+        IntStream.rangeClosed(1, 100).forEach(m -> service.onStudentChanged(new StudentChangedEvent(null, student("d1", m))));
+        // when
+        MarksPercentiles res = service.getCoursePercentiles("AI", P50_90_99);
+        // then
+        assertThat(res.count()).isEqualTo(100);
+        assertThat(res.percentiles()).containsExactly(
+                entry("p50", 50),
+                entry("p90", 90),
+                entry("p99", 99));
+        assertThat(service.getDepartmentPercentiles("d1", List.of(100.0)).percentiles()).containsEntry("p100", 100);
+    }
+
+    @Test
+    @DisplayName("an update moves the marks; a delete removes them")
+    void updateAndDelete() {
+        // given
+        Student before = student("d1", 40);
+        service.onStudentChanged(new StudentChangedEvent(null, before));
+        Student after = student("d1", 90);
+        // when
+        service.onStudentChanged(new StudentChangedEvent(before, after));
+        // then
+        assertThat(service.getCoursePercentiles("AI", List.of(50.0)).percentiles()).containsEntry("p50", 90);
+        // when
+        service.onStudentChanged(new StudentChangedEvent(after, null));
+        // then
+        assertThatThrownBy(() -> service.getCoursePercentiles("AI", P50_90_99))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("load() serves the snapshot, then replaces it with the histograms of the students")
+    void loadCorrectsStaleSnapshot() {
+        // given: a snapshot of three AI marks of 70 older than the rebuild interval, while the collection holds one student with 90
+        given(snapshotRepo.findAll()).willReturn(List.of(snapshot(Instant.now().minus(Duration.ofHours(2)), 70, 3)));
+        given(studentRepo.streamById(MarksPercentileServiceImpl.FIELDS)).willAnswer(inv -> {
+            // the snapshot is served while the pass runs
+            assertThat(service.getCoursePercentiles("AI", List.of(50.0)).count()).isEqualTo(3);
+            return Stream.of(student("s1", "d1", 90));
+        });
+        // when
+        service.load();
+        // then
+        MarksPercentiles res = service.getCoursePercentiles("AI", List.of(50.0));
+        assertThat(res.count()).isEqualTo(1);
+        assertThat(res.percentiles()).containsEntry("p50", 90);
+    }
+
+    @Test
+    @DisplayName("load() adds the snapshot to the changes recorded before it instead of replacing them")
+    void loadKeepsEarlierChanges() {
+        // given
+        given(snapshotRepo.findAll()).willReturn(List.of(snapshot(null, 70, 3)));
+        service.onStudentChanged(new StudentChangedEvent(null, student("s1", "d1", 90)));
+        given(studentRepo.streamById(MarksPercentileServiceImpl.FIELDS)).willAnswer(inv -> {
+            assertThat(service.getCoursePercentiles("AI", List.of(50.0)).count()).isEqualTo(4);
+            return Stream.empty();
+        });
+        // when / then
+        service.load();
+    }
+
+    @Test
+    @DisplayName("load() trusts a recent snapshot taken after the last insert, without scanning the students")
+    void loadCurrentSnapshot() {
+        // given
+        Instant takenAt = Instant.now().minus(Duration.ofMinutes(5));
+        given(snapshotRepo.findAll()).willReturn(List.of(snapshot(takenAt, 70, 3)));
+        given(studentRepo.lastInsertedAt()).willReturn(Optional.of(takenAt.minus(Duration.ofMinutes(1))));
+        // when
+        service.load();
+        // then
+        assertThat(service.getCoursePercentiles("AI", List.of(50.0)).count()).isEqualTo(3);
+        then(studentRepo).should(never()).streamById(any());
+    }
+
+    @Test
+    @DisplayName("load() rebuilds when a student was inserted after the snapshot")
+    void loadSnapshotBeforeLastInsert() {
+        // given
+        Instant takenAt = Instant.now().minus(Duration.ofMinutes(5));
+        given(snapshotRepo.findAll()).willReturn(List.of(snapshot(takenAt, 70, 3)));
+        given(studentRepo.lastInsertedAt()).willReturn(Optional.of(takenAt.plusSeconds(1)));
+        given(studentRepo.streamById(MarksPercentileServiceImpl.FIELDS)).willReturn(Stream.of(student("s1", "d1", 90)));
+        // when
+        service.load();
+        // then
+        assertThat(service.getCoursePercentiles("AI", List.of(50.0)).count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rebuild() counts writes during the pass once, whether the pass has read the student or not")
+    void writesDuringRebuild() {
+        // given: s2 is changed after the pass read it, s4 before the pass reaches it, s5 is created
+        Student s2 = student("s2", "d1", 20);
+        Student s4 = student("s4", "d1", 40);
+        Student s4Updated = student("s4", "d1", 45);
+        given(studentRepo.streamById(MarksPercentileServiceImpl.FIELDS)).willReturn(Stream.of(
+                student("s1", "d1", 10), s2, s4Updated).peek(student -> {
+            // peek runs just before the pass takes the student, i.e. after it took s2
+            if (student == s4Updated) {
+                service.onStudentChanged(new StudentChangedEvent(s2, student("s2", "d1", 25)));
+                service.onStudentChanged(new StudentChangedEvent(s4, s4Updated));
+                service.onStudentsCreated(new StudentsCreatedEvent(List.of(student("s5", "d1", 50))));
+            }
+        }));
+        given(studentRepo.findAllById(Set.of("s4", "s5")))
+                .willReturn(List.of(s4Updated, student("s5", "d1", 50)));
+        // when
+        service.rebuild();
+        // then: 10, 25, 45 and 50, each once
+        MarksPercentiles res = service.getDepartmentPercentiles("d1", List.of(25.0, 50.0, 75.0, 100.0));
+        assertThat(res.count()).isEqualTo(4);
+        assertThat(res.percentiles()).containsExactly(
+                entry("p25", 10), entry("p50", 25), entry("p75", 45), entry("p100", 50));
+    }
+
+    @Test
+    @DisplayName("snapshot() saves non-empty histograms and drops emptied ones")
+    @SuppressWarnings("unchecked")
+    void snapshot() {
+        // given
+        Student student = student("d1", 75);
+        service.onStudentChanged(new StudentChangedEvent(null, student));
+        service.onStudentChanged(new StudentChangedEvent(null, student("d2", 50)));
+        service.onStudentChanged(new StudentChangedEvent(student, null));
+        // when
+        service.snapshot();
+        // then
+        ArgumentCaptor<List<MarksHistogramSnapshot>> saved = ArgumentCaptor.forClass(List.class);
+        then(snapshotRepo).should().saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(MarksHistogramSnapshot::getId)
+                .containsExactlyInAnyOrder("course:AI", "department:d2");
+        then(snapshotRepo).should().deleteAllById(List.of("department:d1"));
+    }
+
+    @Test
+    @DisplayName("ranksFromParam() rejects ranks outside (0, 100]")
+    void invalidRanks() {
+        assertThat(MarksPercentiles.ranksFromParam("50, 99.9")).containsExactly(50.0, 99.9);
+        assertThatThrownBy(() -> MarksPercentiles.ranksFromParam("0"))
+                .hasMessageContaining("(0, 100]");
+        assertThatThrownBy(() -> MarksPercentiles.ranksFromParam("median"))
+                .hasMessageContaining("not a number");
+    }
+}
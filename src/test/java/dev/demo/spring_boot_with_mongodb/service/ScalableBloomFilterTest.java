@@ -0,0 +1,37 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    @DisplayName("grows past its initial capacity without false negatives and within the target rate")
+    void growsWithinTargetRate() {
+        // given: ten times the initial capacity
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.add("student" + i + "@example.com"));
+        // when
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("applicant" + i + "@example.com"))
+                .count();
+        // then
+        assertThat(IntStream.range(0, 10_000)).allMatch(i -> filter.mightContain("student" + i + "@example.com"));
+        assertThat(filter.count()).isEqualTo(10_000);
+        assertThat(falsePositives / 100_000.0).isLessThan(0.01);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(0.01);
+        assertThat(filter.memoryBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("an empty filter contains nothing")
+    void empty() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(100, 0.01);
+        assertThat(filter.mightContain("a@example.com")).isFalse();
+        assertThat(filter.expectedFalsePositiveRate()).isZero();
+    }
+}
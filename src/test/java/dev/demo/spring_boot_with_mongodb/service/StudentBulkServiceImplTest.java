@@ -0,0 +1,160 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.BulkCreateResponse;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemResult;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemStatus;
+import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudentBulkServiceImplTest {
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    DepartmentRepository departmentRepo;
+    @Mock
+    StudentMapper studentMapper;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    Department dept;
+    private StudentBulkServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        // two students per bulk write
+        service = new StudentBulkServiceImpl(studentRepo, departmentRepo, studentMapper, VALIDATOR, MAPPER, eventPublisher, 2);
+        dept = new Department();
+        dept.setId("d1");
+        lenient().when(studentMapper.toEntity(any())).thenAnswer(inv -> {
+            StudentDTO dto = inv.getArgument(0);
+            Student student = new Student();
+            student.setEmail(dto.email());
+            return student;
+        });
+    }
+
+    private static StudentDTO dto(String firstName, String deptId) {
+        return new StudentDTO(null, firstName, "Wong", firstName.toLowerCase() + "@example.com", LocalDate.of(2000, 1, 1),
+                new DepartmentDTO(deptId, null, null, null), List.of(new CourseDTO("Algorithms", 85)),
+                LocalDate.of(2020, 1, 1), true, null);
+    }
+
+    @Test
+    @DisplayName("createAll() loads the departments once, writes in chunks and reports each student")
+    @SuppressWarnings("unchecked")
+    void createAll() {
+        // given
+        List<StudentDTO> req = List.of(dto("Alice", "d1"), dto("", "d1"), dto("Bob", "d9"), dto("Carol", "d1"), dto("Dan", "d1"));
+        given(departmentRepo.findAllById(Set.of("d1", "d9"))).willReturn(List.of(dept));
+        List<List<String>> chunks = new ArrayList<>();
+        given(studentRepo.insertUnordered(anyList())).willAnswer(inv -> {
+            List<Student> chunk = inv.getArgument(0);
+            chunks.add(chunk.stream().map(Student::getEmail).toList());
+            // Dan's email is already taken
+            return chunk.size() == 1
+                    ? new BulkInsertResult(0, List.of(new BulkInsertResult.Failure(0, true, "E11000")))
+                    : new BulkInsertResult(chunk.size(), List.of());
+        });
+        // when
+        BulkCreateResponse res = service.createAll(req);
+        // then
+        assertThat(chunks).containsExactly(List.of("alice@example.com", "carol@example.com"), List.of("dan@example.com"));
+        assertThat(res.received()).isEqualTo(5);
+        assertThat(res.created()).isEqualTo(2);
+        assertThat(res.rejected()).isEqualTo(3);
+        assertThat(res.items()).extracting(BulkItemResult::status).containsExactly(
+                BulkItemStatus.CREATED, BulkItemStatus.INVALID, BulkItemStatus.DEPARTMENT_NOT_FOUND,
+                BulkItemStatus.CREATED, BulkItemStatus.DUPLICATE);
+        assertThat(res.items().get(0).id()).isNotNull();
+        assertThat(res.items().get(1).error()).contains("firstName");
+        ArgumentCaptor<StudentsCreatedEvent> event = ArgumentCaptor.forClass(StudentsCreatedEvent.class);
+        then(eventPublisher).should().publishEvent(event.capture());
+        assertThat(event.getValue().students()).extracting(Student::getDepartment).containsOnly(dept);
+    }
+
+    @Test
+    @DisplayName("createAllFromNdjson() rejects unreadable lines on their own")
+    void createAllFromNdjson() throws Exception {
+        // given
+        String body = MAPPER.writeValueAsString(dto("Alice", "d1")) + "\n\n{\"firstName\": \nnull\n";
+        given(departmentRepo.findAllById(Set.of("d1"))).willReturn(List.of(dept));
+        given(studentRepo.insertUnordered(anyList())).willReturn(new BulkInsertResult(1, List.of()));
+        // when
+        BulkCreateResponse res = service.createAllFromNdjson(ndjson(body));
+        // then
+        assertThat(res.received()).isEqualTo(3);
+        assertThat(res.items()).extracting(BulkItemResult::status)
+                .containsExactly(BulkItemStatus.CREATED, BulkItemStatus.INVALID, BulkItemStatus.INVALID);
+        assertThat(res.items().get(1).error()).startsWith("Malformed student");
+        assertThat(res.items().get(2).error()).isEqualTo("Student must not be null");
+    }
+
+    @Test
+    @DisplayName("createAllFromNdjson() rejects a line over the length limit and stops reading")
+    void createAllFromNdjsonRowTooLong() throws Exception {
+        // given
+        String body = "x".repeat(StudentImportServiceImpl.MAX_ROW_LENGTH + 1) + "\n"
+                + MAPPER.writeValueAsString(dto("Alice", "d1")) + "\n";
+        // when
+        BulkCreateResponse res = service.createAllFromNdjson(ndjson(body));
+        // then
+        assertThat(res.received()).isEqualTo(1);
+        assertThat(res.items()).singleElement()
+                .satisfies(item -> assertThat(item.error()).startsWith("Row longer than"));
+        then(studentRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("createAll() rejects a null student as invalid")
+    void createAllNull() {
+        // given
+        List<StudentDTO> req = new ArrayList<>();
+        req.add(null);
+        // when
+        BulkCreateResponse res = service.createAll(req);
+        // then
+        assertThat(res.items()).extracting(BulkItemResult::status).containsExactly(BulkItemStatus.INVALID);
+        then(departmentRepo).shouldHaveNoInteractions();
+        then(studentRepo).shouldHaveNoInteractions();
+    }
+
+    private static InputStream ndjson(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
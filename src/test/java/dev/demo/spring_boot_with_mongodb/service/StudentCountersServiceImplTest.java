@@ -0,0 +1,175 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.model.StudentCounters;
+import dev.demo.spring_boot_with_mongodb.payload.StudentCounts;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCountersRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.BDDMockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudentCountersServiceImplTest {
+    @Mock
+    StudentCountersRepository countersRepo;
+    @Mock
+    StudentRepository studentRepo;
+    @InjectMocks
+    private StudentCountersServiceImpl service;
+
+    private static Student student(String deptId, boolean active) {
+        return student(null, deptId, active);
+    }
+
+    private static Student student(String id, String deptId, boolean active) {
+        Student student = new Student();
+        student.setId(id);
+        if (deptId != null) {
+            Department dept = new Department();
+            dept.setId(deptId);
+            student.setDepartment(dept);
+        }
+        student.setActive(active);
+        return student;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, StudentCounters.Counts> incremented(long total, long active) {
+        ArgumentCaptor<Map<String, StudentCounters.Counts>> departments = ArgumentCaptor.forClass(Map.class);
+        then(countersRepo).should().increment(eq(total), eq(active), departments.capture());
+        return departments.getValue();
+    }
+
+    @Test
+    @DisplayName("a new active student increments the global and department counters")
+    void onCreate() {
+        // when
+        service.onStudentChanged(new StudentChangedEvent(null, student("d1", true)));
+        // then
+        Map<String, StudentCounters.Counts> departments = incremented(1, 1);
+        assertThat(departments).containsOnlyKeys("d1");
+        assertThat(departments.get("d1")).extracting("total", "active").containsExactly(1L, 1L);
+    }
+
+    @Test
+    @DisplayName("a bulk-created batch is a single increment")
+    void onBulkCreate() {
+        // when
+        service.onStudentsCreated(new StudentsCreatedEvent(List.of(student("d1", true), student("d1", false), student("d2", true))));
+        // then
+        Map<String, StudentCounters.Counts> departments = incremented(3, 2);
+        assertThat(departments.get("d1")).extracting("total", "active").containsExactly(2L, 1L);
+        assertThat(departments.get("d2")).extracting("total", "active").containsExactly(1L, 1L);
+    }
+
+    @Test
+    @DisplayName("moving a student to another department and deactivating them moves the counts")
+    void onUpdate() {
+        // when
+        service.onStudentChanged(new StudentChangedEvent(student("d1", true), student("d2", false)));
+        // then
+        Map<String, StudentCounters.Counts> departments = incremented(0, -1);
+        assertThat(departments.get("d1")).extracting("total", "active").containsExactly(-1L, -1L);
+        assertThat(departments.get("d2")).extracting("total", "active").containsExactly(1L, 0L);
+    }
+
+    @Test
+    @DisplayName("an update that changes neither activity nor department writes nothing")
+    void onUpdateNoop() {
+        // when
+        service.onStudentChanged(new StudentChangedEvent(student("d1", true), student("d1", true)));
+        // then
+        then(countersRepo).should(never()).increment(anyLong(), anyLong(), anyMap());
+    }
+
+    @Test
+    @DisplayName("getActiveCount() is a point read; before the first reconciliation it counts")
+    void getActiveCount() {
+        // given
+        StudentCounters counters = new StudentCounters();
+        counters.setActive(7);
+        given(countersRepo.findById(StudentCounters.ID)).willReturn(Optional.of(counters), Optional.empty());
+        given(studentRepo.countByActiveTrue()).willReturn(5);
+        // when / then
+        assertThat(service.getActiveCount()).isEqualTo(7);
+        assertThat(service.getActiveCount()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("getDepartmentCounts() of a department without students → zero counts")
+    void getDepartmentCounts() {
+        // given
+        StudentCounters counters = new StudentCounters();
+        counters.getDepartments().put("d1", new StudentCounters.Counts(4, 3));
+        given(countersRepo.findById(StudentCounters.ID)).willReturn(Optional.of(counters));
+        // when / then
+        assertThat(service.getDepartmentCounts("d1")).isEqualTo(new StudentCounts("d1", 4, 3));
+        assertThat(service.getDepartmentCounts("d2")).isEqualTo(new StudentCounts("d2", 0, 0));
+    }
+
+    @Test
+    @DisplayName("reconcile() without counters writes the counted students")
+    void reconcile() {
+        // given
+        given(studentRepo.streamById(StudentCountersServiceImpl.FIELDS)).willReturn(Stream.of(
+                student("s1", "d1", true), student("s2", "d1", false), student("s3", null, false)));
+        given(countersRepo.findById(StudentCounters.ID)).willReturn(Optional.empty());
+        // when
+        service.reconcile();
+        // then
+        ArgumentCaptor<StudentCounters> saved = ArgumentCaptor.forClass(StudentCounters.class);
+        then(countersRepo).should().save(saved.capture());
+        assertThat(saved.getValue().getId()).isEqualTo(StudentCounters.ID);
+        assertThat(saved.getValue().getTotal()).isEqualTo(3);
+        assertThat(saved.getValue().getActive()).isEqualTo(1);
+        assertThat(saved.getValue().getDepartments()).containsOnlyKeys("d1");
+    }
+
+    @Test
+    @DisplayName("reconcile() applies the drift as an $inc, counting writes during the pass once")
+    void reconcileDrift() {
+        // given: stored counters missed s1; s2 is deactivated after the pass read it, s3 before the pass reaches it
+        StudentCounters stored = new StudentCounters();
+        stored.setTotal(2);
+        stored.setActive(2);
+        stored.getDepartments().put("d1", new StudentCounters.Counts(2, 2));
+        stored.getDepartments().put("d9", new StudentCounters.Counts(1, 0));
+        given(countersRepo.findById(StudentCounters.ID)).willReturn(Optional.of(stored));
+        given(countersRepo.increment(anyLong(), anyLong(), anyMap())).willReturn(true);
+        Student s2 = student("s2", "d1", true);
+        Student s3Updated = student("s3", "d1", false);
+        given(studentRepo.streamById(StudentCountersServiceImpl.FIELDS)).willReturn(Stream.of(
+                student("s1", "d1", true), s2, s3Updated).peek(student -> {
+            // peek runs just before the pass takes the student, i.e. after it took s2
+            if (student == s3Updated) {
+                service.onStudentChanged(new StudentChangedEvent(s2, student("s2", "d1", false)));
+                service.onStudentChanged(new StudentChangedEvent(student("s3", "d1", true), s3Updated));
+            }
+        }));
+        given(studentRepo.findAllById(Set.of("s3"))).willReturn(List.of(s3Updated));
+        // when
+        service.reconcile();
+        // then: 3 students, s1 active, against the stored 2 and 2 (the increments went to the mock)
+        then(countersRepo).should(never()).save(any());
+        Map<String, StudentCounters.Counts> drift = incremented(1, -1);
+        assertThat(drift).containsOnlyKeys("d1", "d9");
+        assertThat(drift.get("d1")).extracting("total", "active").containsExactly(1L, -1L);
+        assertThat(drift.get("d9")).extracting("total", "active").containsExactly(-1L, 0L);
+    }
+}
@@ -0,0 +1,176 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.DBRef;
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFilter;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StudentExportServiceImplTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final String DEPT_ID = new ObjectId().toHexString();
+
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    DepartmentRepository departmentRepo;
+    @Mock
+    StudentMapper studentMapper;
+    private StudentExportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StudentExportServiceImpl(studentRepo, departmentRepo, studentMapper, MAPPER);
+        lenient().when(studentMapper.toDto(any())).thenAnswer(inv -> {
+            Student s = inv.getArgument(0);
+            Department d = s.getDepartment();
+            return new StudentDTO(s.getId(), s.getFirstName(), s.getLastName(), s.getEmail(), s.getDob(),
+                    d == null ? null : new DepartmentDTO(d.getId(), d.getName(), null, null),
+                    List.of(new CourseDTO("AI", 80)), null, s.isActive(), 80.0, null, s.getVersion());
+        });
+    }
+
+    private static Student student(String id, String lastName, Department dept) {
+        Student student = new Student();
+        student.setId(id);
+        student.setFirstName("Alice");
+        student.setLastName(lastName);
+        student.setEmail(id + "@example.com");
+        student.setDob(LocalDate.of(2000, 1, 1));
+        student.setDepartment(dept);
+        student.setActive(true);
+        student.setVersion(2L);
+        return student;
+    }
+
+    private static Department lazyRef(String id) {
+        Department proxy = mock(Department.class, withSettings().extraInterfaces(LazyLoadingProxy.class));
+        when(((LazyLoadingProxy) proxy).toDBRef()).thenReturn(new DBRef("departments", new ObjectId(id)));
+        return proxy;
+    }
+
+    private static String write(StudentExportService.ExportWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("NDJSON export writes one student per line with departments loaded once and closes the cursor")
+    void exportNdjson() throws Exception {
+        // given
+        Department cs = new Department();
+        cs.setId(DEPT_ID);
+        cs.setName("Computer Science");
+        given(departmentRepo.findAll()).willReturn(List.of(cs));
+        List<Student> students = List.of(student("s1", "Wong", lazyRef(DEPT_ID)), student("s2", "Smith", lazyRef(DEPT_ID)));
+        AtomicBoolean closed = new AtomicBoolean();
+        given(studentRepo.stream(any(CriteriaDefinition.class), eq(Set.of())))
+                .willReturn(students.stream().onClose(() -> closed.set(true)));
+        // when
+        String export = write(service.export(StudentFilter.NONE, StudentFields.ALL, ExportFormat.NDJSON));
+        // then
+        List<String> lines = export.lines().toList();
+        assertThat(export).endsWith("\n");
+        assertThat(lines).hasSize(2);
+        StudentDTO first = MAPPER.readValue(lines.get(0), StudentDTO.class);
+        assertThat(first.lastName()).isEqualTo("Wong");
+        assertThat(first.department().name()).isEqualTo("Computer Science");
+        assertThat(first.version()).isEqualTo(2L);
+        assertThat(closed).isTrue();
+        then(departmentRepo).should(times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("CSV export writes the requested columns, quotes cells and skips the department lookup")
+    void exportCsv() throws Exception {
+        // given
+        given(studentRepo.stream(any(CriteriaDefinition.class), anyCollection()))
+                .willReturn(Stream.of(student("s1", "O\"Neil, Jr", null)));
+        // when
+        String export = write(service.export(StudentFilter.NONE, StudentFields.fromParam("id,lastName,courses"), ExportFormat.CSV));
+        // then
+        assertThat(export).isEqualTo("id,lastName,courses,version\r\n"
+                + "s1,\"O\"\"Neil, Jr\",\"[{\"\"name\"\":\"\"AI\"\",\"\"marks\"\":80}]\",2\r\n");
+        then(departmentRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("export() combines the given filters into one query")
+    void exportCombinesFilters() throws Exception {
+        // given
+        ArgumentCaptor<CriteriaDefinition> filter = ArgumentCaptor.forClass(CriteriaDefinition.class);
+        given(studentRepo.stream(filter.capture(), anyCollection())).willReturn(Stream.empty());
+        // when
+        String export = write(service.export(new StudentFilter(false, null, "AI", 70, null, null, 60.0),
+                StudentFields.fromParam("id"), ExportFormat.NDJSON));
+        // then
+        assertThat(export).isEmpty();
+        Document query = filter.getValue().getCriteriaObject();
+        assertThat(query).containsEntry("percentage", new Document("$gte", 60.0));
+        assertThat(query.getList("$and", Document.class)).hasSize(2).first().isEqualTo(new Document("active", false));
+    }
+
+    @Test
+    @DisplayName("export() rejects incomplete filters before reading any student")
+    void exportRejectsIncompleteFilters() {
+        assertThatThrownBy(() -> service.export(new StudentFilter(null, null, null, 70, null, null, null),
+                StudentFields.ALL, ExportFormat.CSV))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("minScore");
+        assertThatThrownBy(() -> service.export(new StudentFilter(null, null, null, null, LocalDate.of(2000, 1, 1), null, null),
+                StudentFields.ALL, ExportFormat.CSV))
+                .isInstanceOf(InvalidRequestParameterException.class)
+                .hasMessageContaining("start");
+        then(studentRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("quote() leaves plain cells alone and doubles quotes in quoted ones")
+    void quoteCells() {
+        assertThat(StudentExportServiceImpl.quote("Wong")).isEqualTo("Wong");
+        assertThat(StudentExportServiceImpl.quote("a\nb")).isEqualTo("\"a\nb\"");
+        assertThat(StudentExportServiceImpl.quote("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+    }
+}
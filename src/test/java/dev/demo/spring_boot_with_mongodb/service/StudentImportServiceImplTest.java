@@ -0,0 +1,205 @@
+package dev.demo.spring_boot_with_mongodb.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
+import dev.demo.spring_boot_with_mongodb.model.Department;
+import dev.demo.spring_boot_with_mongodb.model.Student;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemResult;
+import dev.demo.spring_boot_with_mongodb.payload.BulkItemStatus;
+import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
+import dev.demo.spring_boot_with_mongodb.payload.DepartmentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.ExportFormat;
+import dev.demo.spring_boot_with_mongodb.payload.ImportResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.repository.BulkInsertResult;
+import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+
+@ExtendWith(MockitoExtension.class)
+class StudentImportServiceImplTest {
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+    private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Mock
+    StudentRepository studentRepo;
+    @Mock
+    DepartmentRepository departmentRepo;
+    @Mock
+    StudentMapper studentMapper;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Department dept;
+    private StudentImportServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        // two students per batch, one queued batch, two listed rejects
+        service = new StudentImportServiceImpl(studentRepo, departmentRepo, studentMapper, VALIDATOR, MAPPER,
+                eventPublisher, registry, 2, 1, 2);
+        dept = new Department();
+        dept.setId("d1");
+        given(departmentRepo.findAll()).willReturn(List.of(dept));
+        lenient().when(studentMapper.toEntity(any())).thenAnswer(inv -> {
+            StudentDTO dto = inv.getArgument(0);
+            Student student = new Student();
+            student.setLastName(dto.lastName());
+            student.setEmail(dto.email());
+            return student;
+        });
+    }
+
+    private static String json(String firstName, String deptId) throws IOException {
+        return MAPPER.writeValueAsString(new StudentDTO(null, firstName, "Wong", firstName.toLowerCase() + "@example.com",
+                LocalDate.of(2000, 1, 1), new DepartmentDTO(deptId, null, null, null), List.of(new CourseDTO("AI", 85)),
+                LocalDate.of(2020, 1, 1), true, null));
+    }
+
+    private ImportResponse importStudents(String body, ExportFormat format) throws IOException {
+        return service.importStudents(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    @Test
+    @DisplayName("NDJSON import writes fixed-size batches and reports rejected rows by position")
+    void importNdjson() throws Exception {
+        // given
+        String body = String.join("\n", json("Alice", "d1"), "", json("Bob", "d9"), json("Carol", "d1"),
+                "{\"firstName\": ", json("Dan", "d1"));
+        List<List<String>> batches = new ArrayList<>();
+        given(studentRepo.insertUnordered(anyList())).willAnswer(inv -> {
+            List<Student> batch = inv.getArgument(0);
+            batches.add(batch.stream().map(Student::getEmail).toList());
+            return new BulkInsertResult(batch.size(), List.of());
+        });
+        // when
+        ImportResponse res = importStudents(body, ExportFormat.NDJSON);
+        // then
+        assertThat(batches).containsExactly(List.of("alice@example.com", "carol@example.com"), List.of("dan@example.com"));
+        assertThat(res.read()).isEqualTo(5);
+        assertThat(res.created()).isEqualTo(3);
+        assertThat(res.rejected()).isEqualTo(2);
+        assertThat(res.rejects()).extracting(BulkItemResult::index, BulkItemResult::status).containsExactly(
+                tuple(1, BulkItemStatus.DEPARTMENT_NOT_FOUND),
+                tuple(3, BulkItemStatus.INVALID));
+        assertThat(res.rejectsTruncated()).isFalse();
+        assertThat(res.stoppedEarly()).isFalse();
+        then(eventPublisher).should(times(2)).publishEvent(any(StudentsCreatedEvent.class));
+        assertThat(registry.get("students.imports.rows").tag("outcome", "created").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("CSV import reads the export layout with quoted cells and reports duplicates")
+    void importCsv() throws Exception {
+        // given
+        String body = "\uFEFFid,firstName,lastName,email,dob,department,courses,enrollmentDate,active,percentage,version\r\n"
+                + "x1,Alice,\"O\"\"Neil,\nJr\",alice@example.com,2000-01-01,d1,\"[{\"\"name\"\":\"\"AI\"\",\"\"marks\"\":80}]\",2020-01-01,true,80.0,3\r\n"
+                + "x2,Bob,Smith,bob@example.com,2000-01-01,d1,\"[{\"\"name\"\":\"\"AI\"\",\"\"marks\"\":70}]\",2020-01-01,true,,\r\n"
+                + "x3,Carol,Wong\r\n";
+        List<Student> inserted = new ArrayList<>();
+        given(studentRepo.insertUnordered(anyList())).willAnswer(inv -> {
+            inserted.addAll(inv.getArgument(0));
+            return new BulkInsertResult(1, List.of(new BulkInsertResult.Failure(1, true, "E11000")));
+        });
+        // when
+        ImportResponse res = importStudents(body, ExportFormat.CSV);
+        // then
+        assertThat(inserted).extracting(Student::getLastName).containsExactly("O\"Neil,\nJr", "Smith");
+        assertThat(inserted).extracting(Student::getId).doesNotContain("x1", "x2");
+        assertThat(res.read()).isEqualTo(3);
+        assertThat(res.created()).isEqualTo(1);
+        assertThat(res.rejects()).extracting(BulkItemResult::status)
+                .containsExactly(BulkItemStatus.DUPLICATE, BulkItemStatus.INVALID);
+        assertThat(res.rejects().get(0).error()).contains("bob@example.com");
+        assertThat(res.rejects().get(1).error()).isEqualTo("Expected 11 cells, found 3");
+    }
+
+    @Test
+    @DisplayName("Import counts every reject but lists only the first ones")
+    void importTruncatesRejects() throws Exception {
+        // when
+        ImportResponse res = importStudents(json("", "d1") + "\n" + json("", "d1") + "\n" + json("", "d1"), ExportFormat.NDJSON);
+        // then
+        assertThat(res.rejected()).isEqualTo(3);
+        assertThat(res.rejects()).hasSize(2);
+        assertThat(res.rejectsTruncated()).isTrue();
+        then(studentRepo).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("Import stops at a row longer than the limit and keeps the rows before it")
+    void importStopsAtOverlongRow() throws Exception {
+        // given
+        given(studentRepo.insertUnordered(anyList())).willReturn(new BulkInsertResult(1, List.of()));
+        String body = json("Alice", "d1") + "\n" + "x".repeat(StudentImportServiceImpl.MAX_ROW_LENGTH + 1) + "\n" + json("Bob", "d1");
+        // when
+        ImportResponse res = importStudents(body, ExportFormat.NDJSON);
+        // then
+        assertThat(res.read()).isEqualTo(2);
+        assertThat(res.created()).isEqualTo(1);
+        assertThat(res.rejects()).singleElement().satisfies(reject -> {
+            assertThat(reject.index()).isEqualTo(1);
+            assertThat(reject.error()).contains("the rest of the upload was not read");
+        });
+        assertThat(res.stoppedEarly()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Import rejects a null NDJSON row as invalid and reads on")
+    void importRejectsNullRow() throws Exception {
+        // given
+        given(studentRepo.insertUnordered(anyList())).willReturn(new BulkInsertResult(1, List.of()));
+        // when
+        ImportResponse res = importStudents("null\n" + json("Alice", "d1"), ExportFormat.NDJSON);
+        // then
+        assertThat(res.read()).isEqualTo(2);
+        assertThat(res.created()).isEqualTo(1);
+        assertThat(res.rejects()).singleElement().satisfies(reject -> {
+            assertThat(reject.index()).isZero();
+            assertThat(reject.status()).isEqualTo(BulkItemStatus.INVALID);
+            assertThat(reject.error()).isEqualTo("Student must not be null");
+        });
+        assertThat(res.stoppedEarly()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Import fails when the writer fails, instead of reading on")
+    void importWriterFailure() throws Exception {
+        // given
+        given(studentRepo.insertUnordered(anyList())).willThrow(new IllegalStateException("database down"));
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20; i++) body.append(json("Alice" + i, "d1")).append('\n');
+        // when / then
+        assertThatThrownBy(() -> importStudents(body.toString(), ExportFormat.NDJSON))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("database down");
+    }
+}
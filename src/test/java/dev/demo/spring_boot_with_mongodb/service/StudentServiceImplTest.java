@@ -1,5 +1,8 @@
 package dev.demo.spring_boot_with_mongodb.service;
 
+import com.mongodb.DBRef;
+import dev.demo.spring_boot_with_mongodb.exception.InvalidRequestParameterException;
+import dev.demo.spring_boot_with_mongodb.exception.PreconditionFailedException;
 import dev.demo.spring_boot_with_mongodb.exception.ResourceNotFoundException;
 import dev.demo.spring_boot_with_mongodb.mapper.CourseMapper;
 import dev.demo.spring_boot_with_mongodb.mapper.StudentMapper;
@@ -8,28 +11,45 @@ import dev.demo.spring_boot_with_mongodb.model.Department;
 import dev.demo.spring_boot_with_mongodb.model.Student;
 import dev.demo.spring_boot_with_mongodb.payload.CourseDTO;
 import dev.demo.spring_boot_with_mongodb.payload.DepartmentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.MarksUpdate;
+import dev.demo.spring_boot_with_mongodb.payload.PageParams;
 import dev.demo.spring_boot_with_mongodb.payload.StudentDTO;
+import dev.demo.spring_boot_with_mongodb.payload.StudentFields;
 import dev.demo.spring_boot_with_mongodb.payload.StudentPageResponse;
+import dev.demo.spring_boot_with_mongodb.payload.StudentPatch;
+import dev.demo.spring_boot_with_mongodb.payload.TotalMode;
 import dev.demo.spring_boot_with_mongodb.repository.DepartmentRepository;
+import dev.demo.spring_boot_with_mongodb.repository.StudentCriteria;
 import dev.demo.spring_boot_with_mongodb.repository.StudentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
-import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,6 +62,16 @@ class StudentServiceImplTest {
     StudentMapper studentMapper;
     @Mock
     CourseMapper courseMapper;
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+    @Mock
+    StudentCountersService countersService;
+    @Mock
+    EmailExistenceFilter emailFilter;
+    @Mock
+    DepartmentCache departmentCache;
+    @Spy
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
     StudentDTO dto;
     Student entity;
     Department dept;
@@ -79,27 +109,132 @@ class StudentServiceImplTest {
         entity.setActive(true);
     }
 
+    /**
+     * The department of a document read by findAndModify: a lazy reference that resolves on first use.
+     */
+    private static Department departmentProxy(String id) {
+        Department proxy = mock(Department.class, withSettings().extraInterfaces(LazyLoadingProxy.class));
+        given(((LazyLoadingProxy) proxy).toDBRef()).willReturn(new DBRef("departments", new ObjectId(id)));
+        return proxy;
+    }
+
     @Test
     @DisplayName("getAll() should return mapped page")
     void getAll() {
         // given
         Page<Student> page = new PageImpl<>(List.of(entity), PageRequest.of(0, 1, Sort.by("firstName")), 1);
-        given(studentRepo.findAll(any(Pageable.class))).willReturn(page);
+        given(studentRepo.findPage(eq(StudentCriteria.all()), any(Pageable.class), eq(Set.of()))).willReturn(page);
         StudentPageResponse pageResp = new StudentPageResponse(
                 List.of(dto), 1, 1, 1L, 1, true, true, false, false);
         given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        StudentPageResponse resp = service.getAll(1, 1, "firstName", "asc");
+        StudentPageResponse resp = service.getAll(PageParams.of(1, 1, "firstName", "asc"));
+        // then
+        assertThat(resp).isEqualTo(pageResp);
+        then(studentRepo).should().findPage(eq(StudentCriteria.all()), any(Pageable.class), eq(Set.of()));
+        then(studentRepo).should().resolveDepartments(page.getContent());
+    }
+
+    @Test
+    @DisplayName("getAll() with a cursor scrolls by keyset and returns the next cursor")
+    void getAllKeyset() {
+        // given
+        Window<Student> window = Window.from(List.of(entity),
+                i -> ScrollPosition.forward(Map.of("lastName", "Wong", "id", "s1")), true);
+        given(studentRepo.scroll(any(CriteriaDefinition.class), any(KeysetScrollPosition.class), any(Sort.class), eq(1), eq(Set.of())))
+                .willReturn(window);
+        StudentPageResponse pageResp = new StudentPageResponse(
+                List.of(dto), null, 1, null, null, true, false, true, false, "next");
+        given(studentMapper.toScrollResponse(eq(window), eq(1), eq(true), anyString())).willReturn(pageResp);
+        // when
+        StudentPageResponse resp = service.getAll(PageParams.of(1, 1, "lastName", "asc").withAfter(""));
+        // then
+        assertThat(resp).isEqualTo(pageResp);
+        then(studentRepo).should(never()).findPage(any(CriteriaDefinition.class), any(Pageable.class), any());
+        then(studentRepo).should().resolveDepartments(window.getContent());
+        ArgumentCaptor<String> cursor = ArgumentCaptor.forClass(String.class);
+        then(studentMapper).should().toScrollResponse(eq(window), eq(1), eq(true), cursor.capture());
+        assertThat(CursorCodec.decode(cursor.getValue(), "lastName", Sort.Direction.ASC).getKeys())
+                .containsEntry("lastName", "Wong")
+                .containsEntry("id", "s1");
+    }
+
+    @Test
+    @DisplayName("getStudentsByDepartment() with a cursor continues after the cursor position")
+    void getStudentsByDepartmentKeyset() {
+        // given
+        String after = CursorCodec.encode(ScrollPosition.forward(Map.of("lastName", "Wong", "id", "s1")), Sort.Direction.ASC);
+        Window<Student> window = Window.from(List.of(), i -> ScrollPosition.keyset());
+        given(studentRepo.scroll(any(CriteriaDefinition.class), any(KeysetScrollPosition.class), any(Sort.class), eq(20), eq(Set.of())))
+                .willReturn(window);
+        StudentPageResponse pageResp = new StudentPageResponse(
+                List.of(), null, 20, null, null, false, true, false, true, null);
+        given(studentMapper.toScrollResponse(window, 20, false, null)).willReturn(pageResp);
+        // when
+        StudentPageResponse resp = service.getStudentsByDepartment("d1", PageParams.of(1, 20, "lastName", "asc").withAfter(after));
+        // then
+        ArgumentCaptor<KeysetScrollPosition> position = ArgumentCaptor.forClass(KeysetScrollPosition.class);
+        then(studentRepo).should().scroll(any(CriteriaDefinition.class), position.capture(), eq(Sort.by("lastName")), eq(20), eq(Set.of()));
+        assertThat(position.getValue().getKeys()).containsEntry("id", "s1");
+        then(studentRepo).should(never()).findPage(any(CriteriaDefinition.class), any(Pageable.class), any());
+        assertThat(resp.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("getActiveStudents() with withTotal=false reads a slice without counting")
+    void getActiveStudentsWithoutTotal() {
+        // given
+        Slice<Student> slice = new SliceImpl<>(List.of(entity), PageRequest.of(0, 1), true);
+        given(studentRepo.findSlice(any(CriteriaDefinition.class), any(Pageable.class), eq(Set.of()))).willReturn(slice);
+        StudentPageResponse pageResp = new StudentPageResponse(
+                List.of(dto), 1, 1, null, null, true, false, true, false);
+        given(studentMapper.toSliceResponse(slice)).willReturn(pageResp);
+        // when
+        StudentPageResponse resp = service.getActiveStudents(PageParams.of(1, 1, "lastName", "asc").withTotal(TotalMode.NONE));
+        // then
+        assertThat(resp).isEqualTo(pageResp);
+        then(studentRepo).should(never()).findPage(any(CriteriaDefinition.class), any(Pageable.class), any());
+        then(studentRepo).should().resolveDepartments(slice.getContent());
+    }
+
+    @Test
+    @DisplayName("getAll() with withTotal=estimated uses the estimated total")
+    void getAllEstimatedTotal() {
+        // given
+        Page<Student> page = new PageImpl<>(List.of(entity), PageRequest.of(0, 1), 500);
+        given(studentRepo.findPageWithEstimatedTotal(any(CriteriaDefinition.class), any(Pageable.class), eq(Set.of()))).willReturn(page);
+        StudentPageResponse pageResp = new StudentPageResponse(
+                List.of(dto), 1, 1, 500L, 500, true, false, true, false);
+        given(studentMapper.toPageResponse(page)).willReturn(pageResp);
+        // when
+        StudentPageResponse resp = service.getAll(PageParams.of(1, 1, "lastName", "asc").withTotal(TotalMode.ESTIMATED));
         // then
         assertThat(resp).isEqualTo(pageResp);
-        then(studentRepo).should().findAll(any(Pageable.class));
+        then(studentRepo).should(never()).findPage(any(CriteriaDefinition.class), any(Pageable.class), any());
+    }
+
+    @Test
+    @DisplayName("getAll() with minPercentage narrows the filter in the database")
+    void getAllMinPercentage() {
+        // given
+        Page<Student> page = new PageImpl<>(List.of(entity), PageRequest.of(0, 1), 1);
+        given(studentRepo.findPage(any(CriteriaDefinition.class), any(Pageable.class), eq(Set.of()))).willReturn(page);
+        given(studentMapper.toPageResponse(page)).willReturn(new StudentPageResponse(
+                List.of(dto), 1, 1, 1L, 1, true, true, false, false));
+        // when
+        service.getAll(PageParams.of(1, 1, "percentage", "desc").withMinPercentage(80.0));
+        // then
+        ArgumentCaptor<CriteriaDefinition> filter = ArgumentCaptor.forClass(CriteriaDefinition.class);
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        then(studentRepo).should().findPage(filter.capture(), pageable.capture(), eq(Set.of()));
+        assertThat(filter.getValue().getCriteriaObject()).isEqualTo(new Document("percentage", new Document("$gte", 80.0)));
+        assertThat(pageable.getValue().getSort()).isEqualTo(Sort.by(Sort.Direction.DESC, "percentage"));
     }
 
     @Test
-    @DisplayName("update() updates and returns DTO")
+    @DisplayName("update() applies the update in one round trip and returns DTO")
     void update() {
         // given
-        given(studentRepo.findById("s1")).willReturn(Optional.of(entity));
         StudentDTO updateDto = new StudentDTO("s1", "Alicia", "Wong", "a.wong@example.com",
                 LocalDate.of(2000, 1, 1), new DepartmentDTO("d1", "CS", "", null),
                 List.of(new CourseDTO("Algo", 95)), LocalDate.of(2020, 8, 20), true, null);
@@ -108,49 +243,109 @@ class StudentServiceImplTest {
         // course conversion
         Course course = new Course();
         course.setName("Algo");
-        course.setMarks(90);
+        course.setMarks(95);
         given(courseMapper.toEntity(any(CourseDTO.class))).willReturn(course);
-        // save
-        given(studentRepo.save(any(Student.class))).willReturn(entity);
-        given(studentMapper.toDto(entity)).willReturn(updateDto);
+        // the write returns the document as it was before
+        given(studentRepo.modify(eq("s1"), eq(StudentCriteria.all()), any(UpdateDefinition.class))).willReturn(Optional.of(entity));
+        given(studentMapper.toDto(any(Student.class))).willReturn(updateDto);
         // when
-        StudentDTO res = service.update("s1", updateDto);
+        StudentDTO res = service.update("s1", updateDto, null);
         // then
         assertThat(res).isEqualTo(updateDto);
-        then(studentRepo).should().save(any(Student.class));
+        then(studentRepo).should(never()).findById(anyString());
+        then(studentRepo).should(never()).save(any(Student.class));
+        // the event carries the state before and after the update
+        ArgumentCaptor<StudentChangedEvent> event = ArgumentCaptor.forClass(StudentChangedEvent.class);
+        then(eventPublisher).should().publishEvent(event.capture());
+        assertThat(event.getValue().before().getFirstName()).isEqualTo("Alice");
+        assertThat(event.getValue().after().getFirstName()).isEqualTo("Alicia");
+        assertThat(event.getValue().after().getPercentage()).isEqualTo(95.0);
+        assertThat(event.getValue().after().getVersion()).isEqualTo(1L);
+        assertThat(registry.get("students.writes").tag("operation", "update").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("update() missing id throws from the write result")
+    void updateNotFound() {
+        // given
+        StudentDTO updateDto = new StudentDTO("s1", "Alicia", "Wong", "a.wong@example.com",
+                LocalDate.of(2000, 1, 1), new DepartmentDTO(null, null, null, null),
+                List.of(new CourseDTO("Algo", 95)), LocalDate.of(2020, 8, 20), true, null);
+        given(courseMapper.toEntity(any(CourseDTO.class))).willReturn(entity.getCourses().get(0));
+        given(studentRepo.modify(eq("s1"), any(), any())).willReturn(Optional.empty());
+        // then
+        assertThatThrownBy(() -> service.update("s1", updateDto, null))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Student not found");
+        then(eventPublisher).shouldHaveNoInteractions();
+    }
+
+    @Test
+    @DisplayName("update() with expected versions only applies to a student still at one of them")
+    void updateIfMatch() {
+        // given
+        StudentDTO updateDto = new StudentDTO("s1", "Alicia", "Wong", "a.wong@example.com",
+                LocalDate.of(2000, 1, 1), new DepartmentDTO(null, null, null, null),
+                List.of(new CourseDTO("Algo", 95)), LocalDate.of(2020, 8, 20), true, null);
+        given(courseMapper.toEntity(any(CourseDTO.class))).willReturn(entity.getCourses().get(0));
+        given(studentRepo.modify(eq("s1"), eq(StudentCriteria.versionIn(Set.of(3L))), any())).willReturn(Optional.empty());
+        given(studentRepo.existsById("s1")).willReturn(true);
+        // then: the student exists at another version
+        assertThatThrownBy(() -> service.update("s1", updateDto, Set.of(3L)))
+                .isInstanceOf(PreconditionFailedException.class);
+        then(eventPublisher).shouldHaveNoInteractions();
     }
 
     @Test
-    @DisplayName("delete() existing id deletes")
+    @DisplayName("getVersion() reads only the id and version")
+    void getVersion() {
+        // given
+        entity.setVersion(5L);
+        given(studentRepo.findById("s1", Set.of("id", "version"))).willReturn(Optional.of(entity));
+        // when / then
+        assertThat(service.getVersion("s1")).isEqualTo(5L);
+        given(studentRepo.findById("s2", Set.of("id", "version"))).willReturn(Optional.empty());
+        assertThatThrownBy(() -> service.getVersion("s2")).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("delete() existing id deletes in one round trip")
     void delete() {
         // given
-        given(studentRepo.findById("s1")).willReturn(Optional.of(entity));
+        given(studentRepo.remove("s1")).willReturn(Optional.of(entity));
         // when
         service.delete("s1");
         // then
-        then(studentRepo).should().delete(entity);
+        then(studentRepo).should(never()).findById(anyString());
+        then(eventPublisher).should().publishEvent(new StudentChangedEvent(entity, null));
+        assertThat(registry.get("students.writes").tag("operation", "delete").timer().count()).isEqualTo(1);
     }
 
     @Test
     @DisplayName("delete() missing id throws")
     void deleteNotFound() {
         // given
-        given(studentRepo.findById("s1")).willReturn(Optional.empty());
+        given(studentRepo.remove("s1")).willReturn(Optional.empty());
         // then
         assertThatThrownBy(() -> service.delete("s1"))
                 .isInstanceOf(ResourceNotFoundException.class);
+        then(eventPublisher).shouldHaveNoInteractions();
     }
 
     @Test
     @DisplayName("searchByName() delegates to repo + mapper")
     void searchByName() {
         // given
-        given(studentRepo.getByName("Al")).willReturn(List.of(entity));
-        given(studentMapper.toDto(entity)).willReturn(dto);
+        Page<Student> page = new PageImpl<>(List.of(entity));
+        given(studentRepo.searchByName(eq("Al"), any(Pageable.class))).willReturn(page);
+        StudentPageResponse pageResp = new StudentPageResponse(
+                List.of(dto), 1, 20, 1L, 1, true, true, false, false);
+        given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        List<StudentDTO> list = service.searchByName("Al");
+        StudentPageResponse resp = service.searchByName("Al", PageParams.of(1, 20, "lastName", "asc"));
         // then
-        assertThat(list).containsExactly(dto);
+        assertThat(resp).isEqualTo(pageResp);
+        then(studentRepo).should().resolveDepartments(page.getContent());
     }
 
     @Test
@@ -158,51 +353,83 @@ class StudentServiceImplTest {
     void textSearch() {
         // given
         Page<Student> page = new PageImpl<>(List.of(entity));
-        given(studentRepo.findAllBy(any(TextCriteria.class), any(Pageable.class))).willReturn(page);
+        given(studentRepo.findPage(eq(StudentCriteria.text("a.wong")), any(Pageable.class), eq(Set.of()))).willReturn(page);
         StudentPageResponse pageResp = new StudentPageResponse(
                 List.of(dto), 1, 20, 1L, 1, true, true, false, false);
         given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        StudentPageResponse resp = service.textSearch("a.wong", 1, 20, "lastName", "asc");
+        StudentPageResponse resp = service.textSearch("a.wong", null, PageParams.of(1, 20, "lastName", "asc"));
         // then
         assertThat(resp).isEqualTo(pageResp);
     }
 
+    @Test
+    @DisplayName("textSearch() with sort=score runs the scored search with the cutoff")
+    void textSearchByScore() {
+        // given
+        Page<Student> page = new PageImpl<>(List.of(entity));
+        given(studentRepo.textSearchByScore(eq(StudentCriteria.text("wong")), eq(0.75f), any(Pageable.class), eq(Set.of())))
+                .willReturn(page);
+        StudentPageResponse pageResp = new StudentPageResponse(
+                List.of(dto), 1, 20, 1L, 1, true, true, false, false);
+        given(studentMapper.toPageResponse(page)).willReturn(pageResp);
+        // when
+        StudentPageResponse resp = service.textSearch("wong", 0.75f, PageParams.of(1, 20, "score", "desc"));
+        // then
+        assertThat(resp).isEqualTo(pageResp);
+        then(studentRepo).should(never()).findPage(any(CriteriaDefinition.class), any(Pageable.class), any());
+    }
+
     @Test
     @DisplayName("getActiveByDepartment() delegates to repo + mapper")
     void getActiveByDepartment() {
         //given
         Page<Student> page = new PageImpl<>(List.of(entity));
-        given(studentRepo.findByDepartment_IdAndActiveTrue(eq("d1"), any(Pageable.class))).willReturn(page);
+        given(studentRepo.findPage(eq(StudentCriteria.activeByDepartment("d1")), any(Pageable.class), eq(Set.of()))).willReturn(page);
         StudentPageResponse pageResp = new StudentPageResponse(
                 List.of(dto), 1, 20, 1L, 1, true, true, false, false);
         given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        StudentPageResponse resp = service.getActiveByDepartment("d1", 1, 20, "lastName", "asc");
+        StudentPageResponse resp = service.getActiveByDepartment("d1", PageParams.of(1, 20, "lastName", "asc"));
         // then
         assertThat(resp).isEqualTo(pageResp);
     }
 
     @Test
-    @DisplayName("getActiveStudentsCount() returns repo count")
+    @DisplayName("getActiveStudentsCount() reads the materialized counters")
     void getActiveStudentsCount() {
         // given
-        given(studentRepo.countByActiveTrue()).willReturn(3);
+        given(countersService.getActiveCount()).willReturn(3L);
         // when
         int count = service.getActiveStudentsCount();
         // then
         assertThat(count).isEqualTo(3);
+        then(studentRepo).shouldHaveNoInteractions();
     }
 
     @Test
-    @DisplayName("isStudentExists() delegates to repo.existsByEmail")
+    @DisplayName("isStudentExists() asks repo.existsByEmail when the email filter says maybe")
     void isStudentExists() {
         // given
+        given(emailFilter.mightContain("a@example.com")).willReturn(true);
         given(studentRepo.existsByEmail("a@example.com")).willReturn(true);
         // when
         boolean exists = service.isStudentExists("a@example.com");
         // then
         assertThat(exists).isTrue();
+        then(emailFilter).should().recordLookup(true);
+    }
+
+    @Test
+    @DisplayName("isStudentExists() answers emails unknown to the filter without a query")
+    void isStudentExistsFilteredOut() {
+        // given
+        given(emailFilter.mightContain("new@example.com")).willReturn(false);
+        // when
+        boolean exists = service.isStudentExists("new@example.com");
+        // then
+        assertThat(exists).isFalse();
+        then(studentRepo).shouldHaveNoInteractions();
     }
 
     @Test
@@ -210,12 +437,12 @@ class StudentServiceImplTest {
     void getStudentByCourse() {
         // given
         Page<Student> page = new PageImpl<>(List.of(entity));
-        given(studentRepo.findByCoursesName(eq("Algo"), any(Pageable.class))).willReturn(page);
+        given(studentRepo.findPage(eq(StudentCriteria.byCourse("Algo")), any(Pageable.class), eq(Set.of()))).willReturn(page);
         StudentPageResponse pageResp = new StudentPageResponse(
                 List.of(dto), 1, 20, 1L, 1, true, true, false, false);
         given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        StudentPageResponse resp = service.getStudentByCourse("Algo", 1, 20, "lastName", "asc");
+        StudentPageResponse resp = service.getStudentByCourse("Algo", PageParams.of(1, 20, "lastName", "asc"));
         // then
         assertThat(resp).isEqualTo(pageResp);
     }
@@ -225,12 +452,12 @@ class StudentServiceImplTest {
     void getHighScorers() {
         // given
         Page<Student> page = new PageImpl<>(List.of(entity));
-        given(studentRepo.findByCoursesNameAndCoursesMarksGreaterThanEqual(eq("Algo"), eq(80), any(Pageable.class))).willReturn(page);
+        given(studentRepo.findPage(eq(StudentCriteria.highScorers("Algo", 80)), any(Pageable.class), eq(Set.of()))).willReturn(page);
         StudentPageResponse pageResp = new StudentPageResponse(
                 List.of(dto), 1, 20, 1L, 1, true, true, false, false);
         given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        StudentPageResponse resp = service.getHighScorers("Algo", 80, 1, 20, "lastName", "asc");
+        StudentPageResponse resp = service.getHighScorers("Algo", 80, PageParams.of(1, 20, "lastName", "asc"));
         // then
         assertThat(resp).isEqualTo(pageResp);
     }
@@ -240,12 +467,12 @@ class StudentServiceImplTest {
     void getStudentsByDepartment() {
         // given
         Page<Student> page = new PageImpl<>(List.of(entity));
-        given(studentRepo.findByDepartment_Id(eq("d1"), any(Pageable.class))).willReturn(page);
+        given(studentRepo.findPage(eq(StudentCriteria.byDepartment("d1")), any(Pageable.class), eq(Set.of()))).willReturn(page);
         StudentPageResponse pageResp = new StudentPageResponse(
                 List.of(dto), 1, 20, 1L, 1, true, true, false, false);
         given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        StudentPageResponse resp = service.getStudentsByDepartment("d1", 1, 20, "lastName", "asc");
+        StudentPageResponse resp = service.getStudentsByDepartment("d1", PageParams.of(1, 20, "lastName", "asc"));
         // then
         assertThat(resp).isEqualTo(pageResp);
     }
@@ -257,12 +484,12 @@ class StudentServiceImplTest {
         LocalDate start = LocalDate.of(1990, 1, 1);
         LocalDate end = LocalDate.of(2000, 12, 31);
         Page<Student> page = new PageImpl<>(List.of(entity));
-        given(studentRepo.findByDobBetween(eq(start), eq(end), any(Pageable.class))).willReturn(page);
+        given(studentRepo.findPage(eq(StudentCriteria.bornBetween(start, end)), any(Pageable.class), eq(Set.of()))).willReturn(page);
         StudentPageResponse pageResp = new StudentPageResponse(
                 List.of(dto), 1, 20, 1L, 1, true, true, false, false);
         given(studentMapper.toPageResponse(page)).willReturn(pageResp);
         // when
-        StudentPageResponse resp = service.getStudentsBornBetween(start, end, 1, 20, "dob", "asc");
+        StudentPageResponse resp = service.getStudentsBornBetween(start, end, PageParams.of(1, 20, "dob", "asc"));
         // then
         assertThat(resp).isEqualTo(pageResp);
     }
@@ -299,6 +526,7 @@ class StudentServiceImplTest {
             assertThat(result.id()).isEqualTo("s1");
             then(departmentRepo).should().findById("d1");
             then(studentRepo).should().save(entity);
+            then(eventPublisher).should().publishEvent(new StudentChangedEvent(null, entity));
         }
 
         @Test
@@ -322,24 +550,249 @@ class StudentServiceImplTest {
         @DisplayName("given existing id, when getById, then returns DTO")
         void getByIdFound() {
             // given
-            given(studentRepo.findById("s1")).willReturn(Optional.of(entity));
+            given(studentRepo.findById("s1", Set.of())).willReturn(Optional.of(entity));
             given(studentMapper.toDto(entity)).willReturn(dto);
             // when
-            StudentDTO result = service.getById("s1");
+            StudentDTO result = service.getById("s1", StudentFields.ALL);
             // then
             assertThat(result).isEqualTo(dto);
         }
 
+        @Test
+        @DisplayName("given a fieldset, when getById, then loads and returns only those fields")
+        void getByIdSparseFieldset() {
+            // given: the percentage is stored, the courses are not needed
+            StudentFields fields = StudentFields.fromParam("firstName,percentage");
+            given(studentRepo.findById("s1", Set.of("firstName", "percentage", "version"))).willReturn(Optional.of(entity));
+            given(studentMapper.toDto(entity)).willReturn(dto);
+            // when
+            StudentDTO result = service.getById("s1", fields);
+            // then
+            assertThat(result.firstName()).isEqualTo(dto.firstName());
+            assertThat(result.percentage()).isEqualTo(dto.percentage());
+            assertThat(result.id()).isNull();
+            assertThat(result.email()).isNull();
+            assertThat(result.courses()).isNull();
+        }
+
         @Test
         @DisplayName("given non-existing id, when getById, then throw ResourceNotFoundException")
         void getByIdNotFound() {
             // given
-            given(studentRepo.findById("s1")).willReturn(Optional.empty());
+            given(studentRepo.findById("s1", Set.of())).willReturn(Optional.empty());
             // then
-            assertThatThrownBy(() -> service.getById("s1"))
+            assertThatThrownBy(() -> service.getById("s1", StudentFields.ALL))
                     .isInstanceOf(ResourceNotFoundException.class)
                     .hasMessageContaining("Student not found");
         }
     }
 
-}
\ No newline at end of file
+    @Nested
+    @DisplayName("patch()")
+    class PatchTests {
+        @Test
+        @DisplayName("given some fields, when patch, then sets only those and publishes the change")
+        void patchSetsGivenFields() {
+            // given
+            StudentPatch req = new StudentPatch("Alicia", null, null, null, null, null, false);
+            given(studentRepo.modify(eq("s1"), eq(StudentCriteria.all()), any(UpdateDefinition.class)))
+                    .willReturn(Optional.of(entity));
+            given(studentMapper.toDto(any(Student.class))).willReturn(dto);
+            // when
+            service.patch("s1", req);
+            // then
+            ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+            then(studentRepo).should().modify(eq("s1"), eq(StudentCriteria.all()), update.capture());
+            assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+                    .containsOnlyKeys("firstName", "firstNameLower", "active")
+                    .containsEntry("firstNameLower", "alicia");
+            ArgumentCaptor<StudentChangedEvent> event = ArgumentCaptor.forClass(StudentChangedEvent.class);
+            then(eventPublisher).should().publishEvent(event.capture());
+            assertThat(event.getValue().before()).isSameAs(entity);
+            assertThat(event.getValue().after().getFirstName()).isEqualTo("Alicia");
+            assertThat(event.getValue().after().getLastName()).isEqualTo("Wong");
+            assertThat(event.getValue().after().isActive()).isFalse();
+        }
+
+        @Test
+        @DisplayName("given no department, when patch, then returns the stored department from the cache")
+        void patchKeepsDepartmentReference() {
+            // given
+            String deptId = new ObjectId().toHexString();
+            entity.setDepartment(departmentProxy(deptId));
+            given(departmentCache.get(deptId)).willReturn(Optional.of(dept));
+            given(studentRepo.modify(eq("s1"), eq(StudentCriteria.all()), any(UpdateDefinition.class)))
+                    .willReturn(Optional.of(entity));
+            given(studentMapper.toDto(any(Student.class))).willReturn(dto);
+            // when
+            service.patch("s1", new StudentPatch("Alicia", null, null, null, null, null, null));
+            // then
+            ArgumentCaptor<Student> mapped = ArgumentCaptor.forClass(Student.class);
+            then(studentMapper).should().toDto(mapped.capture());
+            assertThat(mapped.getValue().getDepartment()).isSameAs(dept);
+            then(departmentRepo).shouldHaveNoInteractions();
+            then(studentRepo).should().modify(eq("s1"), eq(StudentCriteria.all()), any(UpdateDefinition.class));
+            then(studentRepo).shouldHaveNoMoreInteractions();
+        }
+
+        @Test
+        @DisplayName("given an empty payload, when patch, then reads the student without writing")
+        void patchNothing() {
+            // given
+            given(studentRepo.findById("s1", Set.of())).willReturn(Optional.of(entity));
+            given(studentMapper.toDto(entity)).willReturn(dto);
+            // when
+            StudentDTO result = service.patch("s1", new StudentPatch(null, null, null, null, null, null, null));
+            // then
+            assertThat(result).isEqualTo(dto);
+            then(studentRepo).should(never()).modify(anyString(), any(), any());
+            then(eventPublisher).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("given a missing department, when patch, then throw ResourceNotFoundException")
+        void patchDeptNotFound() {
+            // given
+            given(departmentRepo.findById("d2")).willReturn(Optional.empty());
+            StudentPatch req = new StudentPatch(null, null, null, null, new DepartmentDTO("d2", null, null, null), null, null);
+            // then
+            assertThatThrownBy(() -> service.patch("s1", req))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessageContaining("Department not found");
+            then(studentRepo).should(never()).modify(anyString(), any(), any());
+        }
+
+        @Test
+        @DisplayName("given non-existing id, when patch, then throw ResourceNotFoundException")
+        void patchNotFound() {
+            // given
+            given(studentRepo.modify(eq("s1"), any(), any())).willReturn(Optional.empty());
+            // then
+            assertThatThrownBy(() -> service.patch("s1", new StudentPatch("Alicia", null, null, null, null, null, null)))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessageContaining("Student not found");
+            then(eventPublisher).shouldHaveNoInteractions();
+        }
+    }
+
+    @Nested
+    @DisplayName("course updates")
+    class CourseTests {
+        @Test
+        @DisplayName("given a department that no longer exists, when removeCourse, then returns it by id alone")
+        void removeCourseKeepsDepartmentReference() {
+            // given
+            String deptId = new ObjectId().toHexString();
+            entity.setDepartment(departmentProxy(deptId));
+            given(departmentCache.get(deptId)).willReturn(Optional.empty());
+            given(studentRepo.modify(eq("s1"), eq(StudentCriteria.byCourse("Algo")), any())).willReturn(Optional.of(entity));
+            given(studentMapper.toDto(any(Student.class))).willReturn(dto);
+            // when
+            service.removeCourse("s1", "Algo");
+            // then
+            ArgumentCaptor<Student> mapped = ArgumentCaptor.forClass(Student.class);
+            then(studentMapper).should().toDto(mapped.capture());
+            assertThat(mapped.getValue().getDepartment()).isNotInstanceOf(LazyLoadingProxy.class);
+            assertThat(mapped.getValue().getDepartment().getId()).isEqualTo(deptId);
+            // listeners still see the document as written
+            assertThat(publishedAfter().getDepartment()).isInstanceOf(LazyLoadingProxy.class);
+            then(departmentRepo).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("given a new course, when addCourse, then appends it and recomputes the percentage")
+        void addCourse() {
+            // given
+            CourseDTO req = new CourseDTO("DB", 75);
+            Course course = new Course();
+            course.setName("DB");
+            course.setMarks(75);
+            given(courseMapper.toEntity(req)).willReturn(course);
+            given(studentRepo.modify(eq("s1"), eq(StudentCriteria.notEnrolled("DB")), any())).willReturn(Optional.of(entity));
+            given(studentMapper.toDto(any(Student.class))).willReturn(dto);
+            // when
+            service.addCourse("s1", req);
+            // then
+            Student after = publishedAfter();
+            assertThat(after.getCourses()).extracting(Course::getName).containsExactly("Algo", "DB");
+            assertThat(after.getPercentage()).isEqualTo(82.5);
+        }
+
+        @Test
+        @DisplayName("given a course the student takes, when addCourse, then throw InvalidRequestParameterException")
+        void addCourseTwice() {
+            // given
+            Course course = new Course();
+            course.setName("Algo");
+            course.setMarks(80);
+            given(courseMapper.toEntity(any())).willReturn(course);
+            given(studentRepo.modify(eq("s1"), any(), any())).willReturn(Optional.empty());
+            given(studentRepo.existsById("s1")).willReturn(true);
+            // then
+            assertThatThrownBy(() -> service.addCourse("s1", new CourseDTO("Algo", 80)))
+                    .isInstanceOf(InvalidRequestParameterException.class);
+            then(eventPublisher).shouldHaveNoInteractions();
+        }
+
+        @Test
+        @DisplayName("given non-existing id, when addCourse, then throw ResourceNotFoundException")
+        void addCourseStudentNotFound() {
+            // given
+            given(courseMapper.toEntity(any())).willReturn(new Course());
+            given(studentRepo.modify(eq("s1"), any(), any())).willReturn(Optional.empty());
+            given(studentRepo.existsById("s1")).willReturn(false);
+            // then
+            assertThatThrownBy(() -> service.addCourse("s1", new CourseDTO("DB", 75)))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessageContaining("Student not found");
+        }
+
+        @Test
+        @DisplayName("given a course the student takes, when updateMarks, then changes its marks")
+        void updateMarks() {
+            // given
+            given(studentRepo.modify(eq("s1"), eq(StudentCriteria.byCourse("Algo")), any())).willReturn(Optional.of(entity));
+            given(studentMapper.toDto(any(Student.class))).willReturn(dto);
+            // when
+            service.updateMarks("s1", "Algo", new MarksUpdate(70));
+            // then
+            Student after = publishedAfter();
+            assertThat(after.getCourses()).extracting(Course::getMarks).containsExactly(70);
+            assertThat(after.getPercentage()).isEqualTo(70.0);
+            assertThat(entity.getCourses()).extracting(Course::getMarks).containsExactly(90);
+        }
+
+        @Test
+        @DisplayName("given a course the student does not take, when updateMarks, then throw ResourceNotFoundException")
+        void updateMarksCourseNotFound() {
+            // given
+            given(studentRepo.modify(eq("s1"), any(), any())).willReturn(Optional.empty());
+            given(studentRepo.existsById("s1")).willReturn(true);
+            // then
+            assertThatThrownBy(() -> service.updateMarks("s1", "DB", new MarksUpdate(70)))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessageContaining("Course not found");
+        }
+
+        @Test
+        @DisplayName("given a course the student takes, when removeCourse, then drops it")
+        void removeCourse() {
+            // given
+            given(studentRepo.modify(eq("s1"), eq(StudentCriteria.byCourse("Algo")), any())).willReturn(Optional.of(entity));
+            given(studentMapper.toDto(any(Student.class))).willReturn(dto);
+            // when
+            service.removeCourse("s1", "Algo");
+            // then
+            Student after = publishedAfter();
+            assertThat(after.getCourses()).isEmpty();
+            assertThat(after.getPercentage()).isEqualTo(0.0);
+        }
+
+        private Student publishedAfter() {
+            ArgumentCaptor<StudentChangedEvent> event = ArgumentCaptor.forClass(StudentChangedEvent.class);
+            then(eventPublisher).should().publishEvent(event.capture());
+            assertThat(event.getValue().before()).isSameAs(entity);
+            return event.getValue().after();
+        }
+    }
+}